@@ -369,6 +369,11 @@ public class AndroidJobManager implements IJobManager {
         public String getDeprecatedStartParameter() {
             return null;
         }
+
+        @Override
+        public void wakeUp() {
+            // this single job runs on its own timer and is not woken up early
+        }
     }
 
     @Override
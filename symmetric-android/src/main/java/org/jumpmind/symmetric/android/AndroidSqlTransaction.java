@@ -62,6 +62,21 @@ public class AndroidSqlTransaction implements ISqlTransaction {
     public void setInBatchMode(boolean batchMode) {
     }
 
+    public void setStatementCacheSize(int size) {
+    }
+
+    public int getBatchSize() {
+        return 1;
+    }
+
+    public <T> List<T> getMarkersWithNoUpdates(boolean clear) {
+        return new ArrayList<T>(0);
+    }
+
+    public <T> List<T> getMarkersWithUnknownUpdates(boolean clear) {
+        return new ArrayList<T>(0);
+    }
+
     public boolean isInBatchMode() {
         return false;
     }
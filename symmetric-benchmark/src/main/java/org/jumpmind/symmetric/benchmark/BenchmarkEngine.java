@@ -0,0 +1,106 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.Properties;
+
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.util.BasicDataSourcePropertyConstants;
+import org.jumpmind.properties.TypedProperties;
+import org.jumpmind.symmetric.ClientSymmetricEngine;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.common.SystemConstants;
+
+/**
+ * Builds the embedded H2 engines and platforms shared by the benchmarks. The
+ * source engine is a registration server in the <code>bench-server</code>
+ * group that captures <code>bench_item</code> and routes it to node
+ * <code>001</code> in the <code>bench-client</code> group.
+ */
+public final class BenchmarkEngine {
+
+    public static final String SOURCE_NODE_ID = "000";
+
+    public static final String TARGET_NODE_ID = "001";
+
+    public static final String SOURCE_GROUP_ID = "bench-server";
+
+    public static final String TARGET_GROUP_ID = "bench-client";
+
+    public static final String CHANNEL_ID = "bench";
+
+    public static final String TABLE_NAME = "bench_item";
+
+    private BenchmarkEngine() {
+    }
+
+    public static ISymmetricEngine createSourceEngine(String name) {
+        System.setProperty(SystemConstants.SYSPROP_WAIT_FOR_DATABASE, "false");
+        Properties properties = createDatabaseProperties(name);
+        properties.setProperty(ParameterConstants.ENGINE_NAME, name);
+        properties.setProperty(ParameterConstants.NODE_GROUP_ID, SOURCE_GROUP_ID);
+        properties.setProperty(ParameterConstants.EXTERNAL_ID, SOURCE_NODE_ID);
+        properties.setProperty(ParameterConstants.SYNC_URL, "http://localhost:31415/sync/" + name);
+        properties.setProperty(ParameterConstants.REGISTRATION_URL, "");
+        properties.setProperty(ParameterConstants.AUTO_INSERT_REG_SVR_IF_NOT_FOUND, "true");
+        properties.setProperty(ParameterConstants.AUTO_CONFIGURE_REG_SVR_DDLUTIL_XML, "/benchmark-schema.xml");
+        properties.setProperty(ParameterConstants.AUTO_CONFIGURE_REG_SVR_SQL_SCRIPT, "/benchmark-config.sql");
+        properties.setProperty(ParameterConstants.ROUTE_ON_EXTRACT, "false");
+        properties.setProperty(ParameterConstants.HEARTBEAT_SYNC_ON_STARTUP, "false");
+        properties.setProperty(ParameterConstants.START_PULL_JOB, "false");
+        properties.setProperty(ParameterConstants.START_PUSH_JOB, "false");
+        properties.setProperty(ParameterConstants.START_ROUTE_JOB, "false");
+        properties.setProperty(ParameterConstants.START_PURGE_INCOMING_JOB, "false");
+        properties.setProperty(ParameterConstants.START_PURGE_OUTGOING_JOB, "false");
+        properties.setProperty(ParameterConstants.START_HEARTBEAT_JOB, "false");
+        properties.setProperty(ParameterConstants.START_SYNCTRIGGERS_JOB, "false");
+        properties.setProperty(ParameterConstants.START_STATISTIC_FLUSH_JOB, "false");
+        properties.setProperty(ParameterConstants.START_STAGE_MGMT_JOB, "false");
+        properties.setProperty(ParameterConstants.START_WATCHDOG_JOB, "false");
+        properties.setProperty(ParameterConstants.START_MONITOR_JOB, "false");
+        properties.setProperty(ParameterConstants.START_REFRESH_CACHE_JOB, "false");
+        ClientSymmetricEngine engine = new ClientSymmetricEngine(properties, false);
+        engine.start(false);
+        engine.syncTriggers();
+        return engine;
+    }
+
+    public static IDatabasePlatform createTargetPlatform(String name) {
+        System.setProperty(SystemConstants.SYSPROP_WAIT_FOR_DATABASE, "false");
+        IDatabasePlatform platform = ClientSymmetricEngine.createDatabasePlatform(null,
+                new TypedProperties(createDatabaseProperties(name)), null, false);
+        platform.createDatabase(
+                platform.readDatabaseFromXml("/benchmark-schema.xml", true), true, false);
+        return platform;
+    }
+
+    protected static Properties createDatabaseProperties(String name) {
+        Properties properties = new Properties();
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_DRIVER, "org.h2.Driver");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_URL,
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_USER, "sa");
+        properties.setProperty(BasicDataSourcePropertyConstants.DB_POOL_PASSWORD, "");
+        return properties;
+    }
+
+}
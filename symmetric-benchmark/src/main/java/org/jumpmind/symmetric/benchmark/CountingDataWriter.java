@@ -0,0 +1,91 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.IDataWriter;
+import org.jumpmind.util.Statistics;
+
+/**
+ * A terminal writer that only counts what reaches it, so a benchmark measures
+ * the readers and filters in front of it rather than a database.
+ */
+public class CountingDataWriter implements IDataWriter {
+
+    protected long rowCount;
+
+    protected long hash;
+
+    protected Map<Batch, Statistics> statistics = new HashMap<Batch, Statistics>();
+
+    public void open(DataContext context) {
+    }
+
+    public void close() {
+    }
+
+    public Map<Batch, Statistics> getStatistics() {
+        return statistics;
+    }
+
+    public void start(Batch batch) {
+        statistics.put(batch, new Statistics());
+    }
+
+    public boolean start(Table table) {
+        return true;
+    }
+
+    public void write(CsvData data) {
+        rowCount++;
+        String[] values = data.getParsedData(CsvData.ROW_DATA);
+        if (values != null) {
+            hash += values.length;
+        }
+    }
+
+    public void end(Table table) {
+    }
+
+    public void end(Batch batch, boolean inError) {
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public void reset() {
+        rowCount = 0;
+        hash = 0;
+        statistics.clear();
+    }
+
+}
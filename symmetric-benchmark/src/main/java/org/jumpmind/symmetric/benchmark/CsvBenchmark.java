@@ -0,0 +1,115 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.symmetric.csv.CsvReader;
+import org.jumpmind.symmetric.csv.CsvWriter;
+import org.jumpmind.symmetric.io.data.CsvUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing and writing of the row level CSV used in sym_data and the protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int rowCount;
+
+    protected String[][] rows;
+
+    protected String[] lines;
+
+    protected String text;
+
+    @Setup
+    public void setup() throws IOException {
+        rows = new String[rowCount][];
+        lines = new String[rowCount];
+        StringWriter buffer = new StringWriter();
+        CsvWriter writer = new CsvWriter(buffer, ',');
+        writer.setEscapeMode(CsvWriter.ESCAPE_MODE_BACKSLASH);
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = SyntheticBatch.createRow(i);
+            lines[i] = CsvUtils.escapeCsvData(rows[i]);
+            writer.writeRecord(rows[i], true);
+        }
+        writer.close();
+        text = buffer.toString();
+    }
+
+    @Benchmark
+    public void readRecords(Blackhole blackhole) throws IOException {
+        CsvReader reader = CsvUtils.getCsvReader(new StringReader(text));
+        while (reader.readRecord()) {
+            blackhole.consume(reader.getValues());
+        }
+        reader.close();
+    }
+
+    @Benchmark
+    public void writeRecords(Blackhole blackhole) throws IOException {
+        StringWriter buffer = new StringWriter();
+        CsvWriter writer = new CsvWriter(buffer, ',');
+        writer.setEscapeMode(CsvWriter.ESCAPE_MODE_BACKSLASH);
+        for (String[] row : rows) {
+            writer.writeRecord(row, true);
+        }
+        writer.close();
+        blackhole.consume(buffer.toString());
+    }
+
+    @Benchmark
+    public void tokenizeRows(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(CsvUtils.tokenizeCsvData(line));
+        }
+    }
+
+    @Benchmark
+    public void escapeRows(Blackhole blackhole) {
+        for (String[] row : rows) {
+            blackhole.consume(CsvUtils.escapeCsvData(row));
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.symmetric.model.DataGap;
+import org.jumpmind.symmetric.route.DataGapIntervals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Gap bookkeeping done by the route reader for each data row, comparing the
+ * list of {@link DataGap} objects with {@link DataGapIntervals}. The ordered
+ * walk is what routing does for ordered sequences and the random lookups are
+ * what it does for Oracle sequences that are not ordered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataGapBenchmark {
+
+    @Param({ "1000", "50000" })
+    public int gapCount;
+
+    protected List<DataGap> gaps;
+
+    protected long[] orderedDataIds;
+
+    protected long[] randomDataIds;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(gapCount);
+        gaps = new ArrayList<DataGap>(gapCount);
+        List<Long> dataIds = new ArrayList<Long>();
+        long id = 1;
+        for (int i = 0; i < gapCount; i++) {
+            long start = id + 1 + random.nextInt(5);
+            long end = start + random.nextInt(3);
+            gaps.add(new DataGap(start, end));
+            for (long dataId = id; dataId <= end; dataId++) {
+                dataIds.add(dataId);
+            }
+            id = end + 1;
+        }
+        orderedDataIds = new long[dataIds.size()];
+        randomDataIds = new long[dataIds.size()];
+        for (int i = 0; i < orderedDataIds.length; i++) {
+            orderedDataIds[i] = dataIds.get(i);
+            randomDataIds[i] = dataIds.get(random.nextInt(dataIds.size()));
+        }
+    }
+
+    @Benchmark
+    public int orderedWalkList() {
+        List<DataGap> dataGaps = new ArrayList<DataGap>(gaps);
+        DataGap currentGap = dataGaps.remove(0);
+        int inGap = 0;
+        for (long dataId : orderedDataIds) {
+            boolean okToProcess = false;
+            while (!okToProcess && currentGap != null && dataId >= currentGap.getStartId()) {
+                if (dataId <= currentGap.getEndId()) {
+                    okToProcess = true;
+                } else if (dataGaps.size() > 0) {
+                    currentGap = dataGaps.remove(0);
+                } else {
+                    currentGap = null;
+                }
+            }
+            if (okToProcess) {
+                inGap++;
+            }
+        }
+        return inGap;
+    }
+
+    @Benchmark
+    public int orderedWalkIntervals() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps);
+        int index = 0;
+        int inGap = 0;
+        for (long dataId : orderedDataIds) {
+            index = intervals.advance(index, dataId);
+            if (intervals.isInRange(index, dataId)) {
+                inGap++;
+            }
+        }
+        return inGap;
+    }
+
+    @Benchmark
+    public int randomLookupList() {
+        int inGap = 0;
+        for (long dataId : randomDataIds) {
+            int start = 0;
+            int end = gaps.size() - 1;
+            while (start <= end) {
+                int mid = (start + end) / 2;
+                DataGap midGap = gaps.get(mid);
+                if (dataId >= midGap.getStartId() && dataId <= midGap.getEndId()) {
+                    inGap++;
+                    break;
+                }
+                if (dataId < midGap.getStartId()) {
+                    end = mid - 1;
+                } else {
+                    start = mid + 1;
+                }
+            }
+        }
+        return inGap;
+    }
+
+    @Benchmark
+    public int randomLookupIntervals() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps);
+        int inGap = 0;
+        for (long dataId : randomDataIds) {
+            if (intervals.contains(dataId)) {
+                inGap++;
+            }
+        }
+        return inGap;
+    }
+
+}
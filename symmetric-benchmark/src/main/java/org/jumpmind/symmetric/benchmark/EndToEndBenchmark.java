@@ -0,0 +1,147 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.DataProcessor;
+import org.jumpmind.symmetric.io.data.reader.ProtocolDataReader;
+import org.jumpmind.symmetric.io.data.writer.DefaultDatabaseWriter;
+import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.service.IDataExtractorService;
+import org.jumpmind.symmetric.service.IOutgoingBatchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A full replication cycle on embedded H2: rows are inserted into a captured
+ * table, routed, extracted to the CSV protocol and loaded into a second
+ * database. Each invocation measures one complete cycle for a fixed number of
+ * changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    static final String INSERT_SQL = "insert into bench_item (id, store_id, name, amount, last_update_time) values (?,?,?,?,?)";
+
+    static final int[] INSERT_TYPES = { Types.INTEGER, Types.VARCHAR, Types.VARCHAR,
+            Types.DECIMAL, Types.TIMESTAMP };
+
+    @Param({ "100", "1000" })
+    public int rowCount;
+
+    protected ISymmetricEngine engine;
+
+    protected IDatabasePlatform targetPlatform;
+
+    protected int nextId;
+
+    @Setup
+    public void setup() {
+        engine = BenchmarkEngine.createSourceEngine("e2e-source");
+        targetPlatform = BenchmarkEngine.createTargetPlatform("e2e-target");
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.stop();
+    }
+
+    @Benchmark
+    public long replicate() {
+        capture();
+        engine.route();
+        String payload = extract();
+        return load(payload);
+    }
+
+    protected void capture() {
+        ISqlTransaction transaction = null;
+        try {
+            transaction = engine.getDatabasePlatform().getSqlTemplate().startSqlTransaction();
+            transaction.setInBatchMode(true);
+            transaction.prepare(INSERT_SQL);
+            for (int i = 0; i < rowCount; i++) {
+                int id = ++nextId;
+                transaction.addRow(id, new Object[] { id,
+                        SyntheticBatch.STORE_IDS[id % SyntheticBatch.STORE_IDS.length],
+                        "item " + id, new BigDecimal(id).movePointLeft(2),
+                        new Timestamp(System.currentTimeMillis()) }, INSERT_TYPES);
+            }
+            transaction.flush();
+            transaction.commit();
+        } catch (RuntimeException ex) {
+            if (transaction != null) {
+                transaction.rollback();
+            }
+            throw ex;
+        } finally {
+            if (transaction != null) {
+                transaction.close();
+            }
+        }
+    }
+
+    protected String extract() {
+        IOutgoingBatchService outgoingBatchService = engine.getOutgoingBatchService();
+        IDataExtractorService dataExtractorService = engine.getDataExtractorService();
+        StringWriter writer = new StringWriter();
+        for (OutgoingBatch batch : outgoingBatchService.getOutgoingBatches(
+                BenchmarkEngine.TARGET_NODE_ID, false).getBatches()) {
+            dataExtractorService.extractBatchRange(writer, BenchmarkEngine.TARGET_NODE_ID,
+                    batch.getBatchId(), batch.getBatchId());
+        }
+        outgoingBatchService.markAllAsSentForNode(BenchmarkEngine.TARGET_NODE_ID, false);
+        return writer.toString();
+    }
+
+    protected long load(String payload) {
+        ProtocolDataReader reader = new ProtocolDataReader(BatchType.LOAD,
+                BenchmarkEngine.TARGET_NODE_ID, payload);
+        DefaultDatabaseWriter writer = new DefaultDatabaseWriter(targetPlatform);
+        new DataProcessor(reader, writer, "benchmark").process();
+        return reader.getStatistics().size();
+    }
+
+}
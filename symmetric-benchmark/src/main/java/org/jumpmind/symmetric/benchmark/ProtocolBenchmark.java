@@ -0,0 +1,98 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataProcessor;
+import org.jumpmind.symmetric.io.data.reader.ProtocolDataReader;
+import org.jumpmind.symmetric.io.data.writer.ProtocolDataWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading and writing synthetic batches in the CSV transport protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    @Param({ "10" })
+    public int batchCount;
+
+    @Param({ "100", "1000" })
+    public int rowsPerBatch;
+
+    protected Table table;
+
+    protected CsvData[] data;
+
+    protected String protocol;
+
+    @Setup
+    public void setup() {
+        table = SyntheticBatch.createTable();
+        data = SyntheticBatch.createData(rowsPerBatch);
+        protocol = SyntheticBatch.toProtocol(batchCount, rowsPerBatch);
+    }
+
+    @Benchmark
+    public void writeBatches(Blackhole blackhole) {
+        StringWriter buffer = new StringWriter();
+        ProtocolDataWriter writer = new ProtocolDataWriter(BenchmarkEngine.SOURCE_NODE_ID, buffer,
+                false);
+        writer.open(new DataContext());
+        for (int i = 1; i <= batchCount; i++) {
+            SyntheticBatch.write(writer, SyntheticBatch.createBatch(i), table, data);
+        }
+        writer.close();
+        blackhole.consume(buffer.toString());
+    }
+
+    @Benchmark
+    public long readBatches() {
+        ProtocolDataReader reader = new ProtocolDataReader(BatchType.LOAD,
+                BenchmarkEngine.TARGET_NODE_ID, protocol);
+        CountingDataWriter writer = new CountingDataWriter();
+        new DataProcessor(reader, writer, "benchmark").process();
+        return writer.getRowCount();
+    }
+
+}
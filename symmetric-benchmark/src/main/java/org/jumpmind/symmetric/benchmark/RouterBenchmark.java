@@ -0,0 +1,146 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.io.data.CsvUtils;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.model.Data;
+import org.jumpmind.symmetric.model.DataMetaData;
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeChannel;
+import org.jumpmind.symmetric.model.Router;
+import org.jumpmind.symmetric.model.TriggerHistory;
+import org.jumpmind.symmetric.route.IDataRouter;
+import org.jumpmind.symmetric.route.SimpleRouterContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs captured rows through the built-in {@link IDataRouter}s that route
+ * application tables the way the routing job does, with one router context
+ * per invocation so per batch caches behave as they would in production.
+ * The configuration, file sync, csv, dbf and tps routers are not included
+ * because they only route rows of SymmetricDS tables that describe
+ * configuration or files on disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouterBenchmark {
+
+    @Param({ "default", "column", "bsh", "subselect", "lookuptable", "audit" })
+    public String routerType;
+
+    @Param({ "1000" })
+    public int dataCount;
+
+    protected ISymmetricEngine engine;
+
+    protected IDataRouter dataRouter;
+
+    protected DataMetaData[] dataMetaData;
+
+    protected Set<Node> nodes;
+
+    protected NodeChannel nodeChannel;
+
+    @Setup
+    public void setup() {
+        engine = BenchmarkEngine.createSourceEngine("router");
+        dataRouter = engine.getRouterService().getRouters().get(routerType);
+        if (dataRouter == null) {
+            throw new IllegalStateException("Could not find a router of type " + routerType);
+        }
+
+        Router router = new Router("bench-" + routerType, BenchmarkEngine.SOURCE_GROUP_ID,
+                BenchmarkEngine.TARGET_GROUP_ID, routerType);
+        router.setRouterExpression(getRouterExpression(routerType));
+
+        nodes = new HashSet<Node>();
+        for (int i = 1; i <= SyntheticBatch.STORE_IDS.length; i++) {
+            nodes.add(new Node(String.format("%03d", i), BenchmarkEngine.TARGET_GROUP_ID));
+        }
+
+        nodeChannel = new NodeChannel(BenchmarkEngine.CHANNEL_ID);
+        Table table = SyntheticBatch.createTable();
+        TriggerHistory triggerHistory = new TriggerHistory(BenchmarkEngine.TABLE_NAME, "ID",
+                "ID,STORE_ID,NAME,AMOUNT,LAST_UPDATE_TIME");
+        dataMetaData = new DataMetaData[dataCount];
+        for (int i = 0; i < dataCount; i++) {
+            String[] row = SyntheticBatch.createRow(i);
+            Data data = new Data(BenchmarkEngine.TABLE_NAME, DataEventType.INSERT,
+                    CsvUtils.escapeCsvData(row), row[0], triggerHistory,
+                    BenchmarkEngine.CHANNEL_ID, null, null);
+            data.setDataId(i + 1);
+            dataMetaData[i] = new DataMetaData(data, table, router, nodeChannel);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.stop();
+    }
+
+    @Benchmark
+    public void routeToNodes(Blackhole blackhole) {
+        SimpleRouterContext context = new SimpleRouterContext(BenchmarkEngine.SOURCE_NODE_ID,
+                nodeChannel);
+        for (DataMetaData metaData : dataMetaData) {
+            blackhole.consume(dataRouter.routeToNodes(context, metaData, nodes, false, false,
+                    null));
+        }
+    }
+
+    protected static String getRouterExpression(String routerType) {
+        if ("column".equals(routerType)) {
+            return "STORE_ID=store-1 or STORE_ID=store-3";
+        } else if ("bsh".equals(routerType)) {
+            return "STORE_ID.equals(\"store-1\") || STORE_ID.equals(\"store-3\")";
+        } else if ("subselect".equals(routerType)) {
+            return "c.external_id in (select external_id from bench_store_node where store_id=:STORE_ID)";
+        } else if ("lookuptable".equals(routerType)) {
+            return "LOOKUP_TABLE=bench_store_node KEY_COLUMN=STORE_ID LOOKUP_KEY_COLUMN=store_id EXTERNAL_ID_COLUMN=external_id";
+        } else {
+            return null;
+        }
+    }
+
+}
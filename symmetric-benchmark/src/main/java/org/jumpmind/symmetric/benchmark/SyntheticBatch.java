@@ -0,0 +1,104 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.io.data.IDataWriter;
+import org.jumpmind.symmetric.io.data.writer.ProtocolDataWriter;
+
+/**
+ * Generates deterministic rows for <code>bench_item</code> and renders them in
+ * the CSV protocol so every benchmark works from the same data.
+ */
+public final class SyntheticBatch {
+
+    public static final String[] STORE_IDS = { "store-1", "store-2", "store-3", "store-4" };
+
+    private SyntheticBatch() {
+    }
+
+    public static Table createTable() {
+        return new Table(BenchmarkEngine.TABLE_NAME,
+                new Column("id", true, Types.INTEGER, 0, 0),
+                new Column("store_id", false, Types.VARCHAR, 20, 0),
+                new Column("name", false, Types.VARCHAR, 50, 0),
+                new Column("amount", false, Types.DECIMAL, 12, 2),
+                new Column("last_update_time", false, Types.TIMESTAMP, 0, 0));
+    }
+
+    public static String[] createRow(int id) {
+        return new String[] { Integer.toString(id), STORE_IDS[id % STORE_IDS.length],
+                "item \"" + id + "\", with a comma", new BigDecimal(id).movePointLeft(2).toString(),
+                new Timestamp(1500000000000l + id * 1000l).toString() };
+    }
+
+    public static CsvData[] createData(int rowCount) {
+        CsvData[] data = new CsvData[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            data[i] = new CsvData(DataEventType.INSERT, createRow(i));
+        }
+        return data;
+    }
+
+    public static Batch createBatch(long batchId) {
+        return new Batch(BatchType.EXTRACT, batchId, BenchmarkEngine.CHANNEL_ID,
+                BinaryEncoding.BASE64, BenchmarkEngine.SOURCE_NODE_ID,
+                BenchmarkEngine.TARGET_NODE_ID, false);
+    }
+
+    public static void write(IDataWriter writer, Batch batch, Table table, CsvData[] data) {
+        writer.start(batch);
+        if (writer.start(table)) {
+            for (CsvData csvData : data) {
+                writer.write(csvData);
+            }
+            writer.end(table);
+        }
+        writer.end(batch, false);
+    }
+
+    public static String toProtocol(int batchCount, int rowsPerBatch) {
+        StringWriter buffer = new StringWriter();
+        ProtocolDataWriter writer = new ProtocolDataWriter(BenchmarkEngine.SOURCE_NODE_ID, buffer,
+                false);
+        writer.open(new DataContext());
+        Table table = createTable();
+        CsvData[] data = createData(rowsPerBatch);
+        for (int i = 1; i <= batchCount; i++) {
+            write(writer, createBatch(i), table, data);
+        }
+        writer.close();
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.transform.TransformColumn;
+import org.jumpmind.symmetric.io.data.transform.TransformPoint;
+import org.jumpmind.symmetric.io.data.transform.TransformTable;
+import org.jumpmind.symmetric.io.data.writer.TransformWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pushes a batch through a {@link TransformWriter} that renames the table,
+ * copies the key columns and derives one column with the column transform
+ * under test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+
+    @Param({ "copy", "const", "substr", "left", "valueMap", "bsh" })
+    public String transformType;
+
+    @Param({ "1000" })
+    public int rowCount;
+
+    protected ISymmetricEngine engine;
+
+    protected TransformWriter transformWriter;
+
+    protected CountingDataWriter targetWriter;
+
+    protected Table table;
+
+    protected CsvData[] data;
+
+    @Setup
+    public void setup() {
+        engine = BenchmarkEngine.createSourceEngine("transform");
+        table = SyntheticBatch.createTable();
+        data = SyntheticBatch.createData(rowCount);
+
+        TransformTable transform = new TransformTable(BenchmarkEngine.TABLE_NAME,
+                "bench_item_transformed", TransformPoint.LOAD,
+                new TransformColumn("id", "id", true),
+                new TransformColumn("name", "description", false),
+                new TransformColumn("amount", "amount", false),
+                new TransformColumn("store_id", "region", false, transformType,
+                        getTransformExpression(transformType)));
+        transform.setTransformId("bench-" + transformType);
+
+        targetWriter = new CountingDataWriter();
+        transformWriter = new TransformWriter(engine.getDatabasePlatform(), TransformPoint.LOAD,
+                targetWriter, engine.getTransformService().getColumnTransforms(), transform);
+        transformWriter.open(new DataContext());
+    }
+
+    @TearDown
+    public void tearDown() {
+        transformWriter.close();
+        engine.stop();
+    }
+
+    @Benchmark
+    public long transformBatch() {
+        targetWriter.reset();
+        SyntheticBatch.write(transformWriter, SyntheticBatch.createBatch(1), table, data);
+        return targetWriter.getHash();
+    }
+
+    protected static String getTransformExpression(String transformType) {
+        if ("const".equals(transformType)) {
+            return "bench";
+        } else if ("substr".equals(transformType)) {
+            return "0,5";
+        } else if ("left".equals(transformType)) {
+            return "5";
+        } else if ("valueMap".equals(transformType)) {
+            return "store-1=east store-2=west store-3=east store-4=west";
+        } else if ("bsh".equals(transformType)) {
+            return "return STORE_ID + \"-\" + ID;";
+        } else {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,44 @@
+--
+-- Licensed to JumpMind Inc under one or more contributor
+-- license agreements.  See the NOTICE file distributed
+-- with this work for additional information regarding
+-- copyright ownership.  JumpMind Inc licenses this file
+-- to you under the GNU General Public License, version 3.0 (GPLv3)
+-- (the "License"); you may not use this file except in compliance
+-- with the License.
+--
+-- You should have received a copy of the GNU General Public License,
+-- version 3.0 (GPLv3) along with this library; if not, see
+-- <http://www.gnu.org/licenses/>.
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+--
+
+insert into sym_channel (channel_id, processing_order, max_batch_size, max_batch_to_send, contains_big_lob, enabled, max_network_kbps, description) values('bench', 1, 10000, 100, 0, 1, 0.00, 'benchmark channel');
+
+insert into sym_node_group (node_group_id, description) values ('bench-server','benchmark source');
+insert into sym_node_group (node_group_id, description) values ('bench-client','benchmark target');
+
+insert into sym_node_group_link (source_node_group_id, target_node_group_id, data_event_action) values ('bench-server','bench-client', 'W');
+
+insert into sym_node (node_id, node_group_id, external_id, sync_enabled, sync_url, schema_version, symmetric_version, config_version, database_type, database_version, batch_to_send_count, batch_in_error_count, created_at_node_id, deployment_type, deployment_sub_type) values ('001', 'bench-client', '001', 1, null, null, '3.0', '3.0', 'H2', '1.3', 0, 0, '000', 'engine', null);
+insert into sym_node_security (node_id,node_password,registration_enabled,registration_time,initial_load_enabled,initial_load_time,created_at_node_id) values ('001', 'secret', 0, current_timestamp, 0, current_timestamp, '000');
+
+insert into sym_trigger (trigger_id, source_table_name, channel_id, last_update_time, create_time)
+                 values('bench_item', 'bench_item', 'bench', current_timestamp, current_timestamp);
+
+insert into sym_router (router_id, source_node_group_id, target_node_group_id, router_type, create_time, last_update_time)
+                values('bench-server-2-client', 'bench-server', 'bench-client', 'default', current_timestamp, current_timestamp);
+
+insert into sym_trigger_router (trigger_id, router_id, initial_load_order, last_update_time, create_time)
+                        values('bench_item', 'bench-server-2-client', 1, current_timestamp, current_timestamp);
+
+insert into bench_store_node (store_id, external_id) values ('store-1', '001');
+insert into bench_store_node (store_id, external_id) values ('store-2', '002');
+insert into bench_store_node (store_id, external_id) values ('store-3', '003');
+insert into bench_store_node (store_id, external_id) values ('store-4', '004');
@@ -129,6 +129,29 @@ public class DbCompareCommand extends AbstractCommandLauncher {
             }
         }
 
+        String checksumArg = getOptionValue(OPTION_CHECKSUM, "useChecksums", line, config);
+        if (!StringUtils.isEmpty(checksumArg)) {
+            config.setUseChecksums(Boolean.valueOf(checksumArg.trim()));
+        }
+
+        String checksumLeafRowsArg = getOptionValue(OPTION_CHECKSUM_LEAF_ROWS, "checksumLeafRows", line, config);
+        if (!StringUtils.isEmpty(checksumLeafRowsArg)) {
+            try {
+                config.setChecksumLeafRows(Integer.parseInt(checksumLeafRowsArg.trim()));
+            } catch (Exception ex) {
+                throw new ParseException("Failed to parse arg [" + checksumLeafRowsArg + "] " + ex);
+            }
+        }
+
+        String threadsArg = getOptionValue(OPTION_THREADS, "threadCount", line, config);
+        if (!StringUtils.isEmpty(threadsArg)) {
+            try {
+                config.setThreadCount(Integer.parseInt(threadsArg.trim()));
+            } catch (Exception ex) {
+                throw new ParseException("Failed to parse arg [" + threadsArg + "] " + ex);
+            }
+        }
+
         ISymmetricEngine sourceEngine = new ClientSymmetricEngine(sourceProperies);
         ISymmetricEngine targetEngine = new ClientSymmetricEngine(targetProperties);
 
@@ -185,6 +208,12 @@ public class DbCompareCommand extends AbstractCommandLauncher {
 
     private static final String OPTION_CONFIG_PROPERTIES = "config";
 
+    private static final String OPTION_CHECKSUM = "checksum";
+
+    private static final String OPTION_CHECKSUM_LEAF_ROWS = "checksum-leaf-rows";
+
+    private static final String OPTION_THREADS = "threads";
+
     @Override
     protected void printHelp(CommandLine cmd, Options options) {
         System.out.println(app + " version " + Version.version());
@@ -204,6 +233,9 @@ public class DbCompareCommand extends AbstractCommandLauncher {
         addOption(options, null, OPTION_NUMERIC_SCALE, true);
         addOption(options, null, OPTION_DATE_TIME_FORMAT, true);
         addOption(options, null, OPTION_CONFIG_PROPERTIES, true);
+        addOption(options, null, OPTION_CHECKSUM, true);
+        addOption(options, null, OPTION_CHECKSUM_LEAF_ROWS, true);
+        addOption(options, null, OPTION_THREADS, true);
     }
 
     protected Map<String, String> parseWhereClauses(CommandLine line) {
@@ -68,6 +68,12 @@ public class DbExportCommand extends AbstractCommandLauncher {
     private static final String OPTION_WHERE = "where";
 
     private static final String OPTION_EXCLUDE_COLUMNS = "exclude-columns";
+
+    private static final String OPTION_THREADS = "threads";
+
+    private static final String OPTION_CHUNK_ROWS = "chunk-rows";
+
+    private static final String OPTION_COMPRESS = "compress";
     
     public DbExportCommand() {
         super("dbexport", "[tablename...]", "DbExport.Option.");
@@ -114,6 +120,9 @@ public class DbExportCommand extends AbstractCommandLauncher {
         addOption(options, null, OPTION_WHERE, true);
         addOption(options, "i", OPTION_COMMENTS, false);
         addOption(options, null, OPTION_EXCLUDE_COLUMNS, true);
+        addOption(options, null, OPTION_THREADS, true);
+        addOption(options, null, OPTION_CHUNK_ROWS, true);
+        addOption(options, null, OPTION_COMPRESS, false);
     }
     
     @Override
@@ -184,6 +193,20 @@ public class DbExportCommand extends AbstractCommandLauncher {
         if (line.hasOption(OPTION_EXCLUDE_COLUMNS)) {
             dbExport.setExcludeColumns(line.getOptionValue(OPTION_EXCLUDE_COLUMNS).split(","));
         }
+        if (line.hasOption(OPTION_THREADS)) {
+            dbExport.setThreadCount(Integer.parseInt(line.getOptionValue(OPTION_THREADS)));
+        }
+        if (line.hasOption(OPTION_CHUNK_ROWS)) {
+            dbExport.setChunkRows(Long.parseLong(line.getOptionValue(OPTION_CHUNK_ROWS)));
+        }
+        if (line.hasOption(OPTION_COMPRESS)) {
+            dbExport.setCompress(true);
+        }
+        if ((dbExport.getThreadCount() > 1 || dbExport.getChunkRows() > 0 || dbExport.isCompress())
+                && StringUtils.isBlank(dbExport.getDir())) {
+            throw new ParseException(
+                    "When exporting with threads, chunks or compression you must designate a directory where the files will be written");
+        }
         
         String[] args = line.getArgs();  
         if (line.hasOption(OPTION_SQL)) {
@@ -69,6 +69,14 @@ public class DbFillCommand extends AbstractCommandLauncher {
     
     private static final String OPTION_TRUNCATE = "truncate";
 
+    private static final String OPTION_THREADS = "threads";
+
+    private static final String OPTION_DURATION = "duration";
+
+    private static final String OPTION_RATE = "rate";
+
+    private static final String OPTION_BATCH = "batch";
+
     public DbFillCommand() {
         super("dbfill", "[tablename...]", "DbFill.Option.");
     }
@@ -114,6 +122,10 @@ public class DbFillCommand extends AbstractCommandLauncher {
         addOption(options, null, OPTION_COMMIT_DELAY, true);
         addOption(options, null, OPTION_ROLLBACK, true);
         addOption(options, null, OPTION_TRUNCATE, false);
+        addOption(options, null, OPTION_THREADS, true);
+        addOption(options, null, OPTION_DURATION, true);
+        addOption(options, null, OPTION_RATE, true);
+        addOption(options, null, OPTION_BATCH, true);
     }
 
     @Override
@@ -187,6 +199,18 @@ public class DbFillCommand extends AbstractCommandLauncher {
         if (line.hasOption(OPTION_TRUNCATE)) {
             dbFill.setTruncate(true);
         }
+        if (line.hasOption(OPTION_THREADS)) {
+            dbFill.setThreadCount(Integer.parseInt(line.getOptionValue(OPTION_THREADS)));
+        }
+        if (line.hasOption(OPTION_DURATION)) {
+            dbFill.setDurationSeconds(Integer.parseInt(line.getOptionValue(OPTION_DURATION)));
+        }
+        if (line.hasOption(OPTION_RATE)) {
+            dbFill.setRowsPerSecond(Integer.parseInt(line.getOptionValue(OPTION_RATE)));
+        }
+        if (line.hasOption(OPTION_BATCH)) {
+            dbFill.setBatchSize(Integer.parseInt(line.getOptionValue(OPTION_BATCH)));
+        }
 
         // Ignore the Symmetric config tables.
         getSymmetricEngine();
@@ -27,8 +27,17 @@ import java.io.FileInputStream;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.Options;
 import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.platform.DatabaseNamesConstants;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.properties.TypedProperties;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.io.JdbcBatchBulkDatabaseWriter;
+import org.jumpmind.symmetric.io.PostgresBulkDatabaseWriter;
+import org.jumpmind.symmetric.io.data.DbExport;
 import org.jumpmind.symmetric.io.data.DbImport;
 import org.jumpmind.symmetric.io.data.DbImport.Format;
+import org.jumpmind.symmetric.io.data.writer.DatabaseWriterSettings;
+import org.jumpmind.symmetric.io.data.writer.DefaultDatabaseWriter;
 import org.jumpmind.symmetric.io.data.writer.IDatabaseWriterFilter;
 
 /**
@@ -64,6 +73,10 @@ public class DbImportCommand extends AbstractCommandLauncher {
     
     private static final String OPTION_ALTER_CASE = "alter-case";
 
+    private static final String OPTION_THREADS = "threads";
+
+    private static final String OPTION_BULK = "bulk";
+
     public DbImportCommand() {
         super("dbimport", "[file...]", "DbImport.Option.");
     }
@@ -106,11 +119,22 @@ public class DbImportCommand extends AbstractCommandLauncher {
         addOption(options, null, OPTION_FILTER_CLASSES, true);
         addOption(options, null, OPTION_DROP_IF_EXISTS, false);
         addOption(options, null, OPTION_ALTER_CASE, false);
+        addOption(options, null, OPTION_THREADS, true);
+        addOption(options, null, OPTION_BULK, false);
     }
     
     @Override
     protected boolean executeWithOptions(CommandLine line) throws Exception {
-        DbImport dbImport = new DbImport(getDatabasePlatform(true));
+        DbImport dbImport = null;
+        if (line.hasOption(OPTION_BULK)) {
+            dbImport = createBulkDbImport(getDatabasePlatform(true), getTypedProperties());
+        } else {
+            dbImport = new DbImport(getDatabasePlatform(true));
+        }
+
+        if (line.hasOption(OPTION_THREADS)) {
+            dbImport.setThreadCount(Integer.parseInt(line.getOptionValue(OPTION_THREADS)));
+        }
 
         if (line.hasOption(OPTION_FORMAT)) {
             dbImport.setFormat(Format.valueOf(line.getOptionValue(OPTION_FORMAT).toUpperCase()));
@@ -184,12 +208,38 @@ public class DbImportCommand extends AbstractCommandLauncher {
                 }
             }
             for (String fileName : args) {
-                BufferedInputStream in = new BufferedInputStream(new FileInputStream(fileName));
-                dbImport.importTables(in, line.getOptionValue(OPTION_TABLE));
-                in.close();
+                File file = new File(fileName);
+                if (file.isDirectory()) {
+                    file = new File(file, DbExport.MANIFEST_FILE_NAME);
+                }
+                if (file.getName().equals(DbExport.MANIFEST_FILE_NAME)) {
+                    dbImport.importTablesFromManifest(file);
+                } else {
+                    BufferedInputStream in = new BufferedInputStream(new FileInputStream(file));
+                    dbImport.importTables(in, line.getOptionValue(OPTION_TABLE));
+                    in.close();
+                }
             }
         }
 
         return true;
     }
+
+    protected DbImport createBulkDbImport(IDatabasePlatform platform, TypedProperties properties) {
+        final String tablePrefix = properties.get(ParameterConstants.RUNTIME_CONFIG_TABLE_PREFIX, "sym");
+        final int maxRowsBeforeFlush = properties.getInt("postgres.bulk.load.max.rows.before.flush", 10000);
+        return new DbImport(platform) {
+            @Override
+            protected DefaultDatabaseWriter createDatabaseWriter(DatabaseWriterSettings settings) {
+                String name = symmetricPlatform.getName();
+                if (DatabaseNamesConstants.POSTGRESQL.equals(name) || DatabaseNamesConstants.POSTGRESQL95.equals(name)
+                        || DatabaseNamesConstants.GREENPLUM.equals(name)) {
+                    return new PostgresBulkDatabaseWriter(symmetricPlatform, symmetricPlatform, tablePrefix, settings,
+                            maxRowsBeforeFlush);
+                } else {
+                    return new JdbcBatchBulkDatabaseWriter(symmetricPlatform, symmetricPlatform, tablePrefix, settings);
+                }
+            }
+        };
+    }
 }
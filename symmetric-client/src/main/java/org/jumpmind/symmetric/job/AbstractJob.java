@@ -61,6 +61,8 @@ abstract public class AbstractJob implements Runnable, IJob {
 
     private AtomicBoolean running = new AtomicBoolean(false);
 
+    private AtomicBoolean wakeUpPending = new AtomicBoolean(false);
+
     private long lastExecutionTimeInMs;
 
     private long totalExecutionTimeInMs;
@@ -148,6 +150,23 @@ abstract public class AbstractJob implements Runnable, IJob {
         }
     }
 
+    @Override
+    public void wakeUp() {
+        if (started && taskScheduler != null && wakeUpPending.compareAndSet(false, true)) {
+            long delayMs = parameterService.getLong(ParameterConstants.JOB_WAKEUP_DELAY_MS, 500);
+            taskScheduler.schedule(new Runnable() {
+                public void run() {
+                    wakeUpPending.set(false);
+                    if (running.get()) {
+                        wakeUp();
+                    } else {
+                        AbstractJob.this.run();
+                    }
+                }
+            }, new Date(System.currentTimeMillis() + delayMs));
+        }
+    }
+
     protected long getTimeBetweenRunsInMs() {
         long timeBetweenRunsInMs = -1;
         String schedule = getSchedule();
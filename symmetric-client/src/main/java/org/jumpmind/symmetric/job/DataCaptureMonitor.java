@@ -0,0 +1,67 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.job;
+
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.service.ClusterConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls for the highest captured data id and wakes up the route job as soon
+ * as new data has been captured, instead of waiting for its next scheduled
+ * run. The route job in turn wakes up the push job when it creates batches.
+ */
+public class DataCaptureMonitor implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(DataCaptureMonitor.class);
+
+    private ISymmetricEngine engine;
+
+    private IJobManager jobManager;
+
+    private long lastMaxDataId = -1;
+
+    public DataCaptureMonitor(ISymmetricEngine engine, IJobManager jobManager) {
+        this.engine = engine;
+        this.jobManager = jobManager;
+    }
+
+    public void run() {
+        if (!engine.isStarted()) {
+            return;
+        }
+        try {
+            long maxDataId = engine.getDataService().findMaxDataId();
+            if (lastMaxDataId >= 0 && maxDataId > lastMaxDataId) {
+                IJob job = jobManager.getJob(ClusterConstants.ROUTE);
+                if (job != null && job.isStarted()) {
+                    log.debug("Captured data up to {}, waking up the {} job", maxDataId, job.getName());
+                    job.wakeUp();
+                }
+            }
+            lastMaxDataId = maxDataId;
+        } catch (Exception ex) {
+            log.warn("Failed to check for newly captured data: {}", ex.getMessage());
+        }
+    }
+
+}
@@ -25,10 +25,12 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.symmetric.ISymmetricEngine;
 import org.jumpmind.symmetric.SymmetricException;
+import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.model.JobDefinition;
 import org.jumpmind.symmetric.service.impl.AbstractService;
 import org.slf4j.Logger;
@@ -46,6 +48,7 @@ public class JobManager extends AbstractService implements IJobManager {
     private ThreadPoolTaskScheduler taskScheduler;
     private ISymmetricEngine engine;
     private JobCreator jobCreator = new JobCreator();
+    private ScheduledFuture<?> dataCaptureMonitor;
     
     private boolean started = false;
     
@@ -119,6 +122,11 @@ public class JobManager extends AbstractService implements IJobManager {
                 log.info("Job {} not configured for auto start", job.getName());
             }
         }
+        long pollPeriodMs = engine.getParameterService().getLong(ParameterConstants.JOB_WAKEUP_POLL_PERIOD_TIME_MS, 0);
+        if (pollPeriodMs > 0 && dataCaptureMonitor == null) {
+            log.info("Checking for captured data every {}ms to wake up the route and push jobs", pollPeriodMs);
+            dataCaptureMonitor = taskScheduler.scheduleWithFixedDelay(new DataCaptureMonitor(engine, this), pollPeriodMs);
+        }
         started = true;
     }
     
@@ -156,6 +164,10 @@ public class JobManager extends AbstractService implements IJobManager {
             for (IJob job : jobs) {
                 job.stop();
             }
+            if (dataCaptureMonitor != null) {
+                dataCaptureMonitor.cancel(true);
+                dataCaptureMonitor = null;
+            }
             Thread.interrupted();
             started = false;
         }
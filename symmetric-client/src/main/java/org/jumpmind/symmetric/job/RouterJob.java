@@ -46,7 +46,14 @@ public class RouterJob extends AbstractJob {
     
     @Override
     public void doJob(boolean force) throws Exception {
-        setProcessedCount(engine.getRouterService().routeData(force));
+        long dataCount = engine.getRouterService().routeData(force);
+        setProcessedCount(dataCount);
+        if (dataCount > 0 && engine.getParameterService().getLong(ParameterConstants.JOB_WAKEUP_POLL_PERIOD_TIME_MS, 0) > 0) {
+            IJob pushJob = engine.getJobManager().getJob(ClusterConstants.PUSH);
+            if (pushJob != null && pushJob.isStarted()) {
+                pushJob.wakeUp();
+            }
+        }
     }
     
     @Override
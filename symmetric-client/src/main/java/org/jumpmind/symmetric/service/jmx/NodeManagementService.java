@@ -41,6 +41,7 @@ import org.jumpmind.symmetric.common.Constants;
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
 import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeCommunication.CommunicationType;
 import org.jumpmind.symmetric.service.IDataExtractorService;
 import org.jumpmind.symmetric.transport.ConcurrentConnectionManager.NodeConnectionStatistics;
 import org.jumpmind.util.FormatUtils;
@@ -134,6 +135,36 @@ public class NodeManagementService implements IBuiltInExtensionPoint, ISymmetric
         return engine.getParameterService().getInt(ParameterConstants.CONCURRENT_WORKERS);
     }
 
+    @ManagedAttribute(description = "Get the number of nodes waiting for a push thread")
+    public int getPushQueueDepth() {
+        return engine.getNodeCommunicationService().getQueueDepth(CommunicationType.PUSH);
+    }
+
+    @ManagedAttribute(description = "Get the longest time in milliseconds a node has been waiting for a push thread")
+    public long getPushMaxWaitMillis() {
+        return engine.getNodeCommunicationService().getMaxWaitMillis(CommunicationType.PUSH);
+    }
+
+    @ManagedAttribute(description = "Get the average time in milliseconds nodes waited for a push thread")
+    public long getPushAverageWaitMillis() {
+        return engine.getNodeCommunicationService().getAverageWaitMillis(CommunicationType.PUSH);
+    }
+
+    @ManagedAttribute(description = "Get the number of nodes waiting for a pull thread")
+    public int getPullQueueDepth() {
+        return engine.getNodeCommunicationService().getQueueDepth(CommunicationType.PULL);
+    }
+
+    @ManagedAttribute(description = "Get the longest time in milliseconds a node has been waiting for a pull thread")
+    public long getPullMaxWaitMillis() {
+        return engine.getNodeCommunicationService().getMaxWaitMillis(CommunicationType.PULL);
+    }
+
+    @ManagedAttribute(description = "Get the average time in milliseconds nodes waited for a pull thread")
+    public long getPullAverageWaitMillis() {
+        return engine.getNodeCommunicationService().getAverageWaitMillis(CommunicationType.PULL);
+    }
+
     @ManagedAttribute(description = "Get connection statistics about indivdual nodes")
     public String getNodeConcurrencyStatisticsAsText() {
         String lineFeed = "\n";
@@ -0,0 +1,118 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.jmx;
+
+import java.text.NumberFormat;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.jumpmind.driver.SqlProfile;
+import org.jumpmind.driver.SqlProfiler;
+import org.jumpmind.extension.IBuiltInExtensionPoint;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "The management interface for the SQL statement profiler")
+public class SqlProfilerManagementService implements IBuiltInExtensionPoint, ISymmetricEngineAware {
+
+    protected ISymmetricEngine engine;
+
+    public SqlProfilerManagementService() {
+    }
+
+    public void setSymmetricEngine(ISymmetricEngine engine) {
+        this.engine = engine;
+    }
+
+    @ManagedAttribute(description = "The fraction of statement executions that are profiled.  0 turns profiling off.")
+    public double getSampleRate() {
+        return SqlProfiler.getInstance().getSampleRate();
+    }
+
+    @ManagedAttribute(description = "Set the fraction of statement executions that are profiled.  0 turns profiling off.")
+    public void setSampleRate(double sampleRate) {
+        SqlProfiler.getInstance().setSampleRate(sampleRate);
+    }
+
+    @ManagedAttribute(description = "The number of distinct statements that have been profiled")
+    public int getStatementCount() {
+        return SqlProfiler.getInstance().getProfiles().size();
+    }
+
+    @ManagedOperation(description = "Clear all collected statement statistics")
+    public void reset() {
+        SqlProfiler.getInstance().reset();
+    }
+
+    @ManagedOperation(description = "Get the statements with the highest average execution time")
+    @ManagedOperationParameters({ @ManagedOperationParameter(name = "limit", description = "The number of statements to return") })
+    public String getSlowestStatementsAsText(int limit) {
+        return toText(SqlProfiler.getInstance().getSlowest(limit));
+    }
+
+    @ManagedOperation(description = "Get the statements with the highest total execution time")
+    @ManagedOperationParameters({ @ManagedOperationParameter(name = "limit", description = "The number of statements to return") })
+    public String getMostTimeStatementsAsText(int limit) {
+        return toText(SqlProfiler.getInstance().getMostTime(limit));
+    }
+
+    @ManagedOperation(description = "Get the statements that were executed the most")
+    @ManagedOperationParameters({ @ManagedOperationParameter(name = "limit", description = "The number of statements to return") })
+    public String getMostFrequentStatementsAsText(int limit) {
+        return toText(SqlProfiler.getInstance().getMostFrequent(limit));
+    }
+
+    protected String toText(List<SqlProfile> profiles) {
+        String lineFeed = "\n";
+        if (engine != null && engine.getParameterService().getString(ParameterConstants.JMX_LINE_FEED).equals("html")) {
+            lineFeed = "</br>";
+        }
+        NumberFormat format = NumberFormat.getNumberInstance();
+        format.setMaximumFractionDigits(3);
+        StringBuilder out = new StringBuilder();
+        out.append("---------------------------------------------------------------------------------------------------------------------");
+        out.append(lineFeed);
+        out.append("       EXECUTIONS            ROWS       TOTAL MS         AVG MS         P95 MS         P99 MS         MAX MS   SQL");
+        out.append(lineFeed);
+        out.append("---------------------------------------------------------------------------------------------------------------------");
+        out.append(lineFeed);
+        for (SqlProfile profile : profiles) {
+            out.append(StringUtils.leftPad(Long.toString(profile.getExecuteCount()), 17));
+            out.append(StringUtils.leftPad(Long.toString(profile.getRowCount()), 16));
+            out.append(StringUtils.leftPad(format.format(profile.getTotalMillis()), 15));
+            out.append(StringUtils.leftPad(format.format(profile.getAverageMillis()), 15));
+            out.append(StringUtils.leftPad(format.format(profile.getPercentileMillis(95)), 15));
+            out.append(StringUtils.leftPad(format.format(profile.getPercentileMillis(99)), 15));
+            out.append(StringUtils.leftPad(format.format(profile.getMaxMillis()), 15));
+            out.append("   ");
+            out.append(profile.getSql());
+            out.append(lineFeed);
+        }
+        return out.toString();
+    }
+
+}
@@ -455,6 +455,95 @@ public class DbExportImportTest extends AbstractServiceTest {
         // TODO test force
     }
 
+    @Test
+    public void fillTablesWithWorkers() throws Exception {
+        ISymmetricEngine engine = getSymmetricEngine();
+        IDatabasePlatform platform = engine.getSymmetricDialect().getPlatform();
+        Database testTables = platform.readDatabaseFromXml("/test-dbimport.xml", true);
+        Table table = testTables.findTable("test_db_import_1", false);
+
+        recreateImportTable();
+
+        DbFill fill = new DbFill(platform);
+        fill.setRecordCount(10);
+        fill.setThreadCount(2);
+        fill.setBatchSize(5);
+        fill.setMaxRowsCommit(5);
+        fill.fillTables(table.getName());
+
+        Assert.assertEquals(10, fill.getStatistics().getInserts());
+        Assert.assertEquals(2, fill.getStatistics().getOperations());
+        Assert.assertEquals(10, platform.getSqlTemplate().queryForInt("select count(*) from " + table.getName()));
+    }
+
+    @Test
+    public void fillTablesWithWorkersRolledBack() throws Exception {
+        ISymmetricEngine engine = getSymmetricEngine();
+        IDatabasePlatform platform = engine.getSymmetricDialect().getPlatform();
+        Database testTables = platform.readDatabaseFromXml("/test-dbimport.xml", true);
+        Table table = testTables.findTable("test_db_import_1", false);
+
+        recreateImportTable();
+
+        DbFill fill = new DbFill(platform);
+        fill.setRecordCount(10);
+        fill.setThreadCount(2);
+        fill.setBatchSize(5);
+        fill.setMaxRowsCommit(5);
+        fill.setPercentRollback(100);
+        fill.fillTables(table.getName());
+
+        Assert.assertEquals(0, fill.getStatistics().getInserts());
+        Assert.assertEquals(0, platform.getSqlTemplate().queryForInt("select count(*) from " + table.getName()));
+    }
+
+    @Test
+    public void exportThenImportCsvInChunks() throws Exception {
+        ISymmetricEngine engine = getSymmetricEngine();
+        IDatabasePlatform platform = engine.getSymmetricDialect().getPlatform();
+        Database testTables = platform.readDatabaseFromXml("/test-dbimport.xml", true);
+        Table table = testTables.findTable("test_db_import_1", false);
+
+        recreateImportTable();
+
+        final int RECORD_COUNT = 100;
+
+        DbFill fill = new DbFill(platform);
+        fill.setRecordCount(RECORD_COUNT);
+        fill.fillTables(table.getName());
+
+        File dir = new File("target/test-chunks");
+        FileUtils.deleteDirectory(dir);
+
+        DbExport export = new DbExport(platform);
+        export.setFormat(Format.CSV);
+        export.setNoCreateInfo(true);
+        export.setDir(dir.getAbsolutePath());
+        export.setThreadCount(4);
+        export.setChunkRows(30);
+        export.setCompress(true);
+        export.exportTables(new String[] { table.getName() });
+
+        File manifest = new File(dir, DbExport.MANIFEST_FILE_NAME);
+        Assert.assertTrue(manifest.exists());
+        Assert.assertTrue(FileUtils.readLines(manifest, Charset.defaultCharset()).size() > 2);
+
+        ISqlTemplate sqlTemplate = platform.getSqlTemplate();
+
+        List<Row> rowsBeforeImport = sqlTemplate.query(SELECT_FROM_TEST_DB_IMPORT_1_ORDER_BY_ID);
+
+        recreateImportTable();
+
+        DbImport importCsv = new DbImport(platform);
+        importCsv.setFormat(DbImport.Format.CSV);
+        importCsv.setThreadCount(4);
+        importCsv.importTablesFromManifest(manifest);
+
+        Assert.assertEquals(rowsBeforeImport.size(), sqlTemplate.queryForInt("select count(*) from " + table.getName()));
+
+        compareRows(table, rowsBeforeImport, sqlTemplate.query(SELECT_FROM_TEST_DB_IMPORT_1_ORDER_BY_ID));
+    }
+
     @Test
     public void exportThenImportCsvWithBackslashes() throws Exception {
         ISymmetricEngine engine = getSymmetricEngine();
@@ -0,0 +1,183 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.Arrays;
+
+import org.jumpmind.db.DbTestUtils;
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlTemplate;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.io.DbCompareReport.TableReport;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DbCompareChecksumTest {
+
+    private static final int ROWS = 1000;
+
+    private static final int LEAF_ROWS = 10;
+
+    private static IDatabasePlatform sourcePlatform;
+
+    private static IDatabasePlatform targetPlatform;
+
+    private Table sourceTable;
+
+    private Table targetTable;
+
+    private int rowCompares;
+
+    private int rowsComparedByRow;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        sourcePlatform = DbTestUtils.createDatabasePlatform(DbTestUtils.ROOT);
+        targetPlatform = DbTestUtils.createDatabasePlatform(DbTestUtils.CLIENT);
+    }
+
+    @Before
+    public void setupTest() {
+        sourceTable = createTable(sourcePlatform);
+        targetTable = createTable(targetPlatform);
+        Assume.assumeTrue(DbCompareRangeChecksum.isSupported(sourcePlatform, targetPlatform,
+                sourceTable.getPrimaryKeyColumns()[0], targetTable.getPrimaryKeyColumns()[0],
+                Arrays.asList(sourceTable.getColumns()), Arrays.asList(targetTable.getColumns())));
+        insertRows(sourcePlatform, sourceTable);
+        insertRows(targetPlatform, targetTable);
+        rowCompares = 0;
+        rowsComparedByRow = 0;
+    }
+
+    @Test
+    public void testIdenticalTablesMatchByChecksum() {
+        TableReport report = compare();
+        assertEquals(ROWS, report.getSourceRows());
+        assertEquals(ROWS, report.getTargetRows());
+        assertEquals(ROWS, report.getMatchedRows());
+        assertEquals(0, report.getDifferentRows());
+        assertEquals(0, rowCompares);
+    }
+
+    @Test
+    public void testChangedRowFoundByDrillDown() {
+        targetPlatform.getSqlTemplate().update("update " + targetTable.getName() + " set AMOUNT=? where ID=?",
+                new BigDecimal("9999.99"), 617);
+        TableReport report = compare();
+        assertEquals(ROWS, report.getSourceRows());
+        assertEquals(ROWS, report.getTargetRows());
+        assertEquals(ROWS - 1, report.getMatchedRows());
+        assertEquals(1, report.getDifferentRows());
+        assertEquals(1, rowCompares);
+        assertTrue("Compared " + rowsComparedByRow + " rows one by one", rowsComparedByRow <= LEAF_ROWS);
+    }
+
+    @Test
+    public void testMissingAndExtraRowsFoundByDrillDown() {
+        sourcePlatform.getSqlTemplate().update("delete from " + sourceTable.getName() + " where ID=?", 12);
+        targetPlatform.getSqlTemplate().update("delete from " + targetTable.getName() + " where ID=?", 988);
+        TableReport report = compare();
+        assertEquals(1, report.getMissingRows());
+        assertEquals(1, report.getExtraRows());
+        assertEquals(ROWS - 2, report.getMatchedRows());
+        assertEquals(2, rowCompares);
+    }
+
+    @Test
+    public void testSeparatorInValueIsDifferent() {
+        String sql = "update %s set NAME=?, NOTE=? where ID=?";
+        sourcePlatform.getSqlTemplate().update(String.format(sql, sourceTable.getName()), "a|b", "c", 300);
+        targetPlatform.getSqlTemplate().update(String.format(sql, targetTable.getName()), "a", "b|c", 300);
+        TableReport report = compare();
+        assertEquals(1, report.getDifferentRows());
+        assertEquals(1, rowCompares);
+    }
+
+    @Test
+    public void testNullIsDifferentFromMarker() {
+        String sql = "update %s set NOTE=? where ID=?";
+        int[] types = new int[] { Types.VARCHAR, Types.INTEGER };
+        sourcePlatform.getSqlTemplate().update(String.format(sql, sourceTable.getName()), new Object[] { null, 400 }, types);
+        targetPlatform.getSqlTemplate().update(String.format(sql, targetTable.getName()), new Object[] { "N", 400 }, types);
+        sourcePlatform.getSqlTemplate().update(String.format(sql, sourceTable.getName()), new Object[] { null, 800 }, types);
+        targetPlatform.getSqlTemplate().update(String.format(sql, targetTable.getName()), new Object[] { "~", 800 }, types);
+        TableReport report = compare();
+        assertEquals(2, report.getDifferentRows());
+        assertEquals(2, rowCompares);
+    }
+
+    protected TableReport compare() {
+        DbCompareConfig config = new DbCompareConfig();
+        config.setUseChecksums(true);
+        config.setChecksumLeafRows(LEAF_ROWS);
+        config.setChecksumFanout(4);
+        DbCompare dbCompare = new DbCompare(mockEngine(sourcePlatform), mockEngine(targetPlatform), config) {
+            @Override
+            protected void compareRows(DbCompareTables tables, String sourceSelect, String targetSelect, TableReport tableReport,
+                    DbCompareDiffWriter diffWriter) {
+                int sourceRowsBefore = tableReport.getSourceRows();
+                super.compareRows(tables, sourceSelect, targetSelect, tableReport, diffWriter);
+                rowCompares++;
+                rowsComparedByRow += tableReport.getSourceRows() - sourceRowsBefore;
+            }
+        };
+        DbCompareTables tables = new DbCompareTables(sourceTable, targetTable);
+        tables.applyColumnMappings();
+        return dbCompare.compareTables(tables, null);
+    }
+
+    protected ISymmetricEngine mockEngine(IDatabasePlatform platform) {
+        ISymmetricEngine engine = mock(ISymmetricEngine.class);
+        when(engine.getDatabasePlatform()).thenReturn(platform);
+        return engine;
+    }
+
+    protected Table createTable(IDatabasePlatform platform) {
+        Table table = new Table("TEST_DB_COMPARE_CHECKSUM");
+        table.addColumn(new Column("ID", true, Types.INTEGER, -1, -1));
+        table.addColumn(new Column("NAME", false, Types.VARCHAR, 50, -1));
+        table.addColumn(new Column("NOTE", false, Types.VARCHAR, 50, -1));
+        table.addColumn(new Column("AMOUNT", false, Types.DECIMAL, 10, 2));
+        platform.alterCaseToMatchDatabaseDefaultCase(table);
+        platform.createTables(true, false, table);
+        return platform.getTableFromCache(table.getCatalog(), table.getSchema(), table.getName(), true);
+    }
+
+    protected void insertRows(IDatabasePlatform platform, Table table) {
+        ISqlTemplate template = platform.getSqlTemplate();
+        for (int i = 1; i <= ROWS; i++) {
+            template.update("insert into " + table.getName() + " (ID, NAME, NOTE, AMOUNT) values (?, ?, ?, ?)",
+                    i, "name " + i, i % 3 == 0 ? null : "note " + i, new BigDecimal(i).movePointLeft(2));
+        }
+    }
+
+}
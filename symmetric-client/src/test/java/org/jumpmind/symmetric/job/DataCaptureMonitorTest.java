@@ -0,0 +1,78 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.job;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.service.ClusterConstants;
+import org.jumpmind.symmetric.service.IDataService;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DataCaptureMonitorTest {
+
+    ISymmetricEngine engine;
+
+    IDataService dataService;
+
+    IJob routeJob;
+
+    DataCaptureMonitor monitor;
+
+    @Before
+    public void setup() {
+        engine = mock(ISymmetricEngine.class);
+        dataService = mock(IDataService.class);
+        routeJob = mock(IJob.class);
+        IJobManager jobManager = mock(IJobManager.class);
+        when(engine.isStarted()).thenReturn(true);
+        when(engine.getDataService()).thenReturn(dataService);
+        when(jobManager.getJob(ClusterConstants.ROUTE)).thenReturn(routeJob);
+        when(routeJob.isStarted()).thenReturn(true);
+        monitor = new DataCaptureMonitor(engine, jobManager);
+    }
+
+    @Test
+    public void testWakeUpOnlyWhenDataIsCaptured() {
+        when(dataService.findMaxDataId()).thenReturn(100l, 100l, 105l, 105l);
+        monitor.run();
+        monitor.run();
+        verify(routeJob, never()).wakeUp();
+        monitor.run();
+        monitor.run();
+        verify(routeJob, times(1)).wakeUp();
+    }
+
+    @Test
+    public void testNoWakeUpWhenRouteJobIsNotStarted() {
+        when(routeJob.isStarted()).thenReturn(false);
+        when(dataService.findMaxDataId()).thenReturn(100l, 200l);
+        monitor.run();
+        monitor.run();
+        verify(routeJob, never()).wakeUp();
+    }
+
+}
@@ -846,12 +846,18 @@ abstract public class AbstractSymmetricEngine implements ISymmetricEngine {
         if (jobManager != null) {
             jobManager.stopJobs();
         }
+        if (clusterService != null) {
+            clusterService.stop();
+        }
         if (routerService != null) {
         	routerService.stop();
         }
         if (nodeCommunicationService != null) {
         	nodeCommunicationService.stop();
         }
+        if (pushService != null) {
+            pushService.stop();
+        }
         if (updateService != null) {
             updateService.stop();
         }
@@ -89,6 +89,10 @@ final public class ParameterConstants {
     public final static String PUSH_MINIMUM_PERIOD_MS = "push.period.minimum.ms";
     public final static String PUSH_LOCK_TIMEOUT_MS = "push.lock.timeout.ms";
     public final static String PUSH_IMMEDIATE_IF_DATA_FOUND = "push.immediate.if.data.found";
+    public final static String PUSH_PIPELINE_BATCHES = "push.pipeline.batches";
+
+    public final static String NODE_COMMUNICATION_MAX_THREADS_PER_NODE = "node.communication.max.threads.per.node";
+    public final static String NODE_COMMUNICATION_TIME_SLICE_MS = "node.communication.time.slice.ms";
 
     public final static String OFFLINE_PULL_THREAD_COUNT_PER_SERVER = "offline.pull.thread.per.server.count";
     public final static String OFFLINE_PULL_LOCK_TIMEOUT_MS = "offline.pull.lock.timeout.ms";
@@ -112,6 +116,9 @@ final public class ParameterConstants {
     public final static String JOB_FILE_SYNC_PUSH_PERIOD_TIME_MS = "job.file.sync.push.period.time.ms";    
     
     public final static String JOB_ROUTING_PERIOD_TIME_MS = "job.routing.period.time.ms";    
+
+    public final static String JOB_WAKEUP_POLL_PERIOD_TIME_MS = "job.wakeup.poll.period.time.ms";
+    public final static String JOB_WAKEUP_DELAY_MS = "job.wakeup.delay.ms";
     
     public final static String REGISTRATION_NUMBER_OF_ATTEMPTS = "registration.number.of.attempts";
     public final static String REGISTRATION_REOPEN_USE_SAME_PASSWORD = "registration.reopen.use.same.password";
@@ -213,13 +220,21 @@ final public class ParameterConstants {
     public final static String ROUTING_DETECT_INVALID_GAPS = "routing.detect.invalid.gaps";
     public final static String ROUTING_QUERY_CHANNELS_FIRST = "routing.query.channels.first";
     public final static String ROUTING_MAX_GAP_CHANGES = "routing.max.gap.changes";
+    public final static String ROUTING_ADAPTIVE_BATCH_TARGET_BYTES = "routing.adaptive.batch.target.bytes";
+    public final static String ROUTING_ADAPTIVE_BATCH_TARGET_LOAD_MS = "routing.adaptive.batch.target.load.ms";
+    public final static String ROUTING_ADAPTIVE_BATCH_MIN_SIZE = "routing.adaptive.batch.min.size";
+    public final static String ROUTING_ADAPTIVE_BATCH_MAX_SIZE = "routing.adaptive.batch.max.size";
+    public final static String ROUTING_ADAPTIVE_BATCH_REFRESH_MS = "routing.adaptive.batch.refresh.ms";
+    public final static String ROUTING_ADAPTIVE_BATCH_WINDOW_MS = "routing.adaptive.batch.window.ms";
 
     public final static String INCOMING_BATCH_SKIP_DUPLICATE_BATCHES_ENABLED = "incoming.batches.skip.duplicates";
     @Deprecated
     public final static String INCOMING_BATCH_DELETE_ON_LOAD = "incoming.batch.delete.on.load";
     public final static String INCOMING_BATCH_RECORD_OK_ENABLED = "incoming.batches.record.ok.enabled";
+    public final static String INCOMING_BATCH_RECORD_IN_DATA_TRANSACTION = "incoming.batches.record.in.data.transaction";
     public final static String DATA_LOADER_ENABLED = "dataloader.enable";
     public final static String DATA_LOADER_APPLY_CHANGES_ONLY = "dataloader.apply.changes.only";
+    public final static String DATA_LOADER_BATCH_UPDATES_AND_DELETES = "dataloader.batch.updates.and.deletes";
     public final static String DATA_LOADER_IGNORE_MISSING_TABLES = "dataloader.ignore.missing.tables";
     public final static String DATA_LOADER_FIT_TO_COLUMN = "dataloader.fit.to.column";
     public final static String DATA_LOADER_ERROR_RECORD_CUR_VAL = "dataloader.error.save.curval";
@@ -230,6 +245,7 @@ final public class ParameterConstants {
     public final static String DATA_LOADER_CREATE_TABLE_ALTER_TO_MATCH_DB_CASE = "dataloader.create.table.alter.to.match.db.case";
     public final static String DATA_LOADER_TEXT_COLUMN_EXPRESSION = "dataloader.text.column.expression";
     public final static String DATA_LOADER_SLEEP_TIME_AFTER_EARLY_COMMIT = "dataloader.sleep.time.after.early.commit";
+    public final static String DATA_LOADER_STATEMENT_CACHE_SIZE = "dataloader.statement.cache.size";
     public final static String DATA_LOADER_TREAT_DATETIME_AS_VARCHAR = "db.treat.date.time.as.varchar.enabled";
     public final static String DATA_LOADER_USE_PRIMARY_KEYS_FROM_SOURCE = "dataloader.use.primary.keys.from.source";
 
@@ -314,6 +330,7 @@ final public class ParameterConstants {
     public final static String CLUSTER_STAGING_ENABLED = "cluster.staging.enabled";
     public final static String CLUSTER_LOCK_TIMEOUT_MS = "cluster.lock.timeout.ms";
     public final static String CLUSTER_LOCK_REFRESH_MS = "cluster.lock.refresh.ms";
+    public final static String CLUSTER_LOCK_LEASE_MS = "cluster.lock.lease.ms";
     public final static String LOCK_TIMEOUT_MS = "lock.timeout.ms";
     public final static String LOCK_WAIT_RETRY_MILLIS = "lock.wait.retry.ms";
     public final static String INSTANCE_ID_LOCATION = "instance.id.location";
@@ -369,6 +386,8 @@ final public class ParameterConstants {
 
     public final static String REST_HEARTBEAT_ON_PULL = "rest.api.heartbeat.on.pull";
 
+    public final static String REST_PULL_STREAM_MAX_BYTES = "rest.api.pull.stream.max.bytes";
+
     public final static String SYNCHRONIZE_ALL_JOBS = "jobs.synchronized.enable";
 
     public final static String FILE_SYNC_ENABLE = "file.sync.enable";
@@ -389,6 +408,8 @@ final public class ParameterConstants {
     
     public final static String BSH_TRANSFORM_GLOBAL_SCRIPT = "bsh.transform.global.script";
     
+    public final static String BSH_COMPILE_TO_JAVA_ENABLED = "bsh.compile.to.java.enabled";
+    
     public final static String MSSQL_ROW_LEVEL_LOCKS_ONLY = "mssql.allow.only.row.level.locks.on.runtime.tables";
     public final static String MSSQL_USE_NTYPES_FOR_SYNC = "mssql.use.ntypes.for.sync";
     public final static String MSSQL_LOCK_ESCALATION_DISABLED = "mssql.lock.escalation.disabled";
@@ -416,6 +437,8 @@ final public class ParameterConstants {
     
     public final static String SYNC_TRIGGERS_THREAD_COUNT_PER_SERVER = "sync.triggers.thread.count.per.server";
 
+    public final static String SYNC_TRIGGERS_BULK_METADATA_MIN_TRIGGERS = "sync.triggers.bulk.metadata.min.triggers";
+
     public static final String SMTP_HOST = "smtp.host";
     public static final String SMTP_TRANSPORT = "smtp.transport";
     public static final String SMTP_PORT = "smtp.port";
@@ -484,6 +507,7 @@ final public class ParameterConstants {
     public final static String KAFKA_TOPIC_BY = "kafka.topic.by";
     public final static String KAFKA_CONFLUENT_REGISTRY_URL = "kafka.confluent.registry.url";
     public final static String KAFKA_AVRO_JAVA_PACKAGE = "kafka.avro.java.package";
+    public final static String KAFKA_MAX_IN_FLIGHT_BYTES = "kafka.max.in.flight.bytes";
     
     public final static String SNOWFLAKE_STAGING_TYPE = "snowflake.staging.type";
     public final static String SNOWFLAKE_INTERNAL_STAGE_NAME = "snowflake.internal.stage.name";
@@ -28,6 +28,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -49,12 +52,17 @@ import org.jumpmind.symmetric.model.Trigger;
 import org.jumpmind.symmetric.model.TriggerHistory;
 import org.jumpmind.symmetric.model.TriggerRouter;
 import org.jumpmind.symmetric.service.impl.TransformService.TransformTableNodeGroupLink;
+import org.jumpmind.util.CustomizableThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * DbCompare has the ability to compare two SQL-based datasources and output a report of
  * of differences, and optionally SQL to bring the target into sync with the source. 
+ * <p>
+ * When checksums are enabled, tables that qualify are compared by primary key range using
+ * row count and hash sums calculated in SQL on each side. Only ranges whose checksums differ
+ * are split further, and only the smallest differing ranges are streamed and compared row by row.
  */
 public class DbCompare {
 
@@ -85,23 +93,34 @@ public class DbCompare {
         
         log.info("Starting DBCompare with config:\n{}", config.report());
 
-        OutputStream sqlDiffOutput = getSqlDiffOutputStream();
+        final OutputStream sqlDiffOutput = getSqlDiffOutputStream();
         
-        DbCompareReport report = new DbCompareReport();
-        long start = System.currentTimeMillis();
+        final DbCompareReport report = new DbCompareReport();
+        final long start = System.currentTimeMillis();
         List<DbCompareTables> tablesToCompare = getTablesToCompare();
         report.printReportHeader(System.out);
-        for (DbCompareTables tables : tablesToCompare) {
-            try {
-                TableReport tableReport = compareTables(tables, sqlDiffOutput);
-                report.addTableReport(tableReport);
-                long elapsed = System.currentTimeMillis() - start;
-                log.info("Completed table {}.  Elapsed time: {}", tableReport, 
-                        DurationFormatUtils.formatDurationWords((elapsed), true, true));
-                report.printTableReport(tableReport, System.out);               
-            } catch (Exception e) {
-                log.error("Exception while comparing " + tables.getSourceTable() + 
-                        " to " + tables.getTargetTable(), e);
+        int threadCount = Math.min(config.getThreadCount(), tablesToCompare.size());
+        if (threadCount > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(threadCount, new CustomizableThreadFactory("dbcompare"));
+            List<Future<?>> futures = new ArrayList<Future<?>>(tablesToCompare.size());
+            for (final DbCompareTables tables : tablesToCompare) {
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        compareTables(tables, sqlDiffOutput, report, start);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    log.error("Exception while waiting for table comparison", e);
+                }
+            }
+            executor.shutdown();
+        } else {
+            for (DbCompareTables tables : tablesToCompare) {
+                compareTables(tables, sqlDiffOutput, report, start);
             }
         }
 
@@ -145,25 +164,27 @@ public class DbCompare {
     }
     
 
-    protected TableReport compareTables(DbCompareTables tables, OutputStream sqlDiffOutput) {
-        String sourceSelect = getSourceComparisonSQL(tables, sourceEngine.getDatabasePlatform());
-        String targetSelect = getTargetComparisonSQL(tables, targetEngine.getDatabasePlatform());
-
-        CountingSqlReadCursor sourceCursor = new CountingSqlReadCursor(sourceEngine.getDatabasePlatform().
-                getSqlTemplateDirty().queryForCursor(sourceSelect, defaultRowMapper));
-        CountingSqlReadCursor targetCursor = new CountingSqlReadCursor(targetEngine.getDatabasePlatform().
-                getSqlTemplateDirty().queryForCursor(targetSelect, defaultRowMapper));
+    protected void compareTables(DbCompareTables tables, OutputStream sqlDiffOutput, DbCompareReport report, long start) {
+        try {
+            TableReport tableReport = compareTables(tables, sqlDiffOutput);
+            long elapsed = System.currentTimeMillis() - start;
+            synchronized (report) {
+                report.addTableReport(tableReport);
+                log.info("Completed table {}.  Elapsed time: {}", tableReport, 
+                        DurationFormatUtils.formatDurationWords((elapsed), true, true));
+                report.printTableReport(tableReport, System.out);
+            }
+        } catch (Exception e) {
+            log.error("Exception while comparing " + tables.getSourceTable() + 
+                    " to " + tables.getTargetTable(), e);
+        }
+    }
 
+    protected TableReport compareTables(DbCompareTables tables, OutputStream sqlDiffOutput) {
         TableReport tableReport = new TableReport();
         tableReport.setSourceTable(tables.getSourceTable().getName());
         tableReport.setTargetTable(tables.getTargetTable().getName());
 
-        Row sourceRow = sourceCursor.next();
-        Row targetRow = targetCursor.next();
-
-        int counter = 0;
-        long startTime = System.currentTimeMillis();
-        
         DbCompareDiffWriter diffWriter = null;
         OutputStream stream = null;
         if (sqlDiffOutput != null) {
@@ -173,6 +194,41 @@ public class DbCompare {
             diffWriter = new DbCompareDiffWriter(targetEngine, tables, stream);
         }
 
+        try {
+            String sourceWhereClause = config.getSourceWhereClause(tables.getSourceTable().getName());
+            String targetWhereClause = config.getTargetWhereClause(tables.getTargetTable().getName());
+            if (!config.isUseChecksums() || !compareTablesByChecksum(tables, sourceWhereClause, targetWhereClause, tableReport, diffWriter)) {
+                String sourceSelect = getSourceComparisonSQL(tables, sourceEngine.getDatabasePlatform());
+                String targetSelect = getTargetComparisonSQL(tables, targetEngine.getDatabasePlatform());
+                compareRows(tables, sourceSelect, targetSelect, tableReport, diffWriter);
+            }
+        } finally {
+            if (stream != null) {
+            	try {
+            		stream.close();
+            	} catch(IOException e) { }
+            }
+        }
+
+        return tableReport;
+    }
+
+    protected void compareRows(DbCompareTables tables, String sourceSelect, String targetSelect, TableReport tableReport,
+            DbCompareDiffWriter diffWriter) {
+        CountingSqlReadCursor sourceCursor = new CountingSqlReadCursor(sourceEngine.getDatabasePlatform().
+                getSqlTemplateDirty().queryForCursor(sourceSelect, defaultRowMapper));
+        CountingSqlReadCursor targetCursor = new CountingSqlReadCursor(targetEngine.getDatabasePlatform().
+                getSqlTemplateDirty().queryForCursor(targetSelect, defaultRowMapper));
+
+        int sourceRowsBefore = tableReport.getSourceRows();
+        int targetRowsBefore = tableReport.getTargetRows();
+
+        Row sourceRow = sourceCursor.next();
+        Row targetRow = targetCursor.next();
+
+        int counter = 0;
+        long startTime = System.currentTimeMillis();
+
         try {        
             while (true) {  
                 if (sourceRow == null && targetRow == null) {
@@ -214,15 +270,10 @@ public class DbCompare {
                                     tableReport.countExtraRow();
                                     targetRow = targetCursor.next();
                                 }
-                                tableReport.setSourceRows(sourceCursor.count);
-                                tableReport.setTargetRows(targetCursor.count);
+                                tableReport.setSourceRows(sourceRowsBefore + sourceCursor.count);
+                                tableReport.setTargetRows(targetRowsBefore + targetCursor.count);
             }
         } finally {
-            if (stream != null) {
-            	try {
-            		stream.close();
-            	} catch(IOException e) { }
-            }
             if(sourceCursor != null) {
             	sourceCursor.close();
             }
@@ -230,8 +281,95 @@ public class DbCompare {
             	targetCursor.close();
             }
         }
+    }
 
-        return tableReport;
+    /**
+     * Compare a table by checksums of primary key ranges, drilling into only the ranges that differ.
+     * 
+     * @return false if the table does not qualify for checksum comparison and should be compared row by row
+     */
+    protected boolean compareTablesByChecksum(DbCompareTables tables, String sourceWhereClause, String targetWhereClause,
+            TableReport tableReport, DbCompareDiffWriter diffWriter) {
+        Column[] sourcePkColumns = tables.getSourceTable().getPrimaryKeyColumns();
+        if (sourcePkColumns.length != 1 || tables.getTransform() != null) {
+            return false;
+        }
+        Column sourcePkColumn = sourcePkColumns[0];
+        Column targetPkColumn = tables.getColumnMapping().get(sourcePkColumn);
+        List<Column> sourceColumns = new ArrayList<Column>();
+        List<Column> targetColumns = new ArrayList<Column>();
+        for (Column sourceColumn : tables.getSourceTable().getColumns()) {
+            Column targetColumn = tables.getColumnMapping().get(sourceColumn);
+            if (targetColumn != null) {
+                sourceColumns.add(sourceColumn);
+                targetColumns.add(targetColumn);
+            }
+        }
+
+        IDatabasePlatform sourcePlatform = sourceEngine.getDatabasePlatform();
+        IDatabasePlatform targetPlatform = targetEngine.getDatabasePlatform();
+        if (targetPkColumn == null || !DbCompareRangeChecksum.isSupported(sourcePlatform, targetPlatform, sourcePkColumn, 
+                targetPkColumn, sourceColumns, targetColumns)) {
+            log.info("Table {} does not qualify for checksum comparison and will be compared row by row", tables.getSourceTable().getName());
+            return false;
+        }
+
+        long[] sourceBounds = DbCompareRangeChecksum.queryPkBounds(sourcePlatform, tables.getSourceTable(), sourcePkColumn, sourceWhereClause);
+        long[] targetBounds = DbCompareRangeChecksum.queryPkBounds(targetPlatform, tables.getTargetTable(), targetPkColumn, targetWhereClause);
+        if (sourceBounds == null && targetBounds == null) {
+            return true;
+        }
+        long fromPk = Math.min(sourceBounds != null ? sourceBounds[0] : Long.MAX_VALUE, targetBounds != null ? targetBounds[0] : Long.MAX_VALUE);
+        long toPk = Math.max(sourceBounds != null ? sourceBounds[1] : Long.MIN_VALUE, targetBounds != null ? targetBounds[1] : Long.MIN_VALUE);
+
+        compareRangeByChecksum(tables, sourcePkColumn, targetPkColumn, sourceColumns, targetColumns, sourceWhereClause, targetWhereClause,
+                fromPk, toPk, tableReport, diffWriter);
+        return true;
+    }
+
+    protected void compareRangeByChecksum(DbCompareTables tables, Column sourcePkColumn, Column targetPkColumn, 
+            List<Column> sourceColumns, List<Column> targetColumns, String sourceWhereClause, String targetWhereClause, 
+            long fromPk, long toPk, TableReport tableReport, DbCompareDiffWriter diffWriter) {
+        DbCompareRangeChecksum sourceChecksum = DbCompareRangeChecksum.query(sourceEngine.getDatabasePlatform(), 
+                tables.getSourceTable(), sourceColumns, sourcePkColumn, sourceWhereClause, fromPk, toPk);
+        DbCompareRangeChecksum targetChecksum = DbCompareRangeChecksum.query(targetEngine.getDatabasePlatform(), 
+                tables.getTargetTable(), targetColumns, targetPkColumn, targetWhereClause, fromPk, toPk);
+
+        if (sourceChecksum.matches(targetChecksum)) {
+            tableReport.setSourceRows(tableReport.getSourceRows() + (int) sourceChecksum.getRowCount());
+            tableReport.setTargetRows(tableReport.getTargetRows() + (int) targetChecksum.getRowCount());
+            tableReport.setMatchedRows(tableReport.getMatchedRows() + (int) sourceChecksum.getRowCount());
+            return;
+        }
+
+        long rowCount = Math.max(sourceChecksum.getRowCount(), targetChecksum.getRowCount());
+        int fanout = Math.max(2, config.getChecksumFanout());
+        long rangeSize = toPk - fromPk + 1;
+        if (rowCount <= config.getChecksumLeafRows() || rangeSize <= fanout || rangeSize <= 0) {
+            log.debug("Comparing rows of {} between {} and {}: source {}, target {}", tables.getSourceTable().getName(), 
+                    fromPk, toPk, sourceChecksum, targetChecksum);
+            String sourceSelect = getComparisonSQL(tables.getSourceTable(), tables.getSourceTable().getPrimaryKeyColumns(),
+                    sourceEngine.getDatabasePlatform(), getRangeWhereClause(sourceEngine.getDatabasePlatform(), sourcePkColumn,
+                            sourceWhereClause, fromPk, toPk));
+            String targetSelect = getComparisonSQL(tables.getTargetTable(), tables.getTargetTable().getPrimaryKeyColumns(),
+                    targetEngine.getDatabasePlatform(), getRangeWhereClause(targetEngine.getDatabasePlatform(), targetPkColumn,
+                            targetWhereClause, fromPk, toPk));
+            compareRows(tables, sourceSelect, targetSelect, tableReport, diffWriter);
+        } else {
+            long step = rangeSize / fanout + (rangeSize % fanout == 0 ? 0 : 1);
+            for (long subFromPk = fromPk; subFromPk <= toPk && subFromPk >= fromPk; subFromPk += step) {
+                long subToPk = Math.min(toPk, subFromPk + step - 1);
+                compareRangeByChecksum(tables, sourcePkColumn, targetPkColumn, sourceColumns, targetColumns, sourceWhereClause,
+                        targetWhereClause, subFromPk, subToPk, tableReport, diffWriter);
+            }
+        }
+    }
+
+    protected String getRangeWhereClause(IDatabasePlatform platform, Column pkColumn, String whereClause, long fromPk, long toPk) {
+        DatabaseInfo databaseInfo = platform.getDatabaseInfo();
+        String quote = databaseInfo.getDelimiterToken() == null ? "" : databaseInfo.getDelimiterToken();
+        String pk = "t." + quote + pkColumn.getName() + quote;
+        return "(" + whereClause + ") and " + pk + " >= " + fromPk + " and " + pk + " <= " + toPk;
     }
 
     protected int comparePk(DbCompareTables tables, DbCompareRow sourceCompareRow, DbCompareRow targetCompareRow) {
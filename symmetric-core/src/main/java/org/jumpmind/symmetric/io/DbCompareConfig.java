@@ -46,6 +46,10 @@ public class DbCompareConfig {
     private Map<String, String> whereClauses = new LinkedHashMap<String, String>();
     private Map<String, List<String>> tablesToExcludedColumns = new LinkedHashMap<String, List<String>>();
     private String outputSql;
+    private boolean useChecksums = false;
+    private int checksumLeafRows = 10000;
+    private int checksumFanout = 16;
+    private int threadCount = 1;
     
     private Map<String, String> configSources = new HashMap<String, String>();
     
@@ -58,6 +62,10 @@ public class DbCompareConfig {
         configSources.put("whereClauses", "default");
         configSources.put("tablesToExcludedColumns", "default");
         configSources.put("sqlDiffFileName", "default");
+        configSources.put("useChecksums", "default");
+        configSources.put("checksumLeafRows", "default");
+        configSources.put("checksumFanout", "default");
+        configSources.put("threadCount", "default");
     }
     
     public String getSourceWhereClause(String tableName) {
@@ -181,6 +189,38 @@ public class DbCompareConfig {
         this.outputSql = outputSql;
     }
 
+    public boolean isUseChecksums() {
+        return useChecksums;
+    }
+
+    public void setUseChecksums(boolean useChecksums) {
+        this.useChecksums = useChecksums;
+    }
+
+    public int getChecksumLeafRows() {
+        return checksumLeafRows;
+    }
+
+    public void setChecksumLeafRows(int checksumLeafRows) {
+        this.checksumLeafRows = checksumLeafRows;
+    }
+
+    public int getChecksumFanout() {
+        return checksumFanout;
+    }
+
+    public void setChecksumFanout(int checksumFanout) {
+        this.checksumFanout = checksumFanout;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
     public String report() {
         StringBuilder buff = new StringBuilder(128);
         
@@ -192,6 +232,10 @@ public class DbCompareConfig {
         buff.append("\twhereClauses=").append(whereClauses).append("@").append(configSources.get("whereClauses")).append("\n");
         buff.append("\ttablesToExcludedColumns=").append(tablesToExcludedColumns).append(" @").append(configSources.get("tablesToExcludedColumns")).append("\n");
         buff.append("\toutputSql=").append(outputSql).append(" @").append(configSources.get("outputSql")).append("\n");
+        buff.append("\tuseChecksums=").append(useChecksums).append(" @").append(configSources.get("useChecksums")).append("\n");
+        buff.append("\tchecksumLeafRows=").append(checksumLeafRows).append(" @").append(configSources.get("checksumLeafRows")).append("\n");
+        buff.append("\tchecksumFanout=").append(checksumFanout).append(" @").append(configSources.get("checksumFanout")).append("\n");
+        buff.append("\tthreadCount=").append(threadCount).append(" @").append(configSources.get("threadCount")).append("\n");
         
         return buff.toString();
     }
@@ -143,8 +143,10 @@ public class DbCompareDiffWriter {
 
     protected void writeLine(String line) {
         try {
-            stream.write(line.getBytes()); 
-            stream.write("\r\n".getBytes());
+            byte[] bytes = (line + "\r\n").getBytes();
+            synchronized (stream) {
+                stream.write(bytes);
+            }
         } catch (Exception ex) {
             throw new RuntimeException("failed to write to stream '" + line + "'", ex);
         }
@@ -0,0 +1,236 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io;
+
+import java.sql.Types;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.model.TypeMap;
+import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.platform.DatabaseNamesConstants;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlRowMapper;
+import org.jumpmind.db.sql.Row;
+
+/**
+ * The row count and the sum of row hashes for a primary key range of a table,
+ * calculated in SQL so that only the digest crosses the network. Ranges with
+ * equal checksums on the source and target are considered to match. Ranges
+ * that differ are split and checked again until they are small enough to be
+ * compared row by row.
+ */
+public class DbCompareRangeChecksum {
+
+    private long rowCount;
+
+    private String hashSum;
+
+    public DbCompareRangeChecksum(long rowCount, String hashSum) {
+        this.rowCount = rowCount;
+        this.hashSum = hashSum;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public String getHashSum() {
+        return hashSum;
+    }
+
+    public boolean matches(DbCompareRangeChecksum other) {
+        return other != null && rowCount == other.rowCount && StringUtils.equals(hashSum, other.hashSum);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + rowCount + ", hash=" + hashSum;
+    }
+
+    public static DbCompareRangeChecksum query(IDatabasePlatform platform, Table table, List<Column> columns,
+            Column pkColumn, String whereClause, long fromPk, long toPk) {
+        String quote = getQuote(platform);
+        DatabaseInfo databaseInfo = platform.getDatabaseInfo();
+        String pk = "t." + quote + pkColumn.getName() + quote;
+        StringBuilder sql = new StringBuilder("select count(*), sum(");
+        sql.append(getRowHashExpression(platform, columns)).append(") from ");
+        sql.append(table.getQualifiedTableName(quote, databaseInfo.getCatalogSeparator(), databaseInfo.getSchemaSeparator()));
+        sql.append(" t where (").append(whereClause).append(") and ").append(pk).append(" >= ? and ").append(pk).append(" <= ?");
+        return platform.getSqlTemplateDirty().queryForObject(sql.toString(), new ISqlRowMapper<DbCompareRangeChecksum>() {
+            public DbCompareRangeChecksum mapRow(Row row) {
+                Object[] values = row.values().toArray();
+                Object hashSum = values[1];
+                return new DbCompareRangeChecksum(((Number) values[0]).longValue(), hashSum == null ? null : hashSum.toString());
+            }
+        }, fromPk, toPk);
+    }
+
+    public static long[] queryPkBounds(IDatabasePlatform platform, Table table, Column pkColumn, String whereClause) {
+        String quote = getQuote(platform);
+        DatabaseInfo databaseInfo = platform.getDatabaseInfo();
+        String pk = "t." + quote + pkColumn.getName() + quote;
+        String sql = "select min(" + pk + "), max(" + pk + ") from "
+                + table.getQualifiedTableName(quote, databaseInfo.getCatalogSeparator(), databaseInfo.getSchemaSeparator())
+                + " t where " + whereClause;
+        return platform.getSqlTemplateDirty().queryForObject(sql, new ISqlRowMapper<long[]>() {
+            public long[] mapRow(Row row) {
+                Object[] values = row.values().toArray();
+                if (values[0] == null || values[1] == null) {
+                    return null;
+                }
+                return new long[] { ((Number) values[0]).longValue(), ((Number) values[1]).longValue() };
+            }
+        });
+    }
+
+    /**
+     * Checksums are only comparable when both sides use the same platform, so
+     * values are converted to text the same way, and when the table has a
+     * single integer primary key on both sides that can be split into ranges.
+     */
+    public static boolean isSupported(IDatabasePlatform sourcePlatform, IDatabasePlatform targetPlatform,
+            Column sourcePkColumn, Column targetPkColumn, List<Column> sourceColumns, List<Column> targetColumns) {
+        if (!sourcePlatform.getName().equals(targetPlatform.getName()) || getRowHashExpression(sourcePlatform, sourceColumns) == null) {
+            return false;
+        }
+        return isIntegerType(sourcePkColumn) && isIntegerType(targetPkColumn) && !hasLobColumn(sourceColumns)
+                && !hasLobColumn(targetColumns);
+    }
+
+    protected static boolean hasLobColumn(List<Column> columns) {
+        for (Column column : columns) {
+            int type = column.getMappedTypeCode();
+            if (TypeMap.isBinaryType(type) || type == Types.CLOB || type == Types.NCLOB || type == Types.LONGVARCHAR
+                    || type == Types.LONGNVARCHAR || type == Types.SQLXML) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected static boolean isIntegerType(Column column) {
+        int type = column.getMappedTypeCode();
+        return type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT
+                || ((type == Types.NUMERIC || type == Types.DECIMAL) && column.getScale() == 0);
+    }
+
+    /**
+     * Each value is written as its length, a colon and the value, or as N when
+     * it is null, so a separator or marker inside a value cannot make two
+     * different rows hash the same.
+     */
+    protected static String getRowHashExpression(IDatabasePlatform platform, List<Column> columns) {
+        String name = platform.getName();
+        String quote = getQuote(platform);
+        StringBuilder sql = new StringBuilder();
+        if (name.startsWith(DatabaseNamesConstants.POSTGRESQL)) {
+            sql.append("cast(cast(('x' || substr(md5(''");
+            for (Column column : columns) {
+                String value = "cast(t." + quote + column.getName() + quote + " as varchar)";
+                sql.append(" || case when ").append(value).append(" is null then 'N' else length(").append(value)
+                        .append(") || ':' || ").append(value).append(" end");
+            }
+            sql.append("), 1, 8)) as bit(32)) as integer)");
+        } else if (name.equals(DatabaseNamesConstants.MYSQL) || name.equals(DatabaseNamesConstants.MARIADB)) {
+            sql.append("cast(conv(substring(md5(concat(''");
+            for (Column column : columns) {
+                String value = "t." + quote + column.getName() + quote;
+                sql.append(", case when ").append(value).append(" is null then 'N' else concat(char_length(").append(value)
+                        .append("), ':', ").append(value).append(") end");
+            }
+            sql.append(")), 1, 8), 16, 10) as unsigned)");
+        } else if (name.equals(DatabaseNamesConstants.H2)) {
+            sql.append("cast(cast(substring(cast(hash('SHA256', stringtoutf8(''");
+            for (Column column : columns) {
+                String value = "cast(t." + quote + column.getName() + quote + " as varchar)";
+                sql.append(" || case when ").append(value).append(" is null then 'N' else length(").append(value)
+                        .append(") || ':' || ").append(value).append(" end");
+            }
+            sql.append("), 1) as varchar), 1, 8) as binary) as bigint)");
+        } else if (name.equals(DatabaseNamesConstants.ORACLE)) {
+            /*
+             * Each column is hashed on its own, seeded by its position, because
+             * concatenating wide rows exceeds the 4000 byte limit (ORA-01489).
+             * A null is given a value outside the range of ora_hash. The column
+             * hashes are hashed again so the sum for a range does not match
+             * when values are swapped between rows.
+             */
+            sql.append("ora_hash(");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sql.append(" + ");
+                }
+                Column column = columns.get(i);
+                String value = "t." + quote + column.getName() + quote;
+                sql.append("case when ").append(value).append(" is null then 4294967296 else ora_hash(")
+                        .append(getOracleText(column, value)).append(", 4294967295, ").append(i + 1).append(") end");
+            }
+            sql.append(")");
+        } else if (name.equals(DatabaseNamesConstants.MSSQL2005) || name.equals(DatabaseNamesConstants.MSSQL2008)) {
+            /*
+             * Each column is hashed on its own to stay under the 8000 byte input
+             * limit of hashbytes, and the column hashes are hashed again.
+             */
+            sql.append("cast(cast(substring(hashbytes('MD5', ");
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    sql.append(" + ");
+                }
+                Column column = columns.get(i);
+                String value = "t." + quote + column.getName() + quote;
+                sql.append("coalesce(hashbytes('MD5', ").append(getMsSqlText(column, value)).append("), 0x00)");
+            }
+            sql.append("), 1, 4) as int) as bigint)");
+        } else {
+            return null;
+        }
+        return sql.toString();
+    }
+
+    protected static String getOracleText(Column column, String value) {
+        String typeName = column.getJdbcTypeName();
+        if (typeName != null && typeName.toUpperCase().startsWith("TIMESTAMP")) {
+            return "to_char(" + value + ", 'YYYY-MM-DD HH24:MI:SS.FF9')";
+        } else if (typeName != null && typeName.equalsIgnoreCase("DATE")) {
+            return "to_char(" + value + ", 'YYYY-MM-DD HH24:MI:SS')";
+        }
+        return "to_char(" + value + ")";
+    }
+
+    protected static String getMsSqlText(Column column, String value) {
+        int type = column.getMappedTypeCode();
+        if (TypeMap.isTextType(type)) {
+            return value;
+        } else if (TypeMap.isDateTimeType(type)) {
+            return "convert(nvarchar(64), " + value + ", 121)";
+        }
+        return "convert(nvarchar(64), " + value + ")";
+    }
+
+    protected static String getQuote(IDatabasePlatform platform) {
+        String quote = platform.getDatabaseInfo().getDelimiterToken();
+        return quote == null ? "" : quote;
+    }
+
+}
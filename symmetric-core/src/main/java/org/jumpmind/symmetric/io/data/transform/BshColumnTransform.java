@@ -31,6 +31,7 @@ import static org.jumpmind.symmetric.common.Constants.DATA_CONTEXT_TARGET_NODE_G
 import static org.jumpmind.symmetric.common.Constants.DATA_CONTEXT_TARGET_NODE_ID;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
@@ -42,7 +43,10 @@ import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.io.data.DataContext;
 import org.jumpmind.symmetric.io.data.DataEventType;
 import org.jumpmind.symmetric.model.Data;
+import org.jumpmind.symmetric.service.IExtensionService;
 import org.jumpmind.symmetric.service.IParameterService;
+import org.jumpmind.symmetric.util.BshScript;
+import org.jumpmind.symmetric.util.ICompiledBshScript;
 import org.jumpmind.util.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,15 +62,69 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
 
     public static final String NAME = "bsh";
 
+    protected static final String COMPILED_CLASS_NAME = "BshColumnTransformExt";
+
+    protected static final String COMPILED_IMPORTS = "import org.jumpmind.symmetric.io.data.transform.*;\n"
+            + "import org.jumpmind.symmetric.io.data.*;\n"
+            + "import org.jumpmind.db.platform.*;\n"
+            + "import org.jumpmind.db.sql.*;\n"
+            + "import java.util.*;\n";
+
+    protected static final Map<String, String> VARIABLE_TYPES = new LinkedHashMap<String, String>();
+
+    static {
+        VARIABLE_TYPES.put("currentValue", "String");
+        VARIABLE_TYPES.put("oldValue", "String");
+        VARIABLE_TYPES.put("channelId", "String");
+        VARIABLE_TYPES.put("includeOn", "TransformColumn.IncludeOnType");
+        VARIABLE_TYPES.put("sourceDmlType", "DataEventType");
+        VARIABLE_TYPES.put("sourceDmlTypeString", "String");
+        VARIABLE_TYPES.put("transformedData", "TransformedData");
+        VARIABLE_TYPES.put("transformColumn", "TransformColumn");
+        VARIABLE_TYPES.put("sourceSchemaName", "String");
+        VARIABLE_TYPES.put("sourceCatalogName", "String");
+        VARIABLE_TYPES.put("sourceTableName", "String");
+        VARIABLE_TYPES.put("log", "org.slf4j.Logger");
+        VARIABLE_TYPES.put("sqlTemplate", "ISqlTemplate");
+        VARIABLE_TYPES.put("context", "DataContext");
+        VARIABLE_TYPES.put("bshContext", "Map<String, Object>");
+        VARIABLE_TYPES.put(DATA_CONTEXT_ENGINE, "org.jumpmind.symmetric.ISymmetricEngine");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE, "org.jumpmind.symmetric.model.Node");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_GROUP_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE, "org.jumpmind.symmetric.model.Node");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, "String");
+        VARIABLE_TYPES.put(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, "String");
+    }
+
     IParameterService parameterService;
 
+    IExtensionService extensionService;
+
     /*
      * Static context object used to maintain objects in memory for reference between BSH transforms.
      */
     private static Map<String, Object> bshContext = new HashMap<String, Object>();
 
+    /*
+     * Variables bound for the current row, reused by each thread to avoid allocating a map per row.
+     */
+    private final ThreadLocal<Map<String, Object>> bindings = new ThreadLocal<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> initialValue() {
+            return new HashMap<String, Object>();
+        }
+    };
+
     public BshColumnTransform(IParameterService parameterService) {
+        this(parameterService, null);
+    }
+
+    public BshColumnTransform(IParameterService parameterService, IExtensionService extensionService) {
         this.parameterService = parameterService;
+        this.extensionService = extensionService;
     }
 
     public String getName() {
@@ -85,70 +143,70 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
             DataContext context,
             TransformColumn column, TransformedData data, Map<String, String> sourceValues,
             String newValue, String oldValue) throws IgnoreColumnException, IgnoreRowException {
+        Map<String, Object> bindings = this.bindings.get();
         try {
-            Interpreter interpreter = getInterpreter(context);
-            interpreter.set("currentValue", newValue);
-            interpreter.set("oldValue", oldValue);
-            interpreter.set("channelId", context.getBatch().getChannelId());
-            interpreter.set("includeOn", column.getIncludeOn());
-            interpreter.set("sourceDmlType", data.getSourceDmlType());
-            interpreter.set("sourceDmlTypeString", data.getSourceDmlType().toString());
-            interpreter.set("transformedData", data);
-            interpreter.set("transformColumn", column);
-            Data csvData = (Data)context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
-            if (csvData != null && csvData.getTriggerHistory() != null) {
-                interpreter.set("sourceSchemaName", csvData.getTriggerHistory().getSourceSchemaName());
-                interpreter.set("sourceCatalogName", csvData.getTriggerHistory().getSourceCatalogName());
-                interpreter.set("sourceTableName", csvData.getTriggerHistory().getSourceTableName());
-            }  
-            for (String columnName : sourceValues.keySet()) {
-                interpreter.set(columnName.toUpperCase(), sourceValues.get(columnName));
-                interpreter.set(columnName, sourceValues.get(columnName));
-            }
-           
             String transformExpression = column.getTransformExpression();
             
             if (StringUtils.isEmpty(transformExpression)) {
                 throw new SymmetricException("transformExpression cannot be empty. Check "
                         + "configuration for transform '" + column.getTransformId() + "'");
             }
-            
+
             String globalScript = parameterService.getString(ParameterConstants.BSH_TRANSFORM_GLOBAL_SCRIPT);
-            String methodName = String.format("transform_%d()",
-                    Math.abs(transformExpression.hashCode() + (globalScript == null ? 0 : globalScript.hashCode())));
-            if (context.get(methodName) == null) {
-                interpreter.set("log", log);
-                interpreter.set("sqlTemplate", platform.getSqlTemplate());
-                interpreter.set("context", context);
-                interpreter.set("bshContext", bshContext);
-                interpreter.set(DATA_CONTEXT_ENGINE, context.get(DATA_CONTEXT_ENGINE));            
-                interpreter.set(DATA_CONTEXT_TARGET_NODE, context.get(DATA_CONTEXT_TARGET_NODE));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_ID, context.get(DATA_CONTEXT_TARGET_NODE_ID));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_GROUP_ID, context.get(DATA_CONTEXT_TARGET_NODE_GROUP_ID));
-                interpreter.set(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID));            
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE, context.get(DATA_CONTEXT_SOURCE_NODE));
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_ID, context.get(DATA_CONTEXT_SOURCE_NODE_ID));                                                    
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, context.get(DATA_CONTEXT_SOURCE_NODE_GROUP_ID));                                                    
-                interpreter.set(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID));
-                
-                if (StringUtils.isNotBlank(globalScript)) {
-                    interpreter.eval(globalScript);
+            boolean hasGlobalScript = StringUtils.isNotBlank(globalScript);
+            BshScript script = BshScript.get(hasGlobalScript ? globalScript + "\n" + transformExpression : transformExpression);
+            Data csvData = (Data)context.get(Constants.DATA_CONTEXT_CURRENT_CSV_DATA);
+            bind(bindings, script, context, column, data, sourceValues, newValue, oldValue, csvData);
+
+            Object result = null;
+            ICompiledBshScript compiledScript = null;
+            if (!hasGlobalScript && extensionService != null
+                    && parameterService.is(ParameterConstants.BSH_COMPILE_TO_JAVA_ENABLED, false)) {
+                compiledScript = script.getCompiled(COMPILED_CLASS_NAME);
+                if (compiledScript == null && !script.isCompileAttempted(COMPILED_CLASS_NAME)) {
+                    compiledScript = script.compile(extensionService, COMPILED_IMPORTS, COMPILED_CLASS_NAME,
+                            getVariableTypes(sourceValues));
                 }
-                interpreter.eval(String.format("%s {\n%s\n}", methodName, transformExpression));
-                context.put(methodName, Boolean.TRUE);
             }
 
-            Object result = interpreter.eval(methodName);            
-            
-            if (csvData != null && csvData.getTriggerHistory() != null) {
-                interpreter.unset("sourceSchemaName");
-                interpreter.unset("sourceCatalogName");
-                interpreter.unset("sourceTableName");
-            }
-            
-            for (String columnName : sourceValues.keySet()) {
-                interpreter.unset(columnName.toUpperCase());
-                interpreter.unset(columnName);
+            if (compiledScript != null) {
+                bindContext(bindings, script, platform, context);
+                result = compiledScript.eval(bindings);
+            } else {
+                Interpreter interpreter = getInterpreter(context);
+                for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+                    interpreter.set(binding.getKey(), binding.getValue());
+                }
+
+                String methodName = String.format("transform_%d()",
+                        Math.abs(transformExpression.hashCode() + (globalScript == null ? 0 : globalScript.hashCode())));
+                if (context.get(methodName) == null) {
+                    interpreter.set("log", log);
+                    interpreter.set("sqlTemplate", platform.getSqlTemplate());
+                    interpreter.set("context", context);
+                    interpreter.set("bshContext", bshContext);
+                    interpreter.set(DATA_CONTEXT_ENGINE, context.get(DATA_CONTEXT_ENGINE));            
+                    interpreter.set(DATA_CONTEXT_TARGET_NODE, context.get(DATA_CONTEXT_TARGET_NODE));
+                    interpreter.set(DATA_CONTEXT_TARGET_NODE_ID, context.get(DATA_CONTEXT_TARGET_NODE_ID));
+                    interpreter.set(DATA_CONTEXT_TARGET_NODE_GROUP_ID, context.get(DATA_CONTEXT_TARGET_NODE_GROUP_ID));
+                    interpreter.set(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID));            
+                    interpreter.set(DATA_CONTEXT_SOURCE_NODE, context.get(DATA_CONTEXT_SOURCE_NODE));
+                    interpreter.set(DATA_CONTEXT_SOURCE_NODE_ID, context.get(DATA_CONTEXT_SOURCE_NODE_ID));                                                    
+                    interpreter.set(DATA_CONTEXT_SOURCE_NODE_GROUP_ID, context.get(DATA_CONTEXT_SOURCE_NODE_GROUP_ID));                                                    
+                    interpreter.set(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID, context.get(DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID));
+                    
+                    if (hasGlobalScript) {
+                        interpreter.eval(globalScript);
+                    }
+                    interpreter.eval(String.format("%s {\n%s\n}", methodName, transformExpression));
+                    context.put(methodName, Boolean.TRUE);
+                }
+
+                result = interpreter.eval(methodName);            
+
+                for (String name : bindings.keySet()) {
+                    interpreter.unset(name);
+                }
             }
             
             if (result instanceof String) {
@@ -184,7 +242,98 @@ public class BshColumnTransform implements ISingleNewAndOldValueColumnTransform,
                         column.getTransformId()), ex);
                 throw new TransformColumnException(ex);
             }
+        } finally {
+            bindings.clear();
+        }
+    }
+
+    /**
+     * Bind the row level variables, but only the ones the script references.
+     * Source columns are bound by both their upper case and their original
+     * names.
+     */
+    protected void bind(Map<String, Object> bindings, BshScript script, DataContext context, TransformColumn column,
+            TransformedData data, Map<String, String> sourceValues, String newValue, String oldValue, Data csvData) {
+        if (script.references("currentValue")) {
+            bindings.put("currentValue", newValue);
+        }
+        if (script.references("oldValue")) {
+            bindings.put("oldValue", oldValue);
+        }
+        if (script.references("channelId")) {
+            bindings.put("channelId", context.getBatch().getChannelId());
+        }
+        if (script.references("includeOn")) {
+            bindings.put("includeOn", column.getIncludeOn());
+        }
+        if (script.references("sourceDmlType")) {
+            bindings.put("sourceDmlType", data.getSourceDmlType());
+        }
+        if (script.references("sourceDmlTypeString")) {
+            bindings.put("sourceDmlTypeString", data.getSourceDmlType().toString());
+        }
+        if (script.references("transformedData")) {
+            bindings.put("transformedData", data);
+        }
+        if (script.references("transformColumn")) {
+            bindings.put("transformColumn", column);
+        }
+        if (csvData != null && csvData.getTriggerHistory() != null) {
+            if (script.references("sourceSchemaName")) {
+                bindings.put("sourceSchemaName", csvData.getTriggerHistory().getSourceSchemaName());
+            }
+            if (script.references("sourceCatalogName")) {
+                bindings.put("sourceCatalogName", csvData.getTriggerHistory().getSourceCatalogName());
+            }
+            if (script.references("sourceTableName")) {
+                bindings.put("sourceTableName", csvData.getTriggerHistory().getSourceTableName());
+            }
+        }
+        for (Map.Entry<String, String> sourceValue : sourceValues.entrySet()) {
+            String columnName = sourceValue.getKey();
+            if (script.referencesUpperCaseOf(columnName)) {
+                bindings.put(columnName.toUpperCase(), sourceValue.getValue());
+            }
+            if (script.references(columnName)) {
+                bindings.put(columnName, sourceValue.getValue());
+            }
+        }
+    }
+
+    /**
+     * Bind the variables the interpreter only needs to receive once per
+     * context. A compiled script has no interpreter to hold them, so they are
+     * bound for each row it runs.
+     */
+    protected void bindContext(Map<String, Object> bindings, BshScript script, IDatabasePlatform platform, DataContext context) {
+        bindIfAbsent(bindings, script, "log", log);
+        if (script.references("sqlTemplate") && !bindings.containsKey("sqlTemplate")) {
+            bindings.put("sqlTemplate", platform.getSqlTemplate());
+        }
+        bindIfAbsent(bindings, script, "context", context);
+        bindIfAbsent(bindings, script, "bshContext", bshContext);
+        for (String name : new String[] { DATA_CONTEXT_ENGINE, DATA_CONTEXT_TARGET_NODE, DATA_CONTEXT_TARGET_NODE_ID,
+                DATA_CONTEXT_TARGET_NODE_GROUP_ID, DATA_CONTEXT_TARGET_NODE_EXTERNAL_ID, DATA_CONTEXT_SOURCE_NODE,
+                DATA_CONTEXT_SOURCE_NODE_ID, DATA_CONTEXT_SOURCE_NODE_GROUP_ID, DATA_CONTEXT_SOURCE_NODE_EXTERNAL_ID }) {
+            bindIfAbsent(bindings, script, name, context.get(name));
+        }
+    }
+
+    protected void bindIfAbsent(Map<String, Object> bindings, BshScript script, String name, Object value) {
+        if (script.references(name) && !bindings.containsKey(name)) {
+            bindings.put(name, value);
+        }
+    }
+
+    protected Map<String, String> getVariableTypes(Map<String, String> sourceValues) {
+        Map<String, String> variableTypes = new LinkedHashMap<String, String>(VARIABLE_TYPES);
+        for (String columnName : sourceValues.keySet()) {
+            if (BshScript.isJavaIdentifier(columnName)) {
+                variableTypes.put(columnName.toUpperCase(), "String");
+                variableTypes.put(columnName, "String");
+            }
         }
+        return variableTypes;
     }
 
     protected Interpreter getInterpreter(Context context) {
@@ -63,6 +63,12 @@ public interface IJob {
     public long getAverageExecutionTimeInMs();
     
     public boolean invoke(boolean force);
+
+    /**
+     * Runs the job soon, outside of its schedule. Requests made while one is
+     * already pending are merged into a single run.
+     */
+    public void wakeUp();
     
     public String getDeprecatedStartParameter();
     
@@ -16,6 +16,8 @@ public abstract class AbstractDataLoaderFactory {
                 parameterService.getLong(ParameterConstants.DATA_LOADER_MAX_ROWS_BEFORE_COMMIT));
         settings.setCommitSleepInterval(
                 parameterService.getLong(ParameterConstants.DATA_LOADER_SLEEP_TIME_AFTER_EARLY_COMMIT));
+        settings.setStatementCacheSize(
+                parameterService.getInt(ParameterConstants.DATA_LOADER_STATEMENT_CACHE_SIZE, 16));
         settings.setIgnoreMissingTables(parameterService.is(ParameterConstants.DATA_LOADER_IGNORE_MISSING_TABLES));
         settings.setTreatDateTimeFieldsAsVarchar(
                 parameterService.is(ParameterConstants.DATA_LOADER_TREAT_DATETIME_AS_VARCHAR));
@@ -26,6 +28,8 @@ public abstract class AbstractDataLoaderFactory {
         settings.setTextColumnExpression(
                 parameterService.getString(ParameterConstants.DATA_LOADER_TEXT_COLUMN_EXPRESSION));
         settings.setApplyChangesOnly(parameterService.is(ParameterConstants.DATA_LOADER_APPLY_CHANGES_ONLY, true));
+        settings.setBatchUpdatesAndDeletes(
+                parameterService.is(ParameterConstants.DATA_LOADER_BATCH_UPDATES_AND_DELETES, false));
         settings.setUsePrimaryKeysFromSource(
                 parameterService.is(ParameterConstants.DATA_LOADER_USE_PRIMARY_KEYS_FROM_SOURCE));
         return settings;
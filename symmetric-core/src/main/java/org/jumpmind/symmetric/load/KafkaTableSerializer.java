@@ -0,0 +1,344 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.load;
+
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.beanutils.ConvertUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.commons.lang.time.DateUtils;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Turns the row data of one table into a Kafka message. A serializer is
+ * compiled once from the {@link Table} metadata so that the work done per row
+ * is limited to appending the column values.
+ */
+abstract public class KafkaTableSerializer {
+
+    protected final Table table;
+
+    protected final String[] columnNames;
+
+    protected KafkaTableSerializer(Table table) {
+        this.table = table;
+        this.columnNames = table.getColumnNames();
+    }
+
+    /**
+     * @return the message value, which is a {@link String} for the text
+     *         formats, a byte[] for generic Avro records or the populated
+     *         POJO for the Confluent schema registry
+     */
+    abstract public Object serialize(DataEventType eventType, String[] rowData);
+
+    /**
+     * @return true if this serializer was compiled for the same columns as
+     *         the given table
+     */
+    public boolean isCompiledFor(Table table) {
+        return this.table == table || Arrays.equals(columnNames, table.getColumnNames());
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    public static KafkaTableSerializer create(String format, Table table) {
+        if (KafkaWriterFilter.KAFKA_FORMAT_CSV.equals(format)) {
+            return new CsvSerializer(table);
+        } else if (KafkaWriterFilter.KAFKA_FORMAT_XML.equals(format)) {
+            return new XmlSerializer(table);
+        } else if (KafkaWriterFilter.KAFKA_FORMAT_AVRO.equals(format)) {
+            return new GenericAvroSerializer(table);
+        } else {
+            return new JsonSerializer(table);
+        }
+    }
+
+    public static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\b':
+                    sb.append("\\b");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    static class JsonSerializer extends KafkaTableSerializer {
+
+        protected final String tablePrefix;
+
+        protected final String[] columnPrefixes;
+
+        public JsonSerializer(Table table) {
+            super(table);
+            StringBuilder sb = new StringBuilder("{");
+            appendJsonString(sb, table.getName());
+            sb.append(": {\"eventType\": \"");
+            this.tablePrefix = sb.toString();
+            this.columnPrefixes = new String[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                sb.setLength(0);
+                if (i > 0) {
+                    sb.append(",");
+                }
+                appendJsonString(sb, columnNames[i]);
+                sb.append(": ");
+                columnPrefixes[i] = sb.toString();
+            }
+        }
+
+        @Override
+        public Object serialize(DataEventType eventType, String[] rowData) {
+            StringBuilder sb = new StringBuilder(tablePrefix.length() + 32 * columnNames.length);
+            sb.append(tablePrefix).append(eventType).append("\",\"data\": { ");
+            for (int i = 0; i < columnPrefixes.length; i++) {
+                sb.append(columnPrefixes[i]);
+                if (rowData[i] != null) {
+                    appendJsonString(sb, rowData[i]);
+                } else {
+                    sb.append("null");
+                }
+            }
+            sb.append(" } } }");
+            return sb.toString();
+        }
+    }
+
+    static class CsvSerializer extends KafkaTableSerializer {
+
+        protected final String tablePrefix;
+
+        protected final String[] columnPrefixes;
+
+        public CsvSerializer(Table table) {
+            super(table);
+            this.tablePrefix = "\nTABLE," + table.getName() + ",EVENT,";
+            this.columnPrefixes = new String[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                columnPrefixes[i] = (i > 0 ? "," : "") + columnNames[i] + ",";
+            }
+        }
+
+        @Override
+        public Object serialize(DataEventType eventType, String[] rowData) {
+            StringBuilder sb = new StringBuilder(tablePrefix.length() + 32 * columnNames.length);
+            sb.append(tablePrefix).append(eventType).append(",");
+            for (int i = 0; i < columnPrefixes.length; i++) {
+                sb.append(columnPrefixes[i]).append(rowData[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    static class XmlSerializer extends KafkaTableSerializer {
+
+        protected final String tablePrefix;
+
+        protected final String[] columnPrefixes;
+
+        public XmlSerializer(Table table) {
+            super(table);
+            this.tablePrefix = "<row entity=\"" + StringEscapeUtils.escapeXml(table.getName()) + "\" dml=\"";
+            this.columnPrefixes = new String[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                columnPrefixes[i] = "<data key=\"" + StringEscapeUtils.escapeXml(columnNames[i]) + "\">";
+            }
+        }
+
+        @Override
+        public Object serialize(DataEventType eventType, String[] rowData) {
+            StringBuilder sb = new StringBuilder(tablePrefix.length() + 48 * columnNames.length);
+            sb.append(tablePrefix).append(eventType).append("\">");
+            for (int i = 0; i < columnPrefixes.length; i++) {
+                sb.append(columnPrefixes[i]).append(StringEscapeUtils.escapeXml(rowData[i])).append("</data>");
+            }
+            sb.append("</row>");
+            return sb.toString();
+        }
+    }
+
+    static class GenericAvroSerializer extends KafkaTableSerializer {
+
+        protected static final Schema SCHEMA = new Schema.Parser().parse(KafkaWriterFilter.AVRO_CDC_SCHEMA);
+
+        protected static final Schema COLUMN_SCHEMA = SCHEMA.getField("data").schema().getElementType();
+
+        protected final GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<GenericRecord>(SCHEMA);
+
+        protected final ByteArrayOutputStream os = new ByteArrayOutputStream();
+
+        protected BinaryEncoder encoder;
+
+        public GenericAvroSerializer(Table table) {
+            super(table);
+        }
+
+        @Override
+        public Object serialize(DataEventType eventType, String[] rowData) {
+            GenericData.Record avroRecord = new GenericData.Record(SCHEMA);
+            avroRecord.put("table", table.getName());
+            avroRecord.put("eventType", eventType.toString());
+            List<GenericRecord> dataCollection = new ArrayList<GenericRecord>(columnNames.length);
+            for (int i = 0; i < columnNames.length; i++) {
+                GenericRecord columnRecord = new GenericData.Record(COLUMN_SCHEMA);
+                columnRecord.put("name", columnNames[i]);
+                columnRecord.put("value", rowData[i]);
+                dataCollection.add(columnRecord);
+            }
+            avroRecord.put("data", dataCollection);
+            try {
+                os.reset();
+                encoder = EncoderFactory.get().binaryEncoder(os, encoder);
+                writer.write(avroRecord, encoder);
+                encoder.flush();
+                return os.toByteArray();
+            } catch (IOException ioe) {
+                throw new RuntimeException("Unable to convert row data to an Avro record", ioe);
+            }
+        }
+    }
+
+    /**
+     * Populates a generated Avro POJO for use with the Confluent schema
+     * registry. The constructor and the setter for each column are resolved
+     * once instead of looking up bean properties by name on every row.
+     */
+    static class PojoAvroSerializer extends KafkaTableSerializer {
+
+        private static final Logger log = LoggerFactory.getLogger(PojoAvroSerializer.class);
+
+        protected final Constructor<?> constructor;
+
+        protected final Method[] setters;
+
+        protected final Class<?>[] propertyTypes;
+
+        protected final String[] parseDatePatterns;
+
+        public PojoAvroSerializer(Table table, Class<?> pojoClass, String[] parseDatePatterns) {
+            super(table);
+            this.parseDatePatterns = parseDatePatterns;
+            try {
+                this.constructor = pojoClass.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("Unable to find a default constructor on POJO " + pojoClass.getName()
+                        + " for table " + table.getName(), e);
+            }
+            PropertyDescriptor[] descriptors = PropertyUtils.getPropertyDescriptors(pojoClass);
+            this.setters = new Method[columnNames.length];
+            this.propertyTypes = new Class<?>[columnNames.length];
+            for (int i = 0; i < columnNames.length; i++) {
+                String simpleName = columnNames[i].toLowerCase().replaceAll("[^a-z0-9]", "");
+                for (PropertyDescriptor pd : descriptors) {
+                    if (pd.getName().toLowerCase().equals(simpleName) && pd.getWriteMethod() != null) {
+                        setters[i] = pd.getWriteMethod();
+                        propertyTypes[i] = pd.getPropertyType();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public Object serialize(DataEventType eventType, String[] rowData) {
+            try {
+                Object pojo = constructor.newInstance();
+                for (int i = 0; i < setters.length; i++) {
+                    if (setters[i] != null) {
+                        Object value = convert(rowData[i], propertyTypes[i]);
+                        /* A primitive property keeps its default when the column is null */
+                        if (value != null || !propertyTypes[i].isPrimitive()) {
+                            setters[i].invoke(pojo, value);
+                        }
+                    }
+                }
+                return pojo;
+            } catch (Exception e) {
+                throw new RuntimeException("Unable to populate POJO " + constructor.getDeclaringClass().getName()
+                        + " for table " + table.getName(), e);
+            }
+        }
+
+        protected Object convert(String value, Class<?> type) {
+            if (value == null || CharSequence.class.equals(type) || String.class.equals(type)) {
+                return value;
+            } else if (Long.class.equals(type) || long.class.equals(type)) {
+                try {
+                    Date date = DateUtils.parseDate(value, parseDatePatterns);
+                    return date.getTime();
+                } catch (Exception e) {
+                    log.debug(value + " was not a recognized date format so treating it as a long.");
+                }
+            }
+            return ConvertUtils.convert(value, type);
+        }
+    }
+
+}
@@ -1,31 +1,19 @@
 package org.jumpmind.symmetric.load;
 
-import java.beans.PropertyDescriptor;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericDatumWriter;
-import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.io.Encoder;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.commons.beanutils.BeanUtils;
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.time.DateUtils;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.LongSerializer;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.symmetric.common.ParameterConstants;
@@ -49,10 +37,25 @@ import io.confluent.kafka.serializers.KafkaAvroSerializer;
 import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
 
 public class KafkaWriterFilter implements IDatabaseWriterFilter {
-    protected final String KAFKA_TEXT_CACHE = "KAFKA_TEXT_CACHE" + this.hashCode();
 
-    protected Map<String, List<String>> kafkaDataMap = new HashMap<String, List<String>>();
-    protected String kafkaDataKey;
+    protected Map<String, KafkaTableSerializer> serializers = new HashMap<String, KafkaTableSerializer>();
+
+    /* messages for the current batch by topic when sending one message per batch */
+    protected Map<String, StringBuilder> batchMessages = new HashMap<String, StringBuilder>();
+
+    protected Producer<Object, Object> kafkaProducer;
+
+    protected boolean isProducerProvided;
+
+    protected long maxInFlightBytes;
+
+    protected long inFlightBytes;
+
+    protected int inFlightCount;
+
+    protected Exception sendException;
+
+    protected int sendGeneration;
 
     private final Logger log = LoggerFactory.getLogger(IDatabaseWriterFilter.class);
 
@@ -102,16 +105,12 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
             + "         \"type\":\"record\"," + "         \"fields\":[" + "            {\"name\":\"name\", \"type\":\"string\"},"
             + "            {\"name\":\"value\", \"type\":[\"null\", \"string\"]} ] }}}]}";
 
-    Schema.Parser parser = new Schema.Parser();
-    Schema schema = null;
     Map<String, Object> configs = new HashMap<String, Object>();
 
     Map<String, Class<?>> tableClassCache = new HashMap<String, Class<?>>();
     Map<String, String> tableNameCache = new HashMap<String, String>();
-    Map<String, Map<String, String>> tableColumnCache = new HashMap<String, Map<String, String>>();
 
     public KafkaWriterFilter(IParameterService parameterService) {
-        schema = parser.parse(AVRO_CDC_SCHEMA);
         this.url = parameterService.getString(ParameterConstants.LOAD_ONLY_PROPERTY_PREFIX + "db.url");
         if (url == null) {
             throw new RuntimeException(
@@ -125,6 +124,7 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
         this.messageBy = parameterService.getString(ParameterConstants.KAFKA_MESSAGE_BY, KAFKA_MESSAGE_BY_BATCH);
         this.confluentUrl = parameterService.getString(ParameterConstants.KAFKA_CONFLUENT_REGISTRY_URL);
         this.schemaPackage = parameterService.getString(ParameterConstants.KAFKA_AVRO_JAVA_PACKAGE);
+        this.maxInFlightBytes = parameterService.getLong(ParameterConstants.KAFKA_MAX_IN_FLIGHT_BYTES, 33554432);
 
         configs.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, this.url);
         configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, "org.apache.kafka.common.serialization.StringSerializer");
@@ -136,13 +136,27 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
             configs.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, LongSerializer.class.getName());
 
             configs.put(KafkaAvroSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, confluentUrl);
+        } else if (outputFormat.equals(KAFKA_FORMAT_AVRO)) {
+            configs.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
         }
     }
 
+    /**
+     * Sends to the given producer instead of creating one for each batch. The
+     * producer is not closed by this filter.
+     */
+    public KafkaWriterFilter(IParameterService parameterService, Producer<Object, Object> kafkaProducer) {
+        this(parameterService);
+        this.kafkaProducer = kafkaProducer;
+        this.isProducerProvided = true;
+    }
+
     public boolean beforeWrite(DataContext context, Table table, CsvData data) {
         
         if (table.getNameLowerCase().startsWith("sym_")) {
             return true;
+        } else if (isBatchSkipped(context)) {
+            return false;
         } else {
             log.debug("Processing table " + table + " for Kafka");
 
@@ -151,132 +165,53 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
                 rowData = data.getParsedData(CsvData.OLD_DATA);
             }
 
-            StringBuffer kafkaText = new StringBuffer();
-
+            String topic = null;
             if (topicBy.equals(KAFKA_TOPIC_BY_CHANNEL)) {
-                kafkaDataKey = context.getBatch().getChannelId();
+                topic = context.getBatch().getChannelId();
             } else {
-                kafkaDataKey = table.getNameLowerCase();
-            }
-
-            if (kafkaDataMap.get(kafkaDataKey) == null) {
-                kafkaDataMap.put(kafkaDataKey, new ArrayList<String>());
+                topic = table.getNameLowerCase();
             }
-            List<String> kafkaDataList = kafkaDataMap.get(kafkaDataKey);
 
-            if (outputFormat.equals(KAFKA_FORMAT_JSON)) {
-                kafkaText.append("{\"").append(table.getName()).append("\": {").append("\"eventType\": \"" + data.getDataEventType() + "\",")
-                        .append("\"data\": { ");
-                for (int i = 0; i < table.getColumnNames().length; i++) {
-                    kafkaText.append("\"").append(table.getColumnNames()[i]).append("\": ");
+            Object message = getSerializer(table).serialize(data.getDataEventType(), rowData);
 
-                    if (rowData[i] != null) {
-                        kafkaText.append("\"");
-                    }
-                    kafkaText.append(rowData[i]);
-                    if (rowData[i] != null) {
-                        kafkaText.append("\"");
-                    }
-                    if (i + 1 < table.getColumnNames().length) {
-                        kafkaText.append(",");
-                    }
-                }
-                kafkaText.append(" } } }");
-            } else if (outputFormat.equals(KAFKA_FORMAT_CSV)) {
-                kafkaText.append("\nTABLE").append(",").append(table.getName()).append(",").append("EVENT").append(",")
-                        .append(data.getDataEventType()).append(",");
-
-                for (int i = 0; i < table.getColumnNames().length; i++) {
-                    kafkaText.append(table.getColumnNames()[i]).append(",").append(rowData[i]);
-                    if (i + 1 < table.getColumnNames().length) {
-                        kafkaText.append(",");
-                    }
-                }
-            } else if (outputFormat.equals(KAFKA_FORMAT_XML)) {
-                kafkaText.append("<row entity=\"").append(table.getName()).append("\"").append(" dml=\"").append(data.getDataEventType())
-                        .append("\">");
-                for (int i = 0; i < table.getColumnNames().length; i++) {
-                    kafkaText.append("<data key=\"").append(table.getColumnNames()[i]).append("\">").append(rowData[i]).append("</data>");
-                }
-                kafkaText.append("</row>");
-            } else if (outputFormat.equals(KAFKA_FORMAT_AVRO)) {
-                if (confluentUrl != null) {
-                    String tableName = getTableName(table.getName());
-                    try {
-                        Class<?> curClass = getClassByTableName(tableName);
-                        if (curClass != null) {
-
-                            Constructor<?> defaultConstructor = curClass.getConstructor();
-                            Object pojo = defaultConstructor.newInstance();
-
-                            for (int i = 0; i < table.getColumnNames().length; i++) {
-                                String colName = getColumnName(table.getName(), table.getColumnNames()[i], pojo);
-                                if (colName != null) {
-                                    Class propertyTypeClass = PropertyUtils.getPropertyType(pojo, colName);
-                                    if (CharSequence.class.equals(propertyTypeClass)) {
-                                        PropertyUtils.setSimpleProperty(pojo, colName, rowData[i]);
-                                    }
-                                    else if (Long.class.equals(propertyTypeClass)) {
-                                        Date date = null;
-                                        try {
-                                            date = DateUtils.parseDate(rowData[i], parseDatePatterns);
-                                        }
-                                        catch (Exception e) {
-                                            log.debug(rowData[i] + " was not a recognized date format so treating it as a long.");
-                                        }
-                                        BeanUtils.setProperty(pojo, colName, date != null ? date.getTime() : rowData[i]);
-                                    }
-                                    else {
-                                        BeanUtils.setProperty(pojo, colName, rowData[i]);
-                                    }
-                                }
-                            }
-                            sendKafkaMessageByObject(pojo, kafkaDataKey);
-                        } else {
-                            throw new RuntimeException("Unable to find a POJO to load for AVRO based message onto Kafka for table : " + tableName);
-                        }
-                    } catch (NoSuchMethodException e) {
-                        log.info("Unable to find setter on POJO based on table " + table.getName(), e);
-                        throw new RuntimeException(e);
-                    } catch (InvocationTargetException e) {
-                        log.info("Unable to invoke a default constructor on POJO based on table " + tableName, e);
-                        throw new RuntimeException(e);
-                    } catch (IllegalAccessException e) {
-                        log.info("Unable to access a default constructor on POJO based on table " + tableName, e);
-                        throw new RuntimeException(e);
-                    } catch (InstantiationException e) {
-                        log.info("Unable to instantiate a constructor on POJO based on table " + tableName, e);
-                        throw new RuntimeException(e);
-                    } 
-                } else {
-                    GenericData.Record avroRecord = new GenericData.Record(schema);
-                    avroRecord.put("table", table.getName());
-                    avroRecord.put("eventType", data.getDataEventType().toString());
-
-                    Collection<GenericRecord> dataCollection = new ArrayList<GenericRecord>();
-
-                    for (int i = 0; i < table.getColumnNames().length; i++) {
-
-                        GenericRecord columnRecord = new GenericData.Record(schema.getField("data").schema().getElementType());
-
-                        columnRecord.put("name", table.getColumnNames()[i]);
-                        columnRecord.put("value", rowData[i]);
-
-                        dataCollection.add(columnRecord);
-                    }
-                    avroRecord.put("data", dataCollection);
-                    try {
-                        kafkaText.append(datumToByteArray(schema, avroRecord));
-                    } catch (IOException ioe) {
-                        throw new RuntimeException("Unable to convert row data to an Avro record", ioe);
-                    }
+            if (messageBy.equals(KAFKA_MESSAGE_BY_BATCH) && message instanceof String) {
+                StringBuilder batchMessage = batchMessages.get(topic);
+                if (batchMessage == null) {
+                    batchMessage = new StringBuilder();
+                    batchMessages.put(topic, batchMessage);
                 }
+                batchMessage.append((String) message);
+            } else {
+                sendKafkaMessage(message, topic);
             }
-            kafkaDataList.add(kafkaText.toString());
         }
         return false;
     }
 
+    protected KafkaTableSerializer getSerializer(Table table) {
+        String key = table.getFullyQualifiedTableName();
+        KafkaTableSerializer serializer = serializers.get(key);
+        if (serializer == null || !serializer.isCompiledFor(table)) {
+            if (outputFormat.equals(KAFKA_FORMAT_AVRO) && confluentUrl != null) {
+                String tableName = getTableName(table.getName());
+                Class<?> pojoClass = getClassByTableName(tableName);
+                if (pojoClass == null) {
+                    throw new RuntimeException("Unable to find a POJO to load for AVRO based message onto Kafka for table : " + tableName);
+                }
+                serializer = new KafkaTableSerializer.PojoAvroSerializer(table, pojoClass, parseDatePatterns);
+            } else {
+                serializer = KafkaTableSerializer.create(outputFormat, table);
+            }
+            serializers.put(key, serializer);
+        }
+        return serializer;
+    }
+
+    protected boolean isBatchSkipped(DataContext context) {
+        String channelId = context.getBatch().getChannelId();
+        return channelId.equals("heartbeat") || channelId.equals("config");
+    }
+
     public String getTableName(String dbTableName) {
         if (tableNameCache.containsKey(dbTableName)) {
             return tableNameCache.get(dbTableName);
@@ -291,31 +226,6 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
         }
     }
 
-    public String getColumnName(String dbTableName, String dbColumnName, Object bean) {
-        if (tableColumnCache.containsKey(dbColumnName) && tableColumnCache.get(dbTableName).containsKey(dbColumnName)) {
-            return tableColumnCache.get(dbTableName).get(dbColumnName);
-        } else {
-            String columnName = null;
-            if (!tableColumnCache.containsKey(dbColumnName)) {
-                tableColumnCache.put(dbTableName, new HashMap<String, String>());
-            }
-
-            String dbColumnNameSimple = dbColumnName.toLowerCase().replaceAll("[^a-z0-9]", "");
-            for (PropertyDescriptor pd : PropertyUtils.getPropertyDescriptors(bean)) {
-                if (pd.getName().toLowerCase().equals(dbColumnNameSimple)) {
-                    columnName = pd.getName();
-                }
-            }
-
-            if (columnName != null) {
-                tableColumnCache.get(dbTableName).put(dbColumnName, columnName);
-                return columnName;
-            } else {
-                return null;
-            }
-        }
-    }
-
     public Class<?> getClassByTableName(String tableName) {
         Class<?> classMatch = null;
 
@@ -394,37 +304,20 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
     }
 
     public void batchComplete(DataContext context) {
-        if (!context.getBatch().getChannelId().equals("heartbeat") && !context.getBatch().getChannelId().equals("config")) {
+        if (!isBatchSkipped(context)) {
             String batchFileName = "batch-" + context.getBatch().getSourceNodeId() + "-" + context.getBatch().getBatchId();
-            
-            KafkaProducer<String, String> producer = new KafkaProducer<String, String>(configs);
             try {
-                if (confluentUrl == null && kafkaDataMap.size() > 0) {
-                    StringBuffer kafkaText = new StringBuffer();
-                    
-                    
-                    for (Map.Entry<String, List<String>> entry : kafkaDataMap.entrySet()) {
-                        for (String row : entry.getValue()) {
-                            if (messageBy.equals(KAFKA_MESSAGE_BY_ROW)) {
-                                sendKafkaMessage(producer, row, entry.getKey());
-                            } else {
-                                kafkaText.append(row);
-                            }
-                        }
-                        if (messageBy.equals(KAFKA_MESSAGE_BY_BATCH)) {
-                            sendKafkaMessage(producer, kafkaText.toString(), entry.getKey());
-                        }
-                    }
-                    kafkaDataMap = new HashMap<String, List<String>>();
-                } 
-            } catch (Exception e) {
+                for (Map.Entry<String, StringBuilder> entry : batchMessages.entrySet()) {
+                    sendKafkaMessage(entry.getValue().toString(), entry.getKey());
+                }
+                awaitDelivery();
+            } catch (RuntimeException e) {
                 log.warn("Unable to write batch to Kafka " + batchFileName, e);
-                e.printStackTrace();
+                throw e;
             } finally {
-                producer.close();
-                context.put(KAFKA_TEXT_CACHE, new HashMap<String, List<String>>());
+                batchMessages.clear();
                 tableNameCache.clear();
-                tableColumnCache = new HashMap<String, Map<String, String>>();
+                closeProducer();
             }
         }
     }
@@ -433,30 +326,137 @@ public class KafkaWriterFilter implements IDatabaseWriterFilter {
     }
 
     public void batchRolledback(DataContext context) {
+        batchMessages.clear();
+        tableNameCache.clear();
+        closeProducer();
+        resetPipeline();
+    }
+
+    protected Producer<Object, Object> createProducer() {
+        return new KafkaProducer<Object, Object>(configs);
     }
 
-    public void sendKafkaMessage(KafkaProducer<String, String> producer, String kafkaText, String topic) {
-        producer.send(new ProducerRecord<String, String>(topic, kafkaText));
-        log.debug("Data to be sent to Kafka-" + kafkaText);
+    /**
+     * Closes the producer when it was created by this filter. A producer that
+     * was passed in belongs to the caller and is left open.
+     */
+    protected void closeProducer() {
+        if (!isProducerProvided && kafkaProducer != null) {
+            try {
+                kafkaProducer.close();
+            } catch (RuntimeException e) {
+                log.warn("Unable to close the Kafka producer", e);
+            } finally {
+                kafkaProducer = null;
+            }
+        }
     }
 
-    public void sendKafkaMessageByObject(Object bean, String topic) {
-        KafkaProducer<String, Object> producer = new KafkaProducer<String, Object>(configs);
-        producer.send(new ProducerRecord<String, Object>(topic, bean));
-        producer.close();
+    /**
+     * Forgets the messages that are still in flight and any failed send, so
+     * the next batch starts clean. Acknowledgements that arrive later for the
+     * abandoned messages are ignored.
+     */
+    protected synchronized void resetPipeline() {
+        sendGeneration++;
+        inFlightBytes = 0;
+        inFlightCount = 0;
+        sendException = null;
+        notifyAll();
     }
 
-    public static byte[] datumToByteArray(Schema schema, GenericRecord datum) throws IOException {
-        GenericDatumWriter<GenericRecord> writer = new GenericDatumWriter<GenericRecord>(schema);
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
+    /**
+     * Sends a message without waiting for it to be acknowledged, so messages
+     * are pipelined while the rest of the batch is read. The caller blocks
+     * when the messages that are not acknowledged yet exceed the in flight
+     * byte limit.
+     */
+    public void sendKafkaMessage(Object message, String topic) {
+        final int size = estimateSize(message);
+        final int generation;
+        synchronized (this) {
+            while (inFlightCount > 0 && inFlightBytes + size > maxInFlightBytes && sendException == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for messages to be sent to Kafka", e);
+                }
+            }
+            checkSendException();
+            inFlightBytes += size;
+            inFlightCount++;
+            generation = sendGeneration;
+        }
+
+        if (kafkaProducer == null) {
+            kafkaProducer = createProducer();
+        }
+
         try {
-            Encoder e = EncoderFactory.get().binaryEncoder(os, null);
-            writer.write(datum, e);
-            e.flush();
-            byte[] byteData = os.toByteArray();
-            return byteData;
-        } finally {
-            os.close();
+            kafkaProducer.send(new ProducerRecord<Object, Object>(topic, message), new Callback() {
+                public void onCompletion(RecordMetadata metadata, Exception exception) {
+                    delivered(generation, size, exception);
+                }
+            });
+        } catch (RuntimeException e) {
+            delivered(generation, size, e);
+            throw e;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Data to be sent to Kafka-" + message);
+        }
+    }
+
+    protected synchronized void delivered(int generation, int size, Exception exception) {
+        if (generation != sendGeneration) {
+            return;
+        }
+        inFlightBytes -= size;
+        inFlightCount--;
+        if (exception != null && sendException == null) {
+            sendException = exception;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until every message sent for the batch has been acknowledged by
+     * Kafka, so the batch is not committed unless all of its messages were
+     * delivered.
+     */
+    protected void awaitDelivery() {
+        if (kafkaProducer != null) {
+            kafkaProducer.flush();
+        }
+        synchronized (this) {
+            while (inFlightCount > 0 && sendException == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for messages to be sent to Kafka", e);
+                }
+            }
+            checkSendException();
+        }
+    }
+
+    protected void checkSendException() {
+        if (sendException != null) {
+            Exception ex = sendException;
+            sendException = null;
+            throw new RuntimeException("Failed to send a message to Kafka", ex);
+        }
+    }
+
+    protected int estimateSize(Object message) {
+        if (message instanceof String) {
+            return ((String) message).length();
+        } else if (message instanceof byte[]) {
+            return ((byte[]) message).length;
+        } else {
+            return 1024;
         }
     }
 }
@@ -0,0 +1,196 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jumpmind.extension.IBuiltInExtensionPoint;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.ext.ISymmetricEngineAware;
+import org.jumpmind.symmetric.model.Data;
+import org.jumpmind.symmetric.model.DataMetaData;
+import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.service.IParameterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Ends a batch on a transaction boundary once it holds the number of rows expected to reach the target
+ * byte size and load time, as measured from batches recently loaded by the node on the channel. Each refresh
+ * reads the totals per node of the batches loaded since the previous refresh, so every node is measured no
+ * matter how busy the channel is or how far behind the node is. The max
+ * batch size of the channel is used until there are loaded batches to measure. A batch is also ended
+ * early when the size of the data routed to it reaches the target byte size.
+ */
+public class AdaptiveBatchAlgorithm implements IBatchAlgorithm, ISymmetricEngineAware, IBuiltInExtensionPoint {
+
+    public static final String NAME = "adaptive";
+
+    protected static final double SAMPLE_WEIGHT = 0.3;
+
+    protected static final String CTX_KEY_BATCH_BYTES = "AdaptiveBatchAlgorithm.bytes.";
+
+    protected final Logger log = LoggerFactory.getLogger(getClass());
+
+    protected ISymmetricEngine engine;
+
+    protected IParameterService parameterService;
+
+    protected ConcurrentHashMap<String, ChannelLoadStats> channelLoadStats = new ConcurrentHashMap<String, ChannelLoadStats>();
+
+    @Override
+    public void setSymmetricEngine(ISymmetricEngine engine) {
+        this.engine = engine;
+        this.parameterService = engine.getParameterService();
+    }
+
+    public boolean isBatchComplete(OutgoingBatch batch, DataMetaData dataMetaData, SimpleRouterContext routingContext) {
+        long targetBytes = parameterService.getLong(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_BYTES, 1048576);
+        String bytesKey = CTX_KEY_BATCH_BYTES + batch.getBatchId();
+        Long routedBytes = (Long) routingContext.getContextCache().get(bytesKey);
+        routedBytes = (routedBytes == null ? 0 : routedBytes) + estimateSize(dataMetaData.getData());
+        routingContext.getContextCache().put(bytesKey, routedBytes);
+
+        boolean complete = false;
+        if (routingContext.isEncountedTransactionBoundary()) {
+            complete = routedBytes >= targetBytes || batch.getDataRowCount() >= getBatchSize(batch.getNodeId(),
+                    dataMetaData.getNodeChannel().getChannelId(), dataMetaData.getNodeChannel().getMaxBatchSize());
+        }
+        if (complete) {
+            routingContext.getContextCache().remove(bytesKey);
+        }
+        return complete;
+    }
+
+    /**
+     * Returns the number of rows to put in a batch for the node and channel, bounded by the configured min
+     * and max sizes.
+     */
+    public int getBatchSize(String nodeId, String channelId, int defaultBatchSize) {
+        int minSize = parameterService.getInt(ParameterConstants.ROUTING_ADAPTIVE_BATCH_MIN_SIZE, 10);
+        int maxSize = parameterService.getInt(ParameterConstants.ROUTING_ADAPTIVE_BATCH_MAX_SIZE, 100000);
+        NodeLoadStats stats = refresh(channelId).get(nodeId);
+        long batchSize = defaultBatchSize;
+        if (stats != null) {
+            long targetBytes = parameterService.getLong(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_BYTES, 1048576);
+            long targetMillis = parameterService.getLong(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_LOAD_MS, 10000);
+            batchSize = (long) (targetBytes / Math.max(stats.bytesPerRow, 1));
+            if (stats.millisPerRow > 0) {
+                batchSize = Math.min(batchSize, (long) (targetMillis / stats.millisPerRow));
+            }
+        }
+        return (int) Math.max(minSize, Math.min(maxSize, batchSize));
+    }
+
+    protected Map<String, NodeLoadStats> refresh(String channelId) {
+        ChannelLoadStats stats = channelLoadStats.get(channelId);
+        if (stats == null) {
+            stats = new ChannelLoadStats();
+            ChannelLoadStats existing = channelLoadStats.putIfAbsent(channelId, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        long refreshMs = parameterService.getLong(ParameterConstants.ROUTING_ADAPTIVE_BATCH_REFRESH_MS, 60000);
+        synchronized (stats) {
+            if (System.currentTimeMillis() - stats.lastRefreshTime >= refreshMs) {
+                Date now = new Date();
+                stats.lastRefreshTime = now.getTime();
+                Date loadedSince = stats.loadedSince;
+                if (loadedSince == null) {
+                    loadedSince = new Date(now.getTime()
+                            - parameterService.getLong(ParameterConstants.ROUTING_ADAPTIVE_BATCH_WINDOW_MS, 3600000));
+                }
+                try {
+                    stats.update(engine.getOutgoingBatchService().getLoadedBatchStats(channelId, loadedSince));
+                    stats.loadedSince = now;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to read load statistics for channel " + channelId, e);
+                }
+            }
+        }
+        return stats.nodeLoadStats;
+    }
+
+    protected long estimateSize(Data data) {
+        long size = 0;
+        if (data.getRowData() != null) {
+            size += data.getRowData().length();
+        }
+        if (data.getOldData() != null) {
+            size += data.getOldData().length();
+        }
+        if (data.getPkData() != null) {
+            size += data.getPkData().length();
+        }
+        return size;
+    }
+
+    static class ChannelLoadStats {
+
+        long lastRefreshTime;
+
+        Date loadedSince;
+
+        Map<String, NodeLoadStats> nodeLoadStats = new ConcurrentHashMap<String, NodeLoadStats>();
+
+        /**
+         * Folds in the totals of each node that loaded batches since the last
+         * refresh. Nodes that loaded nothing keep their previous measurements.
+         */
+        void update(List<OutgoingBatch> totals) {
+            for (OutgoingBatch total : totals) {
+                if (total.getDataRowCount() > 0) {
+                    double bytesPerRow = (double) total.getByteCount() / total.getDataRowCount();
+                    double millisPerRow = (double) total.getLoadMillis() / total.getDataRowCount();
+                    NodeLoadStats stats = nodeLoadStats.get(total.getNodeId());
+                    if (stats == null) {
+                        nodeLoadStats.put(total.getNodeId(), new NodeLoadStats(bytesPerRow, millisPerRow));
+                    } else {
+                        stats.update(bytesPerRow, millisPerRow);
+                    }
+                }
+            }
+        }
+    }
+
+    static class NodeLoadStats {
+
+        volatile double bytesPerRow;
+
+        volatile double millisPerRow;
+
+        NodeLoadStats(double bytesPerRow, double millisPerRow) {
+            this.bytesPerRow = bytesPerRow;
+            this.millisPerRow = millisPerRow;
+        }
+
+        void update(double bytesPerRow, double millisPerRow) {
+            this.bytesPerRow += SAMPLE_WEIGHT * (bytesPerRow - this.bytesPerRow);
+            this.millisPerRow += SAMPLE_WEIGHT * (millisPerRow - this.millisPerRow);
+        }
+    }
+
+}
@@ -22,16 +22,21 @@ package org.jumpmind.symmetric.route;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.jumpmind.extension.IBuiltInExtensionPoint;
 import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.model.DataMetaData;
 import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.TriggerRouter;
+import org.jumpmind.symmetric.util.BshScript;
+import org.jumpmind.symmetric.util.ICompiledBshScript;
 
 import bsh.EvalError;
 import bsh.Interpreter;
@@ -48,6 +53,11 @@ import bsh.TargetError;
  * using upper case. Also bound to the interpreter is a {@link Collection} of
  * targetNodes. The script is expected to add the the list of target nodes a
  * list of the node_ids that should be routed to.
+ * <P/>
+ * The expression is scanned once for the identifiers it references and only
+ * those variables are bound for each row. When bsh.compile.to.java.enabled is
+ * on, the expression is compiled as Java if it can be, otherwise it runs in
+ * the interpreter as before.
  */
 public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensionPoint {
 
@@ -55,6 +65,35 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
 
     final String INTERPRETER_KEY = String.format("%d.BshInterpreter", hashCode());
 
+    protected static final String COMPILED_CLASS_NAME = "BshDataRouterExt";
+
+    protected static final String COMPILED_IMPORTS = "import org.jumpmind.symmetric.model.*;\n"
+            + "import org.jumpmind.symmetric.route.*;\n"
+            + "import java.util.*;\n";
+
+    protected static final Map<String, String> VARIABLE_TYPES = new LinkedHashMap<String, String>();
+
+    static {
+        VARIABLE_TYPES.put("log", "org.slf4j.Logger");
+        VARIABLE_TYPES.put("initialLoad", "Boolean");
+        VARIABLE_TYPES.put("dataMetaData", "DataMetaData");
+        VARIABLE_TYPES.put("nodes", "Set<Node>");
+        VARIABLE_TYPES.put("nodeIds", "Set<String>");
+        VARIABLE_TYPES.put("identityNodeId", "String");
+        VARIABLE_TYPES.put("targetNodes", "Set<String>");
+        VARIABLE_TYPES.put("engine", "org.jumpmind.symmetric.ISymmetricEngine");
+    }
+
+    /*
+     * Variables bound for the current row, reused by each thread to avoid allocating a map per row.
+     */
+    private final ThreadLocal<Map<String, Object>> bindings = new ThreadLocal<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> initialValue() {
+            return new HashMap<String, Object>();
+        }
+    };
+
     public BshDataRouter(ISymmetricEngine engine) {
         this.engine = engine;
     }
@@ -63,17 +102,41 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
             Set<Node> nodes, boolean initialLoad, boolean initialLoadSelectUsed,
             TriggerRouter triggerRouter) {
         Set<String> boundVariableNames = new LinkedHashSet<String>();
+        Map<String, Object> bindings = this.bindings.get();
         try {
-            long ts = System.currentTimeMillis();
-            Interpreter interpreter = getInterpreter(context);
-            context.incrementStat(System.currentTimeMillis() - ts, "bsh.init.ms");
+            BshScript script = BshScript.get(dataMetaData.getRouter().getRouterExpression());
             HashSet<String> targetNodes = new HashSet<String>();
-            ts = System.currentTimeMillis();
-            bind(interpreter, dataMetaData, nodes, targetNodes, boundVariableNames, initialLoad);
+            long ts = System.currentTimeMillis();
+            Map<String, Object> params = bind(bindings, script, dataMetaData, nodes, targetNodes, initialLoad);
             context.incrementStat(System.currentTimeMillis() - ts, "bsh.bind.ms");
-            ts = System.currentTimeMillis();
-            Object returnValue = interpreter.eval(dataMetaData.getRouter().getRouterExpression());
-            context.incrementStat(System.currentTimeMillis() - ts, "bsh.eval.ms");
+
+            ICompiledBshScript compiledScript = null;
+            if (engine.getParameterService().is(ParameterConstants.BSH_COMPILE_TO_JAVA_ENABLED, false)) {
+                compiledScript = script.getCompiled(COMPILED_CLASS_NAME);
+                if (compiledScript == null && !script.isCompileAttempted(COMPILED_CLASS_NAME)) {
+                    compiledScript = script.compile(engine.getExtensionService(), COMPILED_IMPORTS, COMPILED_CLASS_NAME,
+                            getVariableTypes(params));
+                }
+            }
+
+            Object returnValue = null;
+            if (compiledScript != null) {
+                ts = System.currentTimeMillis();
+                returnValue = compiledScript.eval(bindings);
+                context.incrementStat(System.currentTimeMillis() - ts, "bsh.eval.ms");
+            } else {
+                ts = System.currentTimeMillis();
+                Interpreter interpreter = getInterpreter(context);
+                context.incrementStat(System.currentTimeMillis() - ts, "bsh.init.ms");
+                ts = System.currentTimeMillis();
+                for (Map.Entry<String, Object> binding : bindings.entrySet()) {
+                    bind(interpreter, boundVariableNames, binding.getKey(), binding.getValue());
+                }
+                context.incrementStat(System.currentTimeMillis() - ts, "bsh.bind.ms");
+                ts = System.currentTimeMillis();
+                returnValue = interpreter.eval(script.getScript());
+                context.incrementStat(System.currentTimeMillis() - ts, "bsh.eval.ms");
+            }
             return eval(returnValue, nodes, targetNodes);
         } catch (EvalError e) {            
             if (e instanceof TargetError) {
@@ -86,6 +149,12 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
             } else {
                 throw new RuntimeException("Failed to evaluate bsh router script.  Bound variables were: "  + boundVariableNames, e);
             }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Compiled bsh router script failed", e);
+        } finally {
+            bindings.clear();
         }
     }
 
@@ -122,23 +191,58 @@ public class BshDataRouter extends AbstractDataRouter implements IBuiltInExtensi
         }
     }
 
-    protected void bind(Interpreter interpreter, DataMetaData dataMetaData, Set<Node> nodes,
-            Set<String> targetNodes, Set<String> boundVariableNames, boolean initialLoad) throws EvalError {
-        bind(interpreter, boundVariableNames, "log", log);
-        bind(interpreter, boundVariableNames, "initialLoad", initialLoad);
-        bind(interpreter, boundVariableNames, "dataMetaData", dataMetaData);
-        bind(interpreter, boundVariableNames, "nodes", nodes);
-        bind(interpreter, boundVariableNames, "nodeIds", toNodeIds(nodes, null));
-        bind(interpreter, boundVariableNames, "identityNodeId", engine.getNodeService().findIdentityNodeId());
-        bind(interpreter, boundVariableNames, "targetNodes", targetNodes);
-        bind(interpreter, boundVariableNames, "engine", engine);
+    /**
+     * Bind the variables the script references and return the row data so the
+     * caller can declare column types when compiling.
+     */
+    protected Map<String, Object> bind(Map<String, Object> bindings, BshScript script, DataMetaData dataMetaData,
+            Set<Node> nodes, Set<String> targetNodes, boolean initialLoad) {
+        if (script.references("log")) {
+            bindings.put("log", log);
+        }
+        if (script.references("initialLoad")) {
+            bindings.put("initialLoad", initialLoad);
+        }
+        if (script.references("dataMetaData")) {
+            bindings.put("dataMetaData", dataMetaData);
+        }
+        if (script.references("nodes")) {
+            bindings.put("nodes", nodes);
+        }
+        if (script.references("nodeIds")) {
+            bindings.put("nodeIds", toNodeIds(nodes, null));
+        }
+        if (script.references("identityNodeId")) {
+            bindings.put("identityNodeId", engine.getNodeService().findIdentityNodeId());
+        }
+        if (script.references("targetNodes")) {
+            bindings.put("targetNodes", targetNodes);
+        }
+        if (script.references("engine")) {
+            bindings.put("engine", engine);
+        }
         Map<String, Object> params = getDataObjectMap(dataMetaData, engine.getSymmetricDialect(),
                 true);
+        if (params != null) {
+            for (Map.Entry<String, Object> param : params.entrySet()) {
+                if (script.references(param.getKey())) {
+                    bindings.put(param.getKey(), param.getValue());
+                }
+            }
+        }
+        return params;
+    }
+
+    protected Map<String, String> getVariableTypes(Map<String, Object> params) {
+        Map<String, String> variableTypes = new LinkedHashMap<String, String>(VARIABLE_TYPES);
         if (params != null) {
             for (String param : params.keySet()) {
-                bind(interpreter, boundVariableNames, param, params.get(param));
+                if (BshScript.isJavaIdentifier(param)) {
+                    variableTypes.put(param, "Object");
+                }
             }
         }
+        return variableTypes;
     }
     
     protected void bind(Interpreter interpreter, Set<String> boundVariableNames, String name, Object value) throws EvalError {
@@ -78,6 +78,11 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
 
     protected long lastBusyExpireRunTime;
 
+    /*
+     * The gaps stay as DataGap rows rather than DataGapIntervals ranges
+     * because expiry needs each gap's create time and the deletes need its
+     * exact start and end id.
+     */
     protected Set<DataGap> gapsAll;
 
     protected Set<DataGap> gapsAdded;
@@ -217,8 +222,9 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
                         dataIds.size(), gaps.size() });
             }
 
-            for (final DataGap dataGap : gaps) {
-                final boolean lastGap = dataGap.equals(gaps.get(gaps.size() - 1));
+            for (int gapIndex = 0; gapIndex < gaps.size(); gapIndex++) {
+                final DataGap dataGap = gaps.get(gapIndex);
+                final boolean lastGap = gapIndex == gaps.size() - 1;
                 lastDataId = -1;
                 List<Long> ids = dataIdMap.get(dataGap);
 
@@ -466,7 +472,7 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
     }
     
     protected void fixOverlappingGaps(List<DataGap> gapsToCheck, ProcessInfo processInfo) {
-        List<DataGap> gapsCopy = new ArrayList<DataGap>(gapsToCheck);
+        List<DataGap> gapsCopy = new ArrayList<DataGap>(gapsToCheck.size());
         boolean ok = true;
         try {
             ISqlTransaction transaction = null;
@@ -475,37 +481,34 @@ public class DataGapFastDetector extends DataGapDetector implements ISqlRowMappe
                 ISqlTemplate sqlTemplate = symmetricDialect.getPlatform().getSqlTemplate();
                 transaction = sqlTemplate.startSqlTransaction();
                 DataGap prevGap = null, lastGap = null;
-                for (int i = 0; i < gapsCopy.size(); i++) {
-                    DataGap curGap = gapsCopy.get(i);
+                for (DataGap curGap : gapsToCheck) {
                     if (lastGap != null) {
                         ok = false;
                         log.warn("Removing gap found after last gap: " + curGap);
                         dataService.deleteDataGap(transaction, curGap);
-                        gapsCopy.remove(i--);
                     } else {
                         if (lastGap == null && curGap.gapSize() >= maxDataToSelect - 1) {
                             lastGap = curGap;
                         }
 
-                        if (prevGap != null) {
-                            if (prevGap.overlaps(curGap)) {
-                                ok = false;
-                                log.warn("Removing overlapping gaps: " + prevGap + ", " + curGap);
-                                dataService.deleteDataGap(transaction, prevGap);
-                                dataService.deleteDataGap(transaction, curGap);
-                                DataGap newGap = null;
-                                if (curGap.equals(lastGap)) {
-                                    newGap = new DataGap(prevGap.getStartId(), prevGap.getStartId() + maxDataToSelect - 1);
-                                } else {
-                                    newGap = new DataGap(prevGap.getStartId(), 
-                                            prevGap.getEndId() > curGap.getEndId() ? prevGap.getEndId() : curGap.getEndId());
-                                }
-                                log.warn("Inserting new gap to fix overlap: " + newGap);
-                                dataService.insertDataGap(transaction, newGap);
-                                gapsCopy.remove(i--);
-                                gapsCopy.set(i, newGap);
-                                curGap = newGap;
+                        if (prevGap != null && prevGap.overlaps(curGap)) {
+                            ok = false;
+                            log.warn("Removing overlapping gaps: " + prevGap + ", " + curGap);
+                            dataService.deleteDataGap(transaction, prevGap);
+                            dataService.deleteDataGap(transaction, curGap);
+                            DataGap newGap = null;
+                            if (curGap.equals(lastGap)) {
+                                newGap = new DataGap(prevGap.getStartId(), prevGap.getStartId() + maxDataToSelect - 1);
+                            } else {
+                                newGap = new DataGap(prevGap.getStartId(), 
+                                        prevGap.getEndId() > curGap.getEndId() ? prevGap.getEndId() : curGap.getEndId());
                             }
+                            log.warn("Inserting new gap to fix overlap: " + newGap);
+                            dataService.insertDataGap(transaction, newGap);
+                            gapsCopy.set(gapsCopy.size() - 1, newGap);
+                            curGap = newGap;
+                        } else {
+                            gapsCopy.add(curGap);
                         }
                     }
                     prevGap = curGap;
@@ -0,0 +1,136 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.jumpmind.symmetric.model.DataGap;
+
+/**
+ * The data gaps of a routing pass held as sorted arrays of primitive start
+ * and end ids. Overlapping and adjacent gaps are coalesced into one range.
+ * Checking whether a data id is in a gap is a binary search over the arrays,
+ * and a reader that sees data ids in ascending order walks the ranges with an
+ * index instead of removing gaps from the front of a list.
+ * <p>
+ * This is only a lookup structure for reading data. Gap detection still works
+ * on {@link DataGap} objects because each gap is a row in sym_data_gap with
+ * its own create time, which decides when it expires, and it is deleted by
+ * its exact start and end id. Coalesced ranges would lose both.
+ */
+public class DataGapIntervals {
+
+    protected long[] startIds;
+
+    protected long[] endIds;
+
+    protected int size;
+
+    public DataGapIntervals(List<DataGap> gaps) {
+        List<DataGap> sortedGaps = gaps;
+        for (int i = 1; i < gaps.size(); i++) {
+            if (gaps.get(i).getStartId() < gaps.get(i - 1).getStartId()) {
+                sortedGaps = new ArrayList<DataGap>(gaps);
+                Collections.sort(sortedGaps);
+                break;
+            }
+        }
+
+        startIds = new long[sortedGaps.size()];
+        endIds = new long[sortedGaps.size()];
+        for (DataGap gap : sortedGaps) {
+            if (size > 0 && gap.getStartId() - 1 <= endIds[size - 1]) {
+                if (gap.getEndId() > endIds[size - 1]) {
+                    endIds[size - 1] = gap.getEndId();
+                }
+            } else {
+                startIds[size] = gap.getStartId();
+                endIds[size] = gap.getEndId();
+                size++;
+            }
+        }
+    }
+
+    /**
+     * @return the number of ranges after coalescing
+     */
+    public int size() {
+        return size;
+    }
+
+    public long getStartId(int index) {
+        return startIds[index];
+    }
+
+    public long getEndId(int index) {
+        return endIds[index];
+    }
+
+    public boolean contains(long dataId) {
+        return indexOf(dataId) >= 0;
+    }
+
+    /**
+     * @return the index of the range that contains the data id, or -1 if it
+     *         is not in a gap
+     */
+    public int indexOf(long dataId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (dataId < startIds[mid]) {
+                high = mid - 1;
+            } else if (dataId > endIds[mid]) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves forward from the given index past every range that ends before
+     * the data id.
+     * 
+     * @return the index of the first range that ends at or after the data
+     *         id, or {@link #size()} if there is none
+     */
+    public int advance(int fromIndex, long dataId) {
+        int index = fromIndex;
+        while (index < size && endIds[index] < dataId) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return true if the range at the index, as returned by
+     *         {@link #advance(int, long)}, contains the data id
+     */
+    public boolean isInRange(int index, long dataId) {
+        return index < size && dataId >= startIds[index] && dataId <= endIds[index];
+    }
+
+}
@@ -68,7 +68,9 @@ public class DataGapRouteReader implements IDataToRouteReader {
 
     protected List<DataGap> dataGaps;
 
-    protected DataGap currentGap;
+    protected DataGapIntervals gapIntervals;
+
+    protected int currentGapIndex;
 
     protected BlockingQueue<Data> dataQueue;
 
@@ -124,6 +126,7 @@ public class DataGapRouteReader implements IDataToRouteReader {
             lastSelectUsedGreaterThanQueryByEngineName.put(engineName, Boolean.FALSE);
         }
         this.dataGaps = new ArrayList<DataGap>(context.getDataGaps());
+        this.gapIntervals = new DataGapIntervals(dataGaps);
     }
 
     public void run() {
@@ -278,40 +281,16 @@ public class DataGapRouteReader implements IDataToRouteReader {
                     okToProcess = isInDataGap(dataId);
                 }
             } else {
-                while (!okToProcess && currentGap != null && dataId >= currentGap.getStartId()) {
-                    if (dataId <= currentGap.getEndId()) {
-                        okToProcess = true;
-                    } else {
-                        // past current gap. move to next gap
-                        if (dataGaps.size() > 0) {
-                            currentGap = dataGaps.remove(0);
-                        } else {
-                            currentGap = null;
-                        }
-                    }
-                }
+                // data is read in order, so move past the gaps that end before this data id
+                currentGapIndex = gapIntervals.advance(currentGapIndex, dataId);
+                okToProcess = gapIntervals.isInRange(currentGapIndex, dataId);
             }
         }
         return okToProcess;
     }
     
     protected boolean isInDataGap(long dataId) {
-        // binary search algorithm
-        int start = 0;
-        int end = dataGaps.size() - 1;
-        while (start <= end) {
-            int mid = (start + end) / 2;
-            DataGap midGap = dataGaps.get(mid);
-            if (dataId >= midGap.getStartId() && dataId <= midGap.getEndId()) {
-                return true;
-            }
-            if (dataId< midGap.getStartId()) {
-                end = mid - 1;
-            } else {
-                start = mid + 1;
-            }
-        }
-        return false;
+        return gapIntervals.contains(dataId);
     }    
 
     public Data take() throws InterruptedException {
@@ -409,9 +388,7 @@ public class DataGapRouteReader implements IDataToRouteReader {
             }
         }
 
-        if (!isOracleNoOrder) {
-            this.currentGap = dataGaps.remove(0);
-        }
+        this.currentGapIndex = 0;
 
         ISqlRowMapper<Data> dataMapper = new ISqlRowMapper<Data>() {
             public Data mapRow(Row row) {
@@ -65,4 +65,9 @@ public interface IClusterService {
     
     public String getInstanceId();
 
+    /**
+     * Give up any cluster locks this server is holding on a lease
+     */
+    public void stop();
+
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import java.util.Date;
 import java.util.List;
 
 import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.io.data.writer.IStructureDataWriterListener;
 import org.jumpmind.symmetric.io.data.writer.StructureDataWriter.PayloadType;
 import org.jumpmind.symmetric.model.ExtractRequest;
 import org.jumpmind.symmetric.model.Node;
@@ -48,6 +49,17 @@ public interface IDataExtractorService {
     public void extractConfigurationOnly(Node node, OutputStream out);
     
     public List<OutgoingBatchWithPayload> extractToPayload(ProcessInfo processInfo, Node targetNode, PayloadType payloadType, boolean useJdbcTimestampFormat, boolean useUpsertStatements, boolean useDelimiterIdentifiers);
+
+    /**
+     * Extracts pending batches one at a time and hands each statement to the
+     * listener as it is built instead of collecting the payload in memory.
+     * Extraction stops at a batch boundary once maxBytes worth of statements
+     * have been handed off. The remaining batches are left for the next pull.
+     * 
+     * @return the batches that were extracted
+     */
+    public List<OutgoingBatch> extractToPayload(ProcessInfo processInfo, Node targetNode, PayloadType payloadType, boolean useJdbcTimestampFormat, boolean useUpsertStatements, boolean useDelimiterIdentifiers,
+            IStructureDataWriterListener listener, long maxBytes);
     
     /**
      * @return a list of batches that were extracted
@@ -62,6 +74,16 @@ public interface IDataExtractorService {
             Date endBatchTime, String... channelIds);    
     
     public boolean extractOnlyOutgoingBatch(String nodeId, long batchId, Writer writer);
+
+    /**
+     * Extracts up to the max number of pending batches for a node into staging without sending them,
+     * skipping the batches that are already in flight, so a following push can send them right away.
+     * Nothing is extracted unless staging is enabled.
+     * 
+     * @return the batches that were extracted
+     */
+    public List<OutgoingBatch> extractAhead(ProcessInfo processInfo, Node targetNode, String queue,
+            List<OutgoingBatch> batchesInFlight, int maxBatches);
     
     public RemoteNodeStatuses queueWork(boolean force);
     
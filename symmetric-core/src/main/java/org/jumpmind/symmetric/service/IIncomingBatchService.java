@@ -52,6 +52,15 @@ public interface IIncomingBatchService {
 
     public boolean acquireIncomingBatch(IncomingBatch batch);
 
+    /**
+     * Checks whether a batch should be loaded, the same as
+     * {@link #acquireIncomingBatch(IncomingBatch)}. When insertNewBatch is
+     * false a batch that has not been seen before is not inserted. The caller
+     * is then responsible for inserting it, usually in the transaction that
+     * loads its data.
+     */
+    public boolean acquireIncomingBatch(IncomingBatch batch, boolean insertNewBatch);
+
     public void insertIncomingBatch(ISqlTransaction transaction, IncomingBatch batch);
     
     public void insertIncomingBatch(IncomingBatch batch);
@@ -59,6 +68,11 @@ public interface IIncomingBatchService {
     public int updateIncomingBatch(ISqlTransaction transaction, IncomingBatch batch);
 
     public int updateIncomingBatch(IncomingBatch batch);
+
+    /**
+     * Updates the batches in a single transaction using JDBC batching
+     */
+    public void updateIncomingBatches(List<IncomingBatch> batches);
     
     public int deleteIncomingBatch(IncomingBatch batch);
     
@@ -38,6 +38,27 @@ public interface INodeCommunicationService {
 
     public int getAvailableThreads(CommunicationType communicationType);
 
+    /**
+     * @return the number of nodes waiting for a thread to communicate with them
+     */
+    public int getQueueDepth(CommunicationType communicationType);
+
+    /**
+     * @return how long the node that has waited the longest for a thread has been waiting
+     */
+    public long getMaxWaitMillis(CommunicationType communicationType);
+
+    /**
+     * @return the average time nodes waited for a thread before they were started
+     */
+    public long getAverageWaitMillis(CommunicationType communicationType);
+
+    /**
+     * @return true if a node communication that started at the given time has used up its time slice and
+     *         should give up its thread to the nodes that are waiting instead of communicating again
+     */
+    public boolean shouldYield(NodeCommunication nodeCommunication, long startTime);
+
     public void stop();
 
     public void updateBatchToSendCounts(String nodeId, Map<String, Integer> batchesCountToQueues);
@@ -60,6 +60,8 @@ public interface IOutgoingBatchService {
             NodeGroupLinkAction defaultEventAction, boolean includeDisabledChannels);
 
     public OutgoingBatches getOutgoingBatchRange(long startBatchId, long endBatchId);
+
+    public OutgoingBatches getOutgoingBatchRange(String nodeId, long startBatchId, long endBatchId);
     
     public OutgoingBatches getOutgoingBatchByLoad(long loadI);
     
@@ -88,6 +90,8 @@ public interface IOutgoingBatchService {
 
     public void updateOutgoingBatches(List<OutgoingBatch> batches);
 
+    public void updateOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> batches);
+
     public void insertOutgoingBatch(OutgoingBatch outgoingBatch);
     
     public void insertOutgoingBatch(ISqlTransaction transaction, OutgoingBatch outgoingBatch);
@@ -142,4 +146,10 @@ public interface IOutgoingBatchService {
     
     public List<Long> getAllBatches();
 
+    /**
+     * Returns one entry per node with the total rows, bytes and load time of
+     * the batches on the channel that were loaded since the given time.
+     */
+    public List<OutgoingBatch> getLoadedBatchStats(String channelId, Date loadedSince);
+
 }
\ No newline at end of file
@@ -44,4 +44,6 @@ public interface IPushService extends IOfflineDetectorService {
     
     public Map<String, Date> getStartTimesOfNodesBeingPushedTo();
 
+    public void stop();
+
 }
\ No newline at end of file
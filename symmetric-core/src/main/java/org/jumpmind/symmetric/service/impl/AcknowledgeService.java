@@ -21,8 +21,13 @@
 package org.jumpmind.symmetric.service.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
 
 import org.jumpmind.db.sql.mapper.NumberMapper;
 import org.jumpmind.symmetric.ISymmetricEngine;
@@ -37,7 +42,6 @@ import org.jumpmind.symmetric.model.Channel;
 import org.jumpmind.symmetric.model.OutgoingBatch;
 import org.jumpmind.symmetric.service.IAcknowledgeService;
 import org.jumpmind.symmetric.service.IOutgoingBatchService;
-import org.jumpmind.symmetric.service.IRegistrationService;
 import org.jumpmind.symmetric.statistic.RouterStats;
 import org.jumpmind.symmetric.transport.IAcknowledgeEventListener;
 
@@ -46,6 +50,12 @@ import org.jumpmind.symmetric.transport.IAcknowledgeEventListener;
  */
 public class AcknowledgeService extends AbstractService implements IAcknowledgeService {
 
+    /**
+     * Acked batch ids further apart than this are read with separate range
+     * queries.
+     */
+    protected static final long MAX_BATCH_ID_GAP = 100;
+
     private ISymmetricEngine engine;
 
     public AcknowledgeService(ISymmetricEngine engine) {
@@ -56,150 +66,260 @@ public class AcknowledgeService extends AbstractService implements IAcknowledgeS
     }
 
     public BatchAckResult ack(final BatchAck batch) {
+        fireAcknowledgeEvent(batch);
+        if (batch.getBatchId() == Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
+            return ackRegistration(batch);
+        } else {
+            OutgoingBatch outgoingBatch = engine.getOutgoingBatchService()
+                    .findOutgoingBatch(batch.getBatchId(), batch.getNodeId());
+            return ack(batch, outgoingBatch);
+        }
+    }
+
+    /**
+     * Acknowledge a list of batches at once. The outgoing batches are loaded
+     * with a range query per node, and OK acknowledgements are written with a
+     * single batched update. Error and resend acknowledgements still go
+     * through {@link #ack(BatchAck, OutgoingBatch)} one at a time because they
+     * may need to look up the failed data and log.
+     */
+    public List<BatchAckResult> ack(List<BatchAck> batches) {
+        List<BatchAckResult> results = new ArrayList<BatchAckResult>(batches.size());
+        Map<String, OutgoingBatch> outgoingBatches = findOutgoingBatches(batches);
+        List<OutgoingBatch> okBatches = new ArrayList<OutgoingBatch>();
+        for (BatchAck batch : batches) {
+            fireAcknowledgeEvent(batch);
+            if (batch.getBatchId() == Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
+                results.add(ackRegistration(batch));
+                continue;
+            }
+
+            OutgoingBatch outgoingBatch = outgoingBatches.get(batch.getNodeId() + "-" + batch.getBatchId());
+            if (outgoingBatch == null) {
+                outgoingBatch = engine.getOutgoingBatchService().findOutgoingBatch(batch.getBatchId(), batch.getNodeId());
+            }
+
+            if (getStatus(batch) == Status.OK && outgoingBatch != null && outgoingBatch.getStatus() != Status.RQ) {
+                applyAck(batch, outgoingBatch, Status.OK);
+                okBatches.add(outgoingBatch);
+                results.add(new BatchAckResult(batch));
+            } else {
+                /* Keep the order of updates the same as the order of acks */
+                if (okBatches.size() > 0) {
+                    updateOkBatches(okBatches);
+                    okBatches = new ArrayList<OutgoingBatch>();
+                }
+                results.add(ack(batch, outgoingBatch));
+            }
+        }
+        updateOkBatches(okBatches);
+        return results;
+    }
+
+    protected void updateOkBatches(List<OutgoingBatch> okBatches) {
+        if (okBatches.size() > 0) {
+            engine.getOutgoingBatchService().updateOutgoingBatches(okBatches);
+            for (OutgoingBatch outgoingBatch : okBatches) {
+                afterAckOk(outgoingBatch);
+            }
+        }
+    }
 
-        IRegistrationService registrationService = engine.getRegistrationService();
+    /**
+     * Load the outgoing batches referenced by a list of acks. Batch ids for
+     * the same node are grouped into contiguous ranges so that a catch up of
+     * thousands of batches is read with one query instead of one per batch.
+     */
+    protected Map<String, OutgoingBatch> findOutgoingBatches(List<BatchAck> batches) {
+        Map<String, List<Long>> batchIdsByNode = new HashMap<String, List<Long>>();
+        for (BatchAck batch : batches) {
+            if (batch.getBatchId() != Constants.VIRTUAL_BATCH_FOR_REGISTRATION
+                    && StringUtils.isNotBlank(batch.getNodeId())) {
+                List<Long> batchIds = batchIdsByNode.get(batch.getNodeId());
+                if (batchIds == null) {
+                    batchIds = new ArrayList<Long>();
+                    batchIdsByNode.put(batch.getNodeId(), batchIds);
+                }
+                batchIds.add(batch.getBatchId());
+            }
+        }
+
+        Map<String, OutgoingBatch> outgoingBatches = new HashMap<String, OutgoingBatch>();
         IOutgoingBatchService outgoingBatchService = engine.getOutgoingBatchService();
-        BatchAckResult result = new BatchAckResult(batch);
-    	
+        for (Map.Entry<String, List<Long>> entry : batchIdsByNode.entrySet()) {
+            List<Long> batchIds = entry.getValue();
+            Collections.sort(batchIds);
+            int rangeStart = 0;
+            for (int i = 1; i <= batchIds.size(); i++) {
+                if (i == batchIds.size() || batchIds.get(i) - batchIds.get(i - 1) > MAX_BATCH_ID_GAP) {
+                    for (OutgoingBatch outgoingBatch : outgoingBatchService.getOutgoingBatchRange(entry.getKey(),
+                            batchIds.get(rangeStart), batchIds.get(i - 1)).getBatches()) {
+                        outgoingBatches.put(outgoingBatch.getNodeBatchId(), outgoingBatch);
+                    }
+                    rangeStart = i;
+                }
+            }
+        }
+        return outgoingBatches;
+    }
+
+    protected void fireAcknowledgeEvent(BatchAck batch) {
         for (IAcknowledgeEventListener listener : engine.getExtensionService().getExtensionPointList(IAcknowledgeEventListener.class)) {
             listener.onAcknowledgeEvent(batch);
         }
+    }
 
-        if (batch.getBatchId() == Constants.VIRTUAL_BATCH_FOR_REGISTRATION) {
-            if (batch.isOk()) {
-                registrationService.markNodeAsRegistered(batch.getNodeId());
+    protected BatchAckResult ackRegistration(BatchAck batch) {
+        if (batch.isOk()) {
+            engine.getRegistrationService().markNodeAsRegistered(batch.getNodeId());
+        }
+        return new BatchAckResult(batch);
+    }
+
+    protected Status getStatus(BatchAck batch) {
+        return batch.isResend() ? Status.RS : batch.isOk() ? Status.OK : Status.ER;
+    }
+
+    protected BatchAckResult ack(BatchAck batch, OutgoingBatch outgoingBatch) {
+        BatchAckResult result = new BatchAckResult(batch);
+        Status status = getStatus(batch);
+        if (outgoingBatch != null && outgoingBatch.getStatus() != Status.RQ) {
+            status = applyAck(batch, outgoingBatch, status);
+            engine.getOutgoingBatchService().updateOutgoingBatch(outgoingBatch);
+            if (status == Status.OK) {
+                afterAckOk(outgoingBatch);
             }
-        } else {
-            OutgoingBatch outgoingBatch = outgoingBatchService
-                    .findOutgoingBatch(batch.getBatchId(), batch.getNodeId());
-            Status status = batch.isResend() ? Status.RS : batch.isOk() ? Status.OK : Status.ER;
-            Status oldStatus = null;
-            if (outgoingBatch != null && outgoingBatch.getStatus() != Status.RQ) {
-                // Allow an outside system/user to indicate that a batch
-                // is OK.
-                if (outgoingBatch.getStatus() != Status.OK && 
-                        outgoingBatch.getStatus() != Status.IG) {
-                    outgoingBatch.setStatus(status);
-                    outgoingBatch.setErrorFlag(!batch.isOk());
-                } else if (outgoingBatch.getStatus() != Status.OK) {
-                    // clearing the error flag in case the user set the batch
-                    // status to OK
-                    oldStatus = outgoingBatch.getStatus();
-                    outgoingBatch.setStatus(Status.OK);
-                    outgoingBatch.setErrorFlag(false);
-                    status = Status.OK;
-                    log.info("Batch {} for node {} was set to {}.  Updating the status to OK.",
-                            new Object[] { batch.getBatchId(), batch.getNodeId(), oldStatus.name() });
-                }
-                if (batch.isIgnored()) {
-                    outgoingBatch.incrementIgnoreCount();
+        } else if (outgoingBatch == null) {
+            log.error("Could not find batch {}-{} to acknowledge as {}", new Object[] {batch.getNodeId(), batch.getBatchId(),
+                    status.name()});
+            result.setOk(false);
+        }
+        return result;
+    }
+
+    /**
+     * Copy the acknowledgement onto the outgoing batch and handle errors.
+     * 
+     * @return the status the batch was set to
+     */
+    protected Status applyAck(BatchAck batch, OutgoingBatch outgoingBatch, Status status) {
+        Status oldStatus = null;
+        // Allow an outside system/user to indicate that a batch
+        // is OK.
+        if (outgoingBatch.getStatus() != Status.OK && 
+                outgoingBatch.getStatus() != Status.IG) {
+            outgoingBatch.setStatus(status);
+            outgoingBatch.setErrorFlag(!batch.isOk());
+        } else if (outgoingBatch.getStatus() != Status.OK) {
+            // clearing the error flag in case the user set the batch
+            // status to OK
+            oldStatus = outgoingBatch.getStatus();
+            outgoingBatch.setStatus(Status.OK);
+            outgoingBatch.setErrorFlag(false);
+            status = Status.OK;
+            log.info("Batch {} for node {} was set to {}.  Updating the status to OK.",
+                    new Object[] { batch.getBatchId(), batch.getNodeId(), oldStatus.name() });
+        }
+        if (batch.isIgnored()) {
+            outgoingBatch.incrementIgnoreCount();
+        }
+        outgoingBatch.setNetworkMillis(batch.getNetworkMillis());
+        outgoingBatch.setFilterMillis(batch.getFilterMillis());
+        outgoingBatch.setLoadMillis(batch.getLoadMillis());
+        outgoingBatch.setLoadStartTime(new Date(batch.getStartTime()));
+        outgoingBatch.setSqlCode(batch.getSqlCode());
+        outgoingBatch.setSqlState(batch.getSqlState());
+        outgoingBatch.setSqlMessage(batch.getSqlMessage());
+        outgoingBatch.setLoadRowCount(batch.getLoadRowCount());
+        outgoingBatch.setLoadInsertRowCount(batch.getLoadInsertRowCount());
+        outgoingBatch.setLoadUpdateRowCount(batch.getLoadUpdateRowCount());
+        outgoingBatch.setTransformLoadMillis(batch.getTransformLoadMillis());
+        outgoingBatch.setLoadDeleteRowCount(batch.getLoadDeleteRowCount());
+        outgoingBatch.setFallbackInsertCount(batch.getFallbackInsertCount());
+        outgoingBatch.setFallbackUpdateCount(batch.getFallbackUpdateCount());
+        outgoingBatch.setIgnoreRowCount(batch.getIgnoreRowCount());
+        outgoingBatch.setMissingDeleteCount(batch.getMissingDeleteCount());
+        outgoingBatch.setSkipCount(batch.getSkipCount());
+
+        boolean isNewError = false;
+        if (!batch.isOk() && batch.getErrorLine() != 0) {
+            if (outgoingBatch.isLoadFlag()) {
+                isNewError = outgoingBatch.getSentCount() == 1;
+            } else {
+                String sql = getSql("selectDataIdSql");
+                if (parameterService.is(ParameterConstants.DBDIALECT_ORACLE_SEQUENCE_NOORDER, false)) {
+                    sql = getSql("selectDataIdByCreateTimeSql");
+                } else if (parameterService.is(ParameterConstants.ROUTING_DATA_READER_ORDER_BY_DATA_ID_ENABLED, true)) {
+                    sql += getSql("orderByDataId");
                 }
-                outgoingBatch.setNetworkMillis(batch.getNetworkMillis());
-                outgoingBatch.setFilterMillis(batch.getFilterMillis());
-                outgoingBatch.setLoadMillis(batch.getLoadMillis());
-                outgoingBatch.setLoadStartTime(new Date(batch.getStartTime()));
-                outgoingBatch.setSqlCode(batch.getSqlCode());
-                outgoingBatch.setSqlState(batch.getSqlState());
-                outgoingBatch.setSqlMessage(batch.getSqlMessage());
-                outgoingBatch.setLoadRowCount(batch.getLoadRowCount());
-                outgoingBatch.setLoadInsertRowCount(batch.getLoadInsertRowCount());
-                outgoingBatch.setLoadUpdateRowCount(batch.getLoadUpdateRowCount());
-                outgoingBatch.setTransformLoadMillis(batch.getTransformLoadMillis());
-                outgoingBatch.setLoadDeleteRowCount(batch.getLoadDeleteRowCount());
-                outgoingBatch.setFallbackInsertCount(batch.getFallbackInsertCount());
-                outgoingBatch.setFallbackUpdateCount(batch.getFallbackUpdateCount());
-                outgoingBatch.setIgnoreRowCount(batch.getIgnoreRowCount());
-                outgoingBatch.setMissingDeleteCount(batch.getMissingDeleteCount());
-                outgoingBatch.setSkipCount(batch.getSkipCount());
-
-                boolean isNewError = false;
-                if (!batch.isOk() && batch.getErrorLine() != 0) {
-                    if (outgoingBatch.isLoadFlag()) {
-                        isNewError = outgoingBatch.getSentCount() == 1;
-                    } else {
-                        String sql = getSql("selectDataIdSql");
-                        if (parameterService.is(ParameterConstants.DBDIALECT_ORACLE_SEQUENCE_NOORDER, false)) {
-                            sql = getSql("selectDataIdByCreateTimeSql");
-                        } else if (parameterService.is(ParameterConstants.ROUTING_DATA_READER_ORDER_BY_DATA_ID_ENABLED, true)) {
-                            sql += getSql("orderByDataId");
-                        }
     
-                        List<Number> ids = sqlTemplateDirty.query(sql, new NumberMapper(), outgoingBatch.getBatchId());
-                        if (ids.size() >= batch.getErrorLine()) {
-                            long failedDataId = ids.get((int) batch.getErrorLine() - 1).longValue();
-                            if (outgoingBatch.getFailedDataId() == 0 || outgoingBatch.getFailedDataId() != failedDataId) {
-                                isNewError = true;
-                            }
-                            outgoingBatch.setFailedDataId(failedDataId);
-                        }
+                List<Number> ids = sqlTemplateDirty.query(sql, new NumberMapper(), outgoingBatch.getBatchId());
+                if (ids.size() >= batch.getErrorLine()) {
+                    long failedDataId = ids.get((int) batch.getErrorLine() - 1).longValue();
+                    if (outgoingBatch.getFailedDataId() == 0 || outgoingBatch.getFailedDataId() != failedDataId) {
+                        isNewError = true;
                     }
+                    outgoingBatch.setFailedDataId(failedDataId);
                 }
+            }
+        }
 
-                if (status == Status.ER) {
-                    boolean suppressLogError = false;
-                    if (isNewError) {
-                        engine.getStatisticManager().incrementDataLoadedOutgoingErrors(outgoingBatch.getChannelId(), 1);
-                    }
-                    if (isNewError && outgoingBatch.getSqlCode() == ErrorConstants.FK_VIOLATION_CODE) {
-                        if (!outgoingBatch.isLoadFlag() && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION)) {
-                            engine.getDataService().reloadMissingForeignKeyRows(outgoingBatch.getNodeId(), outgoingBatch.getFailedDataId());
-                            suppressLogError = true;
-                        }
-                        if (outgoingBatch.isLoadFlag() && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION_REVERSE_RELOAD)) {
-                            suppressLogError = true;
-                        }
-                    }
-                    if (outgoingBatch.getSqlCode() == ErrorConstants.PROTOCOL_VIOLATION_CODE
-                            && ErrorConstants.PROTOCOL_VIOLATION_STATE.equals(outgoingBatch.getSqlState())) {
-                        if (outgoingBatch.isLoadFlag()) {
-                            log.info("The batch {} may be corrupt in staging. Not removing the batch because it was a load batch, but you may need to clear the batch from staging manually.",
-                                    outgoingBatch.getNodeBatchId());
-                        } else {
-                            IStagedResource resource = engine.getStagingManager().find(Constants.STAGING_CATEGORY_OUTGOING,
-                                    outgoingBatch.getStagedLocation(), outgoingBatch.getBatchId());
-                            if (resource != null) {
-                                log.info("The batch {} may be corrupt in staging, so removing it.", outgoingBatch.getNodeBatchId());
-                                resource.delete();
-                                suppressLogError = isNewError;
-                            }
-                        }
-                    }
-                    if (!suppressLogError) {
-                        log.error("The outgoing batch {} failed: {}{}", outgoingBatch.getNodeBatchId(),
-                                (batch.getSqlCode() != 0 ? "[" + batch.getSqlState() + "," + batch.getSqlCode() + "] " : ""), batch.getSqlMessage());
-                        RouterStats routerStats = engine.getStatisticManager().getRouterStatsByBatch(batch.getBatchId());
-                        if (routerStats != null) {
-                            log.info("Router stats for batch " + outgoingBatch.getBatchId() + ": " + routerStats.toString());
-                        }
-                    }
-                } else if (status == Status.RS) {
-                    log.info("The outgoing batch {} received resend request", outgoingBatch.getNodeBatchId());
+        if (status == Status.ER) {
+            boolean suppressLogError = false;
+            if (isNewError) {
+                engine.getStatisticManager().incrementDataLoadedOutgoingErrors(outgoingBatch.getChannelId(), 1);
+            }
+            if (isNewError && outgoingBatch.getSqlCode() == ErrorConstants.FK_VIOLATION_CODE) {
+                if (!outgoingBatch.isLoadFlag() && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION)) {
+                    engine.getDataService().reloadMissingForeignKeyRows(outgoingBatch.getNodeId(), outgoingBatch.getFailedDataId());
+                    suppressLogError = true;
                 }
-                
-                outgoingBatchService.updateOutgoingBatch(outgoingBatch);
-                if (status == Status.OK) {
-                    if (!Status.OK.equals(oldStatus)) {
-                        if (outgoingBatch.getLoadId() > 0) {
-                            engine.getDataExtractorService().updateExtractRequestLoadTime(new Date(), outgoingBatch);
-                        }
-                        engine.getStatisticManager().incrementDataLoadedOutgoing(outgoingBatch.getChannelId(), outgoingBatch.getLoadRowCount());
-                        engine.getStatisticManager().incrementDataBytesLoadedOutgoing(outgoingBatch.getChannelId(), outgoingBatch.getByteCount());
-                    }
-                    purgeLoadBatchesFromStaging(outgoingBatch);
-                    Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
-                    if (channel != null && channel.isFileSyncFlag()){
-                        /* Acknowledge the file_sync in case the file needs deleted. */
-                        engine.getFileSyncService().acknowledgeFiles(outgoingBatch);
+                if (outgoingBatch.isLoadFlag() && parameterService.is(ParameterConstants.AUTO_RESOLVE_FOREIGN_KEY_VIOLATION_REVERSE_RELOAD)) {
+                    suppressLogError = true;
+                }
+            }
+            if (outgoingBatch.getSqlCode() == ErrorConstants.PROTOCOL_VIOLATION_CODE
+                    && ErrorConstants.PROTOCOL_VIOLATION_STATE.equals(outgoingBatch.getSqlState())) {
+                if (outgoingBatch.isLoadFlag()) {
+                    log.info("The batch {} may be corrupt in staging. Not removing the batch because it was a load batch, but you may need to clear the batch from staging manually.",
+                            outgoingBatch.getNodeBatchId());
+                } else {
+                    IStagedResource resource = engine.getStagingManager().find(Constants.STAGING_CATEGORY_OUTGOING,
+                            outgoingBatch.getStagedLocation(), outgoingBatch.getBatchId());
+                    if (resource != null) {
+                        log.info("The batch {} may be corrupt in staging, so removing it.", outgoingBatch.getNodeBatchId());
+                        resource.delete();
+                        suppressLogError = isNewError;
                     }
-                    engine.getStatisticManager().removeRouterStatsByBatch(batch.getBatchId());
                 }
-            } else if (outgoingBatch == null) {
-                log.error("Could not find batch {}-{} to acknowledge as {}", new Object[] {batch.getNodeId(), batch.getBatchId(),
-                        status.name()});
-                result.setOk(false);
             }
+            if (!suppressLogError) {
+                log.error("The outgoing batch {} failed: {}{}", outgoingBatch.getNodeBatchId(),
+                        (batch.getSqlCode() != 0 ? "[" + batch.getSqlState() + "," + batch.getSqlCode() + "] " : ""), batch.getSqlMessage());
+                RouterStats routerStats = engine.getStatisticManager().getRouterStatsByBatch(batch.getBatchId());
+                if (routerStats != null) {
+                    log.info("Router stats for batch " + outgoingBatch.getBatchId() + ": " + routerStats.toString());
+                }
+            }
+        } else if (status == Status.RS) {
+            log.info("The outgoing batch {} received resend request", outgoingBatch.getNodeBatchId());
         }
-        return result;
+        return status;
+    }
+
+    protected void afterAckOk(OutgoingBatch outgoingBatch) {
+        if (outgoingBatch.getLoadId() > 0) {
+            engine.getDataExtractorService().updateExtractRequestLoadTime(new Date(), outgoingBatch);
+        }
+        engine.getStatisticManager().incrementDataLoadedOutgoing(outgoingBatch.getChannelId(), outgoingBatch.getLoadRowCount());
+        engine.getStatisticManager().incrementDataBytesLoadedOutgoing(outgoingBatch.getChannelId(), outgoingBatch.getByteCount());
+        purgeLoadBatchesFromStaging(outgoingBatch);
+        Channel channel = engine.getConfigurationService().getChannel(outgoingBatch.getChannelId());
+        if (channel != null && channel.isFileSyncFlag()){
+            /* Acknowledge the file_sync in case the file needs deleted. */
+            engine.getFileSyncService().acknowledgeFiles(outgoingBatch);
+        }
+        engine.getStatisticManager().removeRouterStatsByBatch(outgoingBatch.getBatchId());
     }
 
     protected void purgeLoadBatchesFromStaging(OutgoingBatch outgoingBatch) {
@@ -215,13 +335,4 @@ public class AcknowledgeService extends AbstractService implements IAcknowledgeS
             }
         }
     }
-
-	public List<BatchAckResult> ack(List<BatchAck> batches) {
-		
-		List<BatchAckResult> results = new ArrayList<BatchAckResult>();
-		for (BatchAck batch:batches) {
-			results.add(ack(batch));
-		}
-		return results;
-	}
 }
@@ -56,6 +56,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -76,6 +79,7 @@ import org.jumpmind.symmetric.service.IExtensionService;
 import org.jumpmind.symmetric.service.INodeService;
 import org.jumpmind.symmetric.service.IParameterService;
 import org.jumpmind.util.AppUtils;
+import org.jumpmind.util.CustomizableThreadFactory;
 
 /**
  * @see IClusterService
@@ -100,6 +104,10 @@ public class ClusterService extends AbstractService implements IClusterService {
     
     private Map<String, Lock> lockCache = new ConcurrentHashMap<String, Lock>();
 
+    private Map<String, Lease> leases = new ConcurrentHashMap<String, Lease>();
+
+    private ScheduledExecutorService leaseRenewer;
+
     public ClusterService(IParameterService parameterService, ISymmetricDialect dialect, INodeService nodeService,
             IExtensionService extensionService) {
         super(parameterService, dialect);
@@ -124,6 +132,7 @@ public class ClusterService extends AbstractService implements IClusterService {
         
         if (isClusteringEnabled()) {
             sqlTemplate.update(getSql("initLockSql"), new Object[] { getServerId() });
+            resetLeases();
             refreshLockEntries();
         }
     }
@@ -254,6 +263,7 @@ public class ClusterService extends AbstractService implements IClusterService {
     public void clearAllLocks() {
         if (isClusteringEnabled()) {
             sqlTemplate.update(getSql("initLockSql"), new Object[] { getServerId() });
+            resetLeases();
         } else {
             initCache();
         }
@@ -283,9 +293,147 @@ public class ClusterService extends AbstractService implements IClusterService {
 
     @Override
     public boolean lock(final String action) {
-        final Date timeout = DateUtils.addMilliseconds(new Date(), 
-                (int) -parameterService.getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS));
-        return lockCluster(action, timeout, new Date(), getServerId());
+        long leaseMs = getLeaseMs();
+        if (leaseMs > 0) {
+            releaseExpiredLeases();
+            Lease lease = getLease(action);
+            synchronized (lease) {
+                if (lease.expireTime - System.currentTimeMillis() >= leaseMs / 2 || renewLease(lease, leaseMs)) {
+                    lease.lockCount++;
+                    startLeaseRenewer(leaseMs);
+                    return true;
+                }
+                return false;
+            }
+        } else {
+            final Date timeout = DateUtils.addMilliseconds(new Date(),
+                    (int) -parameterService.getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS));
+            return lockCluster(action, timeout, new Date(), getServerId());
+        }
+    }
+
+    /**
+     * The length of time a cluster lock is kept after it is unlocked so the
+     * next run can use it without updating the lock table. The lock row is
+     * stamped to time out at the end of the lease, so a lease that is not
+     * renewed frees the lock for other servers when it ends.
+     */
+    protected long getLeaseMs() {
+        if (isClusteringEnabled()) {
+            long leaseMs = parameterService.getLong(ParameterConstants.CLUSTER_LOCK_LEASE_MS, 0);
+            return Math.min(leaseMs, parameterService.getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS) / 2);
+        }
+        return 0;
+    }
+
+    /**
+     * Acquire or extend the lock for another lease term. The lock time is
+     * written so that the lock times out for other servers when the lease
+     * ends instead of a full timeout after it was acquired, so the lock is
+     * freed if this server goes away without releasing it.
+     */
+    protected boolean renewLease(Lease lease, long leaseMs) {
+        Date now = new Date();
+        long timeoutMs = parameterService.getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS);
+        final Date timeout = DateUtils.addMilliseconds(now, (int) -timeoutMs);
+        final Date leaseLockTime = new Date(now.getTime() + leaseMs - timeoutMs);
+        if (lockCluster(lease.action, timeout, leaseLockTime, getServerId())) {
+            lease.expireTime = now.getTime() + leaseMs;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Renews the leases of locks that are still locked every half lease term,
+     * so a job that runs longer than the lease keeps the lock whether or not
+     * it calls {@link #refreshLock(String)}.
+     */
+    protected synchronized void startLeaseRenewer(long leaseMs) {
+        if (leaseRenewer == null) {
+            long periodMs = Math.max(1, leaseMs / 2);
+            leaseRenewer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(
+                    String.format("%s-cluster-lease", parameterService.getEngineName().toLowerCase())));
+            leaseRenewer.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    try {
+                        renewLockedLeases();
+                    } catch (Exception ex) {
+                        log.error("Failed to renew cluster lock leases", ex);
+                    }
+                }
+            }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected synchronized void stopLeaseRenewer() {
+        if (leaseRenewer != null) {
+            leaseRenewer.shutdownNow();
+            leaseRenewer = null;
+        }
+    }
+
+    protected void renewLockedLeases() {
+        long leaseMs = getLeaseMs();
+        if (leaseMs > 0) {
+            for (Lease lease : leases.values()) {
+                synchronized (lease) {
+                    if (lease.lockCount > 0 && lease.expireTime > 0 && !renewLease(lease, leaseMs)) {
+                        log.warn("Failed to renew the lease of the cluster lock for action:{} server:{}", lease.action,
+                                getServerId());
+                    }
+                }
+            }
+        }
+    }
+
+    protected Lease getLease(String action) {
+        Lease lease = leases.get(action);
+        if (lease == null) {
+            synchronized (leases) {
+                lease = leases.get(action);
+                if (lease == null) {
+                    lease = new Lease(action);
+                    leases.put(action, lease);
+                }
+            }
+        }
+        return lease;
+    }
+
+    protected void releaseExpiredLeases() {
+        long now = System.currentTimeMillis();
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                if (lease.expireTime > 0 && lease.expireTime <= now && lease.lockCount == 0) {
+                    lease.expireTime = 0;
+                    unlockCluster(lease.action, getServerId());
+                }
+            }
+        }
+    }
+
+    protected void resetLeases() {
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                lease.expireTime = 0;
+                lease.lockCount = 0;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        stopLeaseRenewer();
+        for (Lease lease : leases.values()) {
+            synchronized (lease) {
+                if (lease.expireTime > 0) {
+                    lease.expireTime = 0;
+                    lease.lockCount = 0;
+                    unlockCluster(lease.action, getServerId());
+                }
+            }
+        }
     }
 
     protected boolean lockCluster(String action, Date timeToBreakLock, Date timeLockAcquired,
@@ -507,6 +655,22 @@ public class ClusterService extends AbstractService implements IClusterService {
 
     @Override
     public void unlock(final String action) {
+        Lease lease = leases.get(action);
+        if (lease != null) {
+            synchronized (lease) {
+                if (lease.lockCount > 0) {
+                    lease.lockCount--;
+                }
+                if (lease.lockCount > 0 || (lease.expireTime > System.currentTimeMillis() && getLeaseMs() > 0)) {
+                    return;
+                }
+                lease.expireTime = 0;
+                if (!unlockCluster(action, getServerId())) {
+                    log.warn("Failed to release lock for action:{} server:{}", action, getServerId());
+                }
+                return;
+            }
+        }
         if (!unlockCluster(action, getServerId())) {
             log.warn("Failed to release lock for action:{} server:{}", action, getServerId());
         }
@@ -635,8 +799,24 @@ public class ClusterService extends AbstractService implements IClusterService {
 
     @Override
     public boolean refreshLock(String action) {
+        long leaseMs = getLeaseMs();
+        Lease lease = leases.get(action);
+        if (lease != null && leaseMs > 0) {
+            synchronized (lease) {
+                if (lease.expireTime > 0) {
+                    /*
+                     * A leased lock times out when the lease ends, so a long
+                     * running job keeps it by renewing the lease
+                     */
+                    return lease.expireTime - System.currentTimeMillis() >= leaseMs / 2
+                            || renewLease(lease, leaseMs);
+                }
+            }
+        }
         if (isLockRefreshNeeded(action)) {
-            return lock(action); 
+            final Date timeout = DateUtils.addMilliseconds(new Date(),
+                    (int) -parameterService.getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS));
+            return lockCluster(action, timeout, new Date(), getServerId());
         }
         return true;
     }
@@ -657,4 +837,22 @@ public class ClusterService extends AbstractService implements IClusterService {
         }
     }
 
+    /**
+     * A cluster lock that this server holds past unlock() until the lease
+     * expires. The lock count is the number of callers on this server that
+     * currently have it locked.
+     */
+    static class Lease {
+
+        final String action;
+
+        long expireTime;
+
+        int lockCount;
+
+        Lease(String action) {
+            this.action = action;
+        }
+    }
+
 }
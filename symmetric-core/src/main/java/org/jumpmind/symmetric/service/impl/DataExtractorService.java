@@ -107,6 +107,7 @@ import org.jumpmind.symmetric.io.data.transform.TransformTable;
 import org.jumpmind.symmetric.io.data.writer.DataWriterStatisticConstants;
 import org.jumpmind.symmetric.io.data.writer.ProtocolDataWriter;
 import org.jumpmind.symmetric.io.data.writer.StagingDataWriter;
+import org.jumpmind.symmetric.io.data.writer.IStructureDataWriterListener;
 import org.jumpmind.symmetric.io.data.writer.StructureDataWriter;
 import org.jumpmind.symmetric.io.data.writer.StructureDataWriter.PayloadType;
 import org.jumpmind.symmetric.io.data.writer.TransformWriter;
@@ -474,6 +475,50 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
             Node targetNode, PayloadType payloadType, boolean useJdbcTimestampFormat,
             boolean useUpsertStatements, boolean useDelimiterIdentifiers) {
 
+        List<OutgoingBatch> activeBatches = loadBatchesForPayload(targetNode);
+
+        if (activeBatches.size() > 0) {
+            StructureDataWriter writer = new StructureDataWriter(
+                    symmetricDialect.getPlatform(), targetNode.getDatabaseType(), payloadType,
+                    useDelimiterIdentifiers, symmetricDialect.getBinaryEncoding(),
+                    useJdbcTimestampFormat, useUpsertStatements);
+            List<OutgoingBatch> extractedBatches = extract(processInfo, targetNode,
+                    activeBatches, writer, null, ExtractMode.FOR_PAYLOAD_CLIENT);
+
+            List<OutgoingBatchWithPayload> batchesWithPayload = new ArrayList<OutgoingBatchWithPayload>();
+            for (OutgoingBatch batch : extractedBatches) {
+                OutgoingBatchWithPayload batchWithPayload = new OutgoingBatchWithPayload(batch,
+                        payloadType);
+                batchWithPayload.setPayload(writer.getPayloadMap().get(batch.getBatchId()));
+                batchWithPayload.setPayloadType(payloadType);
+                batchesWithPayload.add(batchWithPayload);
+            }
+
+            return batchesWithPayload;
+        }
+
+        return Collections.emptyList();
+    }
+
+    public List<OutgoingBatch> extractToPayload(ProcessInfo processInfo, Node targetNode,
+            PayloadType payloadType, boolean useJdbcTimestampFormat, boolean useUpsertStatements,
+            boolean useDelimiterIdentifiers, IStructureDataWriterListener listener, long maxBytes) {
+
+        List<OutgoingBatch> activeBatches = loadBatchesForPayload(targetNode);
+
+        if (activeBatches.size() > 0) {
+            StructureDataWriter writer = new StructureDataWriter(
+                    symmetricDialect.getPlatform(), targetNode.getDatabaseType(), payloadType,
+                    useDelimiterIdentifiers, symmetricDialect.getBinaryEncoding(),
+                    useJdbcTimestampFormat, useUpsertStatements, listener);
+            writer.setMaxPayloadBytes(maxBytes);
+            return extract(processInfo, targetNode, activeBatches, writer, null, ExtractMode.FOR_PAYLOAD_CLIENT);
+        }
+
+        return Collections.emptyList();
+    }
+
+    protected List<OutgoingBatch> loadBatchesForPayload(Node targetNode) {
         OutgoingBatches batches = outgoingBatchService.getOutgoingBatches(targetNode.getNodeId(),
                 false);
 
@@ -494,25 +539,8 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                                     + ".  Please check the database type setting for node '"
                                     + targetNode.getNodeId() + "'");
                 }
-                StructureDataWriter writer = new StructureDataWriter(
-                        symmetricDialect.getPlatform(), targetNode.getDatabaseType(), payloadType,
-                        useDelimiterIdentifiers, symmetricDialect.getBinaryEncoding(),
-                        useJdbcTimestampFormat, useUpsertStatements);
-                List<OutgoingBatch> extractedBatches = extract(processInfo, targetNode,
-                        activeBatches, writer, null, ExtractMode.FOR_PAYLOAD_CLIENT);
-
-                List<OutgoingBatchWithPayload> batchesWithPayload = new ArrayList<OutgoingBatchWithPayload>();
-                for (OutgoingBatch batch : extractedBatches) {
-                    OutgoingBatchWithPayload batchWithPayload = new OutgoingBatchWithPayload(batch,
-                            payloadType);
-                    batchWithPayload.setPayload(writer.getPayloadMap().get(batch.getBatchId()));
-                    batchWithPayload.setPayloadType(payloadType);
-                    batchesWithPayload.add(batchWithPayload);
-                }
-
-                return batchesWithPayload;
-
             }
+            return activeBatches;
         }
 
         return Collections.emptyList();
@@ -567,7 +595,7 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
 
     protected OutgoingBatches loadPendingBatches(ProcessInfo extractInfo, Node targetNode, String queue, IOutgoingTransport transport) {
         
-        BufferedWriter writer = transport.getWriter();         
+        BufferedWriter writer = transport != null ? transport.getWriter() : null;
         
         Callable<OutgoingBatches> getOutgoingBatches = () -> {                            
             OutgoingBatches batches = null;
@@ -626,6 +654,35 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         }
     }
     
+    public List<OutgoingBatch> extractAhead(ProcessInfo extractInfo, Node targetNode, String queue,
+            List<OutgoingBatch> batchesInFlight, int maxBatches) {
+        List<OutgoingBatch> extractedBatches = new ArrayList<OutgoingBatch>();
+        if (maxBatches > 0 && parameterService.is(ParameterConstants.STREAM_TO_FILE_ENABLED)) {
+            Set<Long> batchIdsInFlight = new HashSet<Long>(batchesInFlight.size());
+            for (OutgoingBatch batch : batchesInFlight) {
+                batchIdsInFlight.add(batch.getBatchId());
+            }
+            OutgoingBatches batches = loadPendingBatches(extractInfo, targetNode, queue, null);
+            if (batches != null && batches.containsBatches()) {
+                List<OutgoingBatch> activeBatches = filterBatchesForExtraction(batches,
+                        configurationService.getSuspendIgnoreChannelLists(targetNode.getNodeId()));
+                for (OutgoingBatch batch : activeBatches) {
+                    if (extractedBatches.size() >= maxBatches) {
+                        break;
+                    }
+                    if (!batchIdsInFlight.contains(batch.getBatchId()) && batch.getStatus() != Status.IG
+                            && !batch.isExtractJobFlag() && !isPreviouslyExtracted(batch, false)) {
+                        batch = extractOutgoingBatch(extractInfo, targetNode, null, batch, true, true,
+                                ExtractMode.EXTRACT_ONLY, null);
+                        outgoingBatchService.updateOutgoingBatch(batch);
+                        extractedBatches.add(batch);
+                    }
+                }
+            }
+        }
+        return extractedBatches;
+    }
+
     /**
      * This method will extract an outgoing batch, but will not update the outgoing batch status
      */
@@ -690,6 +747,16 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                     if (status.shouldExtractSkip) {
                         break;
                     }
+
+                    /*
+                     * Without staging the payload is written as each batch is
+                     * extracted, so stop extracting once it is full
+                     */
+                    if (executor == null && i > 0 && isPayloadFull(dataWriter)) {
+                        logPayloadFull(targetNode, dataWriter, i, activeBatches.size());
+                        status.shouldExtractSkip = true;
+                        break;
+                    }
                     
                     if (executor != null) {
                         futures.add(executor.submit(callable));
@@ -723,6 +790,7 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                 final long initialLoadMaxBytesToSync = parameterService.getLong(ParameterConstants.INITIAL_LOAD_TRANSPORT_MAX_BYTES_TO_SYNC);
                 long totalBytesSend = 0;
                 boolean logMaxBytesReached = false;
+                boolean payloadFull = false;
                 Iterator<OutgoingBatch> activeBatchIter = activeBatches.iterator();                
                 for (int i = 0; i < futures.size(); i++) {
                     Future<FutureOutgoingBatch> future = futures.get(i);
@@ -748,6 +816,20 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
                                 break;
                             }
 
+                            /*
+                             * With staging the payload is written as each batch
+                             * is sent, so skip the rest once it is full
+                             */
+                            if (payloadFull || (streamToFileEnabled && i > 0 && isPayloadFull(dataWriter))) {
+                                if (!payloadFull) {
+                                    payloadFull = true;
+                                    status.shouldExtractSkip = true;
+                                    logPayloadFull(targetNode, dataWriter, i, futures.size());
+                                }
+                                transferInfo.setStatus(ProcessStatus.OK);
+                                break;
+                            }
+
                             if (streamToFileEnabled || mode == ExtractMode.FOR_PAYLOAD_CLIENT || (currentBatch.isExtractJobFlag() && parameterService.is(ParameterConstants.INITIAL_LOAD_USE_EXTRACT_JOB))) {
                                 
                                 if(totalBytesSend > initialLoadMaxBytesToSync) {
@@ -949,6 +1031,17 @@ public class DataExtractorService extends AbstractService implements IDataExtrac
         return outgoingBatch;
     }
 
+    protected boolean isPayloadFull(IDataWriter dataWriter) {
+        return dataWriter instanceof StructureDataWriter && ((StructureDataWriter) dataWriter).isPayloadFull();
+    }
+
+    protected void logPayloadFull(Node targetNode, IDataWriter dataWriter, int batchCount, int totalBatchCount) {
+        StructureDataWriter writer = (StructureDataWriter) dataWriter;
+        log.info("Reached the payload byte threshold after {} of {} batches were extracted for node '{}' (extracted {} bytes, the max is {}).  "
+                + "The remaining batches will be extracted on a subsequent pull.", new Object[] { batchCount, totalBatchCount,
+                        targetNode.getNodeId(), writer.getPayloadByteCount(), writer.getMaxPayloadBytes() });
+    }
+
     protected void writeKeepAliveAck(BufferedWriter writer, Node sourceNode, boolean streamToFileEnabled) {
         try {
             if (writer != null && streamToFileEnabled) {
@@ -670,7 +670,11 @@ public class DataLoaderService extends AbstractService implements IDataLoaderSer
             }
             logOrRethrow(ex);
         } finally {
-            transport.close();
+            try {
+                transport.close();
+            } finally {
+                listener.flushOkUpdates();
+            }
 
             for (ILoadSyncLifecycleListener l : extensionService
                     .getExtensionPointList(ILoadSyncLifecycleListener.class)) {
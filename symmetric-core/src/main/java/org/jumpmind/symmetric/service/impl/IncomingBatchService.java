@@ -183,11 +183,15 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
     }
 
     public boolean acquireIncomingBatch(IncomingBatch batch) {
+        return acquireIncomingBatch(batch, isRecordOkBatchesEnabled());
+    }
+
+    public boolean acquireIncomingBatch(IncomingBatch batch, boolean insertNewBatch) {
         boolean okayToProcess = true;
         if (batch.isPersistable()) {
             IncomingBatch existingBatch = null;
 
-            if (isRecordOkBatchesEnabled()) {
+            if (insertNewBatch) {
                 try {
                     insertIncomingBatch(batch);
                 } catch (UniqueKeyException e) {
@@ -321,37 +325,88 @@ public class IncomingBatchService extends AbstractService implements IIncomingBa
     public int updateIncomingBatch(ISqlTransaction transaction, IncomingBatch batch) {
         int count = 0;
         if (batch.isPersistable()) {
-            if (batch.getStatus() == IncomingBatch.Status.ER) {
-                batch.setErrorFlag(true);
-            } else if (batch.getStatus() == IncomingBatch.Status.OK) {
-                batch.setErrorFlag(false);
-            }
+            setErrorFlagFromStatus(batch);
             batch.setLastUpdatedHostName(clusterService.getServerId());
             count = transaction.prepareAndExecute(getSql("updateIncomingBatchSql"),
-                    new Object[] { batch.getStatus().name(), batch.isErrorFlag() ? 1 : 0, batch.getNetworkMillis(), batch.getFilterMillis(),
-                            batch.getLoadMillis(), batch.getFailedRowNumber(), batch.getFailedLineNumber(), batch.getByteCount(),
-                            batch.getLoadRowCount(), batch.getFallbackInsertCount(), batch.getFallbackUpdateCount(), batch.getIgnoreCount(),
-                            batch.getIgnoreRowCount(), batch.getMissingDeleteCount(), batch.getSkipCount(), batch.getSqlState(),
-                            batch.getSqlCode(), FormatUtils.abbreviateForLogging(batch.getSqlMessage()), batch.getLastUpdatedHostName(),
-                            batch.getSummary(), batch.isLoadFlag(), batch.getExtractCount(), batch.getSentCount(), batch.getLoadCount(),
-                            batch.getLoadId(), batch.isCommonFlag(), batch.getRouterMillis(), batch.getExtractMillis(),
-                            batch.getTransformExtractMillis(), batch.getTransformLoadMillis(), batch.getReloadRowCount(),
-                            batch.getOtherRowCount(), batch.getDataRowCount(), batch.getDataInsertRowCount(), batch.getDataUpdateRowCount(),
-                            batch.getDataDeleteRowCount(), batch.getExtractRowCount(), batch.getExtractInsertRowCount(),
-                            batch.getExtractUpdateRowCount(), batch.getExtractDeleteRowCount(), batch.getLoadInsertRowCount(),
-                            batch.getLoadUpdateRowCount(), batch.getLoadDeleteRowCount(), batch.getFailedDataId(), batch.getBatchId(),
-                            batch.getNodeId() },
-                    new int[] { Types.CHAR, Types.SMALLINT, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                            Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                            Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC,
-                            Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                            Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                            Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                            Types.NUMERIC, Types.NUMERIC, symmetricDialect.getSqlTypeForIds(), Types.VARCHAR });
+                    getUpdateIncomingBatchArgs(batch), getUpdateIncomingBatchTypes());
         }
         return count;
     }
 
+    public void updateIncomingBatches(List<IncomingBatch> batches) {
+        if (batches.size() == 1) {
+            updateIncomingBatch(batches.get(0));
+        } else if (batches.size() > 1) {
+            ISqlTransaction transaction = null;
+            try {
+                transaction = sqlTemplate.startSqlTransaction();
+                boolean inBatchMode = transaction.isInBatchMode();
+                try {
+                    transaction.setInBatchMode(true);
+                    transaction.prepare(getSql("updateIncomingBatchSql"));
+                    int[] types = getUpdateIncomingBatchTypes();
+                    for (IncomingBatch batch : batches) {
+                        if (batch.isPersistable()) {
+                            setErrorFlagFromStatus(batch);
+                            batch.setLastUpdatedHostName(clusterService.getServerId());
+                            transaction.addRow(batch, getUpdateIncomingBatchArgs(batch), types);
+                        }
+                    }
+                    transaction.flush();
+                } finally {
+                    transaction.setInBatchMode(inBatchMode);
+                }
+                transaction.commit();
+            } catch (Error ex) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                throw ex;
+            } catch (RuntimeException ex) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                throw ex;
+            } finally {
+                close(transaction);
+            }
+        }
+    }
+
+    protected void setErrorFlagFromStatus(IncomingBatch batch) {
+        if (batch.getStatus() == IncomingBatch.Status.ER) {
+            batch.setErrorFlag(true);
+        } else if (batch.getStatus() == IncomingBatch.Status.OK) {
+            batch.setErrorFlag(false);
+        }
+    }
+
+    protected Object[] getUpdateIncomingBatchArgs(IncomingBatch batch) {
+        return new Object[] { batch.getStatus().name(), batch.isErrorFlag() ? 1 : 0, batch.getNetworkMillis(), batch.getFilterMillis(),
+                batch.getLoadMillis(), batch.getFailedRowNumber(), batch.getFailedLineNumber(), batch.getByteCount(),
+                batch.getLoadRowCount(), batch.getFallbackInsertCount(), batch.getFallbackUpdateCount(), batch.getIgnoreCount(),
+                batch.getIgnoreRowCount(), batch.getMissingDeleteCount(), batch.getSkipCount(), batch.getSqlState(),
+                batch.getSqlCode(), FormatUtils.abbreviateForLogging(batch.getSqlMessage()), batch.getLastUpdatedHostName(),
+                batch.getSummary(), batch.isLoadFlag(), batch.getExtractCount(), batch.getSentCount(), batch.getLoadCount(),
+                batch.getLoadId(), batch.isCommonFlag(), batch.getRouterMillis(), batch.getExtractMillis(),
+                batch.getTransformExtractMillis(), batch.getTransformLoadMillis(), batch.getReloadRowCount(),
+                batch.getOtherRowCount(), batch.getDataRowCount(), batch.getDataInsertRowCount(), batch.getDataUpdateRowCount(),
+                batch.getDataDeleteRowCount(), batch.getExtractRowCount(), batch.getExtractInsertRowCount(),
+                batch.getExtractUpdateRowCount(), batch.getExtractDeleteRowCount(), batch.getLoadInsertRowCount(),
+                batch.getLoadUpdateRowCount(), batch.getLoadDeleteRowCount(), batch.getFailedDataId(), batch.getBatchId(),
+                batch.getNodeId() };
+    }
+
+    protected int[] getUpdateIncomingBatchTypes() {
+        return new int[] { Types.CHAR, Types.SMALLINT, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, symmetricDialect.getSqlTypeForIds(), Types.VARCHAR };
+    }
+
     public Map<String, BatchId> findMaxBatchIdsByChannel() {
         Map<String, BatchId> ids = new HashMap<String, BatchId>();
         sqlTemplate.query(getSql("maxBatchIdsSql"), new BatchIdMapper(ids), IncomingBatch.Status.OK.name());
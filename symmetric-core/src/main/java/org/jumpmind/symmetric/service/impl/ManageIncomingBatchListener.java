@@ -65,8 +65,22 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
 
     private static final Logger log = LoggerFactory.getLogger(ManageIncomingBatchListener.class);
 
+    protected static final int MAX_PENDING_OK_UPDATES = 100;
+
     protected List<IncomingBatch> batchesProcessed = new ArrayList<IncomingBatch>();
 
+    /*
+     * batches that were recorded as OK in their data transaction and are
+     * waiting for their final statistics to be saved
+     */
+    protected List<IncomingBatch> pendingOkUpdates = new ArrayList<IncomingBatch>();
+
+    protected boolean recordInDataTransaction;
+
+    protected boolean isCurrentBatchRecorded;
+
+    protected boolean isDuplicateLoadForCurrentBatch;
+
     protected IncomingBatch currentBatch;
 
     protected boolean isNewErrorForCurrentBatch;
@@ -96,19 +110,56 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
         this.dataLoaderService = engine.getDataLoaderService();
         this.incomingBatchService = engine.getIncomingBatchService();
         this.statisticManager = engine.getStatisticManager();
+        this.recordInDataTransaction = parameterService.is(ParameterConstants.INCOMING_BATCH_RECORD_IN_DATA_TRANSACTION, false)
+                && incomingBatchService.isRecordOkBatchesEnabled()
+                && symmetricDialect.getPlatform().equals(symmetricDialect.getTargetPlatform());
     }
 
     public void beforeBatchEnd(DataContext context) {
+        if (recordInDataTransaction) {
+            recordInDataTransaction(context);
+        }
         // Only sync triggers if this is not a load only node.
         if (engine.getSymmetricDialect().getPlatform().equals(engine.getSymmetricDialect().getTargetPlatform())) {
             enableSyncTriggers(context);
         }
     }
 
+    /**
+     * Records the current batch as OK in the transaction that is about to
+     * commit its data. If another process recorded the same batch first, the
+     * primary key violation rolls back this load.
+     */
+    protected void recordInDataTransaction(DataContext context) {
+        ISqlTransaction transaction = context.findSymmetricTransaction(engine.getTablePrefix());
+        if (transaction != null && this.currentBatch != null && this.currentBatch.isPersistable()) {
+            Batch batch = context.getBatch();
+            this.currentBatch.setValues(context.getReader().getStatistics().get(batch), context
+                    .getWriter().getStatistics().get(batch), true);
+            Status oldStatus = this.currentBatch.getStatus();
+            try {
+                this.currentBatch.setStatus(Status.OK);
+                if (this.currentBatch.isRetry()) {
+                    incomingBatchService.updateIncomingBatch(transaction, this.currentBatch);
+                } else {
+                    incomingBatchService.insertIncomingBatch(transaction, this.currentBatch);
+                }
+                this.isCurrentBatchRecorded = true;
+            } catch (UniqueKeyException ex) {
+                this.isDuplicateLoadForCurrentBatch = true;
+                throw ex;
+            } finally {
+                this.currentBatch.setStatus(oldStatus);
+            }
+        }
+    }
+
     public boolean beforeBatchStarted(DataContext context) {
         this.currentBatch = null;
         Batch batch = context.getBatch();
         this.currentBatch = null;
+        this.isCurrentBatchRecorded = false;
+        this.isDuplicateLoadForCurrentBatch = false;
         context.remove("currentBatch");
 
         if (parameterService.is(ParameterConstants.DATA_LOADER_ENABLED)
@@ -134,7 +185,9 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
             this.currentBatch = incomingBatch;
             context.put("currentBatch", this.currentBatch);
             
-            if (incomingBatchService.acquireIncomingBatch(incomingBatch)) {
+            boolean okayToProcess = recordInDataTransaction ? incomingBatchService.acquireIncomingBatch(incomingBatch, false)
+                    : incomingBatchService.acquireIncomingBatch(incomingBatch);
+            if (okayToProcess) {
                 return true;
             }
         }
@@ -161,7 +214,15 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
 
         try {
             this.currentBatch.setStatus(Status.OK);
-            if (incomingBatchService.isRecordOkBatchesEnabled()) {
+            if (recordInDataTransaction) {
+                if (isCurrentBatchRecorded) {
+                    queueOkUpdate(this.currentBatch);
+                } else if (this.currentBatch.isRetry()) {
+                    incomingBatchService.updateIncomingBatch(this.currentBatch);
+                } else {
+                    incomingBatchService.insertIncomingBatch(this.currentBatch);
+                }
+            } else if (incomingBatchService.isRecordOkBatchesEnabled()) {
                 incomingBatchService.updateIncomingBatch(this.currentBatch);
             } else if (this.currentBatch.isRetry()) {
                 incomingBatchService.deleteIncomingBatch(this.currentBatch);
@@ -172,6 +233,32 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
         }
     }
 
+    protected synchronized void queueOkUpdate(IncomingBatch batch) {
+        if (batch.isPersistable()) {
+            pendingOkUpdates.add(batch);
+            if (pendingOkUpdates.size() >= MAX_PENDING_OK_UPDATES) {
+                flushOkUpdates();
+            }
+        }
+    }
+
+    /**
+     * Saves the final statistics of batches that were already recorded as OK
+     * in their data transaction. A failure is only logged because the status
+     * of each batch has already been committed.
+     */
+    public synchronized void flushOkUpdates() {
+        if (pendingOkUpdates.size() > 0) {
+            List<IncomingBatch> batches = pendingOkUpdates;
+            pendingOkUpdates = new ArrayList<IncomingBatch>();
+            try {
+                incomingBatchService.updateIncomingBatches(batches);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to save the final statistics for " + batches.size() + " incoming batches", ex);
+            }
+        }
+    }
+
     protected void enableSyncTriggers(DataContext context) {
         try {
             ISqlTransaction transaction = context.findSymmetricTransaction(engine.getTablePrefix());
@@ -193,6 +280,17 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
                 throw ex;
             }
 
+            if (isDuplicateLoadForCurrentBatch) {
+                /*
+                 * another process loaded and recorded this batch while we
+                 * were loading it, so our data was rolled back
+                 */
+                incomingBatchService.refreshIncomingBatch(currentBatch);
+                log.info("Batch {} was loaded by another process.  Rolled back this load of the batch", 
+                        this.currentBatch.getNodeBatchId());
+                return;
+            }
+
             if (context.get(ContextConstants.CONTEXT_BULK_WRITER_TO_USE) != null && context.get(ContextConstants.CONTEXT_BULK_WRITER_TO_USE).equals("bulk")) {
                 log.info("Bulk loading failed for this batch " + context.getBatch().getBatchId() + ", falling back to default loading. (" + ex + ")");
                 log.debug("Bulk loading error.", ex);
@@ -313,16 +411,20 @@ class ManageIncomingBatchListener implements IDataProcessorListener {
                     }
                 }
     
+                /*
+                 * when recording in the data transaction a new batch was
+                 * rolled back with its data, so it needs to be inserted
+                 */
+                boolean isRecorded = (incomingBatchService.isRecordOkBatchesEnabled() && !recordInDataTransaction)
+                        || this.currentBatch.isRetry();
                 if (transaction != null) {
-                    if (incomingBatchService.isRecordOkBatchesEnabled()
-                            || this.currentBatch.isRetry()) {
+                    if (isRecorded) {
                         incomingBatchService.updateIncomingBatch(transaction, this.currentBatch);
                     } else {
                         incomingBatchService.insertIncomingBatch(transaction, this.currentBatch);
                     }
                 } else {
-                    if (incomingBatchService.isRecordOkBatchesEnabled()
-                            || this.currentBatch.isRetry()) {
+                    if (isRecorded) {
                         incomingBatchService.updateIncomingBatch(this.currentBatch);
                     } else {
                         incomingBatchService.insertIncomingBatch(this.currentBatch);
@@ -41,7 +41,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang.time.DateUtils;
 import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.Row;
-import org.jumpmind.db.sql.mapper.StringMapper;
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.db.ISymmetricDialect;
 import org.jumpmind.symmetric.model.Channel;
@@ -76,6 +75,12 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
 
     private Map<CommunicationType, Map<String, NodeCommunication>> lockCache;
 
+    private Map<CommunicationType, Map<String, AtomicInteger>> executingByNode;
+
+    private Map<CommunicationType, Map<String, Long>> waitingSince;
+
+    private Map<CommunicationType, WaitStatistics> waitStatistics;
+
     public NodeCommunicationService(IClusterService clusterService, INodeService nodeService, IParameterService parameterService,
             IConfigurationService configurationService, ISymmetricDialect symmetricDialect) {
         super(parameterService, symmetricDialect);
@@ -94,6 +99,14 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
         for (CommunicationType type : types) {
             lockCache.put(type, new HashMap<String, NodeCommunication>());
         }
+        executingByNode = new HashMap<CommunicationType, Map<String, AtomicInteger>>();
+        waitingSince = new HashMap<CommunicationType, Map<String, Long>>();
+        waitStatistics = new HashMap<CommunicationType, WaitStatistics>();
+        for (CommunicationType type : types) {
+            executingByNode.put(type, new ConcurrentHashMap<String, AtomicInteger>());
+            waitingSince.put(type, new ConcurrentHashMap<String, Long>());
+            waitStatistics.put(type, new WaitStatistics());
+        }
     }
 
     private synchronized final void initialize() {
@@ -230,13 +243,8 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
         if (communicationType == CommunicationType.PUSH && 
                 parameterService.getInt(ParameterConstants.PUSH_THREAD_COUNT_PER_SERVER) < communicationRows.size()) {
             ts = System.currentTimeMillis();
-            List<String> nodeIds = getNodeIdsWithUnsentCount();
-            List<NodeCommunication> filteredNodes = new ArrayList<NodeCommunication>(nodeIds.size());
-            for (NodeCommunication nodeCommunication : communicationRows) {
-                if (nodeIds.contains(nodeCommunication.getNodeId())) {
-                    filteredNodes.add(nodeCommunication);
-                }
-            }
+            List<NodeCommunication> filteredNodes = filterNodesWithUnsentBatches(communicationRows,
+                    getUnsentBatchCounts());
             log.debug("Filtered down to {} nodes to push to in {}ms", filteredNodes.size(), System.currentTimeMillis()-ts);
             communicationRows = filteredNodes;
         }
@@ -245,12 +253,106 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
             communicationRows = removeNodesWithNoBatchesToSend(communicationRows);
         }
 
+        sortNodeCommunications(communicationRows, communicationType);
+        updateWaiting(communicationRows, communicationType);
+
         return communicationRows;
     }
     
-    protected List<String> getNodeIdsWithUnsentCount() {
-        return sqlTemplate.query(getSql("selectNodeIdsWithUnsentBatchsSql"),
-                new StringMapper());        
+    /**
+     * Counts the unsent batches for each node and queue, keyed by node id and then by queue
+     */
+    protected Map<String, Map<String, Integer>> getUnsentBatchCounts() {
+        final Map<String, Channel> channels = configurationService.getChannels(false);
+        final Map<String, Map<String, Integer>> unsentCounts = new HashMap<String, Map<String, Integer>>();
+        sqlTemplate.query(getSql("selectUnsentBatchCountsSql"), new ISqlRowMapper<Object>() {
+            public Object mapRow(Row rs) {
+                Channel channel = channels.get(rs.getString("channel_id"));
+                String nodeId = rs.getString("node_id");
+                String queue = channel != null ? channel.getQueue() : "default";
+                Map<String, Integer> countsByQueue = unsentCounts.get(nodeId);
+                if (countsByQueue == null) {
+                    countsByQueue = new HashMap<String, Integer>();
+                    unsentCounts.put(nodeId, countsByQueue);
+                }
+                Integer count = countsByQueue.get(queue);
+                countsByQueue.put(queue, (count == null ? 0 : count) + rs.getInt("batch_count"));
+                return null;
+            }
+        });
+        return unsentCounts;
+    }
+
+    /**
+     * Keeps the node communications that have unsent batches. Nodes older than
+     * 3.8 only have a single node communication for all queues, so their
+     * unsent batches are counted across every queue.
+     */
+    protected List<NodeCommunication> filterNodesWithUnsentBatches(List<NodeCommunication> communicationRows,
+            Map<String, Map<String, Integer>> unsentCounts) {
+        List<NodeCommunication> filteredNodes = new ArrayList<NodeCommunication>(unsentCounts.size());
+        for (NodeCommunication nodeCommunication : communicationRows) {
+            Map<String, Integer> countsByQueue = unsentCounts.get(nodeCommunication.getNodeId());
+            if (countsByQueue != null) {
+                Integer unsentCount = null;
+                Node node = nodeCommunication.getNode();
+                if (node != null && node.isVersionGreaterThanOrEqualTo(3, 8, 0)) {
+                    unsentCount = countsByQueue.get(nodeCommunication.getQueue());
+                } else {
+                    for (Integer count : countsByQueue.values()) {
+                        unsentCount = (unsentCount == null ? 0 : unsentCount) + count;
+                    }
+                }
+                if (unsentCount != null) {
+                    nodeCommunication.setBatchToSendCount(unsentCount);
+                    filteredNodes.add(nodeCommunication);
+                }
+            }
+        }
+        return filteredNodes;
+    }
+
+    /**
+     * Tracks how long each node communication in the list has been waiting for a thread
+     */
+    protected void updateWaiting(List<NodeCommunication> communicationRows, CommunicationType communicationType) {
+        Map<String, Long> waiting = waitingSince.get(communicationType);
+        Set<String> executing = currentlyExecuting.get(communicationType);
+        Set<String> identifiers = new HashSet<String>(communicationRows.size());
+        long now = System.currentTimeMillis();
+        for (NodeCommunication nodeCommunication : communicationRows) {
+            String identifier = nodeCommunication.getIdentifier();
+            if (!executing.contains(identifier)) {
+                identifiers.add(identifier);
+                if (!waiting.containsKey(identifier)) {
+                    waiting.put(identifier, now);
+                }
+            }
+        }
+        waiting.keySet().retainAll(identifiers);
+    }
+
+    public int getQueueDepth(CommunicationType communicationType) {
+        return waitingSince.get(communicationType).size();
+    }
+
+    public long getMaxWaitMillis(CommunicationType communicationType) {
+        long now = System.currentTimeMillis();
+        long maxWaitMillis = 0;
+        for (Long since : waitingSince.get(communicationType).values()) {
+            maxWaitMillis = Math.max(maxWaitMillis, now - since);
+        }
+        return maxWaitMillis;
+    }
+
+    public long getAverageWaitMillis(CommunicationType communicationType) {
+        return waitStatistics.get(communicationType).getAverageWaitMillis();
+    }
+
+    public boolean shouldYield(NodeCommunication nodeCommunication, long startTime) {
+        long timeSliceMs = parameterService.getLong(ParameterConstants.NODE_COMMUNICATION_TIME_SLICE_MS, 60000);
+        return timeSliceMs > 0 && System.currentTimeMillis() - startTime >= timeSliceMs
+                && getQueueDepth(nodeCommunication.getCommunicationType()) > 0;
     }
 
     protected List<NodeCommunication> filterForChannelThreading(List<Node> nodesToCommunicateWith) {
@@ -500,10 +602,19 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
             final INodeCommunicationExecutor executor) {
         Date now = new Date();
         final Set<String> executing = this.currentlyExecuting.get(nodeCommunication.getCommunicationType());
+        final AtomicInteger executingForNode = getExecutingForNode(nodeCommunication);
+        int maxThreadsPerNode = parameterService.getInt(ParameterConstants.NODE_COMMUNICATION_MAX_THREADS_PER_NODE, 0);
         try {
-            boolean locked = !executing.contains(nodeCommunication.getIdentifier()) && lock(nodeCommunication, now);
+            boolean locked = !executing.contains(nodeCommunication.getIdentifier())
+                    && (maxThreadsPerNode <= 0 || executingForNode.get() < maxThreadsPerNode)
+                    && lock(nodeCommunication, now);
             if (locked) {
                 executing.add(nodeCommunication.getIdentifier());
+                executingForNode.incrementAndGet();
+                Long waitStart = waitingSince.get(nodeCommunication.getCommunicationType()).remove(nodeCommunication.getIdentifier());
+                if (waitStart != null) {
+                    waitStatistics.get(nodeCommunication.getCommunicationType()).add(now.getTime() - waitStart);
+                }
                 nodeCommunication.setLastLockTime(now);
                 nodeCommunication.setLockingServerId(clusterService.getServerId());
                 final RemoteNodeStatus status = statuses.add(nodeCommunication.getNodeId(), nodeCommunication.getQueue());
@@ -521,6 +632,7 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
                         } finally {
                             status.setComplete(true);
                             executing.remove(nodeCommunication.getIdentifier());
+                            executingForNode.decrementAndGet();
                             unlock(nodeCommunication, failed, ts);
                         }
                     }
@@ -538,12 +650,29 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
         } catch (RuntimeException ex) {
             log.error(String.format("Failed to execute %s for node %s and channel thread %s", nodeCommunication.getCommunicationType().name(),
                     nodeCommunication.getNodeId(), nodeCommunication.getQueue()), ex);
-            executing.remove(nodeCommunication.getIdentifier());
+            if (executing.remove(nodeCommunication.getIdentifier())) {
+                executingForNode.decrementAndGet();
+            }
             unlock(nodeCommunication, true, System.currentTimeMillis());
             return false;
         }
     }
 
+    protected AtomicInteger getExecutingForNode(NodeCommunication nodeCommunication) {
+        Map<String, AtomicInteger> executingCounts = executingByNode.get(nodeCommunication.getCommunicationType());
+        AtomicInteger count = executingCounts.get(nodeCommunication.getNodeId());
+        if (count == null) {
+            synchronized (executingCounts) {
+                count = executingCounts.get(nodeCommunication.getNodeId());
+                if (count == null) {
+                    count = new AtomicInteger();
+                    executingCounts.put(nodeCommunication.getNodeId(), count);
+                }
+            }
+        }
+        return count;
+    }
+
     protected boolean lock(NodeCommunication nodeCommunication, Date lockTime) {
         Date lockTimeout = getLockTimeoutDate(nodeCommunication.getCommunicationType());
         if (clusterService.isClusteringEnabled()) {
@@ -678,39 +807,80 @@ public class NodeCommunicationService extends AbstractService implements INodeCo
         }
     }
 
-    protected void sortNodeCommunications(List<NodeCommunication> list, final CommunicationType communicationType) {            
-        final Date FAR_PAST_DATE = new Date(0);
-        final Date FAR_FUTURE_DATE = new Date(Long.MAX_VALUE);
+    /**
+     * Orders node communications by node priority, then by a weight that grows with the time since the
+     * node last communicated, its backlog of batches and the priority of the channels in its queue, so that
+     * nodes with a large backlog are favored without starving nodes that are caught up. Nodes that keep
+     * failing are weighted down.
+     */
+    protected void sortNodeCommunications(List<NodeCommunication> list, final CommunicationType communicationType) {
+        final long now = System.currentTimeMillis();
+        final Map<String, Double> queueWeights = getQueueWeights();
+        final Map<String, Double> weights = new HashMap<String, Double>(list.size());
+        for (NodeCommunication nodeCommunication : list) {
+            weights.put(nodeCommunication.getIdentifier(), getSchedulingWeight(nodeCommunication, now, queueWeights));
+        }
 
         Collections.sort(list, new Comparator<NodeCommunication>() {
             public int compare(NodeCommunication o1, NodeCommunication o2) {
-                // 1. Node priority
-                int compareTo = Integer.compare(o1.getNodePriority(), o2.getNodePriority());
+                int compareTo = Integer.compare(o2.getNodePriority(), o1.getNodePriority());
                 if (compareTo != 0) {
                     return compareTo;
                 }
+                return Double.compare(weights.get(o2.getIdentifier()), weights.get(o1.getIdentifier()));
+            }
+        });
+    }
 
-                // 2. If it's a pull, look at batch_to_send_count.
-                if (CommunicationType.isPullType(communicationType)) {
-                    compareTo = Long.compare(o1.getBatchToSendCount(), o2.getBatchToSendCount());
-                    if (compareTo != 0) {
-                        return compareTo;
-                    }
-                }
-
-                // 3. last_lock_time.                
-                Date o1LockTime = o1.getLastLockTime() != null ? o1.getLastLockTime() : FAR_PAST_DATE;
-                Date o2LockTime = o2.getLastLockTime() != null ? o2.getLastLockTime() : FAR_FUTURE_DATE;
-
-                compareTo = o1LockTime.compareTo(o2LockTime);
-                if (compareTo != 0) {
-                    return compareTo;
-                }
+    protected double getSchedulingWeight(NodeCommunication nodeCommunication, long now, Map<String, Double> queueWeights) {
+        Date lastLockTime = nodeCommunication.getLastLockTime();
+        double waitSeconds = lastLockTime != null ? Math.max(1, (now - lastLockTime.getTime()) / 1000d) : now / 1000d;
+        double weight = waitSeconds * (1 + Math.log10(1 + nodeCommunication.getBatchToSendCount()));
+        Double queueWeight = queueWeights.get(nodeCommunication.getQueue());
+        if (queueWeight != null) {
+            weight *= queueWeight;
+        }
+        return weight / (1 + nodeCommunication.getFailCount());
+    }
 
-                return compareTo;
+    /**
+     * Weights each queue from 1 to 2 by the lowest processing order of its channels, with the queue
+     * holding the first channel to process weighted highest
+     */
+    protected Map<String, Double> getQueueWeights() {
+        List<Channel> channels = new ArrayList<Channel>(configurationService.getChannels(false).values());
+        Collections.sort(channels, new Comparator<Channel>() {
+            public int compare(Channel o1, Channel o2) {
+                return Integer.compare(o1.getProcessingOrder(), o2.getProcessingOrder());
             }
         });
+        List<String> queues = new ArrayList<String>();
+        for (Channel channel : channels) {
+            if (!queues.contains(channel.getQueue())) {
+                queues.add(channel.getQueue());
+            }
+        }
+        Map<String, Double> queueWeights = new HashMap<String, Double>(queues.size());
+        for (int i = 0; i < queues.size(); i++) {
+            queueWeights.put(queues.get(i), 2 - (double) i / queues.size());
+        }
+        return queueWeights;
+    }
+
+    static class WaitStatistics {
+
+        private long totalWaitMillis;
 
+        private long count;
+
+        synchronized void add(long waitMillis) {
+            totalWaitMillis += waitMillis;
+            count++;
+        }
+
+        synchronized long getAverageWaitMillis() {
+            return count > 0 ? totalWaitMillis / count : 0;
+        }
     }
     
     @Override
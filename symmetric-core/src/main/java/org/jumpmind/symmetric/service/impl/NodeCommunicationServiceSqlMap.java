@@ -34,7 +34,8 @@ public class NodeCommunicationServiceSqlMap extends AbstractSqlMap {
         
         putSql("clearLocksOnRestartSql", "update $(node_communication) set lock_time=null where locking_server_id=? and lock_time is not null");
         
-        putSql("selectNodeIdsWithUnsentBatchsSql", "select distinct(node_id) from $(outgoing_batch) where status <> 'OK'");
+        putSql("selectUnsentBatchCountsSql",
+                "select node_id, channel_id, count(*) as batch_count from $(outgoing_batch) where status <> 'OK' group by node_id, channel_id");
 
         putSql("selectNodeCommunicationSql",
                 "select * from $(node_communication) where communication_type=? order by node_priority DESC,last_lock_time");
@@ -164,8 +164,46 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
     }
 
     public void updateOutgoingBatches(List<OutgoingBatch> outgoingBatches) {
-        for (OutgoingBatch batch : outgoingBatches) {
-            updateOutgoingBatch(batch);
+        if (outgoingBatches.size() == 1) {
+            updateOutgoingBatch(outgoingBatches.get(0));
+        } else if (outgoingBatches.size() > 1) {
+            ISqlTransaction transaction = null;
+            try {
+                transaction = sqlTemplate.startSqlTransaction();
+                updateOutgoingBatches(transaction, outgoingBatches);
+                transaction.commit();
+            } catch (Error ex) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                throw ex;
+            } catch (RuntimeException ex) {
+                if (transaction != null) {
+                    transaction.rollback();
+                }
+                throw ex;
+            } finally {
+                close(transaction);
+            }
+        }
+    }
+
+    public void updateOutgoingBatches(ISqlTransaction transaction, List<OutgoingBatch> outgoingBatches) {
+        if (outgoingBatches.size() > 0) {
+            boolean inBatchMode = transaction.isInBatchMode();
+            try {
+                transaction.setInBatchMode(true);
+                transaction.prepare(getSql("updateOutgoingBatchSql"));
+                int[] types = getUpdateOutgoingBatchTypes();
+                for (OutgoingBatch outgoingBatch : outgoingBatches) {
+                    outgoingBatch.setLastUpdatedTime(new Date());
+                    outgoingBatch.setLastUpdatedHostName(clusterService.getServerId());
+                    transaction.addRow(outgoingBatch, getUpdateOutgoingBatchArgs(outgoingBatch), types);
+                }
+                transaction.flush();
+            } finally {
+                transaction.setInBatchMode(inBatchMode);
+            }
         }
     }
 
@@ -203,32 +241,39 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
     public void updateOutgoingBatch(ISqlTransaction transaction, OutgoingBatch outgoingBatch) {
         outgoingBatch.setLastUpdatedTime(new Date());
         outgoingBatch.setLastUpdatedHostName(clusterService.getServerId());
-        transaction.prepareAndExecute(getSql("updateOutgoingBatchSql"),
-                new Object[] { outgoingBatch.getStatus().name(), outgoingBatch.getLoadId(), outgoingBatch.isExtractJobFlag() ? 1 : 0,
-                        outgoingBatch.isLoadFlag() ? 1 : 0, outgoingBatch.isErrorFlag() ? 1 : 0, outgoingBatch.getByteCount(),
-                        outgoingBatch.getExtractCount(), outgoingBatch.getSentCount(), outgoingBatch.getLoadCount(),
-                        outgoingBatch.getDataRowCount(), outgoingBatch.getReloadRowCount(), outgoingBatch.getDataInsertRowCount(),
-                        outgoingBatch.getDataUpdateRowCount(), outgoingBatch.getDataDeleteRowCount(), outgoingBatch.getOtherRowCount(),
-                        outgoingBatch.getIgnoreCount(), outgoingBatch.getRouterMillis(), outgoingBatch.getNetworkMillis(),
-                        outgoingBatch.getFilterMillis(), outgoingBatch.getLoadMillis(), outgoingBatch.getExtractMillis(),
-                        outgoingBatch.getExtractStartTime(), outgoingBatch.getTransferStartTime(), outgoingBatch.getLoadStartTime(),
-                        outgoingBatch.getSqlState(), outgoingBatch.getSqlCode(),
-                        FormatUtils.abbreviateForLogging(outgoingBatch.getSqlMessage()), outgoingBatch.getFailedDataId(),
-                        outgoingBatch.getLastUpdatedHostName(), outgoingBatch.getSummary(), outgoingBatch.getLoadRowCount(),
-                        outgoingBatch.getLoadInsertRowCount(), outgoingBatch.getLoadUpdateRowCount(), outgoingBatch.getLoadDeleteRowCount(),
-                        outgoingBatch.getFallbackInsertCount(), outgoingBatch.getFallbackUpdateCount(), outgoingBatch.getIgnoreRowCount(),
-                        outgoingBatch.getMissingDeleteCount(), outgoingBatch.getSkipCount(), outgoingBatch.getExtractRowCount(),
-                        outgoingBatch.getExtractInsertRowCount(), outgoingBatch.getExtractUpdateRowCount(),
-                        outgoingBatch.getExtractDeleteRowCount(), outgoingBatch.getTransformExtractMillis(), outgoingBatch.getTransformLoadMillis(),
-                        outgoingBatch.getBatchId(), outgoingBatch.getNodeId() },
-                new int[] { Types.CHAR, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.NUMERIC,
-                        Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
-                        symmetricDialect.getSqlTypeForIds(), Types.VARCHAR });
+        transaction.prepareAndExecute(getSql("updateOutgoingBatchSql"), getUpdateOutgoingBatchArgs(outgoingBatch),
+                getUpdateOutgoingBatchTypes());
+    }
+
+    protected Object[] getUpdateOutgoingBatchArgs(OutgoingBatch outgoingBatch) {
+        return new Object[] { outgoingBatch.getStatus().name(), outgoingBatch.getLoadId(), outgoingBatch.isExtractJobFlag() ? 1 : 0,
+                outgoingBatch.isLoadFlag() ? 1 : 0, outgoingBatch.isErrorFlag() ? 1 : 0, outgoingBatch.getByteCount(),
+                outgoingBatch.getExtractCount(), outgoingBatch.getSentCount(), outgoingBatch.getLoadCount(),
+                outgoingBatch.getDataRowCount(), outgoingBatch.getReloadRowCount(), outgoingBatch.getDataInsertRowCount(),
+                outgoingBatch.getDataUpdateRowCount(), outgoingBatch.getDataDeleteRowCount(), outgoingBatch.getOtherRowCount(),
+                outgoingBatch.getIgnoreCount(), outgoingBatch.getRouterMillis(), outgoingBatch.getNetworkMillis(),
+                outgoingBatch.getFilterMillis(), outgoingBatch.getLoadMillis(), outgoingBatch.getExtractMillis(),
+                outgoingBatch.getExtractStartTime(), outgoingBatch.getTransferStartTime(), outgoingBatch.getLoadStartTime(),
+                outgoingBatch.getSqlState(), outgoingBatch.getSqlCode(),
+                FormatUtils.abbreviateForLogging(outgoingBatch.getSqlMessage()), outgoingBatch.getFailedDataId(),
+                outgoingBatch.getLastUpdatedHostName(), outgoingBatch.getSummary(), outgoingBatch.getLoadRowCount(),
+                outgoingBatch.getLoadInsertRowCount(), outgoingBatch.getLoadUpdateRowCount(), outgoingBatch.getLoadDeleteRowCount(),
+                outgoingBatch.getFallbackInsertCount(), outgoingBatch.getFallbackUpdateCount(), outgoingBatch.getIgnoreRowCount(),
+                outgoingBatch.getMissingDeleteCount(), outgoingBatch.getSkipCount(), outgoingBatch.getExtractRowCount(),
+                outgoingBatch.getExtractInsertRowCount(), outgoingBatch.getExtractUpdateRowCount(),
+                outgoingBatch.getExtractDeleteRowCount(), outgoingBatch.getTransformExtractMillis(), outgoingBatch.getTransformLoadMillis(),
+                outgoingBatch.getBatchId(), outgoingBatch.getNodeId() };
+    }
+
+    protected int[] getUpdateOutgoingBatchTypes() {
+        return new int[] { Types.CHAR, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.TIMESTAMP, Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.NUMERIC,
+                Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                Types.NUMERIC, Types.NUMERIC, Types.NUMERIC,
+                symmetricDialect.getSqlTypeForIds(), Types.VARCHAR };
     }
 
     public void updateOutgoingBatchStatus(ISqlTransaction transaction, Status status, String nodeId, long startBatchId, long endBatchId) {
@@ -549,6 +594,14 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
         return batches;
     }
 
+    public OutgoingBatches getOutgoingBatchRange(String nodeId, long startBatchId, long endBatchId) {
+        OutgoingBatches batches = new OutgoingBatches();
+        batches.setBatches(sqlTemplate.query(getSql("selectOutgoingBatchPrefixSql", "selectOutgoingBatchNodeRangeSql"),
+                new OutgoingBatchMapper(true), new Object[] { nodeId, startBatchId, endBatchId },
+                new int[] { Types.VARCHAR, symmetricDialect.getSqlTypeForIds(), symmetricDialect.getSqlTypeForIds() }));
+        return batches;
+    }
+
     public OutgoingBatches getOutgoingBatchByLoad(long loadId) {
         OutgoingBatches batches = new OutgoingBatches();
         batches.setBatches(sqlTemplate.query(getSql("selectOutgoingBatchPrefixSql", "selectOutgoingBatchLoadSql"),
@@ -1019,6 +1072,20 @@ public class OutgoingBatchService extends AbstractService implements IOutgoingBa
         return loads.values();
     }
 
+    public List<OutgoingBatch> getLoadedBatchStats(String channelId, Date loadedSince) {
+        return sqlTemplateDirty.query(getSql("selectLoadedBatchStatsSql"), new ISqlRowMapper<OutgoingBatch>() {
+            public OutgoingBatch mapRow(Row rs) {
+                OutgoingBatch batch = new OutgoingBatch();
+                batch.setNodeId(rs.getString("node_id"));
+                batch.setChannelId(channelId);
+                batch.setDataRowCount(rs.getLong("data_row_count"));
+                batch.setByteCount(rs.getLong("byte_count"));
+                batch.setLoadMillis(rs.getLong("load_millis"));
+                return batch;
+            }
+        }, channelId, loadedSince);
+    }
+
     @Override
     public List<Long> getAllBatches() {
         return sqlTemplateDirty.query(getSql("getAllBatchesSql"), new LongMapper());
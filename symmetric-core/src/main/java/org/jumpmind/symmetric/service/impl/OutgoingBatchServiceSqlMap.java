@@ -96,6 +96,9 @@ public class OutgoingBatchServiceSqlMap extends AbstractSqlMap {
         putSql("selectOutgoingBatchRangeSql",
                 "where batch_id between ? and ? order by batch_id   ");
 
+        putSql("selectOutgoingBatchNodeRangeSql",
+                "where node_id = ? and batch_id between ? and ? order by batch_id   ");
+
         putSql("selectOutgoingBatchLoadSql",
                 "where load_id = ? order by batch_id   ");
 
@@ -212,6 +215,12 @@ public class OutgoingBatchServiceSqlMap extends AbstractSqlMap {
                 + "where r.completed = 0 and ob.status = 'OK' and ob.reload_row_count > 0 "
                 + "group by r.load_id");
         
+        putSql("selectLoadedBatchStatsSql",
+                "select node_id, sum(data_row_count) as data_row_count, sum(byte_count) as byte_count, "
+                + "sum(load_millis) as load_millis from $(outgoing_batch) "
+                + "where channel_id = ? and status = 'OK' and data_row_count > 0 and last_update_time >= ? "
+                + "group by node_id");
+
         putSql("getLoadSummaryUnprocessedSql", 
                 "select r.source_node_id, r.target_node_id, "
                 + "   count(TRIGGER_ID) as table_count, max(TRIGGER_ID) as trigger_id, "
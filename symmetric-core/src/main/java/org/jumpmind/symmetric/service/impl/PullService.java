@@ -171,7 +171,7 @@ public class PullService extends AbstractOfflineDetectorService implements IPull
                 cumulativeBatchesProcessed = status.getBatchesProcessed();
                 status.resetTableSummary();
             } while ((immediatePullIfDataFound || nodeService.isDataLoadStarted()) && !status.failed()
-                    && lastBatchesProcessed > 0);           
+                    && lastBatchesProcessed > 0 && !nodeCommunicationService.shouldYield(nodeCommunication, begin));           
         } else {
             log.warn("Cannot pull node '{}' in the group '{}'.  The sync url is blank",
                     node.getNodeId(), node.getNodeGroupId());
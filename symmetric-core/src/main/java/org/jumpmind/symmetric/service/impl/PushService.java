@@ -24,6 +24,9 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.symmetric.common.ParameterConstants;
@@ -55,6 +58,7 @@ import org.jumpmind.symmetric.statistic.IStatisticManager;
 import org.jumpmind.symmetric.transport.IOutgoingWithResponseTransport;
 import org.jumpmind.symmetric.transport.ITransportManager;
 import org.jumpmind.symmetric.web.WebConstants;
+import org.jumpmind.util.CustomizableThreadFactory;
 
 /**
  * @see IPushService
@@ -80,6 +84,8 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
 
     private Map<String, Date> startTimesOfNodesBeingPushedTo = new HashMap<String, Date>();
 
+    private ExecutorService pipelineExecutor;
+
     public PushService(IParameterService parameterService, ISymmetricDialect symmetricDialect,
             IDataExtractorService dataExtractorService, IAcknowledgeService acknowledgeService,
             ITransportManager transportManager, INodeService nodeService,
@@ -155,6 +161,7 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
                 long cumulativeBatchesProcessed = 0;
                 long cumulativeDataProcessed = 0;
                 long cumulativeReloadBatchesProcessed = 0;
+                long begin = System.currentTimeMillis();
                 do {
                     if (lastBatchesProcessed > 0) {
                         if (lastReloadBatchesProcessed > 0) {
@@ -180,7 +187,8 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
                     cumulativeDataProcessed = status.getDataProcessed();
                     cumulativeBatchesProcessed = status.getBatchesProcessed();
                     status.resetTableSummary();
-                } while (((immediatePushIfDataFound && lastBatchesProcessed > 0) || lastReloadBatchesProcessed > 0) && !status.failed());
+                } while (((immediatePushIfDataFound && lastBatchesProcessed > 0) || lastReloadBatchesProcessed > 0) && !status.failed()
+                        && !nodeCommunicationService.shouldYield(nodeCommunication, begin));
             } finally {
                 startTimesOfNodesBeingPushedTo.remove(node.getNodeId());
             }
@@ -208,8 +216,13 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
                 
                 log.info("Push data sent to {}", remote);
                 
-                List<BatchAck> batchAcks = readAcks(extractedBatches, transport, transportManager, acknowledgeService, dataExtractorService);
-                status.updateOutgoingStatus(extractedBatches, batchAcks);
+                Future<List<OutgoingBatch>> extractAhead = extractAhead(identity, remote, status.getQueue(), extractedBatches);
+                try {
+                    List<BatchAck> batchAcks = readAcks(extractedBatches, transport, transportManager, acknowledgeService, dataExtractorService);
+                    status.updateOutgoingStatus(extractedBatches, batchAcks);
+                } finally {
+                    awaitExtractAhead(extractAhead, remote);
+                }
                 statisticManager.addJobStats(remote.getNodeId(), 1, "Push",
                         processInfo.getStartTime().getTime(), processInfo.getLastStatusChangeTime().getTime(), status.getDataProcessed());
             }
@@ -234,4 +247,49 @@ public class PushService extends AbstractOfflineDetectorService implements IPush
         }
     }
 
+    /**
+     * Extracts the next batches for the node into staging while the target loads the batches that were
+     * just sent, so the next push does not have to wait on extraction.
+     */
+    protected Future<List<OutgoingBatch>> extractAhead(Node identity, Node remote, String queue,
+            List<OutgoingBatch> batchesInFlight) {
+        int pipelineBatches = parameterService.getInt(ParameterConstants.PUSH_PIPELINE_BATCHES, 0);
+        if (pipelineBatches > 0 && parameterService.is(ParameterConstants.STREAM_TO_FILE_ENABLED)) {
+            ProcessInfo extractInfo = new ProcessInfo(new ProcessInfoKey(identity.getNodeId(), queue,
+                    remote.getNodeId(), ProcessType.PUSH_JOB_EXTRACT));
+            return getPipelineExecutor().submit(() -> dataExtractorService.extractAhead(extractInfo, remote, queue,
+                    batchesInFlight, pipelineBatches));
+        }
+        return null;
+    }
+
+    protected void awaitExtractAhead(Future<List<OutgoingBatch>> extractAhead, Node remote) {
+        if (extractAhead != null) {
+            try {
+                List<OutgoingBatch> batches = extractAhead.get();
+                log.debug("Extracted {} batches ahead for {}", batches.size(), remote);
+            } catch (Exception e) {
+                log.warn("Failed to extract batches ahead for " + remote + ".  They will be extracted on the next push", e);
+            }
+        }
+    }
+
+    protected synchronized ExecutorService getPipelineExecutor() {
+        if (pipelineExecutor == null) {
+            pipelineExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory(String.format("%s-push-pipeline",
+                    parameterService.getEngineName().toLowerCase())));
+        }
+        return pipelineExecutor;
+    }
+
+    public synchronized void stop() {
+        if (pipelineExecutor != null) {
+            try {
+                pipelineExecutor.shutdownNow();
+            } finally {
+                pipelineExecutor = null;
+            }
+        }
+    }
+
 }
@@ -74,6 +74,7 @@ import org.jumpmind.symmetric.model.Trigger;
 import org.jumpmind.symmetric.model.TriggerHistory;
 import org.jumpmind.symmetric.model.TriggerRouter;
 import org.jumpmind.symmetric.route.AbstractFileParsingRouter;
+import org.jumpmind.symmetric.route.AdaptiveBatchAlgorithm;
 import org.jumpmind.symmetric.route.AuditTableDataRouter;
 import org.jumpmind.symmetric.route.BshDataRouter;
 import org.jumpmind.symmetric.route.CSVRouter;
@@ -145,6 +146,7 @@ public class RouterService extends AbstractService implements IRouterService {
         extensionService.addExtensionPoint(DefaultBatchAlgorithm.NAME, new DefaultBatchAlgorithm());
         extensionService.addExtensionPoint(NonTransactionalBatchAlgorithm.NAME, new NonTransactionalBatchAlgorithm());
         extensionService.addExtensionPoint(TransactionalBatchAlgorithm.NAME, new TransactionalBatchAlgorithm());
+        extensionService.addExtensionPoint(AdaptiveBatchAlgorithm.NAME, new AdaptiveBatchAlgorithm());
 
         extensionService.addExtensionPoint(ConfigurationChangedDataRouter.ROUTER_TYPE, new ConfigurationChangedDataRouter(engine));
         extensionService.addExtensionPoint("bsh", new BshDataRouter(engine));
@@ -24,6 +24,7 @@ import java.sql.Types;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.jumpmind.db.sql.ISqlRowMapper;
 import org.jumpmind.db.sql.ISqlTransaction;
@@ -37,9 +38,14 @@ import org.jumpmind.symmetric.db.ISymmetricDialect;
 import org.jumpmind.symmetric.model.Sequence;
 import org.jumpmind.symmetric.service.IParameterService;
 import org.jumpmind.symmetric.service.ISequenceService;
+import org.jumpmind.util.AppUtils;
 
 public class SequenceService extends AbstractService implements ISequenceService {
 
+    private static final long MAX_BACKOFF_MS = 50;
+
+    private Random random = new Random();
+
     private Map<String, Sequence> sequenceDefinitionCache = new HashMap<String, Sequence>();
     
     private Map<String, CachedRange> sequenceCache = new HashMap<String, CachedRange>();
@@ -86,7 +92,7 @@ public class SequenceService extends AbstractService implements ISequenceService
     }
 
     public synchronized long nextVal(String name) {
-        if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED) && getSequenceDefinition(name).getCacheSize() > 0) {
+        if (getSequenceDefinition(name).getCacheSize() > 0) {
             return nextValFromCache(null, name);
         }
         return nextValFromDatabase(name);
@@ -101,7 +107,7 @@ public class SequenceService extends AbstractService implements ISequenceService
                 }
             });
         }
-        if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED) && getSequenceDefinition(transaction, name).getCacheSize() > 0) {
+        if (getSequenceDefinition(transaction, name).getCacheSize() > 0) {
             return nextValFromCache(transaction, name);
         }
         return nextValFromDatabase(transaction, name);
@@ -111,7 +117,7 @@ public class SequenceService extends AbstractService implements ISequenceService
         CachedRange range = sequenceCache.get(name);
         if (range != null) {
             long currentValue = range.getCurrentValue();
-            if (currentValue < range.getEndValue()) {
+            if (currentValue < range.getEndValue() && isCachedRangeCurrent(transaction, name, range)) {
                 range.setCurrentValue(++currentValue);
                 return currentValue;
             } else {
@@ -120,6 +126,22 @@ public class SequenceService extends AbstractService implements ISequenceService
         }
         return nextValFromDatabase(transaction, name);
     }
+
+    /*
+     * In a cluster, each server leases its own block of values, but handing out
+     * values from a block after another server has leased a newer one would
+     * let ids go backwards, which reorders batches for a node. A plain read
+     * of the current value, without the update and its row lock, tells
+     * whether this server still holds the latest block.
+     */
+    protected boolean isCachedRangeCurrent(ISqlTransaction transaction, String name, CachedRange range) {
+        if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED)) {
+            return true;
+        }
+        long currentValue = transaction != null ? transaction.queryForLong(getSql("getCurrentValueSql"), name)
+                : sqlTemplate.queryForLong(getSql("getCurrentValueSql"), name);
+        return currentValue == range.getEndValue();
+    }
     
     protected long nextValFromDatabase(final String name) {
         return new DoTransaction<Long>() {
@@ -136,11 +158,13 @@ public class SequenceService extends AbstractService implements ISequenceService
             long sequenceTimeoutInMs = parameterService.getLong(
                     ParameterConstants.SEQUENCE_TIMEOUT_MS, 5000);
             long ts = System.currentTimeMillis();
+            int attempts = 0;
             do {
                 long nextVal = tryToGetNextVal(transaction, name);
                 if (nextVal > 0) {
                     return nextVal;
                 }
+                backoff(++attempts);
             } while (System.currentTimeMillis() - sequenceTimeoutInMs < ts);
 
             throw new IllegalStateException(String.format(
@@ -149,6 +173,15 @@ public class SequenceService extends AbstractService implements ISequenceService
         }
     }
 
+    /*
+     * Another server updated the sequence first, so wait a random, growing
+     * amount of time to keep servers from retrying in lock step.
+     */
+    protected void backoff(int attempts) {
+        long maxSleepMs = Math.min(MAX_BACKOFF_MS, 1l << Math.min(attempts, 6));
+        AppUtils.sleep(1 + (long) (random.nextDouble() * maxSleepMs));
+    }
+
     protected long tryToGetNextVal(ISqlTransaction transaction, String name) {
         long currVal = currVal(transaction, name);
         Sequence sequence = getSequenceDefinition(transaction, name);
@@ -172,7 +205,7 @@ public class SequenceService extends AbstractService implements ISequenceService
         }
 
         CachedRange range = null;
-        if (!parameterService.is(ParameterConstants.CLUSTER_LOCKING_ENABLED) && sequence.getCacheSize() > 0) {
+        if (sequence.getCacheSize() > 0) {
             long endVal = nextVal + (sequence.getIncrementBy() * (sequence.getCacheSize() - 1));
             range = new CachedRange(nextVal, endVal);
             nextVal = endVal;
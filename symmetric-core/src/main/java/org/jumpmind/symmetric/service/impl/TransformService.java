@@ -98,7 +98,7 @@ public class TransformService extends AbstractService implements ITransformServi
         addColumnTransform(ParameterColumnTransform.NAME, new ParameterColumnTransform(parameterService));
         addColumnTransform(VariableColumnTransform.NAME, new VariableColumnTransform());
         addColumnTransform(LookupColumnTransform.NAME, new LookupColumnTransform());
-        addColumnTransform(BshColumnTransform.NAME, new BshColumnTransform(parameterService));
+        addColumnTransform(BshColumnTransform.NAME, new BshColumnTransform(parameterService, extensionService));
         addColumnTransform(AdditiveColumnTransform.NAME, new AdditiveColumnTransform());
         addColumnTransform(JavaColumnTransform.NAME, new JavaColumnTransform(extensionService));
         addColumnTransform(ConstantColumnTransform.NAME, new ConstantColumnTransform());
@@ -1209,8 +1209,10 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
                             triggersForCurrentNode.clear();
                         }
 
+                        Set<String> cachedSchemas = cacheTablesForTriggers(triggersForCurrentNode);
+
                         List<TriggerHistory> activeTriggerHistories = getActiveTriggerHistories();
-                        inactivateTriggers(triggersForCurrentNode, sqlBuffer, activeTriggerHistories);
+                        inactivateTriggers(triggersForCurrentNode, sqlBuffer, activeTriggerHistories, cachedSchemas);
 
                         updateOrCreateDatabaseTriggers(triggersForCurrentNode, sqlBuffer, force,
                                 true, activeTriggerHistories, true);
@@ -1272,8 +1274,70 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
         return numThreads;        
     }
 
+    /**
+     * Reads the table definitions for every catalog and schema that has at least
+     * {@link ParameterConstants#SYNC_TRIGGERS_BULK_METADATA_MIN_TRIGGERS}
+     * triggers into the platform's table cache with one bulk read per schema.
+     * 
+     * @return the keys, as returned by {@link #getSchemaKey(Trigger)}, of the
+     *         schemas that were read into the table cache
+     */
+    protected Set<String> cacheTablesForTriggers(List<Trigger> triggers) {
+        Set<String> cachedSchemas = new HashSet<String>();
+        int minTriggers = parameterService.getInt(ParameterConstants.SYNC_TRIGGERS_BULK_METADATA_MIN_TRIGGERS, 0);
+        if (minTriggers <= 0) {
+            return cachedSchemas;
+        }
+
+        Map<String, String[]> schemas = new HashMap<String, String[]>();
+        Map<String, Integer> triggerCounts = new HashMap<String, Integer>();
+        for (Trigger trigger : triggers) {
+            if (trigger.isSourceWildCarded()) {
+                continue;
+            }
+            String key = getSchemaKey(trigger);
+            Integer count = triggerCounts.get(key);
+            triggerCounts.put(key, count == null ? 1 : count + 1);
+            schemas.put(key, new String[] { getSourceCatalogName(trigger), getSourceSchemaName(trigger) });
+        }
+
+        for (Map.Entry<String, Integer> entry : triggerCounts.entrySet()) {
+            if (entry.getValue() >= minTriggers) {
+                String[] names = schemas.get(entry.getKey());
+                try {
+                    long ts = System.currentTimeMillis();
+                    int count = platform.cacheTablesFromDatabase(names[0], names[1]);
+                    log.info("Read {} tables for {} triggers in {}ms", count, entry.getValue(),
+                            System.currentTimeMillis() - ts);
+                    cachedSchemas.add(entry.getKey());
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to read all tables at once.  Tables will be read one at a time", ex);
+                }
+            }
+        }
+        return cachedSchemas;
+    }
+
+    protected String getSourceCatalogName(Trigger trigger) {
+        return isBlank(trigger.getSourceCatalogName()) ? platform.getDefaultCatalog() : trigger.getSourceCatalogName();
+    }
+
+    protected String getSourceSchemaName(Trigger trigger) {
+        return isBlank(trigger.getSourceSchemaName()) ? platform.getDefaultSchema() : trigger.getSourceSchemaName();
+    }
+
+    protected String getSchemaKey(Trigger trigger) {
+        return Table.getFullyQualifiedTablePrefix(getSourceCatalogName(trigger), getSourceSchemaName(trigger));
+    }
+
+    /**
+     * The tables of a trigger are only read from the table cache when its
+     * schema was just read with {@link #cacheTablesForTriggers(List)}.  The
+     * tables of every other trigger, including wildcard triggers, are read
+     * again from the database so dropped tables and changed columns are found.
+     */
     protected void inactivateTriggers(final List<Trigger> triggersThatShouldBeActive,
-            final StringBuilder sqlBuffer, List<TriggerHistory> activeTriggerHistories) {
+            final StringBuilder sqlBuffer, List<TriggerHistory> activeTriggerHistories, final Set<String> cachedSchemas) {
         final boolean ignoreCase = this.parameterService.is(ParameterConstants.DB_METADATA_IGNORE_CASE);
         final Map<String, Set<Table>> tablesByTriggerId = new HashMap<String, Set<Table>>();
         int numThreads = getNumberOfThreadsToUseForSyncTriggers();
@@ -1287,7 +1351,9 @@ public class TriggerRouterService extends AbstractService implements ITriggerRou
                     Set<Table> tables = tablesByTriggerId.get(history.getTriggerId());
                     Trigger trigger = getTriggerFromList(history.getTriggerId(), triggersThatShouldBeActive);
                     if (tables == null && trigger != null) {
-                        tables = getTablesForTrigger(trigger, triggersThatShouldBeActive, false);
+                        boolean useTableCache = !trigger.isSourceWildCarded()
+                                && cachedSchemas.contains(getSchemaKey(trigger));
+                        tables = getTablesForTrigger(trigger, triggersThatShouldBeActive, useTableCache);
                         tablesByTriggerId.put(trigger.getTriggerId(), tables);
                     }
 
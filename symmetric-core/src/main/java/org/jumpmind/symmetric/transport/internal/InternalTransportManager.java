@@ -196,9 +196,7 @@ public class InternalTransportManager extends AbstractTransportManager implement
                 String ackData = getAcknowledgementData(remote.requires13Compatiblity(),
                         local.getNodeId(), list);
                 List<BatchAck> batches = readAcknowledgement(ackData);
-                for (BatchAck batchInfo : batches) {
-                    remoteEngine.getAcknowledgeService().ack(batchInfo);
-                }
+                remoteEngine.getAcknowledgeService().ack(batches);
             }
             return HttpURLConnection.HTTP_OK;
         } catch (Exception ex) {
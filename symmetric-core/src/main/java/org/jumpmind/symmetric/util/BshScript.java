@@ -0,0 +1,232 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jumpmind.symmetric.service.IExtensionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A BeanShell script that has been scanned once for the identifiers it
+ * references. Callers use {@link #references(String)} to bind only the
+ * variables the script can actually read instead of binding every column and
+ * context value on every row. Scanning skips string literals, character
+ * literals and comments, so a column name mentioned only inside a string is
+ * not considered a reference.
+ */
+public class BshScript {
+
+    private static final Logger log = LoggerFactory.getLogger(BshScript.class);
+
+    private static final ICompiledBshScript NOT_COMPILABLE = new ICompiledBshScript() {
+        public Object eval(Map<String, Object> bindings) {
+            return null;
+        }
+    };
+
+    private static final int MAX_CACHED_SCRIPTS = 1000;
+
+    private static final Map<String, BshScript> scripts = new ConcurrentHashMap<String, BshScript>();
+
+    private final String script;
+
+    private final Set<String> identifiers;
+
+    private final Set<String> upperCaseIdentifiers;
+
+    private final Map<String, ICompiledBshScript> compiledScripts = new ConcurrentHashMap<String, ICompiledBshScript>();
+
+    protected BshScript(String script) {
+        this.script = script;
+        this.identifiers = Collections.unmodifiableSet(findIdentifiers(script));
+        this.upperCaseIdentifiers = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+        for (String identifier : identifiers) {
+            if (identifier.equals(identifier.toUpperCase())) {
+                upperCaseIdentifiers.add(identifier);
+            }
+        }
+    }
+
+    public static BshScript get(String script) {
+        if (script == null) {
+            script = "";
+        }
+        BshScript bshScript = scripts.get(script);
+        if (bshScript == null) {
+            if (scripts.size() >= MAX_CACHED_SCRIPTS) {
+                scripts.clear();
+            }
+            bshScript = new BshScript(script);
+            scripts.put(script, bshScript);
+        }
+        return bshScript;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public Set<String> getIdentifiers() {
+        return identifiers;
+    }
+
+    public boolean references(String name) {
+        return name != null && identifiers.contains(name);
+    }
+
+    /**
+     * @return true if the upper case form of the name is referenced, checked
+     *         without allocating the upper case string
+     */
+    public boolean referencesUpperCaseOf(String name) {
+        return name != null && upperCaseIdentifiers.contains(name);
+    }
+
+    public boolean referencesAny(String... names) {
+        for (String name : names) {
+            if (references(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wrap the script as the body of an {@link ICompiledBshScript} so it can be
+     * compiled as Java. Only referenced variables are declared, each one cast
+     * from the bindings map to the type given for it.
+     */
+    public String toJavaClass(String imports, String className, Map<String, String> variableTypes) {
+        StringBuilder code = new StringBuilder(script.length() + 512);
+        code.append(imports);
+        code.append("public class ").append(className).append(" implements ").append(ICompiledBshScript.class.getName()).append(" {\n");
+        code.append("    @SuppressWarnings(\"unchecked\")\n");
+        code.append("    public Object eval(java.util.Map<String, Object> bindings) throws Exception {\n");
+        for (Map.Entry<String, String> variable : variableTypes.entrySet()) {
+            if (references(variable.getKey())) {
+                code.append("        ").append(variable.getValue()).append(" ").append(variable.getKey()).append(" = (")
+                        .append(variable.getValue()).append(") bindings.get(\"").append(variable.getKey()).append("\");\n");
+            }
+        }
+        code.append(script);
+        code.append("\n    }\n}\n");
+        return code.toString();
+    }
+
+    public boolean isCompileAttempted(String className) {
+        return compiledScripts.containsKey(className);
+    }
+
+    /**
+     * @return the script compiled for the given class name, or null if it was
+     *         not compiled yet or could not be compiled
+     */
+    public ICompiledBshScript getCompiled(String className) {
+        ICompiledBshScript compiled = compiledScripts.get(className);
+        return compiled == NOT_COMPILABLE ? null : compiled;
+    }
+
+    /**
+     * Compile the script as Java the first time it is requested for the given
+     * class name. Most BeanShell is loosely typed and will not compile, so a
+     * failure is remembered and null is returned to tell the caller to fall
+     * back to the interpreter.
+     */
+    public ICompiledBshScript compile(IExtensionService extensionService, String imports, String className,
+            Map<String, String> variableTypes) {
+        ICompiledBshScript compiled = compiledScripts.get(className);
+        if (compiled == null) {
+            synchronized (this) {
+                compiled = compiledScripts.get(className);
+                if (compiled == null) {
+                    try {
+                        compiled = (ICompiledBshScript) extensionService.getCompiledClass(toJavaClass(imports, className, variableTypes));
+                    } catch (Exception ex) {
+                        log.info("Script could not be compiled as Java, so it will run in the BeanShell interpreter: {}", ex.getMessage());
+                        compiled = NOT_COMPILABLE;
+                    }
+                    compiledScripts.put(className, compiled);
+                }
+            }
+        }
+        return compiled == NOT_COMPILABLE ? null : compiled;
+    }
+
+    protected static Set<String> findIdentifiers(String script) {
+        Set<String> identifiers = new HashSet<String>();
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            if (c == '/' && i + 1 < length && script.charAt(i + 1) == '/') {
+                i = script.indexOf('\n', i);
+                i = i < 0 ? length : i + 1;
+            } else if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                i = script.indexOf("*/", i + 2);
+                i = i < 0 ? length : i + 2;
+            } else if (c == '"' || c == '\'') {
+                i++;
+                while (i < length && script.charAt(i) != c) {
+                    if (script.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+                i++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i++;
+                while (i < length && Character.isJavaIdentifierPart(script.charAt(i))) {
+                    i++;
+                }
+                identifiers.add(script.substring(start, i));
+            } else if (Character.isDigit(c)) {
+                /* skip numeric literals such as 10L or 0x1F so their suffixes are not taken as names */
+                i++;
+                while (i < length && Character.isJavaIdentifierPart(script.charAt(i))) {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return identifiers;
+    }
+
+    public static boolean isJavaIdentifier(String name) {
+        if (name == null || name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.jumpmind.db.model.Column;
+import org.jumpmind.db.model.Table;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
+import org.jumpmind.symmetric.service.impl.MockParameterService;
+import org.junit.Test;
+
+public class KafkaWriterFilterTest {
+
+    protected Table table = new Table("test_table", new Column("id", true), new Column("name"));
+
+    protected DataContext context = new DataContext(new Batch(BatchType.LOAD, 1, "default", BinaryEncoding.BASE64,
+            "00001", "00002", false));
+
+    @Test
+    public void testRowMessagesAreSentBeforeBatchComplete() {
+        MockProducer<Object, Object> producer = newProducer(true);
+        KafkaWriterFilter filter = newFilter(KafkaWriterFilter.KAFKA_MESSAGE_BY_ROW, producer);
+
+        assertFalse(filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "1", "say \"hi\"\n" })));
+        assertFalse(filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "2", null })));
+        assertEquals(2, producer.history().size());
+
+        filter.batchComplete(context);
+        assertEquals("default", producer.history().get(0).topic());
+        assertEquals("{\"test_table\": {\"eventType\": \"INSERT\",\"data\": { \"id\": \"1\",\"name\": \"say \\\"hi\\\"\\n\" } } }",
+                producer.history().get(0).value());
+        assertEquals("{\"test_table\": {\"eventType\": \"INSERT\",\"data\": { \"id\": \"2\",\"name\": null } } }",
+                producer.history().get(1).value());
+    }
+
+    @Test
+    public void testBatchMessageIsSentAtBatchComplete() {
+        MockProducer<Object, Object> producer = newProducer(true);
+        KafkaWriterFilter filter = newFilter(KafkaWriterFilter.KAFKA_MESSAGE_BY_BATCH, producer);
+
+        filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "1", "a" }));
+        filter.beforeWrite(context, table, new CsvData(DataEventType.UPDATE, new String[] { "1", "b" }));
+        assertEquals(0, producer.history().size());
+
+        filter.batchComplete(context);
+        assertEquals(1, producer.history().size());
+        assertEquals("{\"test_table\": {\"eventType\": \"INSERT\",\"data\": { \"id\": \"1\",\"name\": \"a\" } } }"
+                + "{\"test_table\": {\"eventType\": \"UPDATE\",\"data\": { \"id\": \"1\",\"name\": \"b\" } } }",
+                producer.history().get(0).value());
+    }
+
+    @Test
+    public void testFailedDeliveryFailsBatch() {
+        MockProducer<Object, Object> producer = newProducer(false);
+        KafkaWriterFilter filter = newFilter(KafkaWriterFilter.KAFKA_MESSAGE_BY_ROW, producer);
+
+        filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "1", "a" }));
+        producer.errorNext(new RuntimeException("Broker not available"));
+        try {
+            filter.batchComplete(context);
+            fail("Expected the batch to fail when a message was not delivered");
+        } catch (RuntimeException ex) {
+            assertEquals("Broker not available", ex.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testRollbackClosesProducerAndResetsPipeline() {
+        final List<MockProducer<Object, Object>> producers = new ArrayList<MockProducer<Object, Object>>();
+        KafkaWriterFilter filter = new KafkaWriterFilter(newParameterService(KafkaWriterFilter.KAFKA_MESSAGE_BY_ROW)) {
+            @Override
+            protected Producer<Object, Object> createProducer() {
+                MockProducer<Object, Object> producer = newProducer(false);
+                producers.add(producer);
+                return producer;
+            }
+        };
+
+        filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "1", "a" }));
+        filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "2", "b" }));
+        producers.get(0).errorNext(new RuntimeException("Broker not available"));
+        assertEquals(1, filter.inFlightCount);
+        assertNotNull(filter.sendException);
+
+        filter.batchRolledback(context);
+        assertTrue(producers.get(0).closed());
+        assertNull(filter.kafkaProducer);
+        assertNull(filter.sendException);
+        assertEquals(0, filter.inFlightCount);
+        assertEquals(0, filter.inFlightBytes);
+
+        // The retried batch gets a new producer and is not failed by the earlier send
+        filter.beforeWrite(context, table, new CsvData(DataEventType.INSERT, new String[] { "1", "a" }));
+        assertEquals(2, producers.size());
+        assertEquals(1, producers.get(1).history().size());
+        producers.get(1).completeNext();
+        filter.batchComplete(context);
+        assertTrue(producers.get(1).closed());
+        assertEquals(0, filter.inFlightCount);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    protected MockProducer<Object, Object> newProducer(boolean autoComplete) {
+        Serializer serializer = new StringSerializer();
+        return new MockProducer<Object, Object>(autoComplete, serializer, serializer);
+    }
+
+    protected KafkaWriterFilter newFilter(String messageBy, MockProducer<Object, Object> producer) {
+        return new KafkaWriterFilter(newParameterService(messageBy), producer);
+    }
+
+    protected MockParameterService newParameterService(String messageBy) {
+        Properties properties = new Properties();
+        properties.setProperty(ParameterConstants.LOAD_ONLY_PROPERTY_PREFIX + "db.url", "localhost:9092");
+        properties.setProperty(ParameterConstants.KAFKA_MESSAGE_BY, messageBy);
+        return new MockParameterService(properties);
+    }
+
+}
@@ -0,0 +1,172 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.model.Data;
+import org.jumpmind.symmetric.model.DataEventType;
+import org.jumpmind.symmetric.model.DataMetaData;
+import org.jumpmind.symmetric.model.NodeChannel;
+import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.OutgoingBatch.Status;
+import org.jumpmind.symmetric.service.IOutgoingBatchService;
+import org.jumpmind.symmetric.service.impl.MockParameterService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class AdaptiveBatchAlgorithmTest {
+
+    static final String CHANNEL_ID = "testchannel";
+
+    AdaptiveBatchAlgorithm algorithm;
+
+    IOutgoingBatchService outgoingBatchService;
+
+    Properties properties;
+
+    NodeChannel nodeChannel;
+
+    @Before
+    public void setUp() {
+        properties = new Properties();
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_BYTES, "1048576");
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_LOAD_MS, "5000");
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_MIN_SIZE, "10");
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_MAX_SIZE, "100000");
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_REFRESH_MS, "0");
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_WINDOW_MS, "3600000");
+        outgoingBatchService = mock(IOutgoingBatchService.class);
+        when(outgoingBatchService.getLoadedBatchStats(eq(CHANNEL_ID), any(Date.class))).thenReturn(
+                new ArrayList<OutgoingBatch>());
+        ISymmetricEngine engine = mock(ISymmetricEngine.class);
+        when(engine.getParameterService()).thenReturn(new MockParameterService(properties));
+        when(engine.getOutgoingBatchService()).thenReturn(outgoingBatchService);
+        algorithm = new AdaptiveBatchAlgorithm();
+        algorithm.setSymmetricEngine(engine);
+        nodeChannel = new NodeChannel(CHANNEL_ID);
+        nodeChannel.setMaxBatchSize(500);
+    }
+
+    @Test
+    public void testChannelMaxBatchSizeWithoutStats() {
+        assertEquals(500, algorithm.getBatchSize("00001", CHANNEL_ID, 500));
+
+        SimpleRouterContext context = new SimpleRouterContext("00000", nodeChannel);
+        context.setEncountedTransactionBoundary(true);
+        OutgoingBatch batch = new OutgoingBatch("00001", CHANNEL_ID, Status.RT);
+        batch.setDataRowCount(499);
+        assertFalse(algorithm.isBatchComplete(batch, metaData("1"), context));
+        batch.setDataRowCount(500);
+        assertTrue(algorithm.isBatchComplete(batch, metaData("1"), context));
+    }
+
+    @Test
+    public void testBatchSizeFromLoadedBatches() {
+        when(outgoingBatchService.getLoadedBatchStats(eq(CHANNEL_ID), any(Date.class))).thenReturn(Arrays.asList(
+                loadedBatches("00001", 1000, 100000, 1000), loadedBatches("00002", 10, 20000000, 100),
+                loadedBatches("00003", 1000, 50000, 10)));
+
+        // limited by load time at 1 ms per row
+        assertEquals(5000, algorithm.getBatchSize("00001", CHANNEL_ID, 500));
+        // limited by the min size with 2 MB rows
+        assertEquals(10, algorithm.getBatchSize("00002", CHANNEL_ID, 500));
+        // limited by the max size with small, fast rows
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_MAX_SIZE, "15000");
+        assertEquals(15000, algorithm.getBatchSize("00003", CHANNEL_ID, 500));
+    }
+
+    @Test
+    public void testBatchSizeAdjustsOverTime() {
+        long startTime = System.currentTimeMillis();
+        when(outgoingBatchService.getLoadedBatchStats(eq(CHANNEL_ID), any(Date.class))).thenReturn(
+                Arrays.asList(loadedBatches("00001", 1000, 100000, 1000), loadedBatches("00002", 1000, 100000, 100)));
+        assertEquals(5000, algorithm.getBatchSize("00001", CHANNEL_ID, 500));
+
+        // only the first node loaded batches since the last refresh
+        when(outgoingBatchService.getLoadedBatchStats(eq(CHANNEL_ID), any(Date.class))).thenReturn(
+                Arrays.asList(loadedBatches("00001", 1000, 100000, 2000)));
+        int batchSize = algorithm.getBatchSize("00001", CHANNEL_ID, 500);
+        assertTrue(batchSize < 5000 && batchSize > 2500);
+        assertEquals(10485, algorithm.getBatchSize("00002", CHANNEL_ID, 500));
+
+        ArgumentCaptor<Date> loadedSince = ArgumentCaptor.forClass(Date.class);
+        verify(outgoingBatchService, times(3)).getLoadedBatchStats(eq(CHANNEL_ID), loadedSince.capture());
+        // the first refresh looks back over the window and later ones start where the last one ended
+        assertTrue(loadedSince.getAllValues().get(0).getTime() <= startTime - 3600000 + 1000);
+        assertTrue(loadedSince.getAllValues().get(1).getTime() >= startTime);
+        assertTrue(loadedSince.getAllValues().get(2).getTime() >= loadedSince.getAllValues().get(1).getTime());
+    }
+
+    @Test
+    public void testRoutedBytesEndBatch() {
+        properties.setProperty(ParameterConstants.ROUTING_ADAPTIVE_BATCH_TARGET_BYTES, "100");
+        SimpleRouterContext context = new SimpleRouterContext("00000", nodeChannel);
+        OutgoingBatch batch = new OutgoingBatch("00001", CHANNEL_ID, Status.RT);
+        batch.setBatchId(1);
+        batch.setDataRowCount(1);
+        assertFalse(algorithm.isBatchComplete(batch, metaData(rowData(60)), context));
+        batch.setDataRowCount(2);
+        assertFalse(algorithm.isBatchComplete(batch, metaData(rowData(60)), context));
+        context.setEncountedTransactionBoundary(true);
+        batch.setDataRowCount(3);
+        assertTrue(algorithm.isBatchComplete(batch, metaData(rowData(60)), context));
+    }
+
+    protected DataMetaData metaData(String rowData) {
+        Data data = new Data("test_table", DataEventType.INSERT, rowData, null, null, CHANNEL_ID, null, null);
+        return new DataMetaData(data, null, null, nodeChannel);
+    }
+
+    protected String rowData(int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append("x");
+        }
+        return sb.toString();
+    }
+
+    protected OutgoingBatch loadedBatches(String nodeId, long rows, long bytes, long loadMillis) {
+        OutgoingBatch batch = new OutgoingBatch(nodeId, CHANNEL_ID, Status.OK);
+        batch.setDataRowCount(rows);
+        batch.setByteCount(bytes);
+        batch.setLoadMillis(loadMillis);
+        return batch;
+    }
+
+}
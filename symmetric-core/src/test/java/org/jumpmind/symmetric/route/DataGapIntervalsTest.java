@@ -0,0 +1,105 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jumpmind.symmetric.model.DataGap;
+import org.junit.Test;
+
+public class DataGapIntervalsTest {
+
+    @Test
+    public void testContains() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps(5, 5, 10, 20, 30, Long.MAX_VALUE));
+        assertEquals(3, intervals.size());
+        assertFalse(intervals.contains(4));
+        assertTrue(intervals.contains(5));
+        assertFalse(intervals.contains(6));
+        assertTrue(intervals.contains(10));
+        assertTrue(intervals.contains(15));
+        assertTrue(intervals.contains(20));
+        assertFalse(intervals.contains(21));
+        assertTrue(intervals.contains(Long.MAX_VALUE));
+        assertEquals(1, intervals.indexOf(12));
+        assertEquals(-1, intervals.indexOf(25));
+    }
+
+    @Test
+    public void testCoalesceOverlappingAndAdjacentGaps() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps(1, 10, 11, 20, 15, 18, 30, 40, 35, 50));
+        assertEquals(2, intervals.size());
+        assertEquals(1, intervals.getStartId(0));
+        assertEquals(20, intervals.getEndId(0));
+        assertEquals(30, intervals.getStartId(1));
+        assertEquals(50, intervals.getEndId(1));
+    }
+
+    @Test
+    public void testUnsortedGaps() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps(100, 200, 1, 10, 50, 60));
+        assertEquals(3, intervals.size());
+        assertEquals(1, intervals.getStartId(0));
+        assertEquals(50, intervals.getStartId(1));
+        assertEquals(100, intervals.getStartId(2));
+        assertTrue(intervals.contains(55));
+        assertFalse(intervals.contains(70));
+    }
+
+    @Test
+    public void testAdvance() {
+        DataGapIntervals intervals = new DataGapIntervals(gaps(1, 10, 20, 30, 40, 50));
+        int index = intervals.advance(0, 5);
+        assertEquals(0, index);
+        assertTrue(intervals.isInRange(index, 5));
+        index = intervals.advance(index, 15);
+        assertEquals(1, index);
+        assertFalse(intervals.isInRange(index, 15));
+        index = intervals.advance(index, 45);
+        assertEquals(2, index);
+        assertTrue(intervals.isInRange(index, 45));
+        index = intervals.advance(index, 51);
+        assertEquals(3, index);
+        assertFalse(intervals.isInRange(index, 51));
+    }
+
+    @Test
+    public void testEmpty() {
+        DataGapIntervals intervals = new DataGapIntervals(new ArrayList<DataGap>());
+        assertEquals(0, intervals.size());
+        assertFalse(intervals.contains(1));
+        assertFalse(intervals.isInRange(intervals.advance(0, 1), 1));
+    }
+
+    protected List<DataGap> gaps(long... ids) {
+        List<DataGap> gaps = new ArrayList<DataGap>();
+        for (int i = 0; i < ids.length; i += 2) {
+            gaps.add(new DataGap(ids[i], ids[i + 1]));
+        }
+        return gaps;
+    }
+
+}
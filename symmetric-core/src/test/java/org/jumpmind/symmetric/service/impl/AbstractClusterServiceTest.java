@@ -20,6 +20,8 @@
  */
 package org.jumpmind.symmetric.service.impl;
 
+import java.util.Date;
+
 import org.jumpmind.symmetric.common.ParameterConstants;
 import org.jumpmind.symmetric.model.Lock;
 import org.jumpmind.symmetric.service.ClusterConstants;
@@ -43,6 +45,71 @@ public abstract class AbstractClusterServiceTest extends AbstractServiceTest {
         unlock(ClusterConstants.PULL, ClusterConstants.TYPE_CLUSTER, 0);
     }
 
+    @Test
+    public void testLockClusterLease() {
+        getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCKING_ENABLED, "true", "test");
+        getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCK_LEASE_MS, "600000", "test");
+        try {
+            getClusterService().init();
+            lock(ClusterConstants.PUSH, ClusterConstants.TYPE_CLUSTER, 0);
+            getClusterService().unlock(ClusterConstants.PUSH);
+
+            // The lease keeps the lock for this server after it is unlocked
+            checkLock(ClusterConstants.PUSH, ClusterConstants.TYPE_CLUSTER, 0, false);
+            Assert.assertTrue(getClusterService().lock(ClusterConstants.PUSH));
+            getClusterService().unlock(ClusterConstants.PUSH);
+
+            // Another server can break the lock once the lease has run out
+            ClusterService clusterService = (ClusterService) getClusterService();
+            long timeoutMs = getParameterService().getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS);
+            long now = System.currentTimeMillis();
+            Assert.assertFalse(clusterService.lockCluster(ClusterConstants.PUSH, new Date(now - timeoutMs),
+                    new Date(now), "otherserver"));
+            Assert.assertTrue(clusterService.lockCluster(ClusterConstants.PUSH,
+                    new Date(now + 600000 + 1000 - timeoutMs), new Date(now), "otherserver"));
+            Assert.assertEquals("otherserver", getClusterService().findLocks().get(ClusterConstants.PUSH)
+                    .getLockingServerId());
+            clusterService.unlockCluster(ClusterConstants.PUSH, "otherserver");
+
+            getClusterService().stop();
+            checkUnlock(ClusterConstants.PUSH, ClusterConstants.TYPE_CLUSTER, 0, false);
+        } finally {
+            getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCK_LEASE_MS, "0", "test");
+            getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCKING_ENABLED, "false", "test");
+            getClusterService().init();
+        }
+    }
+
+    @Test
+    public void testLockClusterLeaseRenewedWhileLocked() throws Exception {
+        getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCKING_ENABLED, "true", "test");
+        getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCK_LEASE_MS, "400", "test");
+        try {
+            getClusterService().init();
+            lock(ClusterConstants.PURGE_OUTGOING, ClusterConstants.TYPE_CLUSTER, 0);
+
+            // The job holds the lock for several lease terms without refreshing it
+            Thread.sleep(2000);
+
+            ClusterService clusterService = (ClusterService) getClusterService();
+            long timeoutMs = getParameterService().getLong(ParameterConstants.CLUSTER_LOCK_TIMEOUT_MS);
+            long now = System.currentTimeMillis();
+            Assert.assertFalse(clusterService.lockCluster(ClusterConstants.PURGE_OUTGOING, new Date(now - timeoutMs),
+                    new Date(now), "otherserver"));
+            Assert.assertEquals(getClusterService().getServerId(), getClusterService().findLocks()
+                    .get(ClusterConstants.PURGE_OUTGOING).getLockingServerId());
+
+            getClusterService().unlock(ClusterConstants.PURGE_OUTGOING);
+            getClusterService().stop();
+            checkUnlock(ClusterConstants.PURGE_OUTGOING, ClusterConstants.TYPE_CLUSTER, 0, false);
+        } finally {
+            getClusterService().stop();
+            getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCK_LEASE_MS, "0", "test");
+            getParameterService().saveParameter(ParameterConstants.CLUSTER_LOCKING_ENABLED, "false", "test");
+            getClusterService().init();
+        }
+    }
+
     @Test
     public void testLockShare() {
         lock(ClusterConstants.FILE_SYNC_SHARED, ClusterConstants.TYPE_SHARED, 1);
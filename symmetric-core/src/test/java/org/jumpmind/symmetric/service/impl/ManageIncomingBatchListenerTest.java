@@ -0,0 +1,271 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.db.sql.UniqueKeyException;
+import org.jumpmind.db.util.BinaryEncoding;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.Batch.BatchType;
+import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.IDataReader;
+import org.jumpmind.symmetric.io.data.IDataWriter;
+import org.jumpmind.symmetric.model.IncomingBatch;
+import org.jumpmind.symmetric.model.ProcessInfo;
+import org.jumpmind.symmetric.service.IIncomingBatchService;
+import org.jumpmind.symmetric.statistic.IStatisticManager;
+import org.jumpmind.util.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ManageIncomingBatchListenerTest {
+
+    ISymmetricEngine engine;
+
+    IIncomingBatchService incomingBatchService;
+
+    ISqlTransaction transaction;
+
+    DataContext context;
+
+    Map<Batch, Statistics> readerStatistics;
+
+    Map<Batch, Statistics> writerStatistics;
+
+    ManageIncomingBatchListener listener;
+
+    @Before
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.setProperty(ParameterConstants.DATA_LOADER_ENABLED, "true");
+        properties.setProperty(ParameterConstants.INCOMING_BATCH_RECORD_IN_DATA_TRANSACTION, "true");
+
+        IDatabasePlatform platform = mock(IDatabasePlatform.class);
+        ISymmetricDialect symmetricDialect = mock(ISymmetricDialect.class);
+        when(symmetricDialect.getPlatform()).thenReturn(platform);
+        when(symmetricDialect.getTargetPlatform()).thenReturn(platform);
+
+        incomingBatchService = mock(IIncomingBatchService.class);
+        when(incomingBatchService.isRecordOkBatchesEnabled()).thenReturn(true);
+        when(incomingBatchService.acquireIncomingBatch(any(IncomingBatch.class), eq(false))).thenReturn(true);
+
+        engine = mock(ISymmetricEngine.class);
+        when(engine.getParameterService()).thenReturn(new MockParameterService(properties));
+        when(engine.getSymmetricDialect()).thenReturn(symmetricDialect);
+        when(engine.getIncomingBatchService()).thenReturn(incomingBatchService);
+        when(engine.getStatisticManager()).thenReturn(mock(IStatisticManager.class));
+        when(engine.getTablePrefix()).thenReturn("sym");
+
+        transaction = mock(ISqlTransaction.class);
+        readerStatistics = new HashMap<Batch, Statistics>();
+        writerStatistics = new HashMap<Batch, Statistics>();
+        IDataReader reader = mock(IDataReader.class);
+        when(reader.getStatistics()).thenReturn(readerStatistics);
+        IDataWriter writer = mock(IDataWriter.class);
+        when(writer.getStatistics()).thenReturn(writerStatistics);
+
+        context = mock(DataContext.class);
+        when(context.getReader()).thenReturn(reader);
+        when(context.getWriter()).thenReturn(writer);
+        when(context.findSymmetricTransaction(anyString())).thenReturn(transaction);
+
+        listener = new ManageIncomingBatchListener(new ProcessInfo(), engine);
+    }
+
+    @Test
+    public void testRecordInDataTransaction() {
+        assertTrue(listener.recordInDataTransaction);
+        startBatch(1);
+        verify(incomingBatchService).acquireIncomingBatch(any(IncomingBatch.class), eq(false));
+
+        listener.beforeBatchEnd(context);
+        verify(incomingBatchService).insertIncomingBatch(eq(transaction), eq(listener.getCurrentBatch()));
+        assertTrue(listener.isCurrentBatchRecorded);
+        assertEquals(IncomingBatch.Status.LD, listener.getCurrentBatch().getStatus());
+
+        listener.batchSuccessful(context);
+        assertEquals(IncomingBatch.Status.OK, listener.getCurrentBatch().getStatus());
+        assertEquals(1, listener.pendingOkUpdates.size());
+        verify(incomingBatchService, never()).insertIncomingBatch(any(IncomingBatch.class));
+        verify(incomingBatchService, never()).updateIncomingBatch(any(IncomingBatch.class));
+    }
+
+    @Test
+    public void testRecordRetryInDataTransaction() {
+        startBatch(1);
+        listener.getCurrentBatch().setRetry(true);
+        listener.beforeBatchEnd(context);
+        verify(incomingBatchService).updateIncomingBatch(eq(transaction), eq(listener.getCurrentBatch()));
+        verify(incomingBatchService, never()).insertIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+        assertTrue(listener.isCurrentBatchRecorded);
+    }
+
+    @Test
+    public void testNotRecordedInDataTransactionWhenParameterDisabled() {
+        Properties properties = new Properties();
+        properties.setProperty(ParameterConstants.DATA_LOADER_ENABLED, "true");
+        when(engine.getParameterService()).thenReturn(new MockParameterService(properties));
+        listener = new ManageIncomingBatchListener(new ProcessInfo(), engine);
+        assertFalse(listener.recordInDataTransaction);
+
+        when(incomingBatchService.acquireIncomingBatch(any(IncomingBatch.class))).thenReturn(true);
+        startBatch(1);
+        listener.beforeBatchEnd(context);
+        verify(incomingBatchService, never()).insertIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+
+        listener.batchSuccessful(context);
+        verify(incomingBatchService).updateIncomingBatch(listener.getCurrentBatch());
+        assertEquals(0, listener.pendingOkUpdates.size());
+    }
+
+    @Test
+    public void testDuplicateLoadForCurrentBatch() {
+        doThrow(new UniqueKeyException("duplicate")).when(incomingBatchService)
+                .insertIncomingBatch(eq(transaction), any(IncomingBatch.class));
+        startBatch(1);
+        try {
+            listener.beforeBatchEnd(context);
+            fail("Expected the duplicate batch to fail");
+        } catch (UniqueKeyException ex) {
+        }
+        assertTrue(listener.isDuplicateLoadForCurrentBatch);
+        assertFalse(listener.isCurrentBatchRecorded);
+
+        listener.batchInError(context, new UniqueKeyException("duplicate"));
+        verify(incomingBatchService).refreshIncomingBatch(listener.getCurrentBatch());
+        verify(incomingBatchService, times(1)).insertIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+        verify(incomingBatchService, never()).updateIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+        verify(incomingBatchService, never()).insertIncomingBatch(any(IncomingBatch.class));
+        verify(incomingBatchService, never()).updateIncomingBatch(any(IncomingBatch.class));
+
+        startBatch(2);
+        assertFalse(listener.isDuplicateLoadForCurrentBatch);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testQueueAndFlushOkUpdates() {
+        for (int i = 1; i <= ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES - 1; i++) {
+            loadBatch(i);
+        }
+        verify(incomingBatchService, never()).updateIncomingBatches(anyList());
+        assertEquals(ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES - 1, listener.pendingOkUpdates.size());
+
+        loadBatch(ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES);
+        ArgumentCaptor<List<IncomingBatch>> captor = ArgumentCaptor.forClass(List.class);
+        verify(incomingBatchService, times(1)).updateIncomingBatches(captor.capture());
+        assertEquals(ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES, captor.getValue().size());
+        assertEquals(0, listener.pendingOkUpdates.size());
+
+        loadBatch(ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES + 1);
+        listener.flushOkUpdates();
+        verify(incomingBatchService, times(2)).updateIncomingBatches(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(ManageIncomingBatchListener.MAX_PENDING_OK_UPDATES + 1, captor.getValue().get(0).getBatchId());
+
+        listener.flushOkUpdates();
+        verify(incomingBatchService, times(2)).updateIncomingBatches(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFlushOkUpdatesOnlyLogsFailure() {
+        doThrow(new RuntimeException("connection lost")).when(incomingBatchService).updateIncomingBatches(anyList());
+        loadBatch(1);
+        listener.flushOkUpdates();
+        verify(incomingBatchService).updateIncomingBatches(anyList());
+        assertEquals(0, listener.pendingOkUpdates.size());
+    }
+
+    @Test
+    public void testErrorInsertsNewBatchRolledBackWithData() {
+        startBatch(1);
+        listener.batchInError(context, new RuntimeException("load failed"));
+        assertEquals(IncomingBatch.Status.ER, listener.getCurrentBatch().getStatus());
+        verify(incomingBatchService).insertIncomingBatch(eq(transaction), eq(listener.getCurrentBatch()));
+        verify(incomingBatchService, never()).updateIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+    }
+
+    @Test
+    public void testErrorUpdatesRetriedBatch() {
+        startBatch(1);
+        listener.getCurrentBatch().setRetry(true);
+        listener.batchInError(context, new RuntimeException("load failed"));
+        assertEquals(IncomingBatch.Status.ER, listener.getCurrentBatch().getStatus());
+        verify(incomingBatchService).updateIncomingBatch(eq(transaction), eq(listener.getCurrentBatch()));
+        verify(incomingBatchService, never()).insertIncomingBatch(any(ISqlTransaction.class), any(IncomingBatch.class));
+    }
+
+    @Test
+    public void testErrorUpdatesBatchRecordedWhenAcquired() {
+        Properties properties = new Properties();
+        properties.setProperty(ParameterConstants.DATA_LOADER_ENABLED, "true");
+        when(engine.getParameterService()).thenReturn(new MockParameterService(properties));
+        when(context.findSymmetricTransaction(anyString())).thenReturn(null);
+        when(incomingBatchService.acquireIncomingBatch(any(IncomingBatch.class))).thenReturn(true);
+        listener = new ManageIncomingBatchListener(new ProcessInfo(), engine);
+
+        startBatch(1);
+        listener.batchInError(context, new RuntimeException("load failed"));
+        verify(incomingBatchService).updateIncomingBatch(listener.getCurrentBatch());
+        verify(incomingBatchService, never()).insertIncomingBatch(any(IncomingBatch.class));
+    }
+
+    protected void startBatch(long batchId) {
+        Batch batch = new Batch(BatchType.LOAD, batchId, "default", BinaryEncoding.BASE64, "00001", "00000", false);
+        readerStatistics.put(batch, new Statistics());
+        writerStatistics.put(batch, new Statistics());
+        when(context.getBatch()).thenReturn(batch);
+        assertTrue(listener.beforeBatchStarted(context));
+    }
+
+    protected void loadBatch(long batchId) {
+        startBatch(batchId);
+        listener.beforeBatchEnd(context);
+        listener.batchSuccessful(context);
+    }
+
+}
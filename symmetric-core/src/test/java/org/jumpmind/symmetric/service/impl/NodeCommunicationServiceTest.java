@@ -21,14 +21,177 @@
 package org.jumpmind.symmetric.service.impl;
 
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.model.Channel;
+import org.jumpmind.symmetric.model.Node;
 import org.jumpmind.symmetric.model.NodeCommunication;
 import org.jumpmind.symmetric.model.NodeCommunication.CommunicationType;
+import org.jumpmind.symmetric.model.RemoteNodeStatus;
+import org.jumpmind.symmetric.model.RemoteNodeStatuses;
+import org.jumpmind.symmetric.service.IClusterService;
+import org.jumpmind.symmetric.service.IConfigurationService;
+import org.jumpmind.symmetric.service.INodeCommunicationService.INodeCommunicationExecutor;
+import org.jumpmind.symmetric.service.INodeService;
+import org.junit.Before;
 import org.junit.Test;
 
 public class NodeCommunicationServiceTest {
 
+    Properties properties;
+
+    NodeCommunicationService nodeCommunicationService;
+
+    Map<String, Channel> channels;
+
+    @Before
+    public void setUp() {
+        properties = new Properties();
+        IDatabasePlatform platform = mock(IDatabasePlatform.class);
+        when(platform.getDatabaseInfo()).thenReturn(new DatabaseInfo());
+        ISymmetricDialect symmetricDialect = mock(ISymmetricDialect.class);
+        when(symmetricDialect.getPlatform()).thenReturn(platform);
+        IClusterService clusterService = mock(IClusterService.class);
+        when(clusterService.isClusteringEnabled()).thenReturn(false);
+        when(clusterService.getServerId()).thenReturn("server");
+        channels = new HashMap<String, Channel>();
+        Channel channel = new Channel("default", 1);
+        channels.put(channel.getChannelId(), channel);
+        channel = new Channel("reload", 0);
+        channel.setQueue("reload");
+        channels.put(channel.getChannelId(), channel);
+        IConfigurationService configurationService = mock(IConfigurationService.class);
+        when(configurationService.getChannels(false)).thenReturn(channels);
+        nodeCommunicationService = new NodeCommunicationService(clusterService, mock(INodeService.class),
+                new MockParameterService(properties), configurationService, symmetricDialect);
+    }
+
+    @Test
+    public void testSortFavorsWaitTimeAndBacklog() {
+        long now = System.currentTimeMillis();
+        NodeCommunication recentWithBacklog = newNodeCommunication("recentWithBacklog", "default", now - 10000, 1000);
+        NodeCommunication waitingLong = newNodeCommunication("waitingLong", "default", now - 600000, 0);
+        NodeCommunication recent = newNodeCommunication("recent", "default", now - 10000, 0);
+        NodeCommunication recentReload = newNodeCommunication("recentReload", "reload", now - 10000, 0);
+        NodeCommunication failing = newNodeCommunication("failing", "default", now - 600000, 0);
+        failing.setFailCount(100);
+        NodeCommunication prioritized = newNodeCommunication("prioritized", "default", now, 0);
+        prioritized.setNodePriority(1);
+
+        List<NodeCommunication> list = new ArrayList<NodeCommunication>(Arrays.asList(recent, failing, recentReload,
+                recentWithBacklog, waitingLong, prioritized));
+        nodeCommunicationService.sortNodeCommunications(list, CommunicationType.PUSH);
+
+        assertEquals(Arrays.asList(prioritized, waitingLong, recentWithBacklog, recentReload, recent, failing), list);
+    }
+
+    @Test
+    public void testMaxThreadsPerNode() throws Exception {
+        properties.setProperty(ParameterConstants.PUSH_THREAD_COUNT_PER_SERVER, "5");
+        properties.setProperty(ParameterConstants.NODE_COMMUNICATION_MAX_THREADS_PER_NODE, "1");
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        INodeCommunicationExecutor executor = new INodeCommunicationExecutor() {
+            public void execute(NodeCommunication nodeCommunication, RemoteNodeStatus status) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        RemoteNodeStatuses statuses = new RemoteNodeStatuses(channels);
+        try {
+            assertTrue(nodeCommunicationService.execute(newNodeCommunication("00001", "default", 0, 0), statuses, executor));
+            assertFalse(nodeCommunicationService.execute(newNodeCommunication("00001", "reload", 0, 0), statuses, executor));
+            assertTrue(nodeCommunicationService.execute(newNodeCommunication("00002", "default", 0, 0), statuses, executor));
+        } finally {
+            release.countDown();
+            done.await();
+            nodeCommunicationService.stop();
+        }
+    }
+
+    @Test
+    public void testShouldYieldWhenNodesAreWaiting() {
+        NodeCommunication running = newNodeCommunication("00001", "default", 0, 0);
+        long startedBeforeTimeSlice = System.currentTimeMillis() - 120000;
+        assertFalse(nodeCommunicationService.shouldYield(running, startedBeforeTimeSlice));
+
+        nodeCommunicationService.updateWaiting(Arrays.asList(newNodeCommunication("00002", "default", 0, 0),
+                newNodeCommunication("00003", "default", 0, 0)), CommunicationType.PUSH);
+        assertEquals(2, nodeCommunicationService.getQueueDepth(CommunicationType.PUSH));
+        assertTrue(nodeCommunicationService.shouldYield(running, startedBeforeTimeSlice));
+        assertFalse(nodeCommunicationService.shouldYield(running, System.currentTimeMillis()));
+
+        properties.setProperty(ParameterConstants.NODE_COMMUNICATION_TIME_SLICE_MS, "0");
+        assertFalse(nodeCommunicationService.shouldYield(running, startedBeforeTimeSlice));
+    }
+
+    @Test
+    public void testFilterUnsentBatchesForOlderNodes() {
+        Map<String, Map<String, Integer>> unsentCounts = new HashMap<String, Map<String, Integer>>();
+        Map<String, Integer> oldNodeCounts = new HashMap<String, Integer>();
+        oldNodeCounts.put("reload", 3);
+        unsentCounts.put("00001", oldNodeCounts);
+        Map<String, Integer> newNodeCounts = new HashMap<String, Integer>();
+        newNodeCounts.put("reload", 2);
+        newNodeCounts.put("default", 4);
+        unsentCounts.put("00002", newNodeCounts);
+
+        NodeCommunication oldNode = newNodeCommunication("00001", "default", 0, 0);
+        oldNode.setNode(newNode("00001", "3.7.0"));
+        NodeCommunication newNodeDefault = newNodeCommunication("00002", "default", 0, 0);
+        newNodeDefault.setNode(newNode("00002", "3.8.0"));
+        NodeCommunication newNodeReload = newNodeCommunication("00002", "reload", 0, 0);
+        newNodeReload.setNode(newNode("00002", "3.8.0"));
+        NodeCommunication idleNode = newNodeCommunication("00003", "default", 0, 0);
+        idleNode.setNode(newNode("00003", "3.7.0"));
+
+        List<NodeCommunication> filtered = nodeCommunicationService.filterNodesWithUnsentBatches(
+                Arrays.asList(oldNode, newNodeDefault, newNodeReload, idleNode), unsentCounts);
+
+        assertEquals(Arrays.asList(oldNode, newNodeDefault, newNodeReload), filtered);
+        assertEquals(3, oldNode.getBatchToSendCount());
+        assertEquals(4, newNodeDefault.getBatchToSendCount());
+        assertEquals(2, newNodeReload.getBatchToSendCount());
+    }
+
+    protected Node newNode(String nodeId, String version) {
+        Node node = new Node();
+        node.setNodeId(nodeId);
+        node.setSymmetricVersion(version);
+        return node;
+    }
+
+    protected NodeCommunication newNodeCommunication(String nodeId, String queue, long lastLockTime, long batchToSendCount) {
+        NodeCommunication nodeCommunication = new NodeCommunication();
+        nodeCommunication.setNodeId(nodeId);
+        nodeCommunication.setQueue(queue);
+        nodeCommunication.setCommunicationType(CommunicationType.PUSH);
+        nodeCommunication.setLastLockTime(lastLockTime > 0 ? new Date(lastLockTime) : null);
+        nodeCommunication.setBatchToSendCount(batchToSendCount);
+        return nodeCommunication;
+    }
+
     @Test
     public void testNodeCommunicationTypeLengths() {
         final int MAX_LENGTH_IN_DB = 10;
@@ -0,0 +1,223 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.model.BatchAck;
+import org.jumpmind.symmetric.model.BatchAckResult;
+import org.jumpmind.symmetric.model.Channel;
+import org.jumpmind.symmetric.model.Node;
+import org.jumpmind.symmetric.model.NodeCommunication;
+import org.jumpmind.symmetric.model.NodeSecurity;
+import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.ProcessInfo;
+import org.jumpmind.symmetric.model.ProcessInfoKey;
+import org.jumpmind.symmetric.model.RemoteNodeStatus;
+import org.jumpmind.symmetric.service.IAcknowledgeService;
+import org.jumpmind.symmetric.service.IClusterService;
+import org.jumpmind.symmetric.service.IConfigurationService;
+import org.jumpmind.symmetric.service.IDataExtractorService;
+import org.jumpmind.symmetric.service.IExtensionService;
+import org.jumpmind.symmetric.service.INodeCommunicationService;
+import org.jumpmind.symmetric.service.INodeService;
+import org.jumpmind.symmetric.statistic.IStatisticManager;
+import org.jumpmind.symmetric.transport.IOutgoingTransport;
+import org.jumpmind.symmetric.transport.IOutgoingWithResponseTransport;
+import org.jumpmind.symmetric.transport.ITransportManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class PushServiceTest {
+
+    Properties properties;
+
+    IDataExtractorService dataExtractorService;
+
+    IAcknowledgeService acknowledgeService;
+
+    ITransportManager transportManager;
+
+    IOutgoingWithResponseTransport transport;
+
+    PushService pushService;
+
+    Node identity;
+
+    Node remote;
+
+    List<OutgoingBatch> extractedBatches;
+
+    List<BatchAck> batchAcks;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = new Properties();
+        properties.setProperty(ParameterConstants.PUSH_PIPELINE_BATCHES, "10");
+        properties.setProperty(ParameterConstants.STREAM_TO_FILE_ENABLED, "true");
+
+        ISymmetricDialect symmetricDialect = mock(ISymmetricDialect.class);
+        when(symmetricDialect.getPlatform()).thenReturn(mock(IDatabasePlatform.class));
+
+        identity = new Node("00001", "http://localhost/sync/corp-000", "3.9.0");
+        remote = new Node("00002", "http://localhost/sync/store-001", "3.9.0");
+        INodeService nodeService = mock(INodeService.class);
+        when(nodeService.findIdentity()).thenReturn(identity);
+        when(nodeService.findNodeSecurity(anyString(), eq(true))).thenReturn(new NodeSecurity());
+
+        IStatisticManager statisticManager = mock(IStatisticManager.class);
+        when(statisticManager.newProcessInfo(any(ProcessInfoKey.class))).thenAnswer(new Answer<ProcessInfo>() {
+            public ProcessInfo answer(InvocationOnMock invocation) {
+                return new ProcessInfo((ProcessInfoKey) invocation.getArgument(0));
+            }
+        });
+
+        extractedBatches = Arrays.asList(newBatch(1), newBatch(2));
+        batchAcks = Arrays.asList(new BatchAck(1), new BatchAck(2));
+
+        dataExtractorService = mock(IDataExtractorService.class);
+        when(dataExtractorService.extract(any(ProcessInfo.class), eq(remote), eq("default"),
+                any(IOutgoingTransport.class))).thenReturn(extractedBatches);
+
+        transport = mock(IOutgoingWithResponseTransport.class);
+        when(transport.readResponse()).thenReturn(new BufferedReader(new StringReader("ack\nextended\n")));
+        transportManager = mock(ITransportManager.class);
+        when(transportManager.getPushTransport(eq(remote), eq(identity), any(), anyMap(), any())).thenReturn(transport);
+        when(transportManager.readAcknowledgement("ack", "extended")).thenReturn(batchAcks);
+
+        acknowledgeService = mock(IAcknowledgeService.class);
+
+        pushService = new PushService(new MockParameterService(properties), symmetricDialect, dataExtractorService,
+                acknowledgeService, transportManager, nodeService, mock(IClusterService.class),
+                mock(INodeCommunicationService.class), statisticManager, mock(IConfigurationService.class),
+                mock(IExtensionService.class));
+    }
+
+    @After
+    public void tearDown() {
+        pushService.stop();
+    }
+
+    @Test
+    public void testExtractAheadWhileReadingAcks() throws Exception {
+        final CountDownLatch acked = new CountDownLatch(1);
+        final List<Boolean> extractedAheadAfterAck = new ArrayList<Boolean>();
+        when(acknowledgeService.ack(batchAcks)).thenAnswer(new Answer<List<BatchAckResult>>() {
+            public List<BatchAckResult> answer(InvocationOnMock invocation) {
+                acked.countDown();
+                return new ArrayList<BatchAckResult>();
+            }
+        });
+        when(dataExtractorService.extractAhead(any(ProcessInfo.class), eq(remote), eq("default"),
+                eq(extractedBatches), eq(10))).thenAnswer(new Answer<List<OutgoingBatch>>() {
+            public List<OutgoingBatch> answer(InvocationOnMock invocation) throws Exception {
+                extractedAheadAfterAck.add(acked.await(10, TimeUnit.SECONDS));
+                return Arrays.asList(newBatch(3));
+            }
+        });
+
+        RemoteNodeStatus status = push();
+
+        assertEquals(Arrays.asList(Boolean.TRUE), extractedAheadAfterAck);
+        verify(acknowledgeService).ack(batchAcks);
+        assertFalse(status.failed());
+        assertEquals(2, status.getBatchesProcessed());
+    }
+
+    @Test
+    public void testExtractAheadFailureDoesNotFailPush() throws Exception {
+        when(dataExtractorService.extractAhead(any(ProcessInfo.class), eq(remote), eq("default"),
+                eq(extractedBatches), eq(10))).thenThrow(new RuntimeException("staging is full"));
+
+        RemoteNodeStatus status = push();
+
+        verify(acknowledgeService).ack(batchAcks);
+        assertFalse(status.failed());
+        assertEquals(2, status.getBatchesProcessed());
+    }
+
+    @Test
+    public void testNoExtractAheadWhenDisabled() throws Exception {
+        properties.setProperty(ParameterConstants.PUSH_PIPELINE_BATCHES, "0");
+
+        RemoteNodeStatus status = push();
+
+        verify(dataExtractorService, never()).extractAhead(any(ProcessInfo.class), any(Node.class), anyString(),
+                anyList(), anyInt());
+        verify(acknowledgeService).ack(batchAcks);
+        assertFalse(status.failed());
+    }
+
+    @Test
+    public void testStopShutsDownPipelineExecutor() {
+        ExecutorService executor = pushService.getPipelineExecutor();
+        pushService.stop();
+        assertTrue(executor.isShutdown());
+        assertNotSame(executor, pushService.getPipelineExecutor());
+    }
+
+    protected RemoteNodeStatus push() {
+        NodeCommunication nodeCommunication = new NodeCommunication();
+        nodeCommunication.setNode(remote);
+        nodeCommunication.setNodeId(remote.getNodeId());
+        nodeCommunication.setQueue("default");
+        RemoteNodeStatus status = new RemoteNodeStatus(remote.getNodeId(), "default", new HashMap<String, Channel>());
+        pushService.execute(nodeCommunication, status);
+        return status;
+    }
+
+    protected OutgoingBatch newBatch(long batchId) {
+        OutgoingBatch batch = new OutgoingBatch(remote.getNodeId(), "default", OutgoingBatch.Status.LD);
+        batch.setBatchId(batchId);
+        return batch;
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.db.sql.ISqlRowMapper;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.symmetric.common.ParameterConstants;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.model.Sequence;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SequenceServiceTest {
+
+    static final String NAME = "outgoing_batch";
+
+    Properties properties;
+
+    SequenceService sequenceService;
+
+    ISqlTransaction transaction;
+
+    ISymmetricDialect symmetricDialect;
+
+    @SuppressWarnings("unchecked")
+    @Before
+    public void setUp() {
+        properties = new Properties();
+        properties.setProperty(ParameterConstants.CLUSTER_LOCKING_ENABLED, "true");
+        IDatabasePlatform platform = mock(IDatabasePlatform.class);
+        when(platform.getDatabaseInfo()).thenReturn(new DatabaseInfo());
+        symmetricDialect = mock(ISymmetricDialect.class);
+        when(symmetricDialect.getPlatform()).thenReturn(platform);
+        sequenceService = new SequenceService(new MockParameterService(properties), symmetricDialect);
+
+        transaction = mock(ISqlTransaction.class);
+        when(transaction.query(anyString(), any(ISqlRowMapper.class), any(Object[].class), any(int[].class)))
+                .thenReturn(Arrays.asList(new Sequence(NAME, 1, 1, 1, 9999999999l, "system", false, 10)));
+        when(transaction.prepareAndExecute(anyString(), any(), any(), any())).thenReturn(1);
+    }
+
+    @Test
+    public void testClusterLeasesBlock() {
+        when(transaction.queryForLong(anyString(), any())).thenReturn(100l, 110l, 110l);
+        assertEquals(101, sequenceService.nextVal(transaction, NAME));
+        assertEquals(102, sequenceService.nextVal(transaction, NAME));
+        assertEquals(103, sequenceService.nextVal(transaction, NAME));
+        verify(transaction, times(1)).prepareAndExecute(anyString(), eq(110l), eq(NAME), eq(100l));
+    }
+
+    @Test
+    public void testClusterValuesIncreaseAcrossServers() {
+        final long[] currentValue = new long[] { 100 };
+        SequenceService serverA = sequenceService;
+        ISqlTransaction transactionA = newSharedTransaction(currentValue);
+        SequenceService serverB = new SequenceService(new MockParameterService(properties), symmetricDialect);
+        ISqlTransaction transactionB = newSharedTransaction(currentValue);
+
+        long lastValue = 0;
+        for (int i = 0; i < 30; i++) {
+            long value = i % 3 == 0 ? serverB.nextVal(transactionB, NAME) : serverA.nextVal(transactionA, NAME);
+            assertTrue("Value " + value + " did not increase from " + lastValue, value > lastValue);
+            lastValue = value;
+        }
+    }
+
+    /*
+     * Simulates sym_sequence shared by the servers of a cluster, including the
+     * conditional update of current_value.
+     */
+    @SuppressWarnings("unchecked")
+    protected ISqlTransaction newSharedTransaction(final long[] currentValue) {
+        ISqlTransaction transaction = mock(ISqlTransaction.class);
+        when(transaction.query(anyString(), any(ISqlRowMapper.class), any(Object[].class), any(int[].class)))
+                .thenReturn(Arrays.asList(new Sequence(NAME, 1, 1, 1, 9999999999l, "system", false, 10)));
+        when(transaction.queryForLong(anyString(), any())).thenAnswer(new Answer<Long>() {
+            public Long answer(InvocationOnMock invocation) {
+                return currentValue[0];
+            }
+        });
+        when(transaction.prepareAndExecute(anyString(), any(), any(), any())).thenAnswer(new Answer<Integer>() {
+            public Integer answer(InvocationOnMock invocation) {
+                long expected = (Long) invocation.getArgument(3);
+                if (currentValue[0] == expected) {
+                    currentValue[0] = (Long) invocation.getArgument(1);
+                    return 1;
+                }
+                return 0;
+            }
+        });
+        return transaction;
+    }
+
+}
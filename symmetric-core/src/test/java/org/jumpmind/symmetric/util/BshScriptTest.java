@@ -0,0 +1,96 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jumpmind.db.platform.DatabaseInfo;
+import org.jumpmind.db.platform.IDatabasePlatform;
+import org.jumpmind.symmetric.ISymmetricEngine;
+import org.jumpmind.symmetric.db.ISymmetricDialect;
+import org.jumpmind.symmetric.service.IExtensionService;
+import org.jumpmind.symmetric.service.IParameterService;
+import org.jumpmind.symmetric.service.impl.ExtensionService;
+import org.junit.Test;
+
+public class BshScriptTest {
+
+    @Test
+    public void testReferences() {
+        BshScript script = BshScript.get("if (STATUS.equals(\"ACTIVE\")) { return currentValue; } // OLD_STATUS\n"
+                + "/* NAME */ return 'x' + 10L;");
+        assertTrue(script.references("STATUS"));
+        assertTrue(script.references("currentValue"));
+        assertFalse(script.references("ACTIVE"));
+        assertFalse(script.references("OLD_STATUS"));
+        assertFalse(script.references("NAME"));
+        assertFalse(script.references("x"));
+        assertFalse(script.references("L"));
+        assertTrue(script.referencesUpperCaseOf("status"));
+        assertFalse(script.referencesUpperCaseOf("currentValue"));
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        Map<String, String> variableTypes = new LinkedHashMap<String, String>();
+        variableTypes.put("currentValue", "String");
+        variableTypes.put("STATUS", "String");
+
+        BshScript script = BshScript.get("return currentValue + \"-\" + STATUS;");
+        ICompiledBshScript compiled = script.compile(getExtensionService(), "", "BshScriptTestExt", variableTypes);
+        assertNotNull(compiled);
+        Map<String, Object> bindings = new HashMap<String, Object>();
+        bindings.put("currentValue", "a");
+        bindings.put("STATUS", "b");
+        assertEquals("a-b", compiled.eval(bindings));
+    }
+
+    @Test
+    public void testCompileFailureFallsBack() throws Exception {
+        BshScript script = BshScript.get("x = 1; x + 1");
+        assertNull(script.compile(getExtensionService(), "", "BshScriptTestExt", new HashMap<String, String>()));
+        assertTrue(script.isCompileAttempted("BshScriptTestExt"));
+        assertNull(script.getCompiled("BshScriptTestExt"));
+    }
+
+    protected IExtensionService getExtensionService() {
+        ISymmetricEngine engine = mock(ISymmetricEngine.class);
+        IParameterService parameterService = mock(IParameterService.class);
+        IDatabasePlatform platform = mock(IDatabasePlatform.class);
+        ISymmetricDialect dialect = mock(ISymmetricDialect.class);
+        when(dialect.getPlatform()).thenReturn(platform);
+        when(platform.getDatabaseInfo()).thenReturn(new DatabaseInfo());
+        when(engine.getParameterService()).thenReturn(parameterService);
+        when(engine.getSymmetricDialect()).thenReturn(dialect);
+        return new ExtensionService(engine);
+    }
+
+}
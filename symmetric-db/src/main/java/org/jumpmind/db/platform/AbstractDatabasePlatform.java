@@ -347,6 +347,17 @@ public abstract class AbstractDatabasePlatform implements IDatabasePlatform {
         return retTable;
     }
 
+    public int cacheTablesFromDatabase(String catalogName, String schemaName) {
+        String defaultedCatalogName = catalogName == null ? getDefaultCatalog() : catalogName;
+        String defaultedSchemaName = schemaName == null ? getDefaultSchema() : schemaName;
+        Database database = ddlReader.readTables(defaultedCatalogName, defaultedSchemaName, null);
+        Table[] tables = database.getTables();
+        for (Table table : tables) {
+            tableCache.put(Table.getFullyQualifiedTableName(catalogName, schemaName, table.getName()), table);
+        }
+        return tables.length;
+    }
+
     public Object[] getObjectValues(BinaryEncoding encoding, Table table, String[] columnNames, String[] values) {
         Column[] metaData = Table.orderColumns(columnNames, table);
         return getObjectValues(encoding, values, metaData);
@@ -98,6 +98,14 @@ public interface IDatabasePlatform {
     public Table getTableFromCache(String catalogName, String schemaName, String tableName,
             boolean forceReread);
 
+    /**
+     * Reads every table in a catalog and schema at once and puts them in the
+     * cache used by {@link IDatabasePlatform#getTableFromCache(String, String, String, boolean)}.
+     * 
+     * @return the number of tables that were cached
+     */
+    public int cacheTablesFromDatabase(String catalogName, String schemaName);
+
     public void createDatabase(Database targetDatabase, boolean dropTablesFirst,
             boolean continueOnError);
 
@@ -1,5 +1,6 @@
 package org.jumpmind.db.platform.cassandra;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +30,25 @@ public class CassandraSqlTransaction implements ISqlTransaction {
 
 	}
 
+	@Override
+	public void setStatementCacheSize(int size) {
+	}
+
+	@Override
+	public int getBatchSize() {
+		return 1;
+	}
+
+	@Override
+	public <T> List<T> getMarkersWithNoUpdates(boolean clear) {
+		return new ArrayList<T>(0);
+	}
+
+	@Override
+	public <T> List<T> getMarkersWithUnknownUpdates(boolean clear) {
+		return new ArrayList<T>(0);
+	}
+
 	@Override
 	public <T> T queryForObject(String sql, Class<T> clazz, Object... args) {
 		// TODO Auto-generated method stub
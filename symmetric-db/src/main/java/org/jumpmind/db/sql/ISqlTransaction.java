@@ -33,6 +33,12 @@ public interface ISqlTransaction {
 
     public void setInBatchMode(boolean batchMode);
 
+    /**
+     * The number of rows added in batch mode after which the batch is
+     * flushed automatically
+     */
+    public int getBatchSize();
+
     public <T> T queryForObject(String sql, Class<T> clazz, Object... args);
 
     public Row queryForRow(String sql, Object... args);
@@ -64,12 +70,32 @@ public interface ISqlTransaction {
      */
     public void prepare(String sql);
 
+    /**
+     * Keep up to this many prepared statements open so that a call to
+     * {@link #prepare(String)} with sql that was recently prepared can reuse
+     * the statement. A size of zero disables the cache.
+     */
+    public void setStatementCacheSize(int size);
+
     public <T> int addRow(T marker, Object[] values, int[] types);
 
     public int flush();
 
     public <T> List<T> getUnflushedMarkers(boolean clear);
 
+    /**
+     * Markers of the rows in the batches flushed since the last commit or
+     * rollback that did not update any rows, in the order they were added.
+     */
+    public <T> List<T> getMarkersWithNoUpdates(boolean clear);
+
+    /**
+     * Markers of the rows in the batches flushed since the last commit or
+     * rollback that the driver reported as successful without an update
+     * count, in the order they were added.
+     */
+    public <T> List<T> getMarkersWithUnknownUpdates(boolean clear);
+
     /**
      * Indicate that the current session is to allow updates to columns that
      * have been marked as auto increment. This is specific to SQL Server.
@@ -51,7 +51,17 @@ public class CsvData {
     public static final String ATTRIBUTE_ROUTER_ID = "routerId";    
     public static final String ATTRIBUTE_DATA_ID = "dataId";
     public static final String ATTRIBUTE_CREATE_TIME = "createTime";
-    
+
+    /*
+     * The well known data keys are stored by position in the slot arrays
+     * below. Any other key falls back to a map.
+     */
+    private static final String[] SLOT_KEYS = { ROW_DATA, OLD_DATA, PK_DATA, RESOLVE_DATA };
+
+    private String[][] parsedCsvDataSlots = null;
+
+    private String[] csvDataSlots = null;
+
     private Map<String, String[]> parsedCsvData = null;
 
     private Map<String, String> csvData = null;
@@ -90,9 +100,39 @@ public class CsvData {
     public CsvData() {
     }
 
+    protected static int slotOf(String key) {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (SLOT_KEYS[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            if (SLOT_KEYS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    protected String[] parsedData(String key, int slot) {
+        if (slot >= 0) {
+            return parsedCsvDataSlots != null ? parsedCsvDataSlots[slot] : null;
+        } else {
+            return parsedCsvData != null ? parsedCsvData.get(key) : null;
+        }
+    }
+
+    protected String csvData(String key, int slot) {
+        if (slot >= 0) {
+            return csvDataSlots != null ? csvDataSlots[slot] : null;
+        } else {
+            return csvData != null ? csvData.get(key) : null;
+        }
+    }
+
     public boolean contains(String key) {
-        return (parsedCsvData != null && parsedCsvData.get(key) != null)
-                || (csvData != null && csvData.get(key) != null);
+        int slot = slotOf(key);
+        return parsedData(key, slot) != null || csvData(key, slot) != null;
     }
 
     public void setDataEventType(DataEventType dataEventType) {
@@ -116,13 +156,23 @@ public class CsvData {
     }
     
     public void removeCsvData(String key) {
-        if (csvData != null) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (csvDataSlots != null) {
+                csvDataSlots[slot] = null;
+            }
+        } else if (csvData != null) {
             csvData.remove(key);
         }
     }
     
     public void removeParsedData(String key) {
-        if (parsedCsvData != null) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (parsedCsvDataSlots != null) {
+                parsedCsvDataSlots[slot] = null;
+            }
+        } else if (parsedCsvData != null) {
             parsedCsvData.remove(key);
         }        
     }
@@ -134,21 +184,27 @@ public class CsvData {
 
     public void putCsvData(String key, String data) {
         removeAllData(key);
-        if (csvData == null) {
-            csvData = new HashMap<String, String>(2);
-        }
         changedDataIndicators = null;
-        csvData.put(key, data);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (csvDataSlots == null) {
+                csvDataSlots = new String[SLOT_KEYS.length];
+            }
+            csvDataSlots[slot] = data;
+        } else {
+            if (csvData == null) {
+                csvData = new HashMap<String, String>(2);
+            }
+            csvData.put(key, data);
+        }
     }
 
     public String getCsvData(String key) {
-        String data = null;
-        if (csvData != null) {
-            data = csvData.get(key);
-        }
+        int slot = slotOf(key);
+        String data = csvData(key, slot);
 
-        if (data == null && parsedCsvData != null) {
-            String[] parsedData = parsedCsvData.get(key);
+        if (data == null) {
+            String[] parsedData = parsedData(key, slot);
             if (parsedData != null) {
                 data = CsvUtils.escapeCsvData(parsedData);
                 // swap out data for parsed data so we don't 
@@ -185,19 +241,30 @@ public class CsvData {
 
     public void putParsedData(String key, String[] data) {
         removeAllData(key);
-        if (parsedCsvData == null) {
-            parsedCsvData = new HashMap<String, String[]>(2);
-        }
         changedDataIndicators = null;
-        parsedCsvData.put(key, data);
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (parsedCsvDataSlots == null) {
+                parsedCsvDataSlots = new String[SLOT_KEYS.length][];
+            }
+            parsedCsvDataSlots[slot] = data;
+        } else {
+            if (parsedCsvData == null) {
+                parsedCsvData = new HashMap<String, String[]>(2);
+            }
+            parsedCsvData.put(key, data);
+        }
     }
     
+    /**
+     * Returns the parsed values for the key. CSV text is only tokenized the
+     * first time the parsed values are asked for.
+     */
     public String[] getParsedData(String key) {
-        String[] values = null;
-        if (parsedCsvData != null && parsedCsvData.containsKey(key)) {
-            values = parsedCsvData.get(key);
-        } else if (csvData != null && csvData.containsKey(key)) {
-            String data = csvData.get(key);
+        int slot = slotOf(key);
+        String[] values = parsedData(key, slot);
+        if (values == null) {
+            String data = csvData(key, slot);
             if (data != null) {
                 values = CsvUtils.tokenizeCsvData(data);
                 putParsedData(key, values);
@@ -302,6 +369,13 @@ public class CsvData {
     
     public long getSizeInBytes() {
         long size = 0;
+        if (csvDataSlots != null) {
+            for (String string : csvDataSlots) {
+                if (string != null) {
+                    size += string.getBytes().length;
+                }
+            }
+        }
         if (csvData != null) {
             Collection<String> values = csvData.values();
             for (String string : values) {
@@ -20,18 +20,30 @@
  */
 package org.jumpmind.symmetric.io.data;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.sql.Types;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringEscapeUtils;
@@ -39,6 +51,7 @@ import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.io.DatabaseXmlUtil;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Database;
+import org.jumpmind.db.model.ForeignKey;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.DdlBuilderFactory;
 import org.jumpmind.db.platform.DmlStatementFactory;
@@ -53,12 +66,15 @@ import org.jumpmind.exception.IoException;
 import org.jumpmind.symmetric.csv.CsvWriter;
 import org.jumpmind.symmetric.io.IoConstants;
 import org.jumpmind.symmetric.io.IoVersion;
+import org.jumpmind.util.CustomizableThreadFactory;
 
 /**
  * Export the structure and data from database tables to file.
  */
 public class DbExport {
 
+    public static final String MANIFEST_FILE_NAME = "dbexport.manifest";
+
     public enum Format {
         SQL, CSV, XML, SYM_XML
     };
@@ -103,6 +119,12 @@ public class DbExport {
 
     private boolean useJdbcTimestampFormat = true;
 
+    private int threadCount = 1;
+
+    private long chunkRows;
+
+    private boolean compress;
+
     private IDatabasePlatform platform;
 
     public DbExport(IDatabasePlatform platform) {
@@ -177,6 +199,11 @@ public class DbExport {
             tables[i] = tables[i].copy();
         }
 
+        if (isExportInChunks() && sql == null) {
+            exportTablesInChunks(Database.sortByForeignKeys(tables));
+            return;
+        }
+
         WriterWrapper writerWrapper = null;
 
         try {
@@ -194,6 +221,132 @@ public class DbExport {
         }
     }
 
+    protected boolean isExportInChunks() {
+        return StringUtils.isNotBlank(dir) && (threadCount > 1 || chunkRows > 0 || compress);
+    }
+
+    /**
+     * Write each table to its own file in the export directory using a pool of
+     * worker threads. Large tables with a single integer primary key are split
+     * into primary key ranges of about chunkRows rows, each written to its own
+     * file. A manifest listing every file with its foreign key level is written
+     * last, so an import can load the chunks of one level in parallel.
+     */
+    protected void exportTablesInChunks(Table[] tables) throws IOException {
+        File directory = new File(dir);
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        Map<String, Integer> levels = new HashMap<String, Integer>();
+        List<ExportChunk> chunks = new ArrayList<ExportChunk>();
+        for (Table table : tables) {
+            removeExcludedColumns(table);
+            int level = getForeignKeyLevel(table, levels);
+            levels.put(table.getName().toUpperCase(), level);
+            chunks.addAll(getChunks(table, level));
+        }
+
+        int poolSize = Math.max(1, Math.min(threadCount, chunks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("dbexport"));
+        try {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>(chunks.size());
+            for (final ExportChunk chunk : chunks) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    public Long call() throws Exception {
+                        WriterWrapper writerWrapper = new WriterWrapper(new File(dir, chunk.fileName),
+                                chunk.chunk == 0);
+                        return writeTable(writerWrapper, chunk.table.copy(), null, chunk.rangeClause);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                chunks.get(i).rows = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            throw new IoException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IoException("Failed to export table", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeManifest(new File(dir, MANIFEST_FILE_NAME), chunks);
+    }
+
+    protected int getForeignKeyLevel(Table table, Map<String, Integer> levels) {
+        int level = 0;
+        for (ForeignKey fk : table.getForeignKeys()) {
+            Integer parentLevel = levels.get(fk.getForeignTableName().toUpperCase());
+            if (parentLevel != null && !fk.getForeignTableName().equalsIgnoreCase(table.getName())) {
+                level = Math.max(level, parentLevel + 1);
+            }
+        }
+        return level;
+    }
+
+    protected List<ExportChunk> getChunks(Table table, int level) {
+        List<ExportChunk> chunks = new ArrayList<ExportChunk>();
+        String extension = format.toString().replace('_', '.').toLowerCase() + (compress ? ".gz" : "");
+        Column[] pkColumns = table.getPrimaryKeyColumns();
+        if (chunkRows > 0 && !noData && pkColumns.length == 1 && isIntegerType(pkColumns[0])
+                && table.getSelfReferencingForeignKey() == null && StringUtils.isBlank(whereClause)
+                && maxRows == Integer.MAX_VALUE) {
+            String quote = platform.getDdlBuilder().isDelimitedIdentifierModeOn() ? platform.getDatabaseInfo()
+                    .getDelimiterToken() : "";
+            String pk = quote + pkColumns[0].getName() + quote;
+            Row row = platform.getSqlTemplate().queryForRow(String.format(
+                    "select min(%s) min_id, max(%s) max_id, count(*) row_count from %s", pk, pk,
+                    table.getQualifiedTableName(quote, platform.getDatabaseInfo().getCatalogSeparator(),
+                            platform.getDatabaseInfo().getSchemaSeparator())));
+            long rowCount = row.getLong("row_count");
+            if (rowCount > chunkRows) {
+                long minId = row.getLong("min_id");
+                long maxId = row.getLong("max_id");
+                long chunkCount = (rowCount + chunkRows - 1) / chunkRows;
+                long step = (maxId - minId) / chunkCount + 1;
+                for (int i = 0; i < chunkCount; i++) {
+                    long start = minId + i * step;
+                    String rangeClause = null;
+                    if (i == 0) {
+                        rangeClause = String.format("%s < %d", pk, start + step);
+                    } else if (i == chunkCount - 1) {
+                        rangeClause = String.format("%s >= %d", pk, start);
+                    } else {
+                        rangeClause = String.format("%s >= %d and %s < %d", pk, start, pk, start + step);
+                    }
+                    chunks.add(new ExportChunk(level, table, i, String.format("%s.%d.%s", table.getName(), i,
+                            extension), rangeClause));
+                }
+                return chunks;
+            }
+        }
+        chunks.add(new ExportChunk(level, table, 0, String.format("%s.%s", table.getName(), extension), null));
+        return chunks;
+    }
+
+    protected boolean isIntegerType(Column column) {
+        int type = column.getMappedTypeCode();
+        return type == Types.TINYINT || type == Types.SMALLINT || type == Types.INTEGER || type == Types.BIGINT
+                || ((type == Types.NUMERIC || type == Types.DECIMAL) && column.getScale() == 0);
+    }
+
+    protected void writeManifest(File file, List<ExportChunk> chunks) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), IoConstants.ENCODING));
+        try {
+            writer.write("# level\ttable\tchunk\tfile\trows\n");
+            for (ExportChunk chunk : chunks) {
+                writer.write(String.format("%d\t%s\t%d\t%s\t%d\n", chunk.level, chunk.tableName, chunk.chunk,
+                        chunk.fileName, chunk.rows));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
     protected String getSchemaToUse() {
         if (StringUtils.isBlank(schema)) {
             return platform.getDefaultSchema();
@@ -223,6 +376,12 @@ public class DbExport {
     
     protected void writeTable(final WriterWrapper writerWrapper, Table table, String sql)
             throws IOException {
+        writeTable(writerWrapper, table, sql, null);
+    }
+
+    protected long writeTable(final WriterWrapper writerWrapper, Table table, String sql, String rangeClause)
+            throws IOException {
+        final AtomicLong rowCount = new AtomicLong();
         removeExcludedColumns(table);
         writerWrapper.startTable(table);
 
@@ -239,6 +398,8 @@ public class DbExport {
             if (table.getColumnCount() > 0) {
                 if (StringUtils.isNotBlank(whereClause)) {
                     sql = String.format("%s %s", sql, whereClause);
+                } else if (StringUtils.isNotBlank(rangeClause)) {
+                    sql = String.format("%s where %s", sql, rangeClause);
                 }
     
                 platform.getSqlTemplate().query(sql, new ISqlRowMapper<Object>() {
@@ -246,6 +407,7 @@ public class DbExport {
                     public Object mapRow(Row row) {
                         if (rows > 0) {
                            writerWrapper.writeRow(row);
+                           rowCount.incrementAndGet();
                            rows--;
                         }
                         return Boolean.TRUE;
@@ -255,7 +417,7 @@ public class DbExport {
         }
 
         writerWrapper.finishTable(table);
-
+        return rowCount.get();
     }
 
     protected Column[] getColumnsToExport(Table table) {
@@ -456,6 +618,30 @@ public class DbExport {
         return maxRows;
     }
 
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setChunkRows(long chunkRows) {
+        this.chunkRows = chunkRows;
+    }
+
+    public long getChunkRows() {
+        return chunkRows;
+    }
+
+    public void setCompress(boolean compress) {
+        this.compress = compress;
+    }
+
+    public boolean isCompress() {
+        return compress;
+    }
+
     protected String getDatabaseName() {
         Compatible mappedCompatible = compatible;
         
@@ -465,6 +651,32 @@ public class DbExport {
         return mappedCompatible.toString().toLowerCase();
     }
 
+    static class ExportChunk {
+        int level;
+        Table table;
+        String tableName;
+        int chunk;
+        String fileName;
+        String rangeClause;
+        long rows;
+
+        ExportChunk(int level, Table table, int chunk, String fileName, String rangeClause) {
+            this.level = level;
+            this.table = table;
+            this.tableName = table.getName();
+            this.chunk = chunk;
+            this.fileName = fileName;
+            this.rangeClause = rangeClause;
+        }
+
+        ExportChunk(int level, String tableName, int chunk, String fileName) {
+            this.level = level;
+            this.tableName = tableName;
+            this.chunk = chunk;
+            this.fileName = fileName;
+        }
+    }
+
     class WriterWrapper {
         final private SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
@@ -473,6 +685,8 @@ public class DbExport {
         private Table table;
         private DmlStatement insertSql;
         private boolean startedWriting = false;
+        private File file;
+        private boolean writeCreateInfo = true;
 
         public WriterWrapper(OutputStream os) {
             if (StringUtils.isBlank(dir) && os != null) {
@@ -484,10 +698,23 @@ public class DbExport {
             }
         }
 
+        public WriterWrapper(File file, boolean writeCreateInfo) {
+            this.file = file;
+            this.writeCreateInfo = writeCreateInfo;
+        }
+
         protected void startTable(Table table) {
             try {
                 this.table = table;
-                if (StringUtils.isNotBlank(dir)) {
+                if (file != null) {
+                    startedWriting = false;
+                    FileUtils.deleteQuietly(file);
+                    OutputStream os = new FileOutputStream(file);
+                    if (compress) {
+                        os = new GZIPOutputStream(os);
+                    }
+                    writer = new BufferedWriter(new OutputStreamWriter(os, IoConstants.ENCODING));
+                } else if (StringUtils.isNotBlank(dir)) {
                     startedWriting = false;
                     File directory = new File(dir);
                     if (!directory.exists()) {
@@ -549,7 +776,7 @@ public class DbExport {
                     }
                 }
 
-                if (!noCreateInfo) {
+                if (!noCreateInfo && writeCreateInfo) {
                     if (format == Format.SQL) {
                         IDdlBuilder target = DdlBuilderFactory.createDdlBuilder(databaseName);
                         target.setDelimitedIdentifierModeOn(useQuotedIdentifiers);
@@ -564,7 +791,7 @@ public class DbExport {
                         DatabaseXmlUtil.write(table, writer);
                     }
                 }
-                else if (addDropTable) {
+                else if (addDropTable && writeCreateInfo) {
                     if (format == Format.SQL) {
                         IDdlBuilder target = DdlBuilderFactory.createDdlBuilder(databaseName);
                         write(target.dropTables(getDatabase(table)));
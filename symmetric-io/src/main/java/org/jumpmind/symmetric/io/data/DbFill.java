@@ -36,6 +36,11 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.lang.StringUtils;
@@ -57,6 +62,7 @@ import org.jumpmind.db.sql.SqlException;
 import org.jumpmind.db.util.BinaryEncoding;
 import org.jumpmind.db.util.TableRow;
 import org.jumpmind.util.AppUtils;
+import org.jumpmind.util.CustomizableThreadFactory;
 import org.jumpmind.util.FormatUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -111,6 +117,16 @@ public class DbFill {
     private boolean useRandomCount = false;
     
     private String textColumnExpression;
+
+    private int threadCount = 1;
+
+    private int durationSeconds = 0;
+
+    private int rowsPerSecond = 0;
+
+    private int batchSize = 1;
+
+    private DbFillStatistics statistics;
     
     // Weights given to insert, update, and delete commands when
     // randomly selecting a command for any given table.
@@ -242,7 +258,245 @@ public class DbFill {
         buildDependentColumnValues(orderedTables);
         buildMinColumnSizes(orderedTables);
 
-        fillTables(tablesToFill, orderedTables, tableProperties);
+        if (isWorkload()) {
+            fillTablesWithWorkers(tablesToFill, orderedTables, tableProperties);
+        } else {
+            fillTables(tablesToFill, orderedTables, tableProperties);
+        }
+    }
+
+    protected boolean isWorkload() {
+        return threadCount > 1 || durationSeconds > 0 || rowsPerSecond > 0 || batchSize > 1;
+    }
+
+    /**
+     * Run the fill as a workload on threadCount workers. Each worker has its own
+     * transaction and generated row state, and takes an even share of the
+     * repeat * count rows for each table, or runs until durationSeconds has
+     * passed when it is set. Inserts are sent as JDBC batches of up to batchSize
+     * rows, and the combined rate is held to rowsPerSecond when it is set. Only
+     * rows that were committed are counted. The throughput and latency are
+     * logged at the end and available from {@link #getStatistics()}.
+     */
+    protected void fillTablesWithWorkers(final List<Table> tablesToFill, final List<Table> orderedTables,
+            final Map<String, int[]> tableProperties) {
+        if (truncate) {
+            ListIterator<Table> iterator = tablesToFill.listIterator(tablesToFill.size());
+            while (iterator.hasPrevious()) {
+                truncateTable(iterator.previous());
+            }
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final long endTime = durationSeconds > 0 ? startTime + durationSeconds * 1000L : Long.MAX_VALUE;
+        int workerCount = Math.max(1, threadCount);
+        log.info("Starting " + workerCount + " workers" + (durationSeconds > 0 ? " for " + durationSeconds + " seconds" : "")
+                + (rowsPerSecond > 0 ? " at " + rowsPerSecond + " rows per second" : ""));
+
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("dbfill"));
+        List<Future<DbFillStatistics>> futures = new ArrayList<Future<DbFillStatistics>>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final DbFill worker = copyForWorker();
+            final int workerIndex = i;
+            futures.add(executor.submit(new Callable<DbFillStatistics>() {
+                public DbFillStatistics call() {
+                    return worker.runWorker(workerIndex, tablesToFill, orderedTables, tableProperties, startTime,
+                            endTime);
+                }
+            }));
+        }
+
+        statistics = new DbFillStatistics();
+        try {
+            for (Future<DbFillStatistics> future : futures) {
+                statistics.merge(future.get());
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        statistics.setElapsedMillis(System.currentTimeMillis() - startTime);
+        log.info("Workload completed: " + statistics);
+    }
+
+    protected DbFill copyForWorker() {
+        DbFill worker = new DbFill(platform);
+        worker.catalog = catalog;
+        worker.schema = schema;
+        worker.cascading = cascading;
+        worker.cascadingSelect = cascadingSelect;
+        worker.inputLength = inputLength;
+        worker.repeat = repeat;
+        worker.maxRowsCommit = maxRowsCommit;
+        worker.commitDelay = commitDelay;
+        worker.percentRollback = percentRollback;
+        worker.interval = interval;
+        worker.debug = debug;
+        worker.verbose = verbose;
+        worker.continueOnError = continueOnError;
+        worker.textColumnExpression = textColumnExpression;
+        worker.dmlWeight = dmlWeight;
+        worker.threadCount = Math.max(1, threadCount);
+        worker.durationSeconds = durationSeconds;
+        worker.rowsPerSecond = rowsPerSecond;
+        worker.batchSize = batchSize;
+        worker.allDbTablesCache = getAllDbTables();
+        return worker;
+    }
+
+    protected DbFillStatistics runWorker(int workerIndex, List<Table> tablesToFill, List<Table> orderedTables,
+            Map<String, int[]> tableProperties, long startTime, long endTime) {
+        if (cascading || cascadingSelect) {
+            buildForeignTables(tablesToFill);
+        }
+        buildForeignKeyReferences(orderedTables);
+        buildDependentColumnValues(orderedTables);
+        buildMinColumnSizes(orderedTables);
+
+        DbFillStatistics stats = new DbFillStatistics();
+        // changes made in the current transaction, counted once they are committed
+        DbFillStatistics uncommittedStats = new DbFillStatistics();
+        ISqlTransaction tran = platform.getSqlTemplate().startSqlTransaction();
+        long cycles = (long) repeat * inputLength;
+        int rowsPerCycle = Math.max(1, batchSize);
+        int rowsInTransaction = 0;
+        long cyclesRun = 0;
+        try {
+            for (long cycle = (long) workerIndex * rowsPerCycle; (durationSeconds > 0 || cycle < cycles)
+                    && System.currentTimeMillis() < endTime; cycle += (long) threadCount * rowsPerCycle) {
+                int cycleRows = durationSeconds > 0 ? rowsPerCycle : (int) Math.min(rowsPerCycle, cycles - cycle);
+                for (Table table : orderedTables) {
+                    int dmlType = INSERT;
+                    if (tableProperties != null && tableProperties.containsKey(table.getName())) {
+                        dmlType = randomIUD(tableProperties.get(table.getName()));
+                    } else if (dmlWeight != null) {
+                        dmlType = randomIUD(dmlWeight);
+                    }
+
+                    if (cascadingSelect && dmlType == INSERT && !tablesToFill.contains(table)) {
+                        if (currentRowValues.get(table.getName()) == null) {
+                            selectRandomRecord(tran, table);
+                        }
+                        continue;
+                    }
+
+                    int rows = cycleRows;
+                    long ts = System.nanoTime();
+                    try {
+                        switch (dmlType) {
+                        case INSERT:
+                            rows = insertRandomRecords(tran, table, cycleRows);
+                            break;
+                        case UPDATE:
+                            for (int i = 0; i < cycleRows; i++) {
+                                updateRandomRecord(tran, table);
+                            }
+                            break;
+                        case DELETE:
+                            for (int i = 0; i < cycleRows; i++) {
+                                deleteRandomRecord(tran, table);
+                                selectRandomRecord(tran, table);
+                            }
+                            break;
+                        }
+                        uncommittedStats.record(dmlType, rows, System.nanoTime() - ts);
+                    } catch (SqlException ex) {
+                        stats.recordError();
+                        tran.getUnflushedMarkers(true);
+                        tran.rollback();
+                        uncommittedStats = new DbFillStatistics();
+                        rowsInTransaction = 0;
+                        if (!continueOnError) {
+                            throw ex;
+                        }
+                        log.info("Failed to change {}: {}", table.getName(), ex.getMessage());
+                        continue;
+                    }
+
+                    rowsInTransaction += rows;
+                    if (rowsInTransaction >= maxRowsCommit) {
+                        if (commit(tran, rowsInTransaction)) {
+                            stats.merge(uncommittedStats);
+                        }
+                        uncommittedStats = new DbFillStatistics();
+                        rowsInTransaction = 0;
+                        AppUtils.sleep(interval);
+                    }
+
+                    if (rowsPerSecond > 0) {
+                        long rowsSent = stats.getRows() + uncommittedStats.getRows();
+                        long sleepMillis = rowsSent * 1000L * threadCount / rowsPerSecond
+                                - (System.currentTimeMillis() - startTime);
+                        if (sleepMillis > 0) {
+                            AppUtils.sleep(sleepMillis);
+                        }
+                    }
+                }
+
+                long cyclesBefore = cyclesRun;
+                cyclesRun += cycleRows;
+                if (cyclesRun / inputLength != cyclesBefore / inputLength) {
+                    clearDependentColumnValues();
+                    currentRowValues.clear();
+                }
+            }
+
+            if (rowsInTransaction > 0 && commit(tran, rowsInTransaction)) {
+                stats.merge(uncommittedStats);
+            }
+        } finally {
+            tran.close();
+        }
+        return stats;
+    }
+
+    /**
+     * @return false if the transaction was rolled back to honor percentRollback
+     */
+    protected boolean commit(ISqlTransaction tran, int rowsInTransaction) {
+        if (commitDelay > 0) {
+            AppUtils.sleep(commitDelay);
+        }
+        if (percentRollback > 0 && getRand().nextInt(100) <= percentRollback) {
+            if (verbose) {
+                log.info("Rollback " + rowsInTransaction + " rows");
+            }
+            tran.rollback();
+            return false;
+        } else {
+            tran.commit();
+            return true;
+        }
+    }
+
+    /**
+     * Insert count random rows into the table using one JDBC batch.
+     */
+    protected int insertRandomRecords(ISqlTransaction tran, Table table, int count) {
+        if (count <= 1) {
+            insertRandomRecord(tran, table);
+            return 1;
+        }
+        DmlStatement insertStatement = createInsertDmlStatement(table);
+        tran.setInBatchMode(true);
+        try {
+            tran.prepare(insertStatement.getSql());
+            for (int i = 0; i < count; i++) {
+                Row row = createRandomInsertValues(insertStatement, table);
+                tran.addRow(row, insertStatement.getValueArray(row.toArray(table.getColumnNames()),
+                        row.toArray(table.getPrimaryKeyColumnNames())), null);
+            }
+            tran.flush();
+        } finally {
+            tran.setInBatchMode(false);
+        }
+        return count;
     }
     
     protected List<Table> removeSymTables(List<Table> tables) {
@@ -1317,6 +1571,46 @@ public class DbFill {
     	return dmlWeight[2];
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(int durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public int getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(int rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return The throughput and latency of the last workload run, or null if
+     *         the last fill did not run as a workload
+     */
+    public DbFillStatistics getStatistics() {
+        return statistics;
+    }
+
     public void setTextColumnExpression(String textColumnExpression) {
         this.textColumnExpression = textColumnExpression;
     }
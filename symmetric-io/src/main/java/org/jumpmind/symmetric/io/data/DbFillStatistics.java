@@ -0,0 +1,167 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data;
+
+/**
+ * Throughput and latency collected while {@link DbFill} runs a workload.
+ * Latencies are kept in a histogram of exponentially sized buckets, 16 per
+ * power of two microseconds, so percentiles are accurate to about 6% without
+ * storing every sample.
+ */
+public class DbFillStatistics {
+
+    private static final int SUB_BUCKETS = 16;
+
+    private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+
+    private long inserts;
+
+    private long updates;
+
+    private long deletes;
+
+    private long errors;
+
+    private long operations;
+
+    private long maxLatencyMicros;
+
+    private long elapsedMillis;
+
+    private long[] latencyBuckets = new long[BUCKET_COUNT];
+
+    public void record(int dmlType, int rows, long latencyNanos) {
+        if (dmlType == DbFill.INSERT) {
+            inserts += rows;
+        } else if (dmlType == DbFill.UPDATE) {
+            updates += rows;
+        } else if (dmlType == DbFill.DELETE) {
+            deletes += rows;
+        }
+        long micros = Math.max(0, latencyNanos / 1000);
+        latencyBuckets[getBucketIndex(micros)]++;
+        maxLatencyMicros = Math.max(maxLatencyMicros, micros);
+        operations++;
+    }
+
+    public void recordError() {
+        errors++;
+    }
+
+    public void merge(DbFillStatistics other) {
+        inserts += other.inserts;
+        updates += other.updates;
+        deletes += other.deletes;
+        errors += other.errors;
+        operations += other.operations;
+        maxLatencyMicros = Math.max(maxLatencyMicros, other.maxLatencyMicros);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            latencyBuckets[i] += other.latencyBuckets[i];
+        }
+    }
+
+    /**
+     * @param percentile A value from 0 to 100
+     * @return The latency in microseconds that the given percent of operations
+     *         completed within
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (operations == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(operations * percentile / 100d);
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += latencyBuckets[i];
+            if (count >= target && count > 0) {
+                return Math.min(getBucketValue(i), maxLatencyMicros);
+            }
+        }
+        return maxLatencyMicros;
+    }
+
+    protected static int getBucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (highestBit - 4)) & (SUB_BUCKETS - 1);
+        return (highestBit - 3) * SUB_BUCKETS + subBucket;
+    }
+
+    protected static long getBucketValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int highestBit = index / SUB_BUCKETS + 3;
+        long subBucket = index % SUB_BUCKETS;
+        return ((SUB_BUCKETS | subBucket) << (highestBit - 4)) + (1L << (highestBit - 4)) - 1;
+    }
+
+    public long getRows() {
+        return inserts + updates + deletes;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? getRows() * 1000d / elapsedMillis : 0;
+    }
+
+    public long getInserts() {
+        return inserts;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+
+    public long getDeletes() {
+        return deletes;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows in %d ms (%.1f rows/sec), inserts=%d, updates=%d, deletes=%d, errors=%d, "
+                + "latency p50=%dus p95=%dus p99=%dus max=%dus", getRows(), elapsedMillis, getRowsPerSecond(),
+                inserts, updates, deletes, errors, getLatencyPercentile(50), getLatencyPercentile(95),
+                getLatencyPercentile(99), maxLatencyMicros);
+    }
+
+}
@@ -41,17 +41,32 @@ O * Licensed to JumpMind Inc under one or more contributor
 
 package org.jumpmind.symmetric.io.data;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.IDatabasePlatform;
 import org.jumpmind.db.util.BinaryEncoding;
 import org.jumpmind.exception.IoException;
+import org.jumpmind.symmetric.io.IoConstants;
+import org.jumpmind.symmetric.io.data.DbExport.ExportChunk;
 import org.jumpmind.symmetric.io.data.reader.CsvTableDataReader;
 import org.jumpmind.symmetric.io.data.reader.SqlDataReader;
 import org.jumpmind.symmetric.io.data.reader.SymXmlDataReader;
@@ -63,6 +78,7 @@ import org.jumpmind.symmetric.io.data.writer.DatabaseWriterErrorIgnorer;
 import org.jumpmind.symmetric.io.data.writer.DatabaseWriterSettings;
 import org.jumpmind.symmetric.io.data.writer.DefaultDatabaseWriter;
 import org.jumpmind.symmetric.io.data.writer.IDatabaseWriterFilter;
+import org.jumpmind.util.CustomizableThreadFactory;
 
 /**
  * Import data from file to database tables.
@@ -108,6 +124,8 @@ public class DbImport {
     
     private boolean ignoreMissingTables = true;
 
+    private int threadCount = 1;
+
     protected IDatabasePlatform symmetricPlatform;
     
     protected List<IDatabaseWriterFilter> databaseWriterFilters;
@@ -163,6 +181,103 @@ public class DbImport {
         }
     }
 
+    /**
+     * Import the files listed in a manifest written by {@link DbExport} when
+     * exporting in chunks. Foreign key levels are loaded in order. Within a
+     * level, the first chunk of every table is loaded before the remaining
+     * chunks, because it carries the table definition. The chunks are loaded in
+     * parallel on a pool of threadCount workers.
+     */
+    public void importTablesFromManifest(File manifestFile) throws IOException {
+        File dir = manifestFile.getAbsoluteFile().getParentFile();
+        Map<Integer, List<ExportChunk>> levels = readManifest(manifestFile);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount),
+                new CustomizableThreadFactory("dbimport"));
+        try {
+            for (List<ExportChunk> chunks : levels.values()) {
+                List<ExportChunk> firstChunks = new ArrayList<ExportChunk>();
+                List<ExportChunk> otherChunks = new ArrayList<ExportChunk>();
+                for (ExportChunk chunk : chunks) {
+                    if (chunk.chunk == 0) {
+                        firstChunks.add(chunk);
+                    } else {
+                        otherChunks.add(chunk);
+                    }
+                }
+                importChunks(executor, dir, firstChunks);
+                importChunks(executor, dir, otherChunks);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    protected Map<Integer, List<ExportChunk>> readManifest(File manifestFile) throws IOException {
+        Map<Integer, List<ExportChunk>> levels = new TreeMap<Integer, List<ExportChunk>>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile),
+                IoConstants.ENCODING));
+        try {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line) || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length < 4) {
+                    throw new IoException("Invalid line in manifest %s: %s", manifestFile.getPath(), line);
+                }
+                ExportChunk chunk = new ExportChunk(Integer.parseInt(fields[0]), fields[1],
+                        Integer.parseInt(fields[2]), fields[3]);
+                List<ExportChunk> chunks = levels.get(chunk.level);
+                if (chunks == null) {
+                    chunks = new ArrayList<ExportChunk>();
+                    levels.put(chunk.level, chunks);
+                }
+                chunks.add(chunk);
+            }
+        } finally {
+            reader.close();
+        }
+        return levels;
+    }
+
+    protected void importChunks(ExecutorService executor, final File dir, List<ExportChunk> chunks)
+            throws IOException {
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(chunks.size());
+        for (final ExportChunk chunk : chunks) {
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    importChunk(new File(dir, chunk.fileName), chunk.tableName);
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            throw new IoException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IoException("Failed to import table", e.getCause());
+        }
+    }
+
+    protected void importChunk(File file, String tableName) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            if (file.getName().endsWith(".gz")) {
+                in = new GZIPInputStream(in);
+            }
+            importTables(in, tableName);
+        } finally {
+            in.close();
+        }
+    }
+
     protected Conflict buildConflictSettings() {
         Conflict conflict = new Conflict();
         conflict.setDetectType(DetectConflict.USE_PK_DATA);
@@ -194,8 +309,12 @@ public class DbImport {
         return settings;
     }
 
+    protected DefaultDatabaseWriter createDatabaseWriter(DatabaseWriterSettings settings) {
+        return new DefaultDatabaseWriter(symmetricPlatform, settings);
+    }
+
     protected void importTablesFromCsv(InputStream in, String tableName) {
-    		DefaultDatabaseWriter writer = new DefaultDatabaseWriter(symmetricPlatform, buildDatabaseWriterSettings());
+    		DefaultDatabaseWriter writer = createDatabaseWriter(buildDatabaseWriterSettings());
         Table table = writer.getPlatform(tableName).readTableFromDatabase(catalog, schema, tableName);
         if (table == null) {
             throw new RuntimeException("Unable to find table '" + tableName + "' in the database.");
@@ -209,21 +328,21 @@ public class DbImport {
 
     protected void importTablesFromXml(InputStream in) {        
         XmlDataReader reader = new XmlDataReader(in);
-        DefaultDatabaseWriter writer = new DefaultDatabaseWriter(symmetricPlatform, buildDatabaseWriterSettings());
+        DefaultDatabaseWriter writer = createDatabaseWriter(buildDatabaseWriterSettings());
         DataProcessor dataProcessor = new DataProcessor(reader, writer, "import");
         dataProcessor.process();
     }
     
     protected void importTablesFromSymXml(InputStream in) {
         SymXmlDataReader reader = new SymXmlDataReader(in);
-        DefaultDatabaseWriter writer = new DefaultDatabaseWriter(symmetricPlatform, buildDatabaseWriterSettings());
+        DefaultDatabaseWriter writer = createDatabaseWriter(buildDatabaseWriterSettings());
         DataProcessor dataProcessor = new DataProcessor(reader, writer, "import");
         dataProcessor.process();
     }
 
     protected void importTablesFromSql(InputStream in) {
         SqlDataReader reader = new SqlDataReader(in);
-        DefaultDatabaseWriter writer = new DefaultDatabaseWriter(symmetricPlatform, buildDatabaseWriterSettings());
+        DefaultDatabaseWriter writer = createDatabaseWriter(buildDatabaseWriterSettings());
         DataProcessor dataProcessor = new DataProcessor(reader, writer, "import");
         dataProcessor.process();
     }
@@ -340,4 +459,12 @@ public class DbImport {
         this.interval = interval;
     }
 
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
 }
\ No newline at end of file
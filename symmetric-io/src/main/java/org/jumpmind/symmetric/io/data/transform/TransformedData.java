@@ -20,10 +20,8 @@
  */
 package org.jumpmind.symmetric.io.data.transform;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.jumpmind.db.model.Column;
@@ -102,8 +100,8 @@ public class TransformedData implements Cloneable {
 
         if (recordAsKey) {
             if (targetNewKeysByIncludeOnType == null) {
-                targetNewKeysByIncludeOnType = new HashMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
-                        2);
+                targetNewKeysByIncludeOnType = new EnumMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
+                        TransformColumn.IncludeOnType.class);
             }
             LinkedHashMap<String, String> keyValues = targetNewKeysByIncludeOnType.get(column.getIncludeOn());
             if (keyValues == null) {
@@ -114,7 +112,8 @@ public class TransformedData implements Cloneable {
         }
         
         if (targetNewValueByIncludeOnType == null) {
-            targetNewValueByIncludeOnType = new HashMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(2);
+            targetNewValueByIncludeOnType = new EnumMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
+                    TransformColumn.IncludeOnType.class);
         }
         
         LinkedHashMap<String, String> columnValues = targetNewValueByIncludeOnType.get(column.getIncludeOn());
@@ -126,7 +125,8 @@ public class TransformedData implements Cloneable {
         columnValues.put(column.getTargetColumnName(), columnValue);
         
         if (targetOldValuesByIncludeOnType == null) {
-            targetOldValuesByIncludeOnType = new HashMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(2);
+            targetOldValuesByIncludeOnType = new EnumMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
+                    TransformColumn.IncludeOnType.class);
         }
         
         LinkedHashMap<String, String> oldColumnValues = targetOldValuesByIncludeOnType.get(column.getIncludeOn());
@@ -150,31 +150,59 @@ public class TransformedData implements Cloneable {
                 list.putAll(values);
             }
 
-            IncludeOnType type = IncludeOnType.DELETE;
-            if (targetDmlType == DataEventType.UPDATE && sourceDmlType != DataEventType.DELETE) {
-                type = IncludeOnType.UPDATE;
-            } else if (targetDmlType == DataEventType.INSERT) {
-                type = IncludeOnType.INSERT;
-            }
-
-            values = source.get(type);
+            values = source.get(getIncludeOnType());
             if (values != null) {
                 list.putAll(values);
             }
         }
         return list;
     }
-    
-    protected List<String> retrieve(
+
+    protected IncludeOnType getIncludeOnType() {
+        IncludeOnType type = IncludeOnType.DELETE;
+        if (targetDmlType == DataEventType.UPDATE && sourceDmlType != DataEventType.DELETE) {
+            type = IncludeOnType.UPDATE;
+        } else if (targetDmlType == DataEventType.INSERT) {
+            type = IncludeOnType.INSERT;
+        }
+        return type;
+    }
+
+    protected String[] retrieve(
             Map<TransformColumn.IncludeOnType, LinkedHashMap<String, String>> source,
             boolean getColumnNames) {
-        Map<String, String> values = retrieve(source);
-        if (getColumnNames) {
-            return new ArrayList<String>(values.keySet());
+        if (source == null) {
+            return new String[0];
+        }
+        LinkedHashMap<String, String> allValues = source.get(IncludeOnType.ALL);
+        LinkedHashMap<String, String> typeValues = source.get(getIncludeOnType());
+        Map<String, String> values = null;
+        if (typeValues == null || typeValues.size() == 0) {
+            values = allValues;
+        } else if (allValues == null || allValues.size() == 0) {
+            values = typeValues;
+        } else {
+            values = retrieve(source);
+        }
+
+        if (values == null) {
+            return new String[0];
+        } else if (getColumnNames) {
+            return values.keySet().toArray(new String[values.size()]);
         } else {
-            return new ArrayList<String>(values.values());
+            return values.values().toArray(new String[values.size()]);
         }
     }
+
+    public boolean hasColumns() {
+        return targetNewValueByIncludeOnType != null
+                && (hasValues(targetNewValueByIncludeOnType.get(IncludeOnType.ALL)) || hasValues(targetNewValueByIncludeOnType
+                        .get(getIncludeOnType())));
+    }
+
+    protected boolean hasValues(Map<String, String> values) {
+        return values != null && values.size() > 0;
+    }
    
 
     public Map<String, String> getTargetKeyValues() {
@@ -188,26 +216,22 @@ public class TransformedData implements Cloneable {
     
     public String[] getKeyNames() {
 
-        List<String> list = retrieve(targetNewKeysByIncludeOnType, true);
-        return list.toArray(new String[list.size()]);
+        return retrieve(targetNewKeysByIncludeOnType, true);
     }
 
     public String[] getKeyValues() {
 
-        List<String> list = retrieve(targetNewKeysByIncludeOnType, false);
-        return list.toArray(new String[list.size()]);
+        return retrieve(targetNewKeysByIncludeOnType, false);
     }
 
     public String[] getColumnNames() {
 
-        List<String> list = retrieve(targetNewValueByIncludeOnType, true);
-        return list.toArray(new String[list.size()]);
+        return retrieve(targetNewValueByIncludeOnType, true);
     }
 
     public String[] getColumnValues() {
 
-        List<String> list = retrieve(targetNewValueByIncludeOnType, false);
-        return list.toArray(new String[list.size()]);
+        return retrieve(targetNewValueByIncludeOnType, false);
     }
 
     public DataEventType getSourceDmlType() {
@@ -246,8 +270,8 @@ public class TransformedData implements Cloneable {
     protected Map<TransformColumn.IncludeOnType, LinkedHashMap<String, String>> copy(
             Map<TransformColumn.IncludeOnType, LinkedHashMap<String, String>> toCopy) {
 
-        Map<TransformColumn.IncludeOnType, LinkedHashMap<String, String>> newMap = new HashMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
-                toCopy.size());
+        Map<TransformColumn.IncludeOnType, LinkedHashMap<String, String>> newMap = new EnumMap<TransformColumn.IncludeOnType, LinkedHashMap<String, String>>(
+                TransformColumn.IncludeOnType.class);
         for (TransformColumn.IncludeOnType key : toCopy.keySet()) {
             LinkedHashMap<String, String> value = toCopy.get(key);
             newMap.put(key, new LinkedHashMap<String, String>(value));
@@ -342,16 +366,13 @@ public class TransformedData implements Cloneable {
     }
 
     public String[] getOldColumnValues() {
-        List<String> list = retrieve(targetOldValuesByIncludeOnType, false);
-        boolean use = false;
-        for (String string : list) {
-            use |= string != null;
-        }
-        if (use) {
-            return list.toArray(new String[list.size()]);
-        } else {
-            return null;
+        String[] values = retrieve(targetOldValuesByIncludeOnType, false);
+        for (String string : values) {
+            if (string != null) {
+                return values;
+            }
         }
+        return null;
     }
 
 }
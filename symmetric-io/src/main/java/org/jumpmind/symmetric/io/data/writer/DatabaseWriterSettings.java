@@ -35,6 +35,10 @@ public class DatabaseWriterSettings {
     // Milliseconds to sleep between commits.
     protected long commitSleepInterval = 5;
 
+    protected int statementCacheSize = 16;
+
+    protected boolean batchUpdatesAndDeletes = false;
+
     protected boolean treatDateTimeFieldsAsVarchar = false;
 
     protected boolean usePrimaryKeysFromSource = true;
@@ -103,6 +107,14 @@ public class DatabaseWriterSettings {
         this.maxRowsBeforeCommit = maxRowsBeforeCommit;
     }
 
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
     public boolean isTreatDateTimeFieldsAsVarchar() {
         return treatDateTimeFieldsAsVarchar;
     }
@@ -292,4 +304,12 @@ public class DatabaseWriterSettings {
     public boolean isApplyChangesOnly() {
         return applyChangesOnly;
     }
+
+    public void setBatchUpdatesAndDeletes(boolean batchUpdatesAndDeletes) {
+        this.batchUpdatesAndDeletes = batchUpdatesAndDeletes;
+    }
+
+    public boolean isBatchUpdatesAndDeletes() {
+        return batchUpdatesAndDeletes;
+    }
 }
@@ -23,12 +23,17 @@ package org.jumpmind.symmetric.io.data.writer;
 import java.io.IOException;
 import java.io.StringReader;
 import java.lang.reflect.Method;
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -56,10 +61,14 @@ import org.jumpmind.symmetric.io.data.Batch;
 import org.jumpmind.symmetric.io.data.CsvData;
 import org.jumpmind.symmetric.io.data.CsvUtils;
 import org.jumpmind.symmetric.io.data.DataContext;
+import org.jumpmind.symmetric.io.data.DataEventType;
 import org.jumpmind.symmetric.io.data.writer.Conflict.DetectConflict;
 import org.jumpmind.symmetric.io.data.writer.Conflict.DetectExpressionKey;
+import org.jumpmind.symmetric.io.data.writer.Conflict.PingBack;
+import org.jumpmind.symmetric.io.data.writer.Conflict.ResolveConflict;
 import org.jumpmind.util.CollectionUtils;
 import org.jumpmind.util.FormatUtils;
+import org.jumpmind.util.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,6 +88,50 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
     
     protected LogSqlBuilder logSqlBuilder = new LogSqlBuilder();
 
+    /*
+     * Indexes of the target table columns that need updated for the current
+     * row, reused from row to row
+     */
+    protected BitSet changedColumns = new BitSet();
+
+    /*
+     * Per table statistic names, built once instead of for every row
+     */
+    protected Map<String, Map<String, String>> tableStatisticNames = new HashMap<String, Map<String, String>>();
+
+    /*
+     * Recently used statements by table, dml type and columns so that
+     * batches that interleave tables do not rebuild the sql for every row
+     */
+    protected Map<DmlStatementKey, DmlStatement> dmlStatementCache;
+
+    /*
+     * Update or delete rows that were added to a jdbc batch for the current
+     * statement and have not been executed yet
+     */
+    protected List<BatchedRow> batchedRows = new ArrayList<BatchedRow>();
+
+    protected ISqlTransaction batchedTransaction;
+
+    protected boolean replayingBatchedRows;
+
+    /*
+     * Set when the driver does not return update counts for batched rows, so
+     * a row that matched nothing cannot be told apart from one that was
+     * applied. Batching is not used for the rest of the load after that.
+     */
+    protected boolean batchUpdateCountsUnknown;
+
+    protected boolean earlyCommitPending;
+
+    /*
+     * Target rows read ahead with one query for batched rows that are about
+     * to go through conflict resolution, by primary key values
+     */
+    protected Map<List<String>, Row> prefetchedConflictRows = new HashMap<List<String>, Row>();
+
+    protected static final int MAX_PREFETCH_ROWS_PER_QUERY = 100;
+
     public DefaultDatabaseWriter(IDatabasePlatform platform) {
         this(platform, null, null);
     }
@@ -121,10 +174,12 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
     public void open(DataContext context) {
         super.open(context);
         this.transaction = this.platform.getSqlTemplate().startSqlTransaction();
+        this.transaction.setStatementCacheSize(writerSettings.getStatementCacheSize());
     }
 
     @Override
     public boolean start(Table table) {
+        flushBatch();
         this.currentDmlStatement = null;
         boolean process = super.start(table);
         if (process && targetTable != null) {
@@ -133,14 +188,67 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
         return process;
     }    
 
+    @Override
+    public void write(CsvData data) {
+        /*
+         * Rows waiting in the jdbc batch are flushed before the row count and
+         * line number are incremented for this row so that a failure is
+         * recorded against the batched row that caused it
+         */
+        DataEventType eventType = data.getDataEventType();
+        if (batchedRows.size() > 0 && batchedTransaction != null
+                && batchedRows.size() >= batchedTransaction.getBatchSize() - 1) {
+            flushBatch();
+        } else if (eventType == DataEventType.UPDATE) {
+            flushBatchIfRequired(DmlType.UPDATE, data, writerSettings.isApplyChangesOnly(), true);
+        } else if (eventType == DataEventType.DELETE) {
+            flushBatchIfRequired(DmlType.DELETE, data, true, true);
+        } else {
+            flushBatch();
+        }
+        super.write(data);
+        if (earlyCommitPending) {
+            earlyCommitPending = false;
+            flushBatch();
+            super.checkForEarlyCommit();
+        }
+    }
+
+    @Override
+    protected void checkForEarlyCommit() {
+        if (batchedRows.size() > 0 && !replayingBatchedRows) {
+            /*
+             * Commit after the row is done so the batch is not flushed while
+             * the row is still being written
+             */
+            earlyCommitPending = true;
+        } else {
+            super.checkForEarlyCommit();
+        }
+    }
+
+    @Override
+    protected void filterAfter(CsvData data) {
+        if (!replayingBatchedRows && batchedRows.size() > 0
+                && batchedRows.get(batchedRows.size() - 1).data == data) {
+            // the filters are called once the batched row has been executed
+            return;
+        }
+        super.filterAfter(data);
+    }
+
     @Override
     public void end(Table table) {
+        flushBatch();
         super.end(table);
         allowInsertIntoAutoIncrementColumns(false, this.targetTable);
     }
 
     @Override
     public void end(Batch batch, boolean inError) {
+        if (!inError) {
+            flushBatch();
+        }
         this.currentDmlStatement = null;
         super.end(batch, inError);
     }
@@ -155,6 +263,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
 
     @Override
     protected void commit(boolean earlyCommit) {
+        flushBatch();
         if (this.transaction != null) {
             try {
                 statistics.get(batch).startTimer(DataWriterStatisticConstants.LOADMILLIS);
@@ -174,6 +283,13 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
 
     @Override
     protected void rollback() {
+        if (batchedTransaction != null) {
+            batchedTransaction.getUnflushedMarkers(true);
+            batchedTransaction.setInBatchMode(false);
+            batchedTransaction = null;
+        }
+        batchedRows.clear();
+        earlyCommitPending = false;
         if (this.transaction != null) {
             try {
                 statistics.get(batch).startTimer(DataWriterStatisticConstants.LOADMILLIS);
@@ -193,8 +309,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
             statistics.get(batch).startTimer(DataWriterStatisticConstants.LOADMILLIS);
             if (requireNewStatement(DmlType.INSERT, data, false, true, null)) {
                 this.lastUseConflictDetection = true;
-                this.currentDmlStatement = getPlatform()
-                		.createDmlStatement(DmlType.INSERT, targetTable, writerSettings.getTextColumnExpression());
+                this.currentDmlStatement = createDmlStatement(DmlType.INSERT, null, null, null);
                 if (log.isDebugEnabled()) {
                     log.debug("Preparing dml: " + this.currentDmlStatement.getSql());
                 }
@@ -206,7 +321,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
                         this.currentDmlStatement.getLookupKeyData(getLookupDataMap(data, conflict)));
                 long count = execute(data, values);
                 statistics.get(batch).increment(DataWriterStatisticConstants.INSERTCOUNT, count);
-                statistics.get(batch).increment(String.format("%s %s", targetTable.getName(), DataWriterStatisticConstants.INSERTCOUNT), count);
+                statistics.get(batch).increment(getTableStatisticName(DataWriterStatisticConstants.INSERTCOUNT), count);
                 if (count > 0) {
                     return LoadStatus.SUCCESS;
                 } else {
@@ -249,6 +364,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
 
     @Override
     protected LoadStatus delete(CsvData data, boolean useConflictDetection) {
+        flushBatchIfRequired(DmlType.DELETE, data, useConflictDetection, useConflictDetection);
         try {
             statistics.get(batch).startTimer(DataWriterStatisticConstants.LOADMILLIS);
             Conflict conflict = writerSettings.pickConflict(this.targetTable, batch);
@@ -327,19 +443,22 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
                             && lookupDataMap.get(column.getName()) == null;
                 }
 
-                this.currentDmlStatement = getPlatform().createDmlStatement(DmlType.DELETE,
-                        targetTable.getCatalog(), targetTable.getSchema(), targetTable.getName(),
-                        lookupKeys.toArray(new Column[lookupKeys.size()]), null, nullKeyValues, writerSettings.getTextColumnExpression());
+                this.currentDmlStatement = createDmlStatement(DmlType.DELETE,
+                        lookupKeys.toArray(new Column[lookupKeys.size()]), null, nullKeyValues);
                 if (log.isDebugEnabled()) {
                     log.debug("Preparing dml: " + this.currentDmlStatement.getSql());
                 }
                 prepare();
             }
+            lookupDataMap = lookupDataMap == null ? getLookupDataMap(data, conflict) : lookupDataMap;
+            String[] lookupKeyData = this.currentDmlStatement.getLookupKeyData(lookupDataMap);
+            if (useConflictDetection && addToBatch(data, lookupKeyData)) {
+                return LoadStatus.SUCCESS;
+            }
             try {
-                lookupDataMap = lookupDataMap == null ? getLookupDataMap(data, conflict) : lookupDataMap;
-                long count = execute(data, this.currentDmlStatement.getLookupKeyData(lookupDataMap));
+                long count = execute(data, lookupKeyData);
                 statistics.get(batch).increment(DataWriterStatisticConstants.DELETECOUNT, count);
-                statistics.get(batch).increment(String.format("%s %s", targetTable.getName(), DataWriterStatisticConstants.DELETECOUNT), count);
+                statistics.get(batch).increment(getTableStatisticName(DataWriterStatisticConstants.DELETECOUNT), count);
                 if (count > 0) {
                     return LoadStatus.SUCCESS;
                 } else {
@@ -366,25 +485,23 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
 
     @Override
     protected LoadStatus update(CsvData data, boolean applyChangesOnly, boolean useConflictDetection) {
+        flushBatchIfRequired(DmlType.UPDATE, data, applyChangesOnly, useConflictDetection);
         try {
             statistics.get(batch).startTimer(DataWriterStatisticConstants.LOADMILLIS);
             String[] rowData = getRowData(data, CsvData.ROW_DATA);
             String[] oldData = getRowData(data, CsvData.OLD_DATA);
-            ArrayList<String> changedColumnNameList = new ArrayList<String>();
-            ArrayList<String> changedColumnValueList = new ArrayList<String>();
-            ArrayList<Column> changedColumnsList = new ArrayList<Column>();
+            changedColumns.clear();
             for (int i = 0; i < targetTable.getColumnCount(); i++) {
                 Column column = targetTable.getColumn(i);
                 if (column != null) {
                     if (doesColumnNeedUpdated(i, column, data, rowData, oldData, applyChangesOnly)) {
-                        changedColumnNameList.add(column.getName());
-                        changedColumnsList.add(column);
-                        changedColumnValueList.add(rowData[i]);
+                        changedColumns.set(i);
                     }
                 }
             }
 
-            if (changedColumnNameList.size() > 0) {
+            int changedColumnCount = changedColumns.cardinality();
+            if (changedColumnCount > 0) {
                 Map<String, String> lookupDataMap = null;
                 Conflict conflict = writerSettings.pickConflict(this.targetTable, batch);
                 if (requireNewStatement(DmlType.UPDATE, data, applyChangesOnly,
@@ -398,7 +515,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
                         switch (conflict.getDetectType()) {
                             case USE_CHANGED_DATA:
                                 ArrayList<Column> lookupColumns = new ArrayList<Column>(
-                                        changedColumnsList);
+                                        Arrays.asList(getChangedColumns(changedColumnCount)));
                                 Column[] pks = targetTable.getPrimaryKeyColumns();
                                 for (Column column : pks) {
                                     // make sure all of the PK keys are in the
@@ -480,28 +597,34 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
                                 && lookupDataMap.get(column.getName()) == null;
                     }
 
-                    this.currentDmlStatement = getPlatform().createDmlStatement(DmlType.UPDATE,
-                            targetTable.getCatalog(), targetTable.getSchema(),
-                            targetTable.getName(),
+                    this.currentDmlStatement = createDmlStatement(DmlType.UPDATE,
                             lookupKeys.toArray(new Column[lookupKeys.size()]),
-                            changedColumnsList.toArray(new Column[changedColumnsList.size()]),
-                            nullKeyValues, writerSettings.getTextColumnExpression());
+                            getChangedColumns(changedColumnCount), nullKeyValues);
                     if (log.isDebugEnabled()) {
                         log.debug("Preparing dml: " + this.currentDmlStatement.getSql());
                     }
                     prepare();
                 }
 
-                rowData = (String[]) changedColumnValueList
-                        .toArray(new String[changedColumnValueList.size()]);
                 lookupDataMap = lookupDataMap == null ? getLookupDataMap(data, conflict) : lookupDataMap;
-                String[] values = (String[]) ArrayUtils.addAll(rowData,
-                        this.currentDmlStatement.getLookupKeyData(lookupDataMap));
+                String[] lookupKeyData = this.currentDmlStatement.getLookupKeyData(lookupDataMap);
+                String[] values = new String[changedColumnCount + (lookupKeyData != null ? lookupKeyData.length : 0)];
+                int valueIndex = 0;
+                for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+                    values[valueIndex++] = rowData[i];
+                }
+                if (lookupKeyData != null) {
+                    System.arraycopy(lookupKeyData, 0, values, changedColumnCount, lookupKeyData.length);
+                }
+
+                if (useConflictDetection && addToBatch(data, values)) {
+                    return LoadStatus.SUCCESS;
+                }
 
                 try {
                     long count = execute(data, values);
                     statistics.get(batch).increment(DataWriterStatisticConstants.UPDATECOUNT, count);
-                    statistics.get(batch).increment(String.format("%s %s", targetTable.getName(), DataWriterStatisticConstants.UPDATECOUNT), count);
+                    statistics.get(batch).increment(getTableStatisticName(DataWriterStatisticConstants.UPDATECOUNT), count);
                     if (count > 0) {
                         return LoadStatus.SUCCESS;
                     } else {
@@ -602,6 +725,30 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
         }
     }
     
+    protected Column[] getChangedColumns(int changedColumnCount) {
+        Column[] columns = new Column[changedColumnCount];
+        int index = 0;
+        for (int i = changedColumns.nextSetBit(0); i >= 0; i = changedColumns.nextSetBit(i + 1)) {
+            columns[index++] = targetTable.getColumn(i);
+        }
+        return columns;
+    }
+
+    protected String getTableStatisticName(String statisticName) {
+        String tableName = targetTable.getName();
+        Map<String, String> names = tableStatisticNames.get(tableName);
+        if (names == null) {
+            names = new HashMap<String, String>();
+            tableStatisticNames.put(tableName, names);
+        }
+        String name = names.get(statisticName);
+        if (name == null) {
+            name = tableName + " " + statisticName;
+            names.put(statisticName, name);
+        }
+        return name;
+    }
+
     protected boolean requireNewStatement(DmlType currentType, CsvData data,
             boolean applyChangesOnly, boolean useConflictDetection,
             Conflict.DetectConflict detectType) {
@@ -611,9 +758,7 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
                 || lastApplyChangesOnly != applyChangesOnly
                 || lastUseConflictDetection != useConflictDetection;
         if (!requiresNew && currentType == DmlType.UPDATE) {
-            String currentChanges = Arrays.toString(data.getChangedDataIndicators());
-            String lastChanges = Arrays.toString(lastData.getChangedDataIndicators());
-            requiresNew = !currentChanges.equals(lastChanges);
+            requiresNew = !Arrays.equals(data.getChangedDataIndicators(), lastData.getChangedDataIndicators());
         }
 
         if (!requiresNew) {
@@ -902,6 +1047,366 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
         return needsUpdated;
     }
 
+    /**
+     * Add the row to the jdbc batch of the current statement instead of
+     * executing it. Returns false if batching is off or the transaction does
+     * not support it, in which case the row should be executed right away.
+     */
+    protected boolean addToBatch(CsvData data, String[] values) {
+        if (!writerSettings.isBatchUpdatesAndDeletes() || replayingBatchedRows || batchUpdateCountsUnknown) {
+            return false;
+        }
+        ISqlTransaction transaction = getTransaction();
+        if (transaction.getBatchSize() <= 1) {
+            return false;
+        }
+        if (!transaction.isInBatchMode()) {
+            transaction.setInBatchMode(true);
+            if (!transaction.isInBatchMode()) {
+                return false;
+            }
+        }
+        Statistics batchStatistics = statistics.get(batch);
+        batchedTransaction = transaction;
+        batchedRows.add(new BatchedRow(data, currentDmlStatement.getDmlType(),
+                batchStatistics.get(DataWriterStatisticConstants.ROWCOUNT),
+                batchStatistics.get(DataWriterStatisticConstants.LINENUMBER)));
+        execute(data, values);
+        return true;
+    }
+
+    protected void flushBatchIfRequired(DmlType type, CsvData data, boolean applyChangesOnly,
+            boolean useConflictDetection) {
+        if (batchedRows.size() > 0
+                && (!useConflictDetection || requireNewStatement(type, data, applyChangesOnly,
+                        useConflictDetection, writerSettings.pickConflict(targetTable, batch)
+                                .getDetectType()))) {
+            flushBatch();
+        }
+    }
+
+    /**
+     * Execute the rows waiting in the jdbc batch. Rows that did not update
+     * anything are run again one at a time so they go through conflict
+     * detection and resolution the same way they would without batching. A
+     * row that fails is handled like it would have been when it was written,
+     * using its own row and line number. Rows the driver reports as
+     * successful without an update count have already been applied or
+     * missed, and running them again could raise a false conflict, so they
+     * are counted as applied and batching is turned off for the rest of the
+     * load.
+     */
+    protected void flushBatch() {
+        if (batchedRows.size() == 0 || batchedTransaction == null) {
+            return;
+        }
+        ISqlTransaction transaction = batchedTransaction;
+        List<BatchedRow> rows = batchedRows;
+        batchedTransaction = null;
+        batchedRows = new ArrayList<BatchedRow>();
+
+        Statistics batchStatistics = statistics.get(batch);
+        long rowCount = batchStatistics.get(DataWriterStatisticConstants.ROWCOUNT);
+        long lineNumber = batchStatistics.get(DataWriterStatisticConstants.LINENUMBER);
+
+        /*
+         * The update count of each batched row, or null if it is not known
+         * which rows were executed
+         */
+        int[] updateCounts = null;
+        RuntimeException failure = null;
+        try {
+            batchStatistics.startTimer(DataWriterStatisticConstants.LOADMILLIS);
+            transaction.flush();
+            List<CsvData> missedRows = transaction.getMarkersWithNoUpdates(true);
+            List<CsvData> unknownRows = transaction.getMarkersWithUnknownUpdates(true);
+            updateCounts = new int[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                CsvData data = rows.get(i).data;
+                updateCounts[i] = missedRows.contains(data) ? 0 : unknownRows.contains(data) ? Statement.SUCCESS_NO_INFO : 1;
+            }
+        } catch (RuntimeException ex) {
+            failure = ex;
+            transaction.getUnflushedMarkers(true);
+            transaction.getMarkersWithNoUpdates(true);
+            transaction.getMarkersWithUnknownUpdates(true);
+            updateCounts = getBatchUpdateCounts(ex, rows.size());
+        } finally {
+            transaction.setInBatchMode(false);
+            batchStatistics.stopTimer(DataWriterStatisticConstants.LOADMILLIS);
+        }
+
+        List<CsvData> rowsToReplay = new ArrayList<CsvData>();
+        int failedIndex = -1;
+        int executedCount = 0;
+        int unknownCount = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (updateCounts != null && updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+                unknownCount++;
+            }
+            if (updateCounts == null || updateCounts[i] == 0) {
+                rowsToReplay.add(rows.get(i).data);
+            } else if (updateCounts[i] == Statement.EXECUTE_FAILED && failedIndex < 0) {
+                failedIndex = i;
+            } else if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                rowsToReplay.add(rows.get(i).data);
+            } else {
+                executedCount++;
+            }
+        }
+
+        DmlType type = rows.get(0).type;
+        String statisticName = type == DmlType.UPDATE ? DataWriterStatisticConstants.UPDATECOUNT
+                : DataWriterStatisticConstants.DELETECOUNT;
+        batchStatistics.increment(statisticName, executedCount);
+        batchStatistics.increment(getTableStatisticName(statisticName), executedCount);
+
+        if (unknownCount > 0 && !batchUpdateCountsUnknown) {
+            batchUpdateCountsUnknown = true;
+            log.warn("The driver did not return update counts for {} batched rows of {} in batch {}, so conflicts were not "
+                    + "detected for them.  Updates and deletes will not be batched for the rest of this load",
+                    unknownCount, targetTable != null ? targetTable.getFullyQualifiedTableName() : "", batch.getNodeBatchId());
+        }
+
+        replayingBatchedRows = true;
+        try {
+            if (type == DmlType.UPDATE && rowsToReplay.size() > 0) {
+                prefetchConflictRows(rowsToReplay);
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                BatchedRow row = rows.get(i);
+                batchStatistics.set(DataWriterStatisticConstants.ROWCOUNT, row.rowNumber);
+                batchStatistics.set(DataWriterStatisticConstants.LINENUMBER, row.lineNumber);
+                if (i == failedIndex) {
+                    handleBatchedRowFailure(row, failure, true);
+                } else if (updateCounts == null
+                        || (updateCounts[i] <= 0 && updateCounts[i] != Statement.SUCCESS_NO_INFO)) {
+                    replayBatchedRow(row);
+                } else {
+                    super.filterAfter(row.data);
+                }
+            }
+        } finally {
+            replayingBatchedRows = false;
+            prefetchedConflictRows.clear();
+        }
+
+        batchStatistics.set(DataWriterStatisticConstants.ROWCOUNT, rowCount);
+        batchStatistics.set(DataWriterStatisticConstants.LINENUMBER, lineNumber);
+    }
+
+    /**
+     * Returns the update count of each batched row from the
+     * {@link BatchUpdateException} that caused the failure. Rows past the
+     * counts the driver returned were not executed and are reported as 0.
+     * Rows the driver executed without an update count are reported as
+     * {@link Statement#SUCCESS_NO_INFO}. Returns null when the failure did
+     * not come with update counts.
+     */
+    protected int[] getBatchUpdateCounts(Throwable ex, int rowCount) {
+        Throwable cause = ex;
+        while (cause != null && !(cause instanceof BatchUpdateException)) {
+            cause = cause.getCause();
+        }
+        if (cause == null || ((BatchUpdateException) cause).getUpdateCounts() == null) {
+            return null;
+        }
+        int[] driverCounts = ((BatchUpdateException) cause).getUpdateCounts();
+        int[] updateCounts = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            if (i < driverCounts.length) {
+                updateCounts[i] = driverCounts[i];
+            } else if (i == driverCounts.length) {
+                /*
+                 * Drivers that stop at the first failure only return the
+                 * counts of the rows before it
+                 */
+                updateCounts[i] = Statement.EXECUTE_FAILED;
+            } else {
+                updateCounts[i] = 0;
+            }
+        }
+        return updateCounts;
+    }
+
+    /**
+     * Run a batched row on its own. This is used for rows that did not
+     * update anything and for rows whose outcome is unknown because the
+     * batch failed.
+     */
+    protected void replayBatchedRow(BatchedRow row) {
+        context.put(CONFLICT_ERROR, null);
+        try {
+            LoadStatus loadStatus = row.type == DmlType.UPDATE ? update(row.data,
+                    writerSettings.isApplyChangesOnly(), true) : delete(row.data, true);
+            if (loadStatus == LoadStatus.CONFLICT) {
+                if (conflictResolver != null) {
+                    conflictResolver.needsResolved(this, row.data, loadStatus);
+                } else {
+                    throw new ConflictException(row.data, targetTable, false,
+                            writerSettings.pickConflict(targetTable, batch),
+                            (Exception) context.get(AbstractDatabaseWriter.CONFLICT_ERROR));
+                }
+            }
+            super.filterAfter(row.data);
+        } catch (IgnoreBatchException ex) {
+            rollback();
+            throw ex;
+        } catch (RuntimeException ex) {
+            /*
+             * SQL exceptions have already been logged by the update or delete
+             */
+            handleBatchedRowFailure(row, ex, !(ex instanceof SqlException));
+        }
+    }
+
+    /**
+     * Handle a batched row that failed the same way
+     * {@link AbstractDatabaseWriter#write(CsvData)} handles a row that fails
+     * while it is written. The row count statistic must already be set to the
+     * row number of the batched row.
+     */
+    protected void handleBatchedRowFailure(BatchedRow row, RuntimeException ex, boolean logFailure) {
+        ResolvedData resolvedData = writerSettings.getResolvedData(row.rowNumber);
+        if (conflictResolver != null && conflictResolver.isIgnoreRow(this, row.data)) {
+            statistics.get(batch).increment(DataWriterStatisticConstants.IGNOREROWCOUNT);
+        } else if (conflictResolver != null && resolvedData != null) {
+            Conflict conflict = new Conflict();
+            conflict.setPingBack(PingBack.REMAINING_ROWS);
+            conflictResolver.attemptToResolve(resolvedData, row.data, this, conflict);
+        } else if (filterError(row.data, ex)) {
+            if (logFailure) {
+                logFailureDetails(ex, row.data, false);
+            }
+            throw ex;
+        } else {
+            statistics.get(batch).increment(DataWriterStatisticConstants.IGNORECOUNT);
+        }
+    }
+
+    /**
+     * Read the primary key and detect column of the target rows for updates
+     * that are about to be resolved with newer wins, so the resolver does not
+     * have to query for them one row at a time.
+     */
+    protected void prefetchConflictRows(List<CsvData> rows) {
+        prefetchedConflictRows.clear();
+        Conflict conflict = writerSettings.pickConflict(targetTable, batch);
+        DetectConflict detectType = conflict.getDetectType();
+        if (rows.size() < 2 || conflict.getResolveType() != ResolveConflict.NEWER_WINS
+                || (detectType != DetectConflict.USE_TIMESTAMP && detectType != DetectConflict.USE_VERSION)) {
+            return;
+        }
+
+        Column detectColumn = targetTable.getColumnWithName(conflict.getDetectExpression());
+        Column[] pkColumns = targetTable.getPrimaryKeyColumns();
+        if (detectColumn == null || pkColumns.length == 0) {
+            return;
+        }
+
+        Column[] selectColumns = (Column[]) ArrayUtils.add(pkColumns, detectColumn);
+        DmlStatement fromStatement = getPlatform().createDmlStatement(DmlType.FROM, targetTable,
+                writerSettings.getTextColumnExpression());
+        DmlStatement whereStatement = getPlatform().createDmlStatement(DmlType.WHERE,
+                targetTable.getCatalog(), targetTable.getSchema(), targetTable.getName(), pkColumns,
+                null, null, writerSettings.getTextColumnExpression());
+        String selectSql = fromStatement.getColumnsSql(selectColumns);
+        String keyCondition = whereStatement.getSql().substring("where ".length());
+
+        try {
+            for (int start = 0; start < rows.size(); start += MAX_PREFETCH_ROWS_PER_QUERY) {
+                int end = Math.min(start + MAX_PREFETCH_ROWS_PER_QUERY, rows.size());
+                StringBuilder sql = new StringBuilder(selectSql);
+                Object[] args = new Object[(end - start) * pkColumns.length];
+                int[] types = new int[args.length];
+                for (int i = start; i < end; i++) {
+                    if (i > start) {
+                        sql.append(" or (").append(keyCondition).append(")");
+                    }
+                    Object[] pkValues = getPlatform().getObjectValues(batch.getBinaryEncoding(),
+                            rows.get(i).getPkData(targetTable), pkColumns);
+                    int offset = (i - start) * pkColumns.length;
+                    for (int j = 0; j < pkColumns.length; j++) {
+                        args[offset + j] = pkValues[j];
+                        types[offset + j] = pkColumns[j].getMappedTypeCode();
+                    }
+                }
+
+                List<Row> results = getTransaction().query(sql.toString(), new ISqlRowMapper<Row>() {
+                    public Row mapRow(Row row) {
+                        return row;
+                    }
+                }, args, types);
+
+                for (Row row : results) {
+                    String[] pkValues = new String[pkColumns.length];
+                    for (int j = 0; j < pkColumns.length; j++) {
+                        pkValues[j] = row.getString(pkColumns[j].getName(), false);
+                    }
+                    prefetchedConflictRows.put(Arrays.asList(pkValues), row);
+                }
+            }
+        } catch (SqlException ex) {
+            log.info("Unable to prefetch rows for conflict resolution on {}.  Rows will be read one at a time. {}",
+                    targetTable.getFullyQualifiedTableName(), ex.getMessage());
+            prefetchedConflictRows.clear();
+        }
+    }
+
+    /**
+     * Returns the prefetched target row for the primary key of the data, or
+     * null if it was not prefetched. A row is only handed out once because
+     * resolving the conflict may change it.
+     */
+    public Row getPrefetchedConflictRow(CsvData data) {
+        if (prefetchedConflictRows.isEmpty()) {
+            return null;
+        }
+        return prefetchedConflictRows.remove(Arrays.asList(data.getPkData(targetTable)));
+    }
+
+    /**
+     * Build the statement for the current target table, reusing a recently
+     * built statement when the table, keys and columns are the same.
+     */
+    protected DmlStatement createDmlStatement(DmlType type, Column[] keys, Column[] columns,
+            boolean[] nullKeyValues) {
+        final int cacheSize = writerSettings.getStatementCacheSize();
+        DmlStatementKey key = null;
+        if (cacheSize > 0) {
+            if (dmlStatementCache == null) {
+                dmlStatementCache = new LinkedHashMap<DmlStatementKey, DmlStatement>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<DmlStatementKey, DmlStatement> eldest) {
+                        return size() > cacheSize;
+                    }
+                };
+            }
+            key = new DmlStatementKey(type, targetTable, keys, columns, nullKeyValues);
+            DmlStatement statement = dmlStatementCache.get(key);
+            if (statement != null) {
+                return statement;
+            }
+        }
+
+        DmlStatement statement = null;
+        if (type == DmlType.INSERT) {
+            statement = getPlatform().createDmlStatement(DmlType.INSERT, targetTable,
+                    writerSettings.getTextColumnExpression());
+        } else {
+            statement = getPlatform().createDmlStatement(type, targetTable.getCatalog(),
+                    targetTable.getSchema(), targetTable.getName(), keys, columns, nullKeyValues,
+                    writerSettings.getTextColumnExpression());
+        }
+
+        if (key != null) {
+            dmlStatementCache.put(key, statement);
+        }
+        return statement;
+    }
+
     protected void prepare() {
         getTransaction().prepare(this.currentDmlStatement.getSql());
     }
@@ -1042,4 +1547,102 @@ public class DefaultDatabaseWriter extends AbstractDatabaseWriter {
         getTransaction(table).allowInsertIntoAutoIncrementColumns(value, table, quote, catalogSeparator, schemaSeparator);
     }
     
+    /*
+     * An update or delete that was added to the jdbc batch along with the row
+     * and line number it was written at
+     */
+    static class BatchedRow {
+
+        private CsvData data;
+
+        private DmlType type;
+
+        private long rowNumber;
+
+        private long lineNumber;
+
+        BatchedRow(CsvData data, DmlType type, long rowNumber, long lineNumber) {
+            this.data = data;
+            this.type = type;
+            this.rowNumber = rowNumber;
+            this.lineNumber = lineNumber;
+        }
+    }
+
+    /*
+     * Tables and columns are compared by identity because they come from the
+     * cached target table. A table that is looked up again gets new statements.
+     */
+    static class DmlStatementKey {
+
+        private DmlType type;
+
+        private Table table;
+
+        private Column[] keys;
+
+        private Column[] columns;
+
+        private boolean[] nullKeyValues;
+
+        private int hashCode;
+
+        DmlStatementKey(DmlType type, Table table, Column[] keys, Column[] columns,
+                boolean[] nullKeyValues) {
+            this.type = type;
+            this.table = table;
+            this.keys = keys;
+            this.columns = columns;
+            this.nullKeyValues = nullKeyValues;
+            int hash = type.hashCode();
+            hash = 31 * hash + System.identityHashCode(table);
+            hash = 31 * hash + identityHashCode(keys);
+            hash = 31 * hash + identityHashCode(columns);
+            hash = 31 * hash + Arrays.hashCode(nullKeyValues);
+            this.hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DmlStatementKey)) {
+                return false;
+            }
+            DmlStatementKey other = (DmlStatementKey) obj;
+            return hashCode == other.hashCode && type == other.type && table == other.table
+                    && identityEquals(keys, other.keys) && identityEquals(columns, other.columns)
+                    && Arrays.equals(nullKeyValues, other.nullKeyValues);
+        }
+
+        private static int identityHashCode(Column[] array) {
+            if (array == null) {
+                return 0;
+            }
+            int hash = 1;
+            for (Column column : array) {
+                hash = 31 * hash + System.identityHashCode(column);
+            }
+            return hash;
+        }
+
+        private static boolean identityEquals(Column[] one, Column[] two) {
+            if (one == two) {
+                return true;
+            }
+            if (one == null || two == null || one.length != two.length) {
+                return false;
+            }
+            for (int i = 0; i < one.length; i++) {
+                if (one[i] != two[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
 }
@@ -103,9 +103,15 @@ public class DefaultDatabaseWriterConflictResolver extends AbstractDatabaseWrite
                     FormatUtils.TIMESTAMP_PATTERNS,
                     TimeZone.getTimeZone(loadingStr.substring(split).trim()));
         } else {
-            // Get the existingTs
-            existingTs = databaseWriter.getTransaction().queryForObject(sql, Timestamp.class,
-                    objectValues);
+            // Get the existingTs, using the row read ahead by the writer if there is one
+            Row prefetchedRow = databaseWriter.getPrefetchedConflictRow(data);
+            Object prefetchedTs = prefetchedRow != null ? prefetchedRow.get(column.getName()) : null;
+            if (prefetchedRow != null && (prefetchedTs == null || prefetchedTs instanceof Date)) {
+                existingTs = (Date) prefetchedTs;
+            } else {
+                existingTs = databaseWriter.getTransaction().queryForObject(sql, Timestamp.class,
+                        objectValues);
+            }
             // Get the loadingTs
             Object[] values = platform.getObjectValues(writer.getBatch().getBinaryEncoding(),
                     new String[] { loadingStr }, new Column[] { column });
@@ -137,8 +143,14 @@ public class DefaultDatabaseWriterConflictResolver extends AbstractDatabaseWrite
         String sql = stmt.getColumnsSql(new Column[] { targetTable.getColumnWithName(columnName) });
         Long existingVersion = null;
         
+        Row prefetchedRow = databaseWriter.getPrefetchedConflictRow(data);
+        Object prefetchedVersion = prefetchedRow != null ? prefetchedRow.get(columnName) : null;
         try {            
-            existingVersion = databaseWriter.getTransaction().queryForObject(sql, Long.class, objectValues);
+            if (prefetchedRow != null && (prefetchedVersion == null || prefetchedVersion instanceof Number)) {
+                existingVersion = prefetchedVersion != null ? ((Number) prefetchedVersion).longValue() : null;
+            } else {
+                existingVersion = databaseWriter.getTransaction().queryForObject(sql, Long.class, objectValues);
+            }
         } catch (Exception ex) {
             throw new RuntimeException("Failed to execute conflict resolution SQL: \"" + 
                     sql  + "\" values: " + Arrays.toString(objectValues), ex); 
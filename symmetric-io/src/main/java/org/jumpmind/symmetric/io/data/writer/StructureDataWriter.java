@@ -63,6 +63,14 @@ public class StructureDataWriter implements IDataWriter {
 
     protected long currentBatch;
 
+    protected Batch batch;
+
+    protected long payloadByteCount;
+
+    protected long maxPayloadBytes = Long.MAX_VALUE;
+
+    protected IStructureDataWriterListener listener;
+
     protected String targetDatabaseName;
 
     protected boolean useQuotedIdentifiers;
@@ -85,6 +93,15 @@ public class StructureDataWriter implements IDataWriter {
         this.useUpsertStatements = useUpsertStatements;
     }
 
+    public StructureDataWriter(IDatabasePlatform platform, String targetDatabaseName,
+            PayloadType payloatType, boolean useQuotedIdentifiers, BinaryEncoding binaryEncoding,
+            boolean useJdbcTimestampFormat, boolean useUpsertStatements,
+            IStructureDataWriterListener listener) {
+        this(platform, targetDatabaseName, payloatType, useQuotedIdentifiers, binaryEncoding,
+                useJdbcTimestampFormat, useUpsertStatements);
+        this.listener = listener;
+    }
+
     public void open(DataContext context) {
     }
 
@@ -96,10 +113,14 @@ public class StructureDataWriter implements IDataWriter {
     }
 
     public void start(Batch batch) {
-        List<String> payloadData = new ArrayList<String>();
+        this.batch = batch;
         this.currentBatch = batch.getBatchId();
         this.statistics.put(batch, new Statistics());
-        this.payloadMap.put(currentBatch, payloadData);
+        if (listener != null) {
+            listener.start(batch);
+        } else {
+            this.payloadMap.put(currentBatch, new ArrayList<String>());
+        }
     }
 
     public boolean start(Table table) {
@@ -153,7 +174,12 @@ public class StructureDataWriter implements IDataWriter {
         }
 
         if (sql != null) {
-            this.payloadMap.get(this.currentBatch).add(sql);
+            this.payloadByteCount += getUtf8ByteCount(sql);
+            if (listener != null) {
+                listener.write(batch, sql);
+            } else {
+                this.payloadMap.get(this.currentBatch).add(sql);
+            }
         }
     }
 
@@ -174,6 +200,9 @@ public class StructureDataWriter implements IDataWriter {
     }
 
     public void end(Batch batch, boolean inError) {
+        if (listener != null) {
+            listener.end(batch, inError);
+        }
     }
 
     public PayloadType getPayloadType() {
@@ -192,4 +221,56 @@ public class StructureDataWriter implements IDataWriter {
         this.payloadMap = payloadMap;
     }
 
+    /**
+     * @return the number of bytes, encoded as UTF-8, of statements built by
+     *         this writer so far
+     */
+    public long getPayloadByteCount() {
+        return payloadByteCount;
+    }
+
+    /**
+     * @param maxPayloadBytes the number of payload bytes after which no
+     *            further batches should be written by the extract that feeds
+     *            this writer
+     */
+    public void setMaxPayloadBytes(long maxPayloadBytes) {
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    public long getMaxPayloadBytes() {
+        return maxPayloadBytes;
+    }
+
+    public boolean isPayloadFull() {
+        return payloadByteCount >= maxPayloadBytes;
+    }
+
+    /**
+     * Counts the bytes the string takes up when encoded as UTF-8 without
+     * encoding it.
+     */
+    protected static long getUtf8ByteCount(String value) {
+        long count = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                count++;
+            } else if (c < 0x800) {
+                count += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                count += 4;
+                i++;
+            } else {
+                count += 3;
+            }
+        }
+        return count;
+    }
+
+    public IStructureDataWriterListener getListener() {
+        return listener;
+    }
+
 }
@@ -21,11 +21,12 @@
 package org.jumpmind.symmetric.io.data.writer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.model.Table;
@@ -35,6 +36,7 @@ import org.jumpmind.symmetric.io.data.CsvData;
 import org.jumpmind.symmetric.io.data.DataContext;
 import org.jumpmind.symmetric.io.data.DataEventType;
 import org.jumpmind.symmetric.io.data.IDataWriter;
+import org.jumpmind.symmetric.io.data.transform.CopyColumnTransform;
 import org.jumpmind.symmetric.io.data.transform.TargetDmlAction;
 import org.jumpmind.symmetric.io.data.transform.IColumnTransform;
 import org.jumpmind.symmetric.io.data.transform.IgnoreColumnException;
@@ -62,6 +64,9 @@ public class TransformWriter extends NestedDataWriter {
     protected Batch batch;
     protected Map<String, IColumnTransform<?>> columnTransforms;
     protected Table lastTransformedTable;
+    protected List<TransformPlan> activePlans;
+    protected Map<String, List<TransformPlan>> plansBySourceTable = new HashMap<String, List<TransformPlan>>();
+    protected Map<TransformTable, TransformPlan> plansByTransformation = new IdentityHashMap<TransformTable, TransformPlan>();
     
     public TransformWriter(IDatabasePlatform platform, TransformPoint transformPoint,
             IDataWriter targetWriter, Map<String, IColumnTransform<?>> columnTransforms, 
@@ -102,11 +107,10 @@ public class TransformWriter extends NestedDataWriter {
         List<TransformTable> activeTransformsTemp = transformsBySourceTable.get(table.getFullyQualifiedTableNameLowerCase());
         if (activeTransformsTemp != null && activeTransformsTemp.size() > 0) { 
             this.sourceTable = table;
-            activeTransforms = new ArrayList<TransformTable>(activeTransformsTemp.size());
-            for (TransformTable transformation : activeTransformsTemp) {
-                activeTransforms.add(transformation.enhanceWithImpliedColumns(
-                        this.sourceTable.getPrimaryKeyColumnNames(),
-                        this.sourceTable.getColumnNames()));
+            activePlans = getTransformPlans(table, activeTransformsTemp);
+            activeTransforms = new ArrayList<TransformTable>(activePlans.size());
+            for (TransformPlan plan : activePlans) {
+                activeTransforms.add(plan.getTransformation());
             }
             return true;
         } else {
@@ -115,6 +119,43 @@ public class TransformWriter extends NestedDataWriter {
         }
     }
 
+    /**
+     * Transform plans are built the first time a source table is seen and are
+     * reused for later batches as long as the source table has the same
+     * columns.
+     */
+    protected List<TransformPlan> getTransformPlans(Table table, List<TransformTable> transforms) {
+        String tableName = table.getFullyQualifiedTableNameLowerCase();
+        String[] keyNames = table.getPrimaryKeyColumnNames();
+        String[] columnNames = table.getColumnNames();
+        List<TransformPlan> plans = plansBySourceTable.get(tableName);
+        if (plans == null || plans.size() != transforms.size()
+                || !plans.get(0).isPlannedFor(keyNames, columnNames)) {
+            if (plans != null) {
+                for (TransformPlan plan : plans) {
+                    plansByTransformation.remove(plan.getTransformation());
+                }
+            }
+            plans = new ArrayList<TransformPlan>(transforms.size());
+            for (TransformTable transformation : transforms) {
+                TransformPlan plan = new TransformPlan(transformation.enhanceWithImpliedColumns(keyNames,
+                        columnNames), keyNames, columnNames, columnTransforms);
+                plansByTransformation.put(plan.getTransformation(), plan);
+                plans.add(plan);
+            }
+            plansBySourceTable.put(tableName, plans);
+        }
+        return plans;
+    }
+
+    protected TransformPlan getTransformPlan(TransformTable transformation) {
+        TransformPlan plan = plansByTransformation.get(transformation);
+        if (plan == null) {
+            plan = new TransformPlan(transformation, null, null, columnTransforms);
+        }
+        return plan;
+    }
+
     protected boolean isTransformable(DataEventType eventType) {
         return eventType != null
                 && (eventType == DataEventType.INSERT || eventType == DataEventType.UPDATE || eventType == DataEventType.DELETE);
@@ -159,26 +200,24 @@ public class TransformWriter extends NestedDataWriter {
                                 this.sourceTable.getFullyQualifiedTableName(), sourceValues });
             }
 
-            TransformTable[] transformTables = activeTransforms.toArray(new TransformTable[activeTransforms.size()]);
-            if (eventType == DataEventType.DELETE) {
-                CollectionUtils.reverseArray(transformTables);
-            }
-
-            for (TransformTable transformation : transformTables) {
+            int planCount = activePlans.size();
+            for (int i = 0; i < planCount; i++) {
+                TransformPlan plan = activePlans.get(eventType == DataEventType.DELETE ? planCount - 1 - i : i);
                 DataEventType localEventType = eventType;
-                if (localEventType == DataEventType.INSERT && transformation.isUpdateFirst()) {
+                if (localEventType == DataEventType.INSERT && plan.getTransformation().isUpdateFirst()) {
                     localEventType = DataEventType.UPDATE;
                 }
                 
                 List<TransformedData> dataThatHasBeenTransformed = 
-                        transform(localEventType, context, transformation, sourceKeyValues, oldSourceValues, sourceValues);
+                        transform(localEventType, context, plan, sourceKeyValues, oldSourceValues, sourceValues);
                 
                 
                 for (TransformedData transformedData : dataThatHasBeenTransformed) {
-                    Table transformedTable = transformedData.buildTargetTable();
+                    Table transformedTable = plan.getTargetTable(transformedData);
                     CsvData csvData = transformedData.buildTargetCsvData();
                     boolean processData = true;
-                    if (lastTransformedTable == null || !lastTransformedTable.equals(transformedTable)) {
+                    if (lastTransformedTable == null || (lastTransformedTable != transformedTable
+                            && !lastTransformedTable.equals(transformedTable))) {
                         if (lastTransformedTable != null) {
                             this.nestedWriter.end(lastTransformedTable);
                         }
@@ -209,9 +248,17 @@ public class TransformWriter extends NestedDataWriter {
     protected List<TransformedData> transform(DataEventType eventType, DataContext context,
             TransformTable transformation, Map<String, String> sourceKeyValues,
             Map<String, String> oldSourceValues, Map<String, String> sourceValues) {
+        return transform(eventType, context, getTransformPlan(transformation), sourceKeyValues,
+                oldSourceValues, sourceValues);
+    }
+
+    protected List<TransformedData> transform(DataEventType eventType, DataContext context,
+            TransformPlan plan, Map<String, String> sourceKeyValues,
+            Map<String, String> oldSourceValues, Map<String, String> sourceValues) {
         long ts = System.currentTimeMillis();
+        TransformTable transformation = plan.getTransformation();
         try {
-            List<TransformedData> dataToTransform = create(context, eventType, transformation,
+            List<TransformedData> dataToTransform = create(context, eventType, plan,
                     sourceKeyValues, oldSourceValues, sourceValues);
             List<TransformedData> dataThatHasBeenTransformed = new ArrayList<TransformedData>(
                     dataToTransform.size());
@@ -224,7 +271,7 @@ public class TransformWriter extends NestedDataWriter {
             int transformNumber = 0;
             for (TransformedData targetData : dataToTransform) {
                 transformNumber++;
-                if (perform(context, targetData, transformation, sourceValues, oldSourceValues)) {
+                if (perform(context, targetData, plan, sourceValues, oldSourceValues)) {
                     if (log.isDebugEnabled()) {
                         log.debug(
                                 "Data has been transformed to a {} for the #{} transform.  The mapped target columns are: {}. The mapped target values are: {}",
@@ -260,62 +307,59 @@ public class TransformWriter extends NestedDataWriter {
     }
 
     protected boolean perform(DataContext context, TransformedData data,
-            TransformTable transformation, Map<String, String> sourceValues,
+            TransformPlan plan, Map<String, String> sourceValues,
             Map<String, String> oldSourceValues) throws IgnoreRowException {
         boolean persistData = false;
+        TransformTable transformation = plan.getTransformation();
         try {
-
-
-
             DataEventType eventType = data.getSourceDmlType();
-            for (TransformColumn transformColumn : transformation.getTransformColumns()) {
-                if (!transformColumn.isPk()) {
-                    IncludeOnType includeOn = transformColumn.getIncludeOn();
-                    if (includeOn == IncludeOnType.ALL || (includeOn == IncludeOnType.INSERT && eventType == DataEventType.INSERT)
-                            || (includeOn == IncludeOnType.UPDATE && eventType == DataEventType.UPDATE)
-                            || (includeOn == IncludeOnType.DELETE && eventType == DataEventType.DELETE)) {
-                        if (StringUtils.isBlank(transformColumn.getSourceColumnName())
-                                || sourceValues.containsKey(transformColumn.getSourceColumnName())) {
-                            try {
-                                Object value = transformColumn(context, data, transformColumn, sourceValues, oldSourceValues);
-                                if (value instanceof NewAndOldValue) {
-                                    data.put(transformColumn, ((NewAndOldValue) value).getNewValue(),
-                                            oldSourceValues != null ? ((NewAndOldValue) value).getOldValue() : null, false);
-                                } else if (value == null || value instanceof String) {
-                                    data.put(transformColumn, (String) value, null, false);
-                                } else if (value instanceof List) {
-                                    throw new IllegalStateException(String.format(
-                                            "Column transform failed %s.%s. Transforms that multiply rows must be marked as part of the primary key",
-                                            transformColumn.getTransformId(), transformColumn.getTargetColumnName()));
-                                } else {
-                                    throw new IllegalStateException(
-                                            String.format("Column transform failed %s.%s. It returned an unexpected type of %s",
-                                                    transformColumn.getTransformId(), transformColumn.getTargetColumnName(),
-                                                    value.getClass().getSimpleName()));
-                                }
-                            } catch (IgnoreColumnException e) {
-                                // Do nothing. We are ignoring the column
-                                if (log.isDebugEnabled()) {
-                                    log.debug("A transform indicated we should ignore the target column {}",
-                                            transformColumn.getTargetColumnName());
-                                }
-                            }
+            for (ColumnPlan columnPlan : plan.getColumns(eventType)) {
+                TransformColumn transformColumn = columnPlan.getTransformColumn();
+                if (columnPlan.isSourceColumnBlank()
+                        || sourceValues.containsKey(transformColumn.getSourceColumnName())) {
+                    if (columnPlan.isCopy()) {
+                        data.put(transformColumn, columnPlan.getSourceValue(sourceValues),
+                                columnPlan.getSourceValue(oldSourceValues), false);
+                        continue;
+                    }
+                    try {
+                        Object value = transformColumn(context, data, columnPlan, sourceValues, oldSourceValues);
+                        if (value instanceof NewAndOldValue) {
+                            data.put(transformColumn, ((NewAndOldValue) value).getNewValue(),
+                                    oldSourceValues != null ? ((NewAndOldValue) value).getOldValue() : null, false);
+                        } else if (value == null || value instanceof String) {
+                            data.put(transformColumn, (String) value, null, false);
+                        } else if (value instanceof List) {
+                            throw new IllegalStateException(String.format(
+                                    "Column transform failed %s.%s. Transforms that multiply rows must be marked as part of the primary key",
+                                    transformColumn.getTransformId(), transformColumn.getTargetColumnName()));
                         } else {
-                            if (eventType != DataEventType.DELETE) {
-                                log.warn("Could not find a source column of {} for the transformation: {}",
-                                        transformColumn.getSourceColumnName(), transformation.getTransformId());
-                            } else {
-                                log.debug(
-                                        "Could not find a source column of {} for the transformation: {}.  This is probably because this was a DELETE event and no old data was captured.",
-                                        transformColumn.getSourceColumnName(), transformation.getTransformId());
-                            }
+                            throw new IllegalStateException(
+                                    String.format("Column transform failed %s.%s. It returned an unexpected type of %s",
+                                            transformColumn.getTransformId(), transformColumn.getTargetColumnName(),
+                                            value.getClass().getSimpleName()));
+                        }
+                    } catch (IgnoreColumnException e) {
+                        // Do nothing. We are ignoring the column
+                        if (log.isDebugEnabled()) {
+                            log.debug("A transform indicated we should ignore the target column {}",
+                                    transformColumn.getTargetColumnName());
                         }
                     }
+                } else {
+                    if (eventType != DataEventType.DELETE) {
+                        log.warn("Could not find a source column of {} for the transformation: {}",
+                                transformColumn.getSourceColumnName(), transformation.getTransformId());
+                    } else {
+                        log.debug(
+                                "Could not find a source column of {} for the transformation: {}.  This is probably because this was a DELETE event and no old data was captured.",
+                                transformColumn.getSourceColumnName(), transformation.getTransformId());
+                    }
                 }
             }
 
             TargetDmlAction targetAction = data.getTargetAction();
-            if (targetAction != null && data.getColumnNames().length > 0 && targetAction != TargetDmlAction.NONE) {
+            if (targetAction != null && data.hasColumns() && targetAction != TargetDmlAction.NONE) {
                 persistData = true;
             } else {
                 if (log.isDebugEnabled()) {
@@ -336,11 +380,11 @@ public class TransformWriter extends NestedDataWriter {
     }
 
     protected List<TransformedData> create(DataContext context, DataEventType dataEventType,
-            TransformTable transformation, Map<String, String> sourceKeyValues,
+            TransformPlan plan, Map<String, String> sourceKeyValues,
             Map<String, String> oldSourceValues, Map<String, String> sourceValues)
             throws IgnoreRowException {
-        List<TransformColumn> columns = transformation.getPrimaryKeyColumns();
-        if (columns == null || columns.size() == 0) {
+        TransformTable transformation = plan.getTransformation();
+        if (!plan.hasKeyColumns()) {
             log.error("No primary key defined for the transformation: {}",
                     transformation.getTransformId());
             return new ArrayList<TransformedData>(0);
@@ -356,7 +400,7 @@ public class TransformWriter extends NestedDataWriter {
                     data.setTargetAction(TargetDmlAction.INS_ROW);
                     break;
                 case UPDATE:
-                    data.setTargetAction(transformation.evaluateTargetDmlAction(context, data));
+                    data.setTargetAction(plan.evaluateUpdateAction(context, data));
                     break;
                 case DELETE:
                     data.setTargetAction(transformation.getDeleteAction());
@@ -381,48 +425,48 @@ public class TransformWriter extends NestedDataWriter {
                     break;
             }            
             
-            for (TransformColumn transformColumn : columns) {
-                IncludeOnType includeOn = transformColumn.getIncludeOn();
-                if (includeOn == IncludeOnType.ALL
-                        || (includeOn == IncludeOnType.INSERT && eventType == DataEventType.INSERT)
-                        || (includeOn == IncludeOnType.UPDATE && eventType == DataEventType.UPDATE)
-                        || (includeOn == IncludeOnType.DELETE && eventType == DataEventType.DELETE)) {
-                    List<TransformedData> newDatas = null;
-                    try {
-                        Object columnValue = transformColumn(context, data, transformColumn,
-                                sourceValues, oldSourceValues);
-                        if (columnValue instanceof List) {
-                            @SuppressWarnings("unchecked")
-                            List<String> values = (List<String>) columnValue;
-                            if (values.size() > 0) {
-                                data.put(transformColumn, values.get(0), oldSourceValues != null ? values.get(0) : null, true);
-                                if (values.size() > 1) {
-                                    if (newDatas == null) {
-                                        newDatas = new ArrayList<TransformedData>(values.size() - 1);
-                                    }
-                                    for (int i = 1; i < values.size(); i++) {
-                                        TransformedData newData = data.copy();
-                                        newData.put(transformColumn, values.get(i), oldSourceValues != null ? values.get(i) : null, true);
-                                        newDatas.add(newData);
-                                    }
+            for (ColumnPlan columnPlan : plan.getKeyColumns(eventType)) {
+                TransformColumn transformColumn = columnPlan.getTransformColumn();
+                if (columnPlan.isCopy()) {
+                    data.put(transformColumn, columnPlan.getSourceValue(sourceValues),
+                            columnPlan.getSourceValue(oldSourceValues), true);
+                    continue;
+                }
+                List<TransformedData> newDatas = null;
+                try {
+                    Object columnValue = transformColumn(context, data, columnPlan,
+                            sourceValues, oldSourceValues);
+                    if (columnValue instanceof List) {
+                        @SuppressWarnings("unchecked")
+                        List<String> values = (List<String>) columnValue;
+                        if (values.size() > 0) {
+                            data.put(transformColumn, values.get(0), oldSourceValues != null ? values.get(0) : null, true);
+                            if (values.size() > 1) {
+                                if (newDatas == null) {
+                                    newDatas = new ArrayList<TransformedData>(values.size() - 1);
+                                }
+                                for (int i = 1; i < values.size(); i++) {
+                                    TransformedData newData = data.copy();
+                                    newData.put(transformColumn, values.get(i), oldSourceValues != null ? values.get(i) : null, true);
+                                    newDatas.add(newData);
                                 }
-                            } else {
-                                throw new IgnoreRowException();
                             }
-                        } else if (columnValue instanceof NewAndOldValue) {
-                            data.put(transformColumn, ((NewAndOldValue) columnValue).getNewValue(),
-                                    oldSourceValues != null ? ((NewAndOldValue) columnValue).getOldValue() : null, true);
                         } else {
-                            data.put(transformColumn, (String) columnValue, oldSourceValues != null ? (String) columnValue : null, true);                            
+                            throw new IgnoreRowException();
                         }
-                    } catch (IgnoreColumnException e) {
-                        // Do nothing. We are suppose to ignore the column.
+                    } else if (columnValue instanceof NewAndOldValue) {
+                        data.put(transformColumn, ((NewAndOldValue) columnValue).getNewValue(),
+                                oldSourceValues != null ? ((NewAndOldValue) columnValue).getOldValue() : null, true);
+                    } else {
+                        data.put(transformColumn, (String) columnValue, oldSourceValues != null ? (String) columnValue : null, true);                            
                     }
+                } catch (IgnoreColumnException e) {
+                    // Do nothing. We are suppose to ignore the column.
+                }
 
-                    if (newDatas != null) {
-                        datas.addAll(newDatas);
-                        newDatas = null;
-                    }
+                if (newDatas != null) {
+                    datas.addAll(newDatas);
+                    newDatas = null;
                 }
             }
 
@@ -431,22 +475,15 @@ public class TransformWriter extends NestedDataWriter {
     }
 
     protected Object transformColumn(DataContext context, TransformedData data,
-            TransformColumn transformColumn, Map<String, String> sourceValues,
+            ColumnPlan columnPlan, Map<String, String> sourceValues,
             Map<String, String> oldSourceValues) throws IgnoreRowException, IgnoreColumnException {
-        Object returnValue = null;
-        String value = transformColumn.getSourceColumnName() != null ? sourceValues
-                .get(transformColumn.getSourceColumnName()) : null;
-        returnValue = value;
-        IColumnTransform<?> transform = columnTransforms != null ? columnTransforms
-                .get(transformColumn.getTransformType()) : null;
+        TransformColumn transformColumn = columnPlan.getTransformColumn();
+        IColumnTransform<?> transform = columnPlan.getColumnTransform();
         if (transform != null) {
+            String value = columnPlan.getSourceValue(sourceValues);
             try {
-                String oldValue = null;
-                if (oldSourceValues != null) {
-                    oldValue = oldSourceValues.get(transformColumn.getSourceColumnName());
-                }
-                returnValue = transform.transform(platform, context, transformColumn, data,
-                        sourceValues, value, oldValue);
+                return transform.transform(platform, context, transformColumn, data,
+                        sourceValues, value, columnPlan.getSourceValue(oldSourceValues));
             } catch (RuntimeException ex) {
                 log.warn("Column transform failed {}.{} ({}) for source values of {}", new Object[] { transformColumn.getTransformId(), transformColumn.getTargetColumnName(), transformColumn.getIncludeOn().name(), sourceValues.toString() });
                 throw ex;
@@ -454,7 +491,6 @@ public class TransformWriter extends NestedDataWriter {
         } else {
             throw new TransformColumnException(String.format("Could not locate a column transform of type '%s'", transformColumn.getTransformType()));
         }
-        return returnValue;
     }
 
     public void end(Table table) {
@@ -464,10 +500,186 @@ public class TransformWriter extends NestedDataWriter {
         }
         if (activeTransforms != null && activeTransforms.size() > 0) {
             activeTransforms = null;
+            activePlans = null;
         } else {
             super.end(table);
         }
 
     }
 
+    /**
+     * An execution plan for a transform table that has been enhanced for a
+     * source table. Column transforms are resolved by type, the columns to
+     * apply are grouped by source DML type and the target tables that have
+     * been built are remembered so that rows can be transformed without
+     * looking anything up by name.
+     */
+    protected static class TransformPlan {
+
+        static final int MAX_TARGET_TABLES = 100;
+
+        protected TransformTable transformation;
+
+        protected String[] sourceKeyNames;
+
+        protected String[] sourceColumnNames;
+
+        protected TargetDmlAction updateAction;
+
+        protected boolean hasKeyColumns;
+
+        protected ColumnPlan[][] keyColumnsByEventType = new ColumnPlan[3][];
+
+        protected ColumnPlan[][] columnsByEventType = new ColumnPlan[3][];
+
+        protected Map<List<String>, Table> targetTables = new HashMap<List<String>, Table>();
+
+        public TransformPlan(TransformTable transformation, String[] sourceKeyNames,
+                String[] sourceColumnNames, Map<String, IColumnTransform<?>> columnTransforms) {
+            this.transformation = transformation;
+            this.sourceKeyNames = sourceKeyNames;
+            this.sourceColumnNames = sourceColumnNames;
+            try {
+                this.updateAction = TargetDmlAction.valueOf(transformation.getUpdateAction());
+            } catch (Exception ex) {
+                // the update action is a script that is evaluated for each row
+            }
+            List<TransformColumn> keyColumns = transformation.getPrimaryKeyColumns();
+            this.hasKeyColumns = keyColumns != null && keyColumns.size() > 0;
+            DataEventType[] eventTypes = { DataEventType.INSERT, DataEventType.UPDATE, DataEventType.DELETE };
+            for (int i = 0; i < eventTypes.length; i++) {
+                List<ColumnPlan> keys = new ArrayList<ColumnPlan>();
+                List<ColumnPlan> columns = new ArrayList<ColumnPlan>();
+                if (keyColumns != null) {
+                    for (TransformColumn transformColumn : keyColumns) {
+                        if (isIncludedOn(transformColumn, eventTypes[i])) {
+                            keys.add(new ColumnPlan(transformColumn, columnTransforms));
+                        }
+                    }
+                }
+                if (transformation.getTransformColumns() != null) {
+                    for (TransformColumn transformColumn : transformation.getTransformColumns()) {
+                        if (!transformColumn.isPk() && isIncludedOn(transformColumn, eventTypes[i])) {
+                            columns.add(new ColumnPlan(transformColumn, columnTransforms));
+                        }
+                    }
+                }
+                keyColumnsByEventType[i] = keys.toArray(new ColumnPlan[keys.size()]);
+                columnsByEventType[i] = columns.toArray(new ColumnPlan[columns.size()]);
+            }
+        }
+
+        protected static boolean isIncludedOn(TransformColumn transformColumn, DataEventType eventType) {
+            IncludeOnType includeOn = transformColumn.getIncludeOn();
+            return includeOn == IncludeOnType.ALL
+                    || (includeOn == IncludeOnType.INSERT && eventType == DataEventType.INSERT)
+                    || (includeOn == IncludeOnType.UPDATE && eventType == DataEventType.UPDATE)
+                    || (includeOn == IncludeOnType.DELETE && eventType == DataEventType.DELETE);
+        }
+
+        protected static int indexOf(DataEventType eventType) {
+            switch (eventType) {
+                case INSERT:
+                    return 0;
+                case UPDATE:
+                    return 1;
+                case DELETE:
+                    return 2;
+                default:
+                    return -1;
+            }
+        }
+
+        public boolean isPlannedFor(String[] keyNames, String[] columnNames) {
+            return Arrays.equals(sourceKeyNames, keyNames) && Arrays.equals(sourceColumnNames, columnNames);
+        }
+
+        public TransformTable getTransformation() {
+            return transformation;
+        }
+
+        public boolean hasKeyColumns() {
+            return hasKeyColumns;
+        }
+
+        public ColumnPlan[] getKeyColumns(DataEventType eventType) {
+            int index = indexOf(eventType);
+            return index < 0 ? new ColumnPlan[0] : keyColumnsByEventType[index];
+        }
+
+        public ColumnPlan[] getColumns(DataEventType eventType) {
+            int index = indexOf(eventType);
+            return index < 0 ? new ColumnPlan[0] : columnsByEventType[index];
+        }
+
+        public TargetDmlAction evaluateUpdateAction(DataContext context, TransformedData data) {
+            return updateAction != null ? updateAction : transformation.evaluateTargetDmlAction(context, data);
+        }
+
+        /**
+         * Returns the same {@link Table} for rows that map to the same target
+         * columns and keys so the nested writer sees an identical table
+         * instead of a new one for every row.
+         */
+        public Table getTargetTable(TransformedData data) {
+            String[] columnNames = data.getColumnNames();
+            String[] keyNames = data.getKeyNames();
+            String[] names = new String[columnNames.length + keyNames.length + 1];
+            System.arraycopy(columnNames, 0, names, 0, columnNames.length);
+            System.arraycopy(keyNames, 0, names, columnNames.length + 1, keyNames.length);
+            List<String> key = Arrays.asList(names);
+            Table table = targetTables.get(key);
+            if (table == null) {
+                table = data.buildTargetTable();
+                if (table != null) {
+                    if (targetTables.size() >= MAX_TARGET_TABLES) {
+                        targetTables.clear();
+                    }
+                    targetTables.put(key, table);
+                }
+            }
+            return table;
+        }
+    }
+
+    protected static class ColumnPlan {
+
+        protected TransformColumn transformColumn;
+
+        protected IColumnTransform<?> columnTransform;
+
+        protected boolean copy;
+
+        protected boolean sourceColumnBlank;
+
+        public ColumnPlan(TransformColumn transformColumn, Map<String, IColumnTransform<?>> columnTransforms) {
+            this.transformColumn = transformColumn;
+            this.columnTransform = columnTransforms != null ? columnTransforms.get(transformColumn
+                    .getTransformType()) : null;
+            this.copy = columnTransform != null && columnTransform.getClass() == CopyColumnTransform.class;
+            this.sourceColumnBlank = StringUtils.isBlank(transformColumn.getSourceColumnName());
+        }
+
+        public TransformColumn getTransformColumn() {
+            return transformColumn;
+        }
+
+        public IColumnTransform<?> getColumnTransform() {
+            return columnTransform;
+        }
+
+        public boolean isCopy() {
+            return copy;
+        }
+
+        public boolean isSourceColumnBlank() {
+            return sourceColumnBlank;
+        }
+
+        public String getSourceValue(Map<String, String> values) {
+            String sourceColumnName = transformColumn.getSourceColumnName();
+            return values != null && sourceColumnName != null ? values.get(sourceColumnName) : null;
+        }
+    }
+
 }
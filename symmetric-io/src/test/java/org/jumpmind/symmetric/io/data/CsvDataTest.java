@@ -0,0 +1,62 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CsvDataTest {
+
+    @Test
+    public void testParsedDataIsTokenizedOnAccess() {
+        CsvData data = new CsvData(DataEventType.UPDATE);
+        data.putCsvData(CsvData.ROW_DATA, "\"1\",\"one\"");
+        data.putCsvData(CsvData.OLD_DATA, "\"1\",\"uno\"");
+        assertTrue(data.contains(CsvData.ROW_DATA));
+        assertFalse(data.contains(CsvData.PK_DATA));
+        assertArrayEquals(new String[] { "1", "one" }, data.getParsedData(CsvData.ROW_DATA));
+        assertArrayEquals(new String[] { "1", "uno" }, data.getParsedData(CsvData.OLD_DATA));
+        assertArrayEquals(new boolean[] { false, true }, data.getChangedDataIndicators());
+    }
+
+    @Test
+    public void testCsvDataIsEscapedFromParsedData() {
+        CsvData data = new CsvData(DataEventType.INSERT, new String[] { "1", null });
+        assertEquals("\"1\",", data.getCsvData(CsvData.ROW_DATA));
+        assertArrayEquals(new String[] { "1", null }, data.getParsedData(CsvData.ROW_DATA));
+        data.removeAllData(CsvData.ROW_DATA);
+        assertFalse(data.contains(CsvData.ROW_DATA));
+        assertNull(data.getParsedData(CsvData.ROW_DATA));
+    }
+
+    @Test
+    public void testOtherDataKeys() {
+        CsvData data = new CsvData();
+        data.putCsvData("curData", "\"2\",\"two\"");
+        assertTrue(data.contains("curData"));
+        assertFalse(data.contains(CsvData.ROW_DATA));
+        assertArrayEquals(new String[] { "2", "two" }, data.getParsedData("curData"));
+        assertEquals("\"2\",\"two\"", data.getCsvData("curData"));
+        assertEquals(9, data.getSizeInBytes());
+    }
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.io.data;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class DbFillStatisticsTest {
+
+    @Test
+    public void testBucketBoundsContainValue() {
+        for (long micros : new long[] { 0, 1, 15, 16, 17, 31, 32, 100, 999, 1000, 123456, 987654321L }) {
+            int index = DbFillStatistics.getBucketIndex(micros);
+            assertTrue(micros + " exceeds its bucket", DbFillStatistics.getBucketValue(index) >= micros);
+            if (index > 0) {
+                assertTrue(micros + " belongs in a lower bucket", DbFillStatistics.getBucketValue(index - 1) < micros);
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        DbFillStatistics stats = new DbFillStatistics();
+        for (int i = 1; i <= 100; i++) {
+            stats.record(DbFill.INSERT, 1, i * 1000L);
+        }
+        assertEquals(100, stats.getInserts());
+        assertEquals(100, stats.getOperations());
+        assertEquals(50, stats.getLatencyPercentile(50), 3);
+        assertEquals(99, stats.getLatencyPercentile(99), 6);
+        assertEquals(100, stats.getLatencyPercentile(100));
+    }
+
+    @Test
+    public void testMerge() {
+        DbFillStatistics one = new DbFillStatistics();
+        one.record(DbFill.INSERT, 10, 5000);
+        one.recordError();
+        DbFillStatistics two = new DbFillStatistics();
+        two.record(DbFill.UPDATE, 1, 2000000);
+        two.record(DbFill.DELETE, 1, 3000);
+        one.merge(two);
+        one.setElapsedMillis(2000);
+        assertEquals(12, one.getRows());
+        assertEquals(1, one.getErrors());
+        assertEquals(6, one.getRowsPerSecond(), 0.001);
+        assertEquals(2000, one.getMaxLatencyMicros());
+        assertEquals(2000, one.getLatencyPercentile(100));
+    }
+
+}
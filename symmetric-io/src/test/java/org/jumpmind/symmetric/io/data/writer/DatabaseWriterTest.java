@@ -44,8 +44,11 @@ import org.jumpmind.db.platform.oracle.OracleDatabasePlatform;
 import org.jumpmind.db.platform.postgresql.PostgreSqlDatabasePlatform;
 import org.jumpmind.db.platform.sqlanywhere.SqlAnywhereDatabasePlatform;
 import org.jumpmind.db.platform.tibero.TiberoDatabasePlatform;
+import org.jumpmind.db.sql.ISqlTransaction;
+import org.jumpmind.db.sql.SqlException;
 import org.jumpmind.symmetric.io.AbstractWriterTest;
 import org.jumpmind.symmetric.io.data.CsvData;
+import org.jumpmind.symmetric.io.data.DataContext;
 import org.jumpmind.symmetric.io.data.DataEventType;
 import org.jumpmind.symmetric.io.data.writer.Conflict.DetectConflict;
 import org.jumpmind.symmetric.io.data.writer.Conflict.ResolveConflict;
@@ -55,6 +58,10 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 public class DatabaseWriterTest extends AbstractWriterTest {
 
@@ -69,6 +76,7 @@ public class DatabaseWriterTest extends AbstractWriterTest {
     public void notExpectingError() {
         setErrorExpected(false);
         writerSettings.setDefaultConflictSetting(new Conflict());
+        writerSettings.setBatchUpdatesAndDeletes(false);
     }
 
     @Test
@@ -502,6 +510,186 @@ public class DatabaseWriterTest extends AbstractWriterTest {
         writeData(new CsvData(DataEventType.DELETE, new String[] { getNextId() }, null), null);
     }
 
+    @Test
+    public void testBatchedUpdatesAndDeletes() throws Exception {
+        writerSettings.setBatchUpdatesAndDeletes(true);
+
+        String existingId = getNextId();
+        String[] existing = { existingId, "batched row", "testBatchedUpdatesAndDeletes", "char2",
+                "char not null2", "2007-01-02 03:20:10.000", "2007-02-03 04:05:06.000", "0", "47",
+                "67.89", "-0.0747" };
+        massageExpectectedResultsForDialect(existing);
+        writeData(new CsvData(DataEventType.INSERT, existing), (String[]) ArrayUtils.clone(existing));
+
+        String deletedId = getNextId();
+        String[] deleted = (String[]) ArrayUtils.clone(existing);
+        deleted[0] = deletedId;
+        writeData(new CsvData(DataEventType.INSERT, deleted), (String[]) ArrayUtils.clone(deleted));
+
+        String[] updated = (String[]) ArrayUtils.clone(existing);
+        updated[1] = "batched update";
+        String missingId = getNextId();
+        String[] missing = (String[]) ArrayUtils.clone(updated);
+        missing[0] = missingId;
+
+        writeData(new CsvData(DataEventType.UPDATE, new String[] { existingId }, updated),
+                new CsvData(DataEventType.UPDATE, new String[] { missingId }, missing),
+                new CsvData(DataEventType.DELETE, new String[] { deletedId }, null),
+                new CsvData(DataEventType.DELETE, new String[] { getNextId() }, null));
+
+        assertTestTableEquals(existingId, updated);
+        assertTestTableEquals(missingId, missing);
+        assertTestTableEquals(deletedId, null);
+    }
+
+    @Test
+    public void testBatchedUpdateThatFails() {
+        writerSettings.setBatchUpdatesAndDeletes(true);
+
+        String[][] rows = new String[3][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = massageExpectectedResultsForDialect(new String[] { getNextId(), "batched row",
+                    "testBatchedUpdateThatFails", "char2", "char not null2", "2007-01-02 03:20:10.000",
+                    "2007-02-03 04:05:06.000", "0", "47", "67.89", "-0.0747" });
+            writeData(new CsvData(DataEventType.INSERT, rows[i]), (String[]) ArrayUtils.clone(rows[i]));
+        }
+
+        String[][] updates = new String[3][];
+        CsvData[] datas = new CsvData[3];
+        for (int i = 0; i < rows.length; i++) {
+            updates[i] = (String[]) ArrayUtils.clone(rows[i]);
+            updates[i][1] = "batched update";
+            datas[i] = new CsvData(DataEventType.UPDATE, new String[] { rows[i][0] }, updates[i]);
+        }
+        // the second row sets a required column to null
+        updates[1][2] = null;
+
+        try {
+            writeData(datas);
+            Assert.fail("Should have failed on the second batched row");
+        } catch (SqlException ex) {
+            Statistics stats = lastDataWriterUsed.getStatistics().values().iterator().next();
+            Assert.assertEquals(2, stats.get(DataWriterStatisticConstants.ROWCOUNT));
+            Assert.assertEquals(2, stats.get(DataWriterStatisticConstants.LINENUMBER));
+        }
+        for (String[] row : rows) {
+            assertTestTableEquals(row[0], row);
+        }
+
+        try {
+            writerSettings.setResolvedData(new ResolvedData(2, null, true));
+            writeData(datas);
+            assertTestTableEquals(rows[0][0], updates[0]);
+            assertTestTableEquals(rows[1][0], rows[1]);
+            assertTestTableEquals(rows[2][0], updates[2]);
+            Statistics stats = lastDataWriterUsed.getStatistics().values().iterator().next();
+            Assert.assertEquals(1, stats.get(DataWriterStatisticConstants.IGNOREROWCOUNT));
+            Assert.assertEquals(3, stats.get(DataWriterStatisticConstants.ROWCOUNT));
+        } finally {
+            writerSettings.setResolvedData();
+        }
+    }
+
+    @Test
+    public void testBatchedUpdatesWithoutUpdateCounts() {
+        writerSettings.setBatchUpdatesAndDeletes(true);
+
+        String[] existing = massageExpectectedResultsForDialect(new String[] { getNextId(), "batched row",
+                "testBatchedUpdatesWithoutUpdateCounts", "char2", "char not null2", "2007-01-02 03:20:10.000",
+                "2007-02-03 04:05:06.000", "0", "47", "67.89", "-0.0747" });
+        writeData(new CsvData(DataEventType.INSERT, existing), (String[]) ArrayUtils.clone(existing));
+
+        String[] updated = (String[]) ArrayUtils.clone(existing);
+        updated[1] = "batched update";
+        String[] missing = (String[]) ArrayUtils.clone(updated);
+        missing[0] = getNextId();
+        String[] missingAfter = (String[]) ArrayUtils.clone(updated);
+        missingAfter[0] = getNextId();
+
+        DefaultDatabaseWriter writer = new DynamicDefaultDatabaseWriter(platform, platform, "sym", writerSettings) {
+            @Override
+            public void open(DataContext context) {
+                super.open(context);
+                transaction = spyWithoutUpdateCounts(transaction);
+            }
+        };
+        Table table = buildSourceTable(getTestTable(), getTestKeys(), getTestColumns());
+        writeData(writer, new TableCsvData(table, new CsvData(DataEventType.UPDATE, new String[] { existing[0] }, updated),
+                new CsvData(DataEventType.UPDATE, new String[] { missing[0] }, missing)),
+                new TableCsvData(table, new CsvData(DataEventType.UPDATE, new String[] { missingAfter[0] }, missingAfter)));
+
+        assertTestTableEquals(existing[0], updated);
+        // the driver reported the missing row as updated, so its conflict could not be detected
+        assertTestTableEquals(missing[0], null);
+        // batching was turned off, so the next missing row falls back to an insert
+        assertTestTableEquals(missingAfter[0], missingAfter);
+    }
+
+    /**
+     * Make the transaction act like a driver that returns
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} for every batched row
+     */
+    protected ISqlTransaction spyWithoutUpdateCounts(ISqlTransaction transaction) {
+        final ISqlTransaction spy = Mockito.spy(transaction);
+        final List<Object> flushedMarkers = new ArrayList<Object>();
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                flushedMarkers.addAll(spy.getUnflushedMarkers(false));
+                return invocation.callRealMethod();
+            }
+        }).when(spy).flush();
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                invocation.callRealMethod();
+                return new ArrayList<Object>();
+            }
+        }).when(spy).getMarkersWithNoUpdates(ArgumentMatchers.anyBoolean());
+        Mockito.doAnswer(new Answer<Object>() {
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                List<Object> markers = new ArrayList<Object>(flushedMarkers);
+                if ((Boolean) invocation.getArguments()[0]) {
+                    flushedMarkers.clear();
+                }
+                return markers;
+            }
+        }).when(spy).getMarkersWithUnknownUpdates(ArgumentMatchers.anyBoolean());
+        return spy;
+    }
+
+    @Test
+    public void testBatchedUpdatesDetectTimestampNewerWins() {
+        writerSettings.setBatchUpdatesAndDeletes(true);
+        Conflict setting = new Conflict();
+        setting.setConflictId("unit.test");
+        setting.setDetectType(DetectConflict.USE_TIMESTAMP);
+        setting.setDetectExpression("time_value");
+        setting.setResolveRowOnly(true);
+        setting.setResolveChangesOnly(true);
+        setting.setResolveType(ResolveConflict.NEWER_WINS);
+        writerSettings.setDefaultConflictSetting(setting);
+
+        String[] older = massageExpectectedResultsForDialect(new String[] { getNextId(), "string2",
+                "string not null2", "char2", "char not null2", "2007-01-02 03:20:10.000",
+                "2012-03-12 07:00:00.000", "0", "47", "67.89", "-0.0747663" });
+        writeData(new CsvData(DataEventType.INSERT, older), (String[]) ArrayUtils.clone(older));
+
+        String[] newer = (String[]) ArrayUtils.clone(older);
+        newer[0] = getNextId();
+        writeData(new CsvData(DataEventType.INSERT, newer), (String[]) ArrayUtils.clone(newer));
+
+        String[] olderUpdate = (String[]) ArrayUtils.clone(older);
+        olderUpdate[2] = "updated string";
+        olderUpdate[6] = "2012-03-12 06:00:00.0";
+        String[] newerUpdate = (String[]) ArrayUtils.clone(newer);
+        newerUpdate[2] = "string3";
+        newerUpdate[6] = "2012-03-12 08:00:00.000";
+        writeData(new CsvData(DataEventType.UPDATE, massageExpectectedResultsForDialect(olderUpdate)),
+                new CsvData(DataEventType.UPDATE, massageExpectectedResultsForDialect(newerUpdate)));
+
+        assertTestTableEquals(older[0], older);
+        assertTestTableEquals(newer[0], newerUpdate);
+    }
+
     @Test
     public void testColumnNotExisting() throws Exception {
         List<String> testColumns = new ArrayList<String>(Arrays.asList(TEST_COLUMNS));
@@ -88,6 +88,34 @@ public class TransformWriterTest extends AbstractWriterTest {
 
     }
 
+    @Test
+    public void testTransformPlanReusedAcrossBatches() {
+        mockWriter.reset();
+        TransformWriter writer = getTransformWriter();
+        Table table = new Table("s2", new Column("id"));
+        writeData(writer, new TableCsvData(table, new CsvData(DataEventType.INSERT, new String[]{"1"}),
+           new CsvData(DataEventType.INSERT, new String[]{"2"})));
+        List<TransformWriter.TransformPlan> plans = writer.plansBySourceTable.get("s2");
+        Assert.assertNotNull(plans);
+
+        writeData(writer, new TableCsvData(new Table("s2", new Column("id")),
+           new CsvData(DataEventType.INSERT, new String[]{"3"})));
+        Assert.assertSame(plans, writer.plansBySourceTable.get("s2"));
+
+        List<CsvData> datas = mockWriter.writtenDatas.get("t2");
+        Assert.assertEquals(3, datas.size());
+        for (int i = 0; i < datas.size(); i++) {
+            Assert.assertEquals(Integer.toString(i + 1), datas.get(i).getParsedData(CsvData.ROW_DATA)[0]);
+            Assert.assertEquals("added", datas.get(i).getParsedData(CsvData.ROW_DATA)[1]);
+        }
+
+        writeData(writer, new TableCsvData(new Table("s2", new Column("id"), new Column("name")),
+           new CsvData(DataEventType.INSERT, new String[]{"4", "four"})));
+        Assert.assertNotSame(plans, writer.plansBySourceTable.get("s2"));
+        Assert.assertEquals(4, datas.size());
+        Assert.assertEquals("4", datas.get(3).getParsedData(CsvData.ROW_DATA)[0]);
+    }
+
     @Test
     public void testUpdateActionBeanShellScript() throws Exception {
         mockWriter.reset();
@@ -525,7 +525,7 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
             String schemaPattern, String[] tableTypes) throws SQLException {
         ResultSet tableData = null;
         try {
-            DatabaseMetaDataWrapper metaData = new DatabaseMetaDataWrapper();
+            PrefetchedDatabaseMetaDataWrapper metaData = new PrefetchedDatabaseMetaDataWrapper();
 
             metaData.setMetaData(connection.getMetaData());
             metaData.setCatalog(catalog == null ? getDefaultCatalogPattern() : catalog);
@@ -534,13 +534,27 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
             metaData.setTableTypes((tableTypes == null) || (tableTypes.length == 0) ? getDefaultTableTypes()
                     : tableTypes);
 
+            prefetchMetaData(metaData);
+
             tableData = metaData.getTables(getDefaultTablePattern());
 
             List<Table> tables = new ArrayList<Table>();
 
             while (tableData.next()) {
                 Map<String, Object> values = readMetaData(tableData, getColumnsForTable());
-                Table table = readTable(connection, metaData, values);
+                DatabaseMetaDataWrapper tableMetaData = metaData;
+                if (metaData.isAmbiguous((String) values.get(getName("TABLE_NAME")))) {
+                    /*
+                     * The table name is in more than one catalog or schema, so
+                     * read it from its own schema instead of the pattern
+                     */
+                    tableMetaData = new DatabaseMetaDataWrapper();
+                    tableMetaData.setMetaData(metaData.getMetaData());
+                    tableMetaData.setCatalog((String) values.get(getName(getResultSetCatalogName())));
+                    tableMetaData.setSchemaPattern((String) values.get(getName(getResultSetSchemaName())));
+                    tableMetaData.setTableTypes(metaData.getTableTypes());
+                }
+                Table table = readTable(connection, tableMetaData, values);
 
                 if (table != null) {
                     tables.add(table);
@@ -564,6 +578,109 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
         }
     }
 
+    /*
+     * Reads the columns, and the constraints the driver can return for a whole
+     * schema, in one call each instead of one call per table. Anything that
+     * cannot be read in bulk is left for readTable() to read table by table.
+     * 
+     * @param metaData The meta data wrapper to hold the prefetched rows
+     */
+    protected void prefetchMetaData(PrefetchedDatabaseMetaDataWrapper metaData) {
+        long ts = System.currentTimeMillis();
+        try {
+            PrefetchedDatabaseMetaDataWrapper.RowGrouper columns = groupMetaData(
+                    metaData.getColumns(getDefaultTablePattern(), getDefaultColumnPattern()),
+                    getColumnsForColumn(), "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME");
+            Map<String, List<Map<String, Object>>> columnsByTable = columns.getRowsByTable();
+            metaData.setColumns(columnsByTable);
+            metaData.addAmbiguousTables(columns.getAmbiguousTables());
+
+            if (isBulkPrimaryKeyReadSupported()) {
+                PrefetchedDatabaseMetaDataWrapper.RowGrouper pks = groupMetaData(
+                        metaData.getPrimaryKeys(null), getColumnsForPK(), "TABLE_CAT",
+                        "TABLE_SCHEM", "TABLE_NAME");
+                columnsByTable.keySet().removeAll(pks.getAmbiguousTables());
+                metaData.addAmbiguousTables(pks.getAmbiguousTables());
+                metaData.setPrimaryKeys(pks.getRowsByTable());
+            }
+
+            if (isBulkForeignKeyReadSupported() && getPlatformInfo().isForeignKeysSupported()) {
+                PrefetchedDatabaseMetaDataWrapper.RowGrouper fks = groupMetaData(
+                        metaData.getForeignKeys(null), getColumnsForFK(), "FKTABLE_CAT",
+                        "FKTABLE_SCHEM", "FKTABLE_NAME");
+                columnsByTable.keySet().removeAll(fks.getAmbiguousTables());
+                metaData.addAmbiguousTables(fks.getAmbiguousTables());
+                metaData.setForeignKeys(fks.getRowsByTable());
+            }
+
+            if (isBulkIndexReadSupported() && getPlatformInfo().isIndicesSupported()) {
+                PrefetchedDatabaseMetaDataWrapper.RowGrouper indices = groupMetaData(
+                        metaData.getIndices(null, false, false), getColumnsForIndex(),
+                        "TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME");
+                columnsByTable.keySet().removeAll(indices.getAmbiguousTables());
+                metaData.addAmbiguousTables(indices.getAmbiguousTables());
+                metaData.setIndices(indices.getRowsByTable());
+            }
+            log.debug("Prefetched metadata for {} tables in {}ms", columnsByTable.size(),
+                    System.currentTimeMillis() - ts);
+        } catch (Exception ex) {
+            log.debug("Could not prefetch metadata for {}.  Tables will be read one at a time.  {}",
+                    Table.getFullyQualifiedTablePrefix(metaData.getCatalog(), metaData.getSchemaPattern()),
+                    ex.getMessage());
+            metaData.setColumns(null);
+            metaData.clearAmbiguousTables();
+            metaData.setPrimaryKeys(null);
+            metaData.setForeignKeys(null);
+            metaData.setIndices(null);
+        }
+    }
+
+    protected PrefetchedDatabaseMetaDataWrapper.RowGrouper groupMetaData(ResultSet rs,
+            List<MetaDataColumnDescriptor> columnDescriptors, String catalogColumnName,
+            String schemaColumnName, String tableColumnName) throws SQLException {
+        PrefetchedDatabaseMetaDataWrapper.RowGrouper grouper = new PrefetchedDatabaseMetaDataWrapper.RowGrouper();
+        try {
+            while (rs.next()) {
+                Map<String, Object> values = readMetaData(rs, columnDescriptors);
+                /*
+                 * The catalog and schema are not part of the column descriptors,
+                 * so they are read from the result set itself
+                 */
+                grouper.add(rs.getString(catalogColumnName), rs.getString(schemaColumnName),
+                        (String) values.get(getName(tableColumnName)), values);
+            }
+        } finally {
+            close(rs);
+        }
+        return grouper;
+    }
+
+    /*
+     * Whether the driver returns the primary keys of every table in a schema
+     * when DatabaseMetaData.getPrimaryKeys() is passed a null table name. JDBC
+     * does not require this, so platforms turn it on for drivers known to
+     * support it.
+     */
+    protected boolean isBulkPrimaryKeyReadSupported() {
+        return false;
+    }
+
+    /*
+     * Whether the driver returns the foreign keys of every table in a schema
+     * when DatabaseMetaData.getImportedKeys() is passed a null table name.
+     */
+    protected boolean isBulkForeignKeyReadSupported() {
+        return false;
+    }
+
+    /*
+     * Whether the driver returns the indices of every table in a schema when
+     * DatabaseMetaData.getIndexInfo() is passed a null table name.
+     */
+    protected boolean isBulkIndexReadSupported() {
+        return false;
+    }
+
     @Override
     public Table readTable(final String catalog, final String schema, final String table) {
         try {
@@ -883,29 +1000,42 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
      */
     protected Collection<Column> readColumns(DatabaseMetaDataWrapper metaData, String tableName)
             throws SQLException {
+        List<Map<String, Object>> prefetched = metaData instanceof PrefetchedDatabaseMetaDataWrapper
+                ? ((PrefetchedDatabaseMetaDataWrapper) metaData).getPrefetchedColumns(tableName) : null;
+        if (prefetched != null) {
+            return readColumns(metaData, prefetched);
+        }
         ResultSet columnData = null;        
         try {
-            Set<String> columnNames = new HashSet<String>();
             columnData = metaData.getColumns(getTableNamePattern(tableName),
                     getDefaultColumnPattern());
 
-            List<Column> columns = new ArrayList<Column>();
-
+            List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
             while (columnData.next()) {
-                Map<String, Object> values = readMetaData(columnData, getColumnsForColumn());
-                Column column = readColumn(metaData, values);
-                if (!columnNames.contains(column.getName())) {
-                    columnNames.add(column.getName());
-                    columns.add(column);
-                }
-                
-                genericizeDefaultValuesAndUpdatePlatformColumn(column);
+                rows.add(readMetaData(columnData, getColumnsForColumn()));
             }
-            return columns;
+            return readColumns(metaData, rows);
         } finally {
             close(columnData);
         }
     }
+
+    protected Collection<Column> readColumns(DatabaseMetaDataWrapper metaData, List<Map<String, Object>> rows)
+            throws SQLException {
+        Set<String> columnNames = new HashSet<String>();
+        List<Column> columns = new ArrayList<Column>();
+
+        for (Map<String, Object> values : rows) {
+            Column column = readColumn(metaData, values);
+            if (!columnNames.contains(column.getName())) {
+                columnNames.add(column.getName());
+                columns.add(column);
+            }
+            
+            genericizeDefaultValuesAndUpdatePlatformColumn(column);
+        }
+        return columns;
+    }
     
     protected void genericizeDefaultValuesAndUpdatePlatformColumn(Column column) {
         PlatformColumn platformColumn = column.findPlatformColumn(platform.getName());
@@ -1011,6 +1141,14 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<String> readPrimaryKeyNames(DatabaseMetaDataWrapper metaData,
             String tableName) throws SQLException {
         List<String> pks = new ArrayList<String>();
+        List<Map<String, Object>> prefetched = metaData instanceof PrefetchedDatabaseMetaDataWrapper
+                ? ((PrefetchedDatabaseMetaDataWrapper) metaData).getPrefetchedPrimaryKeys(tableName) : null;
+        if (prefetched != null) {
+            for (Map<String, Object> values : prefetched) {
+                pks.add(readPrimaryKeyName(metaData, values));
+            }
+            return pks;
+        }
         ResultSet pkData = null;
 
         try {
@@ -1054,7 +1192,13 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<ForeignKey> readForeignKeys(Connection connection,
             DatabaseMetaDataWrapper metaData, String tableName) throws SQLException {
         Map<String, ForeignKey> fks = new LinkedHashMap<String, ForeignKey>();
-        if (getPlatformInfo().isForeignKeysSupported()) {
+        List<Map<String, Object>> prefetched = metaData instanceof PrefetchedDatabaseMetaDataWrapper
+                ? ((PrefetchedDatabaseMetaDataWrapper) metaData).getPrefetchedForeignKeys(tableName) : null;
+        if (prefetched != null) {
+            for (Map<String, Object> values : prefetched) {
+                readForeignKey(metaData, values, fks);
+            }
+        } else if (getPlatformInfo().isForeignKeysSupported()) {
             ResultSet fkData = null;
     
             try {
@@ -1213,7 +1357,13 @@ public abstract class AbstractJdbcDdlReader implements IDdlReader {
     protected Collection<IIndex> readIndices(Connection connection,
             DatabaseMetaDataWrapper metaData, String tableName) throws SQLException {
         Map<String, IIndex> indices = new LinkedHashMap<String, IIndex>();
-        if (getPlatformInfo().isIndicesSupported()) {
+        List<Map<String, Object>> prefetched = metaData instanceof PrefetchedDatabaseMetaDataWrapper
+                ? ((PrefetchedDatabaseMetaDataWrapper) metaData).getPrefetchedIndices(tableName) : null;
+        if (prefetched != null) {
+            for (Map<String, Object> values : prefetched) {
+                readIndex(metaData, values, indices);
+            }
+        } else if (getPlatformInfo().isIndicesSupported()) {
             ResultSet indexData = null;
     
             try {
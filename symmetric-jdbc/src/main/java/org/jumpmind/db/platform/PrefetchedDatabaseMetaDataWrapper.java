@@ -0,0 +1,170 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.db.platform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link DatabaseMetaDataWrapper} that also holds column, primary key,
+ * foreign key and index meta data read for a whole catalog and schema at once.
+ * Rows are grouped by table name so that a {@link AbstractJdbcDdlReader} can
+ * build each table without another round trip to the database. A table name
+ * that shows up in more than one catalog or schema is dropped from the
+ * prefetched rows so that it is read table by table from its own schema
+ * instead.
+ */
+public class PrefetchedDatabaseMetaDataWrapper extends DatabaseMetaDataWrapper {
+
+    private Map<String, List<Map<String, Object>>> columns;
+
+    private Map<String, List<Map<String, Object>>> primaryKeys;
+
+    private Map<String, List<Map<String, Object>>> foreignKeys;
+
+    private Map<String, List<Map<String, Object>>> indices;
+
+    private Set<String> ambiguousTables = new HashSet<String>();
+
+    public void setColumns(Map<String, List<Map<String, Object>>> columns) {
+        this.columns = columns;
+    }
+
+    public void setPrimaryKeys(Map<String, List<Map<String, Object>>> primaryKeys) {
+        this.primaryKeys = primaryKeys;
+    }
+
+    public void setForeignKeys(Map<String, List<Map<String, Object>>> foreignKeys) {
+        this.foreignKeys = foreignKeys;
+    }
+
+    public void setIndices(Map<String, List<Map<String, Object>>> indices) {
+        this.indices = indices;
+    }
+
+    public void addAmbiguousTables(Set<String> tableNames) {
+        ambiguousTables.addAll(tableNames);
+    }
+
+    public void clearAmbiguousTables() {
+        ambiguousTables.clear();
+    }
+
+    /**
+     * @return true if the table name was found in more than one catalog or
+     *         schema while prefetching
+     */
+    public boolean isAmbiguous(String tableName) {
+        return ambiguousTables.contains(tableName);
+    }
+
+    /**
+     * @return the prefetched column rows for the table or null if columns
+     *         were not prefetched for it
+     */
+    public List<Map<String, Object>> getPrefetchedColumns(String tableName) {
+        return columns != null ? columns.get(tableName) : null;
+    }
+
+    /**
+     * @return the prefetched primary key rows for the table or null if primary
+     *         keys were not prefetched
+     */
+    public List<Map<String, Object>> getPrefetchedPrimaryKeys(String tableName) {
+        return get(primaryKeys, tableName);
+    }
+
+    /**
+     * @return the prefetched foreign key rows for the table or null if foreign
+     *         keys were not prefetched
+     */
+    public List<Map<String, Object>> getPrefetchedForeignKeys(String tableName) {
+        return get(foreignKeys, tableName);
+    }
+
+    /**
+     * @return the prefetched index rows for the table or null if indices were
+     *         not prefetched
+     */
+    public List<Map<String, Object>> getPrefetchedIndices(String tableName) {
+        return get(indices, tableName);
+    }
+
+    /*
+     * A table without constraint rows simply has none, as long as the table was
+     * not dropped because its name is ambiguous.
+     */
+    protected List<Map<String, Object>> get(Map<String, List<Map<String, Object>>> rowsByTable,
+            String tableName) {
+        if (rowsByTable == null || columns == null || !columns.containsKey(tableName)) {
+            return null;
+        }
+        List<Map<String, Object>> rows = rowsByTable.get(tableName);
+        return rows != null ? rows : new ArrayList<Map<String, Object>>(0);
+    }
+
+    /**
+     * Groups meta data rows by table name, dropping any table name that is
+     * found in more than one catalog or schema.
+     */
+    public static class RowGrouper {
+
+        private Map<String, List<Map<String, Object>>> rowsByTable = new HashMap<String, List<Map<String, Object>>>();
+
+        private Map<String, String> qualifierByTable = new HashMap<String, String>();
+
+        private Set<String> ambiguousTables = new HashSet<String>();
+
+        public void add(String catalog, String schema, String tableName, Map<String, Object> row) {
+            if (tableName == null || ambiguousTables.contains(tableName)) {
+                return;
+            }
+            String qualifier = catalog + "." + schema;
+            String existing = qualifierByTable.get(tableName);
+            if (existing == null) {
+                qualifierByTable.put(tableName, qualifier);
+            } else if (!existing.equals(qualifier)) {
+                ambiguousTables.add(tableName);
+                rowsByTable.remove(tableName);
+                return;
+            }
+            List<Map<String, Object>> rows = rowsByTable.get(tableName);
+            if (rows == null) {
+                rows = new ArrayList<Map<String, Object>>();
+                rowsByTable.put(tableName, rows);
+            }
+            rows.add(row);
+        }
+
+        public Set<String> getAmbiguousTables() {
+            return ambiguousTables;
+        }
+
+        public Map<String, List<Map<String, Object>>> getRowsByTable() {
+            return rowsByTable;
+        }
+    }
+
+}
@@ -59,6 +59,16 @@ public class PostgreSqlDdlReader extends AbstractJdbcDdlReader {
         setDefaultTablePattern(null);
     }
 
+    @Override
+    protected boolean isBulkPrimaryKeyReadSupported() {
+        return true;
+    }
+
+    @Override
+    protected boolean isBulkForeignKeyReadSupported() {
+        return true;
+    }
+
     @Override
     protected Table readTable(Connection connection, DatabaseMetaDataWrapper metaData,
             Map<String, Object> values) throws SQLException {
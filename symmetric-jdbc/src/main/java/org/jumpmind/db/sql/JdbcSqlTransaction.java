@@ -29,6 +29,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -61,12 +62,20 @@ public class JdbcSqlTransaction implements ISqlTransaction {
     protected boolean oldAutoCommitValue;
 
     protected List<Object> markers = new ArrayList<Object>();
+
+    protected List<Object> markersWithNoUpdates = new ArrayList<Object>();
+
+    protected List<Object> markersWithUnknownUpdates = new ArrayList<Object>();
     
     protected LogSqlBuilder logSqlBuilder;
     
     protected List<ISqlTransactionListener> listeners = new ArrayList<ISqlTransactionListener>();
     
     protected int batchSize = 100;
+
+    protected int statementCacheSize = 0;
+
+    protected Map<String, PreparedStatement> statementCache;
     
     public JdbcSqlTransaction(JdbcSqlTemplate jdbcSqlTemplate) {
         this(jdbcSqlTemplate, false);
@@ -116,6 +125,8 @@ public class JdbcSqlTransaction implements ISqlTransaction {
                 if (pstmt != null && inBatchMode) {
                     flush();
                 }
+                markersWithNoUpdates.clear();
+                markersWithUnknownUpdates.clear();
                 if (!autoCommit) {
                    connection.commit();
                    
@@ -140,6 +151,8 @@ public class JdbcSqlTransaction implements ISqlTransaction {
                 if (clearMarkers) {
                     markers.clear();
                 }
+                markersWithNoUpdates.clear();
+                markersWithUnknownUpdates.clear();
                 if (!autoCommit) {
                     connection.rollback();
                     
@@ -156,7 +169,7 @@ public class JdbcSqlTransaction implements ISqlTransaction {
 
     public void close() {
         if (connection != null) {
-            JdbcSqlTemplate.close(pstmt);
+            closeStatements();
             try {
                 connection.setAutoCommit(this.oldAutoCommitValue);
             } catch (SQLException ex) {
@@ -173,8 +186,14 @@ public class JdbcSqlTransaction implements ISqlTransaction {
         if (markers.size() > 0 && pstmt != null) {
             try {
                 int[] updates = pstmt.executeBatch();
-                for (int i : updates) {
-                    rowsUpdated += normalizeUpdateCount(i);
+                for (int i = 0; i < updates.length; i++) {
+                    int count = normalizeUpdateCount(updates[i]);
+                    if (count == 0 && i < markers.size()) {
+                        markersWithNoUpdates.add(markers.get(i));
+                    } else if (updates[i] == Statement.SUCCESS_NO_INFO && i < markers.size()) {
+                        markersWithUnknownUpdates.add(markers.get(i));
+                    }
+                    rowsUpdated += count;
                 }
                 markers.clear();
             } catch (BatchUpdateException ex) {
@@ -432,14 +451,69 @@ public class JdbcSqlTransaction implements ISqlTransaction {
                 throw new IllegalStateException(
                         "Cannot prepare a new batch before the last batch has been flushed.");
             }
-            JdbcSqlTemplate.close(pstmt);
-            pstmt = connection.prepareStatement(sql);
+            if (statementCacheSize > 0) {
+                Map<String, PreparedStatement> cache = getStatementCache();
+                if (pstmt != null && (psql == null || cache.get(psql) != pstmt)) {
+                    JdbcSqlTemplate.close(pstmt);
+                }
+                PreparedStatement cached = cache.get(sql);
+                if (cached == null) {
+                    cached = connection.prepareStatement(sql);
+                    cache.put(sql, cached);
+                }
+                pstmt = cached;
+            } else {
+                JdbcSqlTemplate.close(pstmt);
+                pstmt = connection.prepareStatement(sql);
+            }
             psql = sql;
         } catch (SQLException ex) {
             throw jdbcSqlTemplate.translate(new SqlException("Exception while preparing sql [" + sql + "]", ex));
         }
     }
 
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    protected Map<String, PreparedStatement> getStatementCache() {
+        if (statementCache == null) {
+            statementCache = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > statementCacheSize) {
+                        JdbcSqlTemplate.close(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+        return statementCache;
+    }
+
+    protected void closeStatements() {
+        if (statementCache != null && statementCache.size() > 0) {
+            if (pstmt != null && !statementCache.containsValue(pstmt)) {
+                JdbcSqlTemplate.close(pstmt);
+            }
+            for (PreparedStatement cached : statementCache.values()) {
+                JdbcSqlTemplate.close(cached);
+            }
+            statementCache.clear();
+        } else {
+            JdbcSqlTemplate.close(pstmt);
+        }
+        pstmt = null;
+        psql = null;
+    }
+
     public int addRow(Object marker, Object[] args, int[] argTypes) {
         int rowsUpdated = 0;
         try {
@@ -515,6 +589,24 @@ public class JdbcSqlTransaction implements ISqlTransaction {
         return ret;
     }
 
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getMarkersWithNoUpdates(boolean clear) {
+        List<T> ret = new ArrayList<T>((List<T>) markersWithNoUpdates);
+        if (clear) {
+            markersWithNoUpdates.clear();
+        }
+        return ret;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getMarkersWithUnknownUpdates(boolean clear) {
+        List<T> ret = new ArrayList<T>((List<T>) markersWithUnknownUpdates);
+        if (clear) {
+            markersWithUnknownUpdates.clear();
+        }
+        return ret;
+    }
+
     public Connection getConnection() {
         return connection;
     }
@@ -0,0 +1,126 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.driver;
+
+import org.jumpmind.properties.TypedProperties;
+
+/**
+ * Records the execution time and row count of every statement into the
+ * {@link SqlProfiler}, grouped by normalized SQL. Configure it in the
+ * engine.properties file together with the jdbc:symds driver prefix:
+ * 
+ * org.jumpmind.driver.PreparedStatementWrapper.interceptor=org.jumpmind.driver.ProfilingInterceptor
+ * org.jumpmind.driver.StatementWrapper.interceptor=org.jumpmind.driver.ProfilingInterceptor
+ * org.jumpmind.driver.ProfilingInterceptor.sample.rate=1
+ * org.jumpmind.driver.ProfilingInterceptor.max.statements=1000
+ * 
+ * Row counts are the update counts reported by the driver. Rows returned by
+ * queries are not counted. When the sample rate is 0 the interceptor only
+ * checks the rate before each call.
+ */
+public class ProfilingInterceptor extends WrapperInterceptor {
+
+    private static final InterceptResult NOT_INTERCEPTED = new InterceptResult();
+
+    protected SqlProfiler profiler = SqlProfiler.getInstance();
+
+    protected String preparedSql;
+
+    protected String batchSql;
+
+    protected long startNanos;
+
+    public ProfilingInterceptor(Object wrapped, TypedProperties systemPlusEngineProperties) {
+        super(wrapped);
+        profiler.configure(systemPlusEngineProperties);
+    }
+
+    @Override
+    public InterceptResult preExecute(String methodName, Object... parameters) {
+        if (profiler.isSampling()) {
+            if (methodName.startsWith("execute")) {
+                startNanos = profiler.shouldSample() ? System.nanoTime() : 0;
+            } else if (methodName.equals("addBatch") && batchSql == null && parameters != null
+                    && parameters.length > 0 && parameters[0] instanceof String) {
+                batchSql = (String) parameters[0];
+            }
+        }
+        return NOT_INTERCEPTED;
+    }
+
+    @Override
+    public InterceptResult postExecute(String methodName, Object result, long startTime, long endTime,
+            Object... parameters) {
+        if (startNanos != 0 && methodName.startsWith("execute")) {
+            long elapsedNanos = System.nanoTime() - startNanos;
+            startNanos = 0;
+            String sql = getNormalizedSql(methodName, parameters);
+            if (sql != null) {
+                profiler.record(sql, elapsedNanos, getRowCount(result));
+            }
+        }
+        if (methodName.equals("executeBatch") || methodName.equals("clearBatch")) {
+            batchSql = null;
+        }
+        return NOT_INTERCEPTED;
+    }
+
+    protected String getNormalizedSql(String methodName, Object[] parameters) {
+        Object wrapped = getWrapped();
+        if (wrapped instanceof PreparedStatementWrapper && (parameters == null || parameters.length == 0)) {
+            if (preparedSql == null) {
+                preparedSql = SqlProfiler.normalize(((PreparedStatementWrapper) wrapped).getStatement());
+            }
+            return preparedSql;
+        } else if (parameters != null && parameters.length > 0 && parameters[0] instanceof String) {
+            return SqlProfiler.normalize((String) parameters[0]);
+        } else if (methodName.equals("executeBatch") && batchSql != null) {
+            return SqlProfiler.normalize(batchSql);
+        } else {
+            return null;
+        }
+    }
+
+    protected long getRowCount(Object result) {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            long count = 0;
+            for (int rows : (int[]) result) {
+                if (rows > 0) {
+                    count += rows;
+                }
+            }
+            return count;
+        } else if (result instanceof long[]) {
+            long count = 0;
+            for (long rows : (long[]) result) {
+                if (rows > 0) {
+                    count += rows;
+                }
+            }
+            return count;
+        } else {
+            return 0;
+        }
+    }
+
+}
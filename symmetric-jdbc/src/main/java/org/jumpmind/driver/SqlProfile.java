@@ -0,0 +1,128 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.driver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregated execution statistics for one normalized SQL statement. All
+ * counters can be updated concurrently without locking. Latencies are kept in
+ * a histogram with power of two microsecond buckets, so percentiles are
+ * accurate to within a factor of two.
+ */
+public class SqlProfile {
+
+    protected static final int BUCKET_COUNT = 40;
+
+    protected String sql;
+
+    protected LongAdder executeCount = new LongAdder();
+
+    protected LongAdder totalNanos = new LongAdder();
+
+    protected LongAdder rowCount = new LongAdder();
+
+    protected LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    protected AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+    public SqlProfile(String sql) {
+        this.sql = sql;
+    }
+
+    public void record(long elapsedNanos, long rows) {
+        executeCount.increment();
+        totalNanos.add(elapsedNanos);
+        if (rows > 0) {
+            rowCount.add(rows);
+        }
+        maxNanos.accumulate(elapsedNanos);
+        histogram.incrementAndGet(bucketFor(elapsedNanos / 1000));
+    }
+
+    protected static int bucketFor(long micros) {
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        return bucket < BUCKET_COUNT ? bucket : BUCKET_COUNT - 1;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getExecuteCount() {
+        return executeCount.sum();
+    }
+
+    public long getRowCount() {
+        return rowCount.sum();
+    }
+
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1000000d;
+    }
+
+    public double getAverageMillis() {
+        long count = executeCount.sum();
+        return count > 0 ? totalNanos.sum() / 1000000d / count : 0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000d;
+    }
+
+    /**
+     * @param percentile
+     *            a value between 0 and 100
+     * @return the upper bound in milliseconds of the histogram bucket that
+     *         holds the requested percentile
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * percentile / 100d);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target && counts[i] > 0) {
+                return Math.min((1l << i) / 1000d, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public long[] getHistogram() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jumpmind.properties.TypedProperties;
+
+/**
+ * Collects {@link SqlProfile}s for the statements executed through the
+ * SymmetricDS driver wrapper when the {@link ProfilingInterceptor} is
+ * configured. Statistics are kept for the whole JVM and can be read and reset
+ * through JMX or the REST API.
+ */
+public class SqlProfiler {
+
+    public static final String OTHER_STATEMENTS = "<other statements>";
+
+    protected static final String PROPERTY_PREFIX = ProfilingInterceptor.class.getName();
+
+    private static final SqlProfiler instance = new SqlProfiler();
+
+    protected ConcurrentMap<String, SqlProfile> profiles = new ConcurrentHashMap<String, SqlProfile>();
+
+    protected LongAdder droppedCount = new LongAdder();
+
+    protected volatile boolean configured;
+
+    protected volatile double sampleRate = 1;
+
+    protected volatile int maxStatements = 1000;
+
+    public static SqlProfiler getInstance() {
+        return instance;
+    }
+
+    /**
+     * Applies the sample.rate and max.statements properties of the
+     * {@link ProfilingInterceptor} the first time an interceptor is created.
+     * Later changes are made through {@link #setSampleRate(double)} and
+     * {@link #setMaxStatements(int)}.
+     */
+    public void configure(TypedProperties properties) {
+        if (!configured) {
+            synchronized (this) {
+                if (!configured) {
+                    if (properties != null) {
+                        String value = properties.get(PROPERTY_PREFIX + ".sample.rate");
+                        if (value != null && value.trim().length() > 0) {
+                            setSampleRate(Double.parseDouble(value.trim()));
+                        }
+                        value = properties.get(PROPERTY_PREFIX + ".max.statements");
+                        if (value != null && value.trim().length() > 0) {
+                            setMaxStatements(Integer.parseInt(value.trim()));
+                        }
+                    }
+                    configured = true;
+                }
+            }
+        }
+    }
+
+    public boolean isSampling() {
+        return sampleRate > 0;
+    }
+
+    public boolean shouldSample() {
+        double rate = sampleRate;
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    public void record(String normalizedSql, long elapsedNanos, long rows) {
+        SqlProfile profile = profiles.get(normalizedSql);
+        if (profile == null) {
+            if (profiles.size() < maxStatements) {
+                profile = profiles.computeIfAbsent(normalizedSql, SqlProfile::new);
+            } else {
+                droppedCount.increment();
+                profile = profiles.computeIfAbsent(OTHER_STATEMENTS, SqlProfile::new);
+            }
+        }
+        profile.record(elapsedNanos, rows);
+    }
+
+    public List<SqlProfile> getProfiles() {
+        return new ArrayList<SqlProfile>(profiles.values());
+    }
+
+    public SqlProfile getProfile(String normalizedSql) {
+        return profiles.get(normalizedSql);
+    }
+
+    /**
+     * @return the statements with the highest average execution time
+     */
+    public List<SqlProfile> getSlowest(int limit) {
+        return top(limit, Comparator.comparingDouble(SqlProfile::getAverageMillis));
+    }
+
+    /**
+     * @return the statements with the highest total execution time
+     */
+    public List<SqlProfile> getMostTime(int limit) {
+        return top(limit, Comparator.comparingDouble(SqlProfile::getTotalMillis));
+    }
+
+    /**
+     * @return the statements that were executed the most
+     */
+    public List<SqlProfile> getMostFrequent(int limit) {
+        return top(limit, Comparator.comparingLong(SqlProfile::getExecuteCount));
+    }
+
+    protected List<SqlProfile> top(int limit, Comparator<SqlProfile> comparator) {
+        List<SqlProfile> list = getProfiles();
+        Collections.sort(list, Collections.reverseOrder(comparator));
+        return list.size() > limit ? new ArrayList<SqlProfile>(list.subList(0, limit)) : list;
+    }
+
+    public void reset() {
+        profiles.clear();
+        droppedCount.reset();
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate
+     *            the fraction of executions to profile. 0 turns profiling
+     *            off and 1 profiles every execution.
+     */
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public void setMaxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+    }
+
+    /**
+     * @return the number of executions recorded under
+     *         {@link #OTHER_STATEMENTS} because max.statements was reached
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Reduces a statement to a form that is shared by all executions that
+     * only differ by their literal values. String and numeric literals are
+     * replaced with ?, lists of placeholders such as IN (?, ?, ?) are reduced
+     * to a single placeholder and whitespace is collapsed.
+     */
+    public static String normalize(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        int length = sql.length();
+        StringBuilder buffer = new StringBuilder(length);
+        boolean lastWasSpace = false;
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i++;
+                        } else {
+                            break;
+                        }
+                    }
+                    i++;
+                }
+                appendPlaceholder(buffer);
+                lastWasSpace = false;
+            } else if (Character.isWhitespace(c)) {
+                if (!lastWasSpace && buffer.length() > 0) {
+                    buffer.append(' ');
+                }
+                lastWasSpace = true;
+            } else if (Character.isDigit(c) && !isPartOfIdentifier(buffer)) {
+                i++;
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                i--;
+                appendPlaceholder(buffer);
+                lastWasSpace = false;
+            } else if (c == '?') {
+                appendPlaceholder(buffer);
+                lastWasSpace = false;
+            } else {
+                buffer.append(c);
+                lastWasSpace = false;
+            }
+        }
+        int end = buffer.length();
+        while (end > 0 && buffer.charAt(end - 1) == ' ') {
+            end--;
+        }
+        buffer.setLength(end);
+        return buffer.toString();
+    }
+
+    protected static boolean isPartOfIdentifier(StringBuilder buffer) {
+        if (buffer.length() == 0) {
+            return false;
+        }
+        char previous = buffer.charAt(buffer.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$' || previous == '"'
+                || previous == '.';
+    }
+
+    /**
+     * Appends a placeholder unless it continues a comma separated list of
+     * placeholders, in which case the list is collapsed to one placeholder
+     */
+    protected static void appendPlaceholder(StringBuilder buffer) {
+        int i = buffer.length() - 1;
+        while (i >= 0 && buffer.charAt(i) == ' ') {
+            i--;
+        }
+        if (i >= 0 && buffer.charAt(i) == ',') {
+            int j = i - 1;
+            while (j >= 0 && buffer.charAt(j) == ' ') {
+                j--;
+            }
+            if (j >= 0 && buffer.charAt(j) == '?') {
+                buffer.setLength(j + 1);
+                return;
+            }
+        }
+        buffer.append('?');
+    }
+
+}
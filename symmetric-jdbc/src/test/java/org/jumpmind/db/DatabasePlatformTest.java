@@ -314,6 +314,40 @@ public class DatabasePlatformTest {
     	}
     }
     
+    @Test
+    public void testReadTablesWithSameNameInTwoSchemas() throws Exception {
+        if (platform.getName().equals(DatabaseNamesConstants.H2)) {
+            ISqlTemplate template = platform.getSqlTemplate();
+            try {
+                template.update("create schema if not exists AMBIG_S1");
+                template.update("create schema if not exists AMBIG_S2");
+                template.update("create table AMBIG_S1.AMBIG_TABLE (ID integer not null primary key, A varchar(10))");
+                template.update("create table AMBIG_S2.AMBIG_TABLE (ID integer not null primary key, B varchar(10), C varchar(10))");
+
+                Table[] tables = platform.getDdlReader().readTables(null, "AMBIG_S%", null).getTables();
+                assertEquals(2, tables.length);
+                for (Table table : tables) {
+                    assertEquals("AMBIG_TABLE", table.getName());
+                    assertEquals(1, table.getPrimaryKeyColumnCount());
+                    if (table.getSchema().equals("AMBIG_S1")) {
+                        assertEquals(2, table.getColumnCount());
+                        assertNotNull(table.getColumnWithName("A"));
+                    } else {
+                        assertEquals("AMBIG_S2", table.getSchema());
+                        assertEquals(3, table.getColumnCount());
+                        assertNotNull(table.getColumnWithName("B"));
+                        assertNotNull(table.getColumnWithName("C"));
+                    }
+                }
+            } finally {
+                template.update("drop table if exists AMBIG_S1.AMBIG_TABLE");
+                template.update("drop table if exists AMBIG_S2.AMBIG_TABLE");
+                template.update("drop schema if exists AMBIG_S1");
+                template.update("drop schema if exists AMBIG_S2");
+            }
+        }
+    }
+
     @Test
     public void testEnumType() {
     	boolean enumSupported = (
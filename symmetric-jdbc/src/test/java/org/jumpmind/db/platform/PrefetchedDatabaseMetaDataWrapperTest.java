@@ -0,0 +1,85 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.db.platform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jumpmind.db.platform.PrefetchedDatabaseMetaDataWrapper.RowGrouper;
+import org.junit.Test;
+
+public class PrefetchedDatabaseMetaDataWrapperTest {
+
+    @Test
+    public void testGroupRowsByTable() {
+        RowGrouper grouper = new RowGrouper();
+        grouper.add(null, "APP", "ORDERS", row("ID"));
+        grouper.add(null, "APP", "ORDERS", row("CUSTOMER_ID"));
+        grouper.add(null, "APP", "CUSTOMER", row("ID"));
+
+        assertEquals(2, grouper.getRowsByTable().get("ORDERS").size());
+        assertEquals(1, grouper.getRowsByTable().get("CUSTOMER").size());
+        assertTrue(grouper.getAmbiguousTables().isEmpty());
+    }
+
+    @Test
+    public void testTableNameInTwoSchemasIsDropped() {
+        RowGrouper grouper = new RowGrouper();
+        grouper.add(null, "APP", "ORDERS", row("ID"));
+        grouper.add(null, "ARCHIVE", "ORDERS", row("ID"));
+        grouper.add(null, "APP", "ORDERS", row("CUSTOMER_ID"));
+
+        assertNull(grouper.getRowsByTable().get("ORDERS"));
+        assertTrue(grouper.getAmbiguousTables().contains("ORDERS"));
+    }
+
+    @Test
+    public void testConstraintsOnlyForPrefetchedTables() {
+        RowGrouper columns = new RowGrouper();
+        columns.add(null, "APP", "ORDERS", row("ID"));
+        columns.add(null, "APP", "NOTES", row("TEXT"));
+        RowGrouper pks = new RowGrouper();
+        pks.add(null, "APP", "ORDERS", row("ID"));
+
+        PrefetchedDatabaseMetaDataWrapper metaData = new PrefetchedDatabaseMetaDataWrapper();
+        assertNull(metaData.getPrefetchedColumns("ORDERS"));
+
+        metaData.setColumns(columns.getRowsByTable());
+        metaData.setPrimaryKeys(pks.getRowsByTable());
+
+        assertEquals(1, metaData.getPrefetchedColumns("ORDERS").size());
+        assertEquals(1, metaData.getPrefetchedPrimaryKeys("ORDERS").size());
+        assertEquals(0, metaData.getPrefetchedPrimaryKeys("NOTES").size());
+        assertNull(metaData.getPrefetchedPrimaryKeys("MISSING"));
+        assertNull(metaData.getPrefetchedIndices("ORDERS"));
+    }
+
+    protected Map<String, Object> row(String columnName) {
+        Map<String, Object> row = new HashMap<String, Object>();
+        row.put("COLUMN_NAME", columnName);
+        return row;
+    }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SqlProfilerTest {
+
+    @Test
+    public void testNormalize() {
+        assertEquals("select * from sym_node where node_id=? and sync_enabled=?",
+                SqlProfiler.normalize("select *  from sym_node\n where node_id='001' and sync_enabled=1"));
+        assertEquals("update t set notes=? where id=?",
+                SqlProfiler.normalize("update t set notes='it''s' where id=42"));
+        assertEquals("select * from t where id in (?)", SqlProfiler.normalize("select * from t where id in (1, 2, 3)"));
+        assertEquals("select * from t where id in (?)", SqlProfiler.normalize("select * from t where id in (?,?,?)"));
+        assertEquals("select col1, t2.col2 from table2 t2", SqlProfiler.normalize("select col1, t2.col2 from table2 t2"));
+        assertNull(SqlProfiler.normalize(null));
+    }
+
+    @Test
+    public void testRecord() {
+        SqlProfiler profiler = new SqlProfiler();
+        profiler.record("select ?", 2000000, 0);
+        profiler.record("select ?", 4000000, 0);
+        profiler.record("update t set a=?", 10000000, 5);
+
+        SqlProfile profile = profiler.getProfile("select ?");
+        assertEquals(2, profile.getExecuteCount());
+        assertEquals(3d, profile.getAverageMillis(), 0.0001);
+        assertEquals(4d, profile.getMaxMillis(), 0.0001);
+        assertTrue(profile.getPercentileMillis(50) >= 2d);
+        assertTrue(profile.getPercentileMillis(99) <= 4d);
+
+        List<SqlProfile> slowest = profiler.getSlowest(1);
+        assertEquals(1, slowest.size());
+        assertEquals("update t set a=?", slowest.get(0).getSql());
+        assertEquals(5, slowest.get(0).getRowCount());
+
+        assertEquals("select ?", profiler.getMostFrequent(2).get(0).getSql());
+
+        profiler.reset();
+        assertTrue(profiler.getProfiles().isEmpty());
+    }
+
+    @Test
+    public void testMaxStatements() {
+        SqlProfiler profiler = new SqlProfiler();
+        profiler.setMaxStatements(1);
+        profiler.record("select ?", 1000, 0);
+        profiler.record("select ? from t", 1000, 0);
+        assertEquals(1, profiler.getDroppedCount());
+        assertEquals(1, profiler.getProfile(SqlProfiler.OTHER_STATEMENTS).getExecuteCount());
+    }
+
+    @Test
+    public void testSampling() {
+        SqlProfiler profiler = new SqlProfiler();
+        profiler.setSampleRate(0);
+        assertFalse(profiler.isSampling());
+        assertFalse(profiler.shouldSample());
+        profiler.setSampleRate(1);
+        assertTrue(profiler.shouldSample());
+    }
+
+}
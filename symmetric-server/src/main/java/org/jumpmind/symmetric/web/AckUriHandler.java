@@ -46,6 +46,12 @@ public class AckUriHandler extends AbstractUriHandler {
         }
     };
 
+    /**
+     * Acks are applied in bulk, in chunks of this size, so the keep alive can
+     * still be written to the client between chunks.
+     */
+    protected static final int ACK_CHUNK_SIZE = 1000;
+
     private IAcknowledgeService acknowledgeService;
     
     public AckUriHandler(IParameterService parameterService, IAcknowledgeService acknowledgeService, IInterceptor...interceptors) {
@@ -66,8 +72,8 @@ public class AckUriHandler extends AbstractUriHandler {
         long ts = System.currentTimeMillis();
         PrintWriter writer = res.getWriter();
 
-        for (BatchAck batchInfo : batches) {
-            acknowledgeService.ack(batchInfo);
+        for (int i = 0; i < batches.size(); i += ACK_CHUNK_SIZE) {
+            acknowledgeService.ack(batches.subList(i, Math.min(i + ACK_CHUNK_SIZE, batches.size())));
 
             if (keepAliveMillis > 0 && System.currentTimeMillis() - ts >= keepAliveMillis) {
                 try {
@@ -85,9 +91,7 @@ public class AckUriHandler extends AbstractUriHandler {
     }
 
     protected void ack(List<BatchAck> batches) throws IOException {
-        for (BatchAck batchInfo : batches) {
-            acknowledgeService.ack(batchInfo);
-        }
+        acknowledgeService.ack(batches);
     }
 
 }
@@ -0,0 +1,140 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.web.rest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jumpmind.exception.IoException;
+import org.jumpmind.symmetric.io.data.Batch;
+import org.jumpmind.symmetric.io.data.writer.IStructureDataWriterListener;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the batches of a REST pull to the response as they are extracted so
+ * that a pull never has to hold its whole payload in memory.
+ * <p>
+ * In JSON format the document has the same shape as
+ * {@link org.jumpmind.symmetric.web.rest.model.PullDataResults} with the
+ * batch count written after the batches. In NDJSON format each batch is
+ * written on its own line followed by a final line that holds the batch count.
+ * A batch that failed part way through extraction is marked with
+ * <code>"inError":true</code> and should not be applied or acknowledged.
+ */
+public class PullDataStreamWriter implements IStructureDataWriterListener {
+
+    public enum Format {
+        JSON, NDJSON
+    };
+
+    protected JsonGenerator generator;
+
+    protected Format format;
+
+    protected boolean batchOpen;
+
+    public PullDataStreamWriter(OutputStream out, Format format) {
+        this.format = format;
+        try {
+            this.generator = new JsonFactory().createGenerator(out, JsonEncoding.UTF8);
+            if (format == Format.JSON) {
+                generator.writeStartObject();
+                generator.writeNumberField("transferStartTimeMillis", System.currentTimeMillis());
+                generator.writeArrayFieldStart("batches");
+            } else {
+                generator.setRootValueSeparator(null);
+            }
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    public void start(Batch batch) {
+        try {
+            closeBatch(true);
+            generator.writeStartObject();
+            generator.writeNumberField("batchId", batch.getBatchId());
+            generator.writeStringField("channelId", batch.getChannelId());
+            generator.writeArrayFieldStart("sqlStatements");
+            batchOpen = true;
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    public void write(Batch batch, String statement) {
+        try {
+            generator.writeString(statement);
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    public void end(Batch batch, boolean inError) {
+        try {
+            closeBatch(inError);
+            generator.flush();
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    /**
+     * Writes the number of batches that were successfully extracted and
+     * completes the document.
+     */
+    public void finish(int nbrBatches) {
+        try {
+            closeBatch(true);
+            if (format == Format.JSON) {
+                generator.writeEndArray();
+                generator.writeNumberField("nbrBatches", nbrBatches);
+                generator.writeEndObject();
+            } else {
+                generator.writeStartObject();
+                generator.writeNumberField("nbrBatches", nbrBatches);
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new IoException(e);
+        }
+    }
+
+    protected void closeBatch(boolean inError) throws IOException {
+        if (batchOpen) {
+            batchOpen = false;
+            generator.writeEndArray();
+            if (inError) {
+                generator.writeBooleanField("inError", true);
+            }
+            generator.writeEndObject();
+            if (format == Format.NDJSON) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+}
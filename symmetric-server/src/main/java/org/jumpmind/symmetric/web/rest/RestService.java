@@ -47,6 +47,8 @@ import org.jumpmind.db.model.Table;
 import org.jumpmind.db.sql.ISqlTemplate;
 import org.jumpmind.db.sql.Row;
 import org.jumpmind.db.util.BasicDataSourcePropertyConstants;
+import org.jumpmind.driver.SqlProfile;
+import org.jumpmind.driver.SqlProfiler;
 import org.jumpmind.exception.IoException;
 import org.jumpmind.symmetric.ISymmetricEngine;
 import org.jumpmind.symmetric.SymmetricException;
@@ -103,6 +105,8 @@ import org.jumpmind.symmetric.web.rest.model.QueryResults;
 import org.jumpmind.symmetric.web.rest.model.RegistrationInfo;
 import org.jumpmind.symmetric.web.rest.model.SendSchemaRequest;
 import org.jumpmind.symmetric.web.rest.model.SendSchemaResponse;
+import org.jumpmind.symmetric.web.rest.model.SqlStatementProfile;
+import org.jumpmind.symmetric.web.rest.model.SqlStatementProfileList;
 import org.jumpmind.symmetric.web.rest.model.TableName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -344,6 +348,49 @@ public class RestService {
         return queryNodeImpl(getSymmetricEngine(engineName), sql, isQuery);
     }
 
+    /**
+     * Returns the statements collected by the SQL profiler. Statements are
+     * only profiled when the jdbc:symds driver prefix is used and
+     * org.jumpmind.driver.ProfilingInterceptor is configured as the
+     * statement interceptor. The statistics are shared by all engines in the
+     * JVM.
+     * 
+     * @param orderBy
+     *            slowest (highest average time, the default), time (highest
+     *            total time) or frequent (most executions)
+     */
+    @ApiOperation(value = "Get the top statements collected by the SQL profiler")
+    @RequestMapping(value = "engine/sqlprofile", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public final SqlStatementProfileList getSqlProfile(
+            @RequestParam(value = "orderBy", required = false, defaultValue = "slowest") String orderBy,
+            @RequestParam(value = "limit", required = false, defaultValue = "20") int limit) {
+        SqlProfiler profiler = SqlProfiler.getInstance();
+        List<SqlProfile> profiles = null;
+        if ("frequent".equalsIgnoreCase(orderBy)) {
+            profiles = profiler.getMostFrequent(limit);
+        } else if ("time".equalsIgnoreCase(orderBy)) {
+            profiles = profiler.getMostTime(limit);
+        } else {
+            profiles = profiler.getSlowest(limit);
+        }
+        SqlStatementProfileList list = new SqlStatementProfileList();
+        for (SqlProfile profile : profiles) {
+            SqlStatementProfile statement = new SqlStatementProfile();
+            statement.setSql(profile.getSql());
+            statement.setExecuteCount(profile.getExecuteCount());
+            statement.setRowCount(profile.getRowCount());
+            statement.setTotalMillis(profile.getTotalMillis());
+            statement.setAverageMillis(profile.getAverageMillis());
+            statement.setP95Millis(profile.getPercentileMillis(95));
+            statement.setP99Millis(profile.getPercentileMillis(99));
+            statement.setMaxMillis(profile.getMaxMillis());
+            list.addStatement(statement);
+        }
+        return list;
+    }
+
     /**
      * Execute the named job.  This can be used to control when jobs are run via and external application.  You would typically 
      * disable the job first so it no longer runs automatically.  
@@ -987,14 +1034,7 @@ public class RestService {
                 results.setNbrBatches(batches.size());
                 processInfo.setStatus(org.jumpmind.symmetric.model.ProcessInfo.ProcessStatus.OK);
 
-                if (engine.getParameterService().is(ParameterConstants.REST_HEARTBEAT_ON_PULL)
-                        && hostName != null) {
-                    Heartbeat heartbeat = new Heartbeat();
-                    heartbeat.setNodeId(nodeId);
-                    heartbeat.setHeartbeatTime(new Date());
-                    heartbeat.setHostName(hostName);
-                    this.heartbeatImpl(engine, heartbeat);
-                }
+                heartbeatOnPull(engine, nodeId, hostName);
                 return results;
             } finally {
                 if (processInfo.getStatus() != org.jumpmind.symmetric.model.ProcessInfo.ProcessStatus.OK) {
@@ -1006,6 +1046,116 @@ public class RestService {
         }
     }
 
+    /**
+     * Pulls pending batches (data) for a given node and streams them to the
+     * client as they are extracted. Unlike {@link #getPullData} the whole
+     * payload is never held in memory. The response stops at the first batch
+     * boundary after maxBytes worth of SQL statements have been written. The
+     * remaining batches are returned on the next pull. Batches are
+     * acknowledged the same way as with pulldata.
+     * 
+     * @param format
+     *            json (the default) returns the same document as pulldata.
+     *            ndjson returns one batch per line followed by a line with
+     *            the batch count.
+     * @param maxBytes
+     *            Overrides the rest.api.pull.stream.max.bytes parameter for
+     *            this pull.
+     */
+    @ApiOperation(value = "Stream pending batches for the specified node for the single engine")
+    @RequestMapping(value = "/engine/pulldata/stream", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public final void getPullDataStream(
+            @RequestParam(value = WebConstants.NODE_ID) String nodeId,
+            @ApiParam(value="This the password for the nodeId being passed in.  The password is stored in the node_security table") 
+            @RequestParam(value = WebConstants.SECURITY_TOKEN) String securityToken,
+            @RequestParam(value = "useJdbcTimestampFormat", required = false, defaultValue = "true") boolean useJdbcTimestampFormat,
+            @RequestParam(value = "useUpsertStatements", required = false, defaultValue = "false") boolean useUpsertStatements,
+            @RequestParam(value = "useDelimitedIdentifiers", required = false, defaultValue = "true") boolean useDelimitedIdentifiers,
+            @RequestParam(value = "hostName", required = false) String hostName,
+            @RequestParam(value = "format", required = false, defaultValue = "json") String format,
+            @RequestParam(value = "maxBytes", required = false) Long maxBytes,
+            HttpServletResponse resp) {
+        getPullDataStream(getSymmetricEngine().getEngineName(), nodeId, securityToken,
+                useJdbcTimestampFormat, useUpsertStatements, useDelimitedIdentifiers, hostName,
+                format, maxBytes, resp);
+    }
+
+    @ApiOperation(value = "Stream pending batches for the specified node for the specified engine")
+    @RequestMapping(value = "/engine/{engine}/pulldata/stream", method = RequestMethod.GET)
+    @ResponseStatus(HttpStatus.OK)
+    @ResponseBody
+    public final void getPullDataStream(
+            @PathVariable("engine") String engineName,
+            @RequestParam(value = WebConstants.NODE_ID) String nodeId,
+            @ApiParam(value="This the password for the nodeId being passed in.  The password is stored in the node_security table.") 
+            @RequestParam(value = WebConstants.SECURITY_TOKEN) String securityToken,
+            @RequestParam(value = "useJdbcTimestampFormat", required = false, defaultValue = "true") boolean useJdbcTimestampFormat,
+            @RequestParam(value = "useUpsertStatements", required = false, defaultValue = "false") boolean useUpsertStatements,
+            @RequestParam(value = "useDelimitedIdentifiers", required = false, defaultValue = "true") boolean useDelimitedIdentifiers,
+            @RequestParam(value = "hostName", required = false) String hostName,
+            @RequestParam(value = "format", required = false, defaultValue = "json") String format,
+            @RequestParam(value = "maxBytes", required = false) Long maxBytes,
+            HttpServletResponse resp) {
+
+        ISymmetricEngine engine = getSymmetricEngine(engineName);
+
+        IDataExtractorService dataExtractorService = engine.getDataExtractorService();
+        IStatisticManager statisticManager = engine.getStatisticManager();
+        INodeService nodeService = engine.getNodeService();
+        org.jumpmind.symmetric.model.Node targetNode = nodeService.findNode(nodeId, true);
+
+        if (securityVerified(nodeId, engine, securityToken)) {
+            PullDataStreamWriter.Format streamFormat = "ndjson".equalsIgnoreCase(format) ? 
+                    PullDataStreamWriter.Format.NDJSON : PullDataStreamWriter.Format.JSON;
+            if (maxBytes == null) {
+                maxBytes = engine.getParameterService().getLong(ParameterConstants.REST_PULL_STREAM_MAX_BYTES);
+            }
+            ProcessInfo processInfo = statisticManager.newProcessInfo(new ProcessInfoKey(
+                    nodeService.findIdentityNodeId(), nodeId, ProcessType.REST_PULL_HANLDER));
+            try {
+                resp.setContentType(streamFormat == PullDataStreamWriter.Format.NDJSON ? 
+                        "application/x-ndjson" : "application/json");
+                resp.setCharacterEncoding("UTF-8");
+                PullDataStreamWriter writer = new PullDataStreamWriter(resp.getOutputStream(), streamFormat);
+                List<OutgoingBatch> extractedBatches = dataExtractorService.extractToPayload(processInfo,
+                        targetNode, PayloadType.SQL, useJdbcTimestampFormat, useUpsertStatements,
+                        useDelimitedIdentifiers, writer, maxBytes);
+                int nbrBatches = 0;
+                for (OutgoingBatch outgoingBatch : extractedBatches) {
+                    if (outgoingBatch.getStatus() == org.jumpmind.symmetric.model.OutgoingBatch.Status.LD
+                            || outgoingBatch.getStatus() == org.jumpmind.symmetric.model.OutgoingBatch.Status.IG) {
+                        nbrBatches++;
+                    }
+                }
+                writer.finish(nbrBatches);
+                processInfo.setStatus(org.jumpmind.symmetric.model.ProcessInfo.ProcessStatus.OK);
+
+                heartbeatOnPull(engine, nodeId, hostName);
+            } catch (IOException e) {
+                throw new IoException(e);
+            } finally {
+                if (processInfo.getStatus() != org.jumpmind.symmetric.model.ProcessInfo.ProcessStatus.OK) {
+                    processInfo.setStatus(org.jumpmind.symmetric.model.ProcessInfo.ProcessStatus.ERROR);
+                }
+            }
+        } else {
+            throw new NotAllowedException();
+        }
+    }
+
+    protected void heartbeatOnPull(ISymmetricEngine engine, String nodeId, String hostName) {
+        if (engine.getParameterService().is(ParameterConstants.REST_HEARTBEAT_ON_PULL)
+                && hostName != null) {
+            Heartbeat heartbeat = new Heartbeat();
+            heartbeat.setNodeId(nodeId);
+            heartbeat.setHeartbeatTime(new Date());
+            heartbeat.setHostName(hostName);
+            this.heartbeatImpl(engine, heartbeat);
+        }
+    }
+
     /**
      * Sends a heartbeat to the server for the given node.
      * 
@@ -35,6 +35,12 @@ public class Batch {
 	 * The list of sql statements captured on the source for this batch
 	 */
 	private List<String> sqlStatements;
+
+	/**
+	 * Set when the batch failed part way through extraction. The statements
+	 * are incomplete and the batch should not be applied or acknowledged.
+	 */
+	private boolean inError;
 	
 	/**
 	 * Returns the batchId for this batch
@@ -75,4 +81,20 @@ public class Batch {
 	public void setSqlStatements(List<String> sqlStatements) {
 		this.sqlStatements = sqlStatements;
 	}
+
+	/**
+	 * Returns true if the batch failed part way through extraction
+	 * @return
+	 */
+	public boolean isInError() {
+		return inError;
+	}
+
+	/**
+	 * Setter for the inError field
+	 * @param inError
+	 */
+	public void setInError(boolean inError) {
+		this.inError = inError;
+	}
 }
@@ -0,0 +1,51 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.symmetric.web.rest.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+@XmlRootElement(name = "sqlstatementprofilelist")
+public class SqlStatementProfileList {
+
+    List<SqlStatementProfile> statements;
+
+    public SqlStatementProfileList() {
+        this.statements = new ArrayList<SqlStatementProfile>();
+    }
+
+    public SqlStatementProfile[] getStatements() {
+        return statements.toArray(new SqlStatementProfile[statements.size()]);
+    }
+
+    public void setStatements(SqlStatementProfile[] statements) {
+        this.statements = new ArrayList<SqlStatementProfile>();
+        for (SqlStatementProfile statement : statements) {
+            this.statements.add(statement);
+        }
+    }
+
+    public void addStatement(SqlStatementProfile statement) {
+        this.statements.add(statement);
+    }
+}
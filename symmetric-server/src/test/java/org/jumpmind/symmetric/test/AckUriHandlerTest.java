@@ -3,13 +3,21 @@ package org.jumpmind.symmetric.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -23,6 +31,7 @@ import org.jumpmind.symmetric.model.AbstractBatch.Status;
 import org.jumpmind.symmetric.model.BatchAck;
 import org.jumpmind.symmetric.model.BatchAckResult;
 import org.jumpmind.symmetric.model.OutgoingBatch;
+import org.jumpmind.symmetric.model.OutgoingBatches;
 import org.jumpmind.symmetric.service.IAcknowledgeService;
 import org.jumpmind.symmetric.service.IConfigurationService;
 import org.jumpmind.symmetric.service.IExtensionService;
@@ -36,6 +45,7 @@ import org.jumpmind.symmetric.web.AckUriHandler;
 import org.jumpmind.symmetric.web.WebConstants;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 public class AckUriHandlerTest {
 
@@ -69,6 +79,7 @@ public class AckUriHandlerTest {
         batch = new OutgoingBatch(NODE_ID, CHANNEL_ID, Status.LD);
         batch.setBatchId(BATCH_ID);
         when(outgoingBatchService.findOutgoingBatch(BATCH_ID, NODE_ID)).thenReturn(batch);
+        when(outgoingBatchService.getOutgoingBatchRange(anyString(), anyLong(), anyLong())).thenReturn(new OutgoingBatches());
         
         when(databasePlatform.getDatabaseInfo()).thenReturn(new DatabaseInfo());
         when(symmetricDialect.getPlatform()).thenReturn(databasePlatform);
@@ -96,7 +107,9 @@ public class AckUriHandlerTest {
         paramMap.put(WebConstants.ACK_BATCH_NAME + BATCH_ID, new String[] { WebConstants.ACK_BATCH_RESEND });
         paramMap.put(WebConstants.ACK_NODE_ID + BATCH_ID, new String[] { NODE_ID });
         IAcknowledgeService ackService = new AcknowledgeService(engine) {
-            public BatchAckResult ack(BatchAck batch) {
+            public List<BatchAckResult> ack(List<BatchAck> batches) {
+                assertEquals(1, batches.size());
+                BatchAck batch = batches.get(0);
                 assertEquals(BATCH_ID, batch.getBatchId());
                 assertEquals(NODE_ID, batch.getNodeId());
                 assertTrue(batch.isResend());
@@ -121,7 +134,9 @@ public class AckUriHandlerTest {
         paramMap.put(WebConstants.ACK_SQL_MESSAGE + BATCH_ID, new String[] { "Lock timeout" });
 
         IAcknowledgeService ackService = new AcknowledgeService(engine) {
-            public BatchAckResult ack(BatchAck batch) {
+            public List<BatchAckResult> ack(List<BatchAck> batches) {
+                assertEquals(1, batches.size());
+                BatchAck batch = batches.get(0);
                 assertEquals(BATCH_ID, batch.getBatchId());
                 assertEquals(NODE_ID, batch.getNodeId());
                 assertFalse(batch.isResend());
@@ -157,4 +172,37 @@ public class AckUriHandlerTest {
         assertFalse(batch.isErrorFlag());
     }
 
+    /**
+     * Test that OK acks are read with one range query and written with one
+     * bulk update
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testOutgoingBatchBulkOk() throws Exception {
+        OutgoingBatch batch2 = new OutgoingBatch(NODE_ID, CHANNEL_ID, Status.LD);
+        batch2.setBatchId(BATCH_ID + 1);
+        OutgoingBatches range = new OutgoingBatches();
+        range.setBatches(Arrays.asList(batch, batch2));
+        IOutgoingBatchService outgoingBatchService = engine.getOutgoingBatchService();
+        when(outgoingBatchService.getOutgoingBatchRange(NODE_ID, BATCH_ID, BATCH_ID + 1)).thenReturn(range);
+
+        paramMap.put(WebConstants.ACK_BATCH_NAME + BATCH_ID, new String[] { WebConstants.ACK_BATCH_OK });
+        paramMap.put(WebConstants.ACK_NODE_ID + BATCH_ID, new String[] { NODE_ID });
+        paramMap.put(WebConstants.ACK_BATCH_NAME + (BATCH_ID + 1), new String[] { WebConstants.ACK_BATCH_OK });
+        paramMap.put(WebConstants.ACK_NODE_ID + (BATCH_ID + 1), new String[] { NODE_ID });
+
+        IAcknowledgeService ackService = new AcknowledgeService(engine);
+        AckUriHandler uriHandler = new AckUriHandler(engine.getParameterService(), ackService);
+        uriHandler.handle(request, response);
+
+        assertEquals(Status.OK, batch.getStatus());
+        assertEquals(Status.OK, batch2.getStatus());
+        verify(outgoingBatchService, never()).findOutgoingBatch(anyLong(), anyString());
+        verify(outgoingBatchService, never()).updateOutgoingBatch(any(OutgoingBatch.class));
+        ArgumentCaptor<List<OutgoingBatch>> updated = ArgumentCaptor.forClass(List.class);
+        verify(outgoingBatchService).updateOutgoingBatches(updated.capture());
+        assertEquals(2, updated.getValue().size());
+        assertEquals(new HashSet<OutgoingBatch>(Arrays.asList(batch, batch2)), new HashSet<OutgoingBatch>(updated.getValue()));
+    }
+
 }
@@ -20,9 +20,18 @@
  */
 package org.jumpmind.symmetric.test;
 
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.sql.Types;
 import java.util.List;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.DatabaseNamesConstants;
@@ -40,6 +49,9 @@ import org.jumpmind.symmetric.web.rest.model.BatchResults;
 import org.jumpmind.symmetric.web.rest.model.PullDataResults;
 import org.jumpmind.symmetric.web.rest.model.RegistrationInfo;
 import org.jumpmind.util.FormatUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import static org.junit.Assert.*;
 
 public class RestServiceTest extends AbstractTest {
@@ -197,11 +209,42 @@ public class RestServiceTest extends AbstractTest {
             assertEquals(1, batch.getSqlStatements().size());
             assertTrue(batch.getSqlStatements().get(0).toLowerCase().startsWith("delete from"));
         }
+
+        // a streamed pull with a tiny byte budget stops after the first batch
+        results = pullDataStream(restService, registrationInfo, 1l);
+        assertEquals(1, results.getNbrBatches());
+        assertEquals(batches.get(0).getBatchId(), results.getBatches().get(0).getBatchId());
+        assertEquals(batches.get(0).getSqlStatements(), results.getBatches().get(0).getSqlStatements());
+
+        results = pullDataStream(restService, registrationInfo, null);
+        assertEquals(3, results.getNbrBatches());
+        assertEquals(3, results.getBatches().size());
         
         ackBatches(restService, registrationInfo, results, buildBatchResults(registrationInfo, results));
 
     }
     
+    protected PullDataResults pullDataStream(RestService restService, RegistrationInfo registrationInfo,
+            Long maxBytes) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        when(resp.getOutputStream()).thenReturn(new ServletOutputStream() {
+            public void write(int b) throws IOException {
+                bytes.write(b);
+            }
+
+            public boolean isReady() {
+                return true;
+            }
+
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+        restService.getPullDataStream("server", registrationInfo.getNodeId(),
+                registrationInfo.getNodePassword(), false, false, true, null, "json", maxBytes, resp);
+        return new ObjectMapper().readValue(bytes.toByteArray(), PullDataResults.class);
+    }
+
     protected BatchResults buildBatchResults(RegistrationInfo registrationInfo, PullDataResults results) {
         BatchResults batchResults = new BatchResults();
         batchResults.setNodeId(registrationInfo.getNodeId());
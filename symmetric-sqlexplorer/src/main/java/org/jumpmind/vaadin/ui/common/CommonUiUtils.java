@@ -365,7 +365,18 @@ public final class CommonUiUtils {
 
 	public static Grid putResultsInGrid(final ResultSet rs, org.jumpmind.db.model.Table resultTable, int maxResultSize, final boolean showRowNumbers, String... excludeValues)
             throws SQLException {
+        Grid grid = createResultsGrid(rs, excludeValues);
+        addResultsToGrid(grid, rs, 1, maxResultSize, Long.MAX_VALUE, excludeValues);
+        setRowNumberColumn(grid, showRowNumbers);
+        return grid;
+    }
 
+    /**
+     * Creates a grid with a column for each column of the result set that is
+     * not excluded. Rows are added with
+     * {@link #addResultsToGrid(Grid, ResultSet, int, int, long, String...)}.
+     */
+    public static Grid createResultsGrid(final ResultSet rs, String... excludeValues) throws SQLException {
         final Grid grid = new Grid();
         grid.setSelectionMode(SelectionMode.MULTI);
         grid.setColumnReorderingAllowed(true);
@@ -375,8 +386,6 @@ public final class CommonUiUtils {
         int columnCount = meta.getColumnCount();
         grid.addColumn("#", Integer.class).setHeaderCaption("#").setHidable(true);
         Set<String> columnNames = new HashSet<String>();
-        Set<Integer> skipColumnIndexes = new HashSet<Integer>();
-        int[] types = new int[columnCount];
         for (int i = 1; i <= columnCount; i++) {
             String realColumnName = meta.getColumnName(i);
             String columnName = realColumnName;
@@ -390,7 +399,6 @@ public final class CommonUiUtils {
 
                 Class<?> typeClass = Object.class;
                 int type = meta.getColumnType(i);
-                types[i - 1] = type;
                 switch (type) {
                     case Types.FLOAT:
                     case Types.DOUBLE:
@@ -475,18 +483,47 @@ public final class CommonUiUtils {
                 		
                 	});
                 }
-            } else {
-                skipColumnIndexes.add(i - 1);
             }
+        }
+        return grid;
+    }
 
+    /**
+     * Adds the next rows of the result set to the grid until the result set
+     * is exhausted or either the row or the byte limit is reached. No row is
+     * read past the limits, so a result set that is held open can be used to
+     * fetch the following page.
+     * 
+     * @return true if the limits were reached before the end of the result
+     *         set
+     */
+    public static boolean addResultsToGrid(Grid grid, final ResultSet rs, int firstRowNumber, int maxResultSize,
+            long maxResultBytes, String... excludeValues) throws SQLException {
+        final ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+        List<String> excludes = Arrays.asList(excludeValues);
+        int includedColumnCount = 0;
+        boolean[] skipColumns = new boolean[columnCount];
+        int[] types = new int[columnCount];
+        for (int i = 1; i <= columnCount; i++) {
+            skipColumns[i - 1] = excludes.contains(meta.getColumnName(i));
+            types[i - 1] = meta.getColumnType(i);
+            if (!skipColumns[i - 1]) {
+                includedColumnCount++;
+            }
         }
-        int rowNumber = 1;
-        while (rs.next() && rowNumber <= maxResultSize) {
-            Object[] row = new Object[columnNames.size() + 1];
+
+        int rowNumber = firstRowNumber;
+        long bytes = 0;
+        while (rowNumber - firstRowNumber < maxResultSize && bytes < maxResultBytes) {
+            if (!rs.next()) {
+                return false;
+            }
+            Object[] row = new Object[includedColumnCount + 1];
             row[0] = new Integer(rowNumber);
             int rowIndex = 1;
             for (int i = 0; i < columnCount; i++) {
-                if (!skipColumnIndexes.contains(i)) {
+                if (!skipColumns[i]) {
                     Object o = getObject(rs, i + 1);
                     int type = types[i];
                     switch (type) {
@@ -511,13 +548,30 @@ public final class CommonUiUtils {
                             break;
                     }
                     row[rowIndex] = o;
+                    bytes += estimateSize(o);
                     rowIndex++;
                 }
             }
             grid.addRow(row);
             rowNumber++;
         }
+        return true;
+    }
 
+    protected static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof String) {
+            return 2 * ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else {
+            return 16;
+        }
+    }
+
+    public static void setRowNumberColumn(Grid grid, boolean showRowNumbers) {
+        int rowNumber = grid.getContainerDataSource().size();
         if (rowNumber < 100) {
             grid.getColumn("#").setWidth(75);
         } else if (rowNumber < 1000) {
@@ -531,10 +585,6 @@ public final class CommonUiUtils {
         } else {
             grid.setFrozenColumnCount(1);
         }
-
-        
-        
-        return grid;
     }
 
     protected static String castToNumber(String value) {
@@ -0,0 +1,112 @@
+/**
+ * Licensed to JumpMind Inc under one or more contributor
+ * license agreements.  See the NOTICE file distributed
+ * with this work for additional information regarding
+ * copyright ownership.  JumpMind Inc licenses this file
+ * to you under the GNU General Public License, version 3.0 (GPLv3)
+ * (the "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * You should have received a copy of the GNU General Public License,
+ * version 3.0 (GPLv3) along with this library; if not, see
+ * <http://www.gnu.org/licenses/>.
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jumpmind.vaadin.ui.sqlexplorer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jumpmind.db.sql.ISqlRowMapper;
+import org.jumpmind.db.sql.JdbcSqlReadCursor;
+import org.jumpmind.db.sql.JdbcSqlTemplate;
+import org.jumpmind.db.sql.Row;
+
+/**
+ * A read cursor that is held open between pages of a result grid. It runs on
+ * its own connection and closes itself when no page has been read for the
+ * idle timeout, so an abandoned result tab does not hold a connection and an
+ * open result set.
+ */
+public class ResultSetCursor extends JdbcSqlReadCursor<Row> {
+
+    private static final ScheduledExecutorService idleCloser = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "sql-explorer-cursor-closer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    protected ScheduledFuture<?> idleClose;
+
+    protected boolean closed;
+
+    public ResultSetCursor(JdbcSqlTemplate sqlTemplate, String sql) {
+        super(sqlTemplate, new ISqlRowMapper<Row>() {
+            public Row mapRow(Row row) {
+                return row;
+            }
+        }, sql, null, null);
+    }
+
+    public ResultSet getResultSet() {
+        return rs;
+    }
+
+    /**
+     * Moves past the given number of rows, which were already shown to the
+     * user by an earlier read of the same query.
+     */
+    public synchronized void skip(int rowCount) throws SQLException {
+        for (int i = 0; i < rowCount && rs != null && rs.next(); i++) {
+        }
+    }
+
+    /**
+     * Schedules the cursor to be closed if it is not used again within the
+     * timeout. Each call replaces the previous schedule.
+     */
+    public synchronized void closeWhenIdle(long idleTimeoutMs) {
+        cancelIdleClose();
+        if (!closed) {
+            idleClose = idleCloser.schedule(new Runnable() {
+                public void run() {
+                    close();
+                }
+            }, idleTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        cancelIdleClose();
+        if (!closed) {
+            closed = true;
+            super.close();
+        }
+    }
+
+    protected void cancelIdleClose() {
+        if (idleClose != null) {
+            idleClose.cancel(false);
+            idleClose = null;
+        }
+    }
+
+}
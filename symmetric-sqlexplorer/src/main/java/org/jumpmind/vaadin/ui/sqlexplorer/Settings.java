@@ -45,6 +45,10 @@ public class Settings implements Serializable {
     public static final String SQL_EXPLORER_DELIMITER = "sql.explorer.delimiter";
 
     public static final String SQL_EXPLORER_MAX_RESULTS = "sql.explorer.max.results";
+
+    public static final String SQL_EXPLORER_MAX_RESULT_BYTES = "sql.explorer.max.result.bytes";
+
+    public static final String SQL_EXPLORER_CURSOR_IDLE_TIMEOUT_MS = "sql.explorer.cursor.idle.timeout.ms";
     
     public static final String SQL_EXPLORER_MAX_HISTORY = "sql.explorer.max.history";
     
@@ -62,6 +66,8 @@ public class Settings implements Serializable {
         properties.put(SQL_EXPLORER_RESULT_AS_TEXT, "false");
         properties.put(SQL_EXPLORER_EXCLUDE_TABLES_REGEX, "(SYM_)\\w+");
         properties.put(SQL_EXPLORER_MAX_RESULTS, "1000");
+        properties.put(SQL_EXPLORER_MAX_RESULT_BYTES, "10485760");
+        properties.put(SQL_EXPLORER_CURSOR_IDLE_TIMEOUT_MS, "300000");
         properties.put(SQL_EXPLORER_MAX_HISTORY, "100");
         properties.put(SQL_EXPLORER_IGNORE_ERRORS_WHEN_RUNNING_SCRIPTS, "false");
         properties.put(SQL_EXPLORER_SHOW_RESULTS_IN_NEW_TABS, "false");
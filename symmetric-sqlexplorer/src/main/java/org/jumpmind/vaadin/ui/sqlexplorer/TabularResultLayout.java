@@ -22,12 +22,19 @@ package org.jumpmind.vaadin.ui.sqlexplorer;
 
 import static org.apache.commons.lang.StringUtils.isBlank;
 import static org.apache.commons.lang.StringUtils.isNotBlank;
+import static org.jumpmind.vaadin.ui.sqlexplorer.Settings.SQL_EXPLORER_CURSOR_IDLE_TIMEOUT_MS;
 import static org.jumpmind.vaadin.ui.sqlexplorer.Settings.SQL_EXPLORER_MAX_RESULTS;
+import static org.jumpmind.vaadin.ui.sqlexplorer.Settings.SQL_EXPLORER_MAX_RESULT_BYTES;
 import static org.jumpmind.vaadin.ui.sqlexplorer.Settings.SQL_EXPLORER_SHOW_ROW_NUMBERS;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Time;
 import java.sql.Timestamp;
@@ -43,6 +50,7 @@ import java.util.Map;
 
 import javax.sql.DataSource;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.lang.StringUtils;
 import org.jumpmind.db.model.Column;
 import org.jumpmind.db.model.ForeignKey;
@@ -50,11 +58,14 @@ import org.jumpmind.db.model.Reference;
 import org.jumpmind.db.model.Table;
 import org.jumpmind.db.platform.DatabaseInfo;
 import org.jumpmind.db.platform.IDdlReader;
+import org.jumpmind.db.sql.JdbcSqlTemplate;
 import org.jumpmind.db.sql.SqlException;
 import org.jumpmind.properties.TypedProperties;
+import org.jumpmind.symmetric.csv.CsvWriter;
 import org.jumpmind.util.FormatUtils;
 import org.jumpmind.vaadin.ui.common.CommonUiUtils;
 import org.jumpmind.vaadin.ui.common.ExportDialog;
+import org.jumpmind.vaadin.ui.common.ExportFileDownloader;
 import org.jumpmind.vaadin.ui.common.Grid7DataProvider;
 import org.jumpmind.vaadin.ui.common.NotifyDialog;
 import org.jumpmind.vaadin.ui.common.ReadOnlyTextAreaDialog;
@@ -77,6 +88,7 @@ import com.vaadin.ui.MenuBar.Command;
 import com.vaadin.ui.MenuBar.MenuItem;
 import com.vaadin.ui.Notification;
 import com.vaadin.ui.Notification.Type;
+import com.vaadin.ui.UI;
 import com.vaadin.ui.VerticalLayout;
 import com.vaadin.ui.themes.ValoTheme;
 import com.vaadin.v7.data.Item;
@@ -149,6 +161,14 @@ public class TabularResultLayout extends VerticalLayout {
 
     Label resultLabel;
 
+    MenuBar.MenuItem nextPageButton;
+
+    ResultSetCursor cursor;
+
+    int firstRowNumber = 1;
+
+    boolean limited;
+
     public TabularResultLayout(IDb db, String sql, ResultSet rs, ISqlRunnerListener listener, Settings settings, boolean showSql)
             throws SQLException {
         this(null, db, sql, rs, listener, null, settings, null, showSql, false);
@@ -287,18 +307,144 @@ public class TabularResultLayout extends VerticalLayout {
             this.addComponent(grid);
             this.setExpandRatio(grid, 1);
 
-            int count = (grid.getContainerDataSource().getItemIds().size());
-            int maxResultsSize = settings.getProperties().getInt(SQL_EXPLORER_MAX_RESULTS);
-            if (count >= maxResultsSize) {
-                resultLabel.setValue("Limited to <span style='color: red'>" + maxResultsSize + "</span> rows;");
+            updateResultLabel();
+        } catch (SQLException ex) {
+            log.error(ex.getMessage(), ex);
+            CommonUiUtils.notify(ex);
+        }
+
+    }
+
+    protected void updateResultLabel() {
+        if (grid != null) {
+            int count = grid.getContainerDataSource().size();
+            if (firstRowNumber > 1) {
+                resultLabel.setValue("Rows " + firstRowNumber + " to " + (firstRowNumber + count - 1)
+                        + (limited ? ";" : " (end of results);"));
+            } else if (limited) {
+                resultLabel.setValue("Limited to <span style='color: red'>" + count + "</span> rows;");
             } else {
                 resultLabel.setValue(count + " rows returned;");
             }
-        } catch (SQLException ex) {
+            nextPageButton.setVisible(limited && isPageable());
+        }
+    }
+
+    /**
+     * Only queries are read again on a separate connection to page through
+     * or export their results.
+     */
+    protected boolean isPageable() {
+        String lowercaseSql = sql.trim().toLowerCase();
+        return lowercaseSql.startsWith("select") || lowercaseSql.startsWith("with");
+    }
+
+    protected long getMaxResultBytes() {
+        return settings.getProperties().getLong(SQL_EXPLORER_MAX_RESULT_BYTES, 10485760);
+    }
+
+    /**
+     * Replaces the rows in the grid with the next page of results. The query
+     * is run again on a cursor that is held open for the following pages and
+     * closed when it has been idle for the configured timeout.
+     */
+    protected void fetchNextPage() {
+        TypedProperties properties = settings.getProperties();
+        int rowCount = grid.getContainerDataSource().size();
+        try {
+            if (cursor == null || cursor.isClosed()) {
+                cursor = new ResultSetCursor((JdbcSqlTemplate) db.getPlatform().getSqlTemplate(), sql);
+                cursor.skip(firstRowNumber - 1 + rowCount);
+            }
+            synchronized (cursor) {
+                if (cursor.isClosed()) {
+                    cursor = null;
+                    fetchNextPage();
+                    return;
+                }
+                grid.deselectAll();
+                grid.getContainerDataSource().removeAllItems();
+                firstRowNumber += rowCount;
+                limited = cursor.getResultSet() != null && CommonUiUtils.addResultsToGrid(grid, cursor.getResultSet(),
+                        firstRowNumber, properties.getInt(SQL_EXPLORER_MAX_RESULTS), getMaxResultBytes(), getColumnsToExclude());
+                if (limited) {
+                    cursor.closeWhenIdle(properties.getLong(SQL_EXPLORER_CURSOR_IDLE_TIMEOUT_MS, 300000));
+                } else {
+                    closeCursor();
+                }
+            }
+        } catch (Exception ex) {
+            closeCursor();
             log.error(ex.getMessage(), ex);
             CommonUiUtils.notify(ex);
         }
+        updateResultLabel();
+    }
 
+    protected void closeCursor() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    /**
+     * Runs the query again and writes every row straight to a CSV file
+     * instead of exporting the rows that are loaded in the grid.
+     */
+    @SuppressWarnings("deprecation")
+    protected void exportAllRows() {
+        ResultSetCursor exportCursor = null;
+        CsvWriter csvWriter = null;
+        File file = null;
+        try {
+            file = File.createTempFile(db.getName() + "-export", ".csv");
+            csvWriter = new CsvWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8")), ',');
+            exportCursor = new ResultSetCursor((JdbcSqlTemplate) db.getPlatform().getSqlTemplate(), sql);
+            ResultSet exportRs = exportCursor.getResultSet();
+            if (exportRs != null) {
+                ResultSetMetaData meta = exportRs.getMetaData();
+                int columnCount = meta.getColumnCount();
+                for (int i = 1; i <= columnCount; i++) {
+                    csvWriter.write(meta.getColumnName(i));
+                }
+                csvWriter.endRecord();
+                while (exportRs.next()) {
+                    for (int i = 1; i <= columnCount; i++) {
+                        Object value = JdbcSqlTemplate.getResultSetValue(exportRs, meta, i, false);
+                        if (value instanceof byte[]) {
+                            value = new String(Hex.encodeHex((byte[]) value));
+                        }
+                        csvWriter.write(value == null ? "" : value.toString());
+                    }
+                    csvWriter.endRecord();
+                }
+            }
+            csvWriter.close();
+            csvWriter = null;
+
+            ExportFileDownloader downloader = new ExportFileDownloader(db.getName() + "-export.csv", "text/csv", file);
+            UI.getCurrent().getPage().open(downloader, "Download", false);
+        } catch (Exception ex) {
+            log.error(ex.getMessage(), ex);
+            CommonUiUtils.notify(ex);
+        } finally {
+            if (csvWriter != null) {
+                csvWriter.close();
+            }
+            if (exportCursor != null) {
+                exportCursor.close();
+            }
+            if (file != null) {
+                file.delete();
+            }
+        }
+    }
+
+    @Override
+    public void detach() {
+        super.detach();
+        closeCursor();
     }
 
     private void createMenuBar() {
@@ -345,6 +491,31 @@ public class TabularResultLayout extends VerticalLayout {
         exportButton.setIcon(FontAwesome.UPLOAD);
         exportButton.setDescription("Export Results");
 
+        if (isPageable()) {
+            MenuBar.MenuItem exportAllButton = rightBar.addItem("", new Command() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void menuSelected(MenuBar.MenuItem selectedItem) {
+                    exportAllRows();
+                }
+            });
+            exportAllButton.setIcon(FontAwesome.FILE_TEXT_O);
+            exportAllButton.setDescription("Export All Rows to CSV");
+        }
+
+        nextPageButton = rightBar.addItem("", new Command() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void menuSelected(MenuBar.MenuItem selectedItem) {
+                fetchNextPage();
+            }
+        });
+        nextPageButton.setIcon(FontAwesome.ARROW_RIGHT);
+        nextPageButton.setDescription("Next Page");
+        nextPageButton.setVisible(false);
+
         if (isInQueryGeneralResults) {
             MenuBar.MenuItem keepResultsButton = rightBar.addItem("", new Command() {
                 private static final long serialVersionUID = 1L;
@@ -374,6 +545,7 @@ public class TabularResultLayout extends VerticalLayout {
         isInQueryGeneralResults = false;
         this.removeComponent(this.getComponent(0));
         createMenuBar();
+        updateResultLabel();
         return this;
     }
 
@@ -742,8 +914,10 @@ public class TabularResultLayout extends VerticalLayout {
         }
 
         TypedProperties properties = settings.getProperties();
-        return CommonUiUtils.putResultsInGrid(rs, resultTable, properties.getInt(SQL_EXPLORER_MAX_RESULTS),
-                properties.is(SQL_EXPLORER_SHOW_ROW_NUMBERS), getColumnsToExclude());
+        Grid resultGrid = CommonUiUtils.createResultsGrid(rs, getColumnsToExclude());
+        limited = CommonUiUtils.addResultsToGrid(resultGrid, rs, 1, maxResultSize, getMaxResultBytes(), getColumnsToExclude());
+        CommonUiUtils.setRowNumberColumn(resultGrid, properties.is(SQL_EXPLORER_SHOW_ROW_NUMBERS));
+        return resultGrid;
 
     }
 